@@ -0,0 +1,56 @@
+package wmesaf.basicschool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import wmesaf.basicschool.dao.CourseDAO;
+import wmesaf.basicschool.dao.StudentDAO;
+import wmesaf.basicschool.model.Course;
+import wmesaf.basicschool.model.Student;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DAO reads that load whole tables or search them: the student list,
+ * the course list with teachers and enrolled students, and course search.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaoBenchmark {
+
+    /**
+     * كلمة بحث ضيقة (موضوع واحد) وأخرى واسعة (مستوى يظهر في سدس المواد تقريباً)
+     */
+    @State(Scope.Benchmark)
+    public static class Query {
+        @Param({"Genetics", "Advanced"})
+        public String keyword;
+    }
+
+    private StudentDAO studentDAO;
+    private CourseDAO courseDAO;
+
+    @Setup(Level.Trial)
+    public void setUp(SchoolFixture fixture) {
+        studentDAO = new StudentDAO();
+        courseDAO = new CourseDAO();
+    }
+
+    @Benchmark
+    public List<Student> getAllStudents() {
+        return studentDAO.getAllStudents();
+    }
+
+    @Benchmark
+    public List<Course> getAllCourses() {
+        return courseDAO.getAllCourses();
+    }
+
+    @Benchmark
+    public List<Course> searchCourses(Query query) {
+        return courseDAO.searchCourses(query.keyword);
+    }
+}
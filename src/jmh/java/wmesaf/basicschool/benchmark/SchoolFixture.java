@@ -0,0 +1,89 @@
+package wmesaf.basicschool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import wmesaf.basicschool.dao.EntityCache;
+import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.database.SyntheticDataGenerator;
+import wmesaf.basicschool.database.SyntheticDataGenerator.Sizes;
+import wmesaf.basicschool.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A generated SQLite database for the benchmarks to read.
+ *
+ * Each size is generated once with SyntheticDataGenerator into
+ * target/jmh-fixtures (or -Dschool.bench.dir) and reused by later runs; a
+ * ".ready" file next to it marks a complete fixture, so one interrupted
+ * while generating is deleted and built again. The database file is fixed
+ * per JVM by DatabaseConnection, which is why every benchmark must run in
+ * a fork (the JMH default) and never with -f 0.
+ *
+ * The DAOs and services log a line for almost every call; only errors are
+ * logged in the fork so the console shows JMH's own output.
+ */
+@State(Scope.Benchmark)
+public class SchoolFixture {
+    static final long SEED = 20251205L;
+
+    @Param({"small", "medium"})
+    public String size;
+
+    // الذاكرة المؤقتة معطلة افتراضياً حتى تقيس المقاييس طريق قاعدة البيانات نفسه
+    @Param({"false"})
+    public boolean cache;
+
+    private DatabaseConnection db;
+
+    static Sizes sizesFor(String name) {
+        return switch (name) {
+            case "small" -> new Sizes(2_000, 100, 200, 20_000L, SEED);
+            case "medium" -> new Sizes(20_000, 1_000, 2_000, 200_000L, SEED);
+            case "large" -> new Sizes(100_000, 5_000, 10_000, 2_000_000L, SEED);
+            default -> throw new IllegalArgumentException("Unknown fixture size: " + name + " (small, medium, large)");
+        };
+    }
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        Sizes sizes = sizesFor(size);
+        File dir = new File(System.getProperty("school.bench.dir", "target/jmh-fixtures"));
+        File file = new File(dir, "school_" + size + "_" + sizes.seed() + ".db");
+        File ready = new File(dir, file.getName() + ".ready");
+
+        if (!ready.exists()) {
+            for (String suffix : new String[] {"", "-wal", "-shm"}) {
+                File stale = new File(file.getPath() + suffix);
+                if (stale.exists() && !stale.delete()) {
+                    throw new IOException("Cannot delete incomplete fixture " + stale);
+                }
+            }
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create fixture directory " + dir);
+            }
+        }
+
+        // يجب ضبط المسار قبل أول استخدام لـ DatabaseConnection في هذه العملية
+        System.setProperty("school.db.path", file.getPath());
+        Log.setLevel(Log.Level.ERROR);
+
+        db = DatabaseConnection.getInstance();
+        if (!ready.exists()) {
+            System.out.println("# Generating " + size + " fixture (" + sizes + ") into " + file);
+            if (!new SyntheticDataGenerator(db, sizes).generate() || !ready.createNewFile()) {
+                throw new IllegalStateException("Could not generate the " + size + " fixture");
+            }
+        }
+        EntityCache.getInstance().setEnabled(cache);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        db.closeConnection();
+    }
+
+    public DatabaseConnection database() {
+        return db;
+    }
+}
@@ -0,0 +1,61 @@
+package wmesaf.basicschool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import wmesaf.basicschool.business.DashboardService;
+import wmesaf.basicschool.business.ReportService;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard statistics and the text reports built by ReportService.
+ * Reports are returned as strings, so their building and formatting cost
+ * is measured together with the queries behind them.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+
+    private DashboardService dashboardService;
+    private ReportService reportService;
+
+    @Setup(Level.Trial)
+    public void setUp(SchoolFixture fixture) {
+        dashboardService = new DashboardService();
+        reportService = new ReportService();
+    }
+
+    @Benchmark
+    public Map<String, Object> getDashboardStatistics() {
+        return dashboardService.getDashboardStatistics();
+    }
+
+    @Benchmark
+    public String generateStudentStatisticsReport() {
+        return reportService.generateStudentStatisticsReport();
+    }
+
+    @Benchmark
+    public String generateTeacherStatisticsReport() {
+        return reportService.generateTeacherStatisticsReport();
+    }
+
+    @Benchmark
+    public String generateCourseStatisticsReport() {
+        return reportService.generateCourseStatisticsReport();
+    }
+
+    @Benchmark
+    public String generateSystemSummaryReport() {
+        return reportService.generateSystemSummaryReport();
+    }
+
+    @Benchmark
+    public String generateComprehensiveReport() {
+        return reportService.generateComprehensiveReport();
+    }
+}
@@ -0,0 +1,91 @@
+package wmesaf.basicschool.dao;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import wmesaf.basicschool.benchmark.SchoolFixture;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The createXFromResultSet mappers, each over the first ROWS rows of the
+ * query its DAO uses for listings.
+ *
+ * SQLite result sets only move forward, so every invocation runs the query
+ * again. scanRows steps through the same rows reading only the id; the
+ * difference between mapRows and scanRows (time and gc.alloc.rate.norm) is
+ * the cost of the mapper itself.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    static final int ROWS = 1000;
+
+    @Param({"student", "teacher", "course", "person"})
+    public String mapper;
+
+    private SchoolFixture fixture;
+    private StudentDAO studentDAO;
+    private TeacherDAO teacherDAO;
+    private CourseDAO courseDAO;
+    private PersonDAO personDAO;
+    private String sql;
+
+    @Setup(Level.Trial)
+    public void setUp(SchoolFixture fixture) {
+        this.fixture = fixture;
+        studentDAO = new StudentDAO();
+        teacherDAO = new TeacherDAO();
+        courseDAO = new CourseDAO();
+        personDAO = new PersonDAO();
+        sql = switch (mapper) {
+            case "student" -> "SELECT p.*, s.student_id, s.grade, s.enrollment_date " +
+                              "FROM persons p JOIN students s ON p.id = s.person_id " +
+                              "WHERE p.type = 'STUDENT' ORDER BY s.student_id LIMIT " + ROWS;
+            case "teacher" -> "SELECT p.*, t.teacher_id, t.subject, t.salary, t.hire_date " +
+                              "FROM persons p JOIN teachers t ON p.id = t.person_id " +
+                              "WHERE p.type = 'TEACHER' ORDER BY t.teacher_id LIMIT " + ROWS;
+            case "course" -> "SELECT c.* FROM courses c ORDER BY c.course_code LIMIT " + ROWS;
+            case "person" -> "SELECT * FROM persons ORDER BY id LIMIT " + ROWS;
+            default -> throw new IllegalArgumentException("Unknown mapper: " + mapper);
+        };
+    }
+
+    @Benchmark
+    public void scanRows(Blackhole blackhole) throws SQLException {
+        try (Connection connection = fixture.database().getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getInt("id"));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapRows(Blackhole blackhole) throws SQLException {
+        try (Connection connection = fixture.database().getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(map(rs));
+            }
+        }
+    }
+
+    private Object map(ResultSet rs) throws SQLException {
+        return switch (mapper) {
+            case "student" -> studentDAO.createStudentFromResultSet(rs);
+            case "teacher" -> teacherDAO.createTeacherFromResultSet(rs);
+            case "course" -> courseDAO.createCourseFromResultSet(rs);
+            default -> personDAO.createPersonFromResultSet(rs);
+        };
+    }
+}
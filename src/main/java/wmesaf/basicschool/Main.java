@@ -2,23 +2,22 @@ package wmesaf.basicschool;
 
 import wmesaf.basicschool.gui.LoginFrame;
 import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.database.StartupTimer;
 import javax.swing.*;
+import java.util.concurrent.CompletableFuture;
 
 public class Main {
     public static void main(String[] args) {
+        StartupTimer.mark("main() entered");
         printSprint2Header();
         
         System.out.println("🔧 SPRINT 2 REQUIREMENTS CHECKLIST:");
         System.out.println("=====================================");
         
-        // 1. Initialize Database
+        // 1. Initialize Database (في الخلفية؛ نافذة الدخول لا تنتظرها)
         System.out.println("\n1. Database Connection...");
-        if (!initializeDatabase()) {
-            System.err.println("   ❌ FAILED");
-            showErrorMessage("Database initialization failed. Using demo mode...");
-        } else {
-            System.out.println("   ✅ SUCCESS");
-        }
+        System.out.println("   ⏳ Initializing in background");
+        CompletableFuture<Boolean> database = CompletableFuture.supplyAsync(Main::initializeDatabase);
         
         // 2. OOP Concepts
         System.out.println("\n2. OOP Concepts Implementation...");
@@ -45,7 +44,17 @@ public class Main {
         System.out.println("=".repeat(50) + "\n");
         
         // Start the application
-        startApplication();
+        CompletableFuture<Void> loginShown = startApplication();
+        
+        database.thenAccept(valid -> {
+            if (valid) {
+                System.out.println("✅ Database connection: SUCCESS");
+            } else {
+                System.err.println("❌ Database connection: FAILED");
+                showErrorMessage("Database initialization failed. Using demo mode...");
+            }
+        });
+        database.runAfterBoth(loginShown, StartupTimer::report);
     }
     
     private static void printSprint2Header() {
@@ -62,13 +71,7 @@ public class Main {
     
     private static boolean initializeDatabase() {
         try {
-            DatabaseConnection db = DatabaseConnection.getInstance();
-            
-            if (db.isConnectionValid()) {
-                db.printDatabaseStatus();
-                return true;
-            }
-            return false;
+            return DatabaseConnection.getInstance().isConnectionValid();
             
         } catch (Exception e) {
             System.err.println("Database error: " + e.getMessage());
@@ -86,8 +89,12 @@ public class Main {
         });
     }
     
-    private static void startApplication() {
+    /**
+     * @return completes once the login window is visible
+     */
+    private static CompletableFuture<Void> startApplication() {
         System.out.println("🚀 Starting School Management System...\n");
+        CompletableFuture<Void> loginShown = new CompletableFuture<>();
         
         SwingUtilities.invokeLater(() -> {
             try {
@@ -97,6 +104,7 @@ public class Main {
                 // Create and show login frame
                 LoginFrame loginFrame = new LoginFrame();
                 loginFrame.setVisible(true);
+                StartupTimer.mark("Login window shown");
                 
                 System.out.println("✅ Application GUI launched");
                 System.out.println("\n📋 DEMONSTRATION INSTRUCTIONS:");
@@ -108,7 +116,10 @@ public class Main {
                 
             } catch (Exception e) {
                 System.err.println("❌ Failed to start application: " + e.getMessage());
+            } finally {
+                loginShown.complete(null);
             }
         });
+        return loginShown;
     }
 }
\ No newline at end of file
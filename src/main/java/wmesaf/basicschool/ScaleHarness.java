@@ -0,0 +1,850 @@
+package wmesaf.basicschool;
+
+import wmesaf.basicschool.business.*;
+import wmesaf.basicschool.dao.*;
+import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.database.SyntheticDataGenerator;
+import wmesaf.basicschool.logging.Log;
+import wmesaf.basicschool.model.Admin;
+import wmesaf.basicschool.model.Course;
+import wmesaf.basicschool.model.Student;
+import wmesaf.basicschool.model.Teacher;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Times the public methods of every DAO and service on a large database and
+ * writes the results to a tab-separated file that can be compared run to run.
+ *
+ * The database file (first argument, default school_scale.db) is filled by
+ * SyntheticDataGenerator if it does not exist yet, using the school.gen.*
+ * sizes. Each operation runs once untimed, then up to school.harness.runs
+ * times (default 5) or until school.harness.budgetMs (default 3000) has been
+ * spent, and the median, 95th percentile and fastest run are recorded.
+ * Only errors are logged while an operation runs.
+ *
+ * Write operations work on rows the harness creates itself ("BENCH" ids,
+ * e-mails at harness.test), and those rows are removed before and after the
+ * run, so the generated data stays the same between runs. Any public method
+ * without a timed operation is listed as "not covered" in the results file.
+ *
+ * With -Dschool.harness.baseline=previous.tsv the medians are compared with
+ * the earlier file; an operation slower by more than school.harness.threshold
+ * (default 1.5x, and at least 1 ms) is reported as a regression and the exit
+ * code is 1.
+ */
+public class ScaleHarness {
+
+    @FunctionalInterface
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    public record Result(String operation, int runs, double medianMs, double p95Ms, double minMs, String outcome) { }
+
+    private static final Class<?>[] TARGETS = {
+        AdminDAO.class, CourseDAO.class, ListingDAO.class, PersonDAO.class, ReportDAO.class,
+        StatisticsDAO.class, StudentDAO.class, TeacherDAO.class,
+        AdminService.class, CourseService.class, DashboardService.class, ImportService.class,
+        ReportService.class, StudentService.class, TeacherService.class
+    };
+
+    private static final String BENCH_EMAIL_DOMAIN = "@harness.test";
+    private static final int BENCH_BATCH = 200;
+
+    private final DatabaseConnection db;
+    private final int maxRuns;
+    private final long budgetNanos;
+    private final List<Result> results = new ArrayList<>();
+    private final PrintStream console = System.out;
+    private int benchCounter;
+
+    // قيم من البيانات المولدة تستخدمها العمليات
+    private String sampleStudentId;
+    private int sampleStudentPersonId;
+    private int popularCourseId;
+    private String popularCourseCode;
+    private int busyTeacherPersonId;
+    private String busyTeacherId;
+    private int roomyCourseId;
+    // طلاب addStudentsBatch: بلا ساعات معتمدة، فتستخدمهم عمليات التسجيل
+    private final List<String> batchStudentIds = new ArrayList<>();
+
+    public ScaleHarness(DatabaseConnection db, int maxRuns, long budgetMillis) {
+        this.db = db;
+        this.maxRuns = Math.max(1, maxRuns);
+        this.budgetNanos = budgetMillis * 1_000_000L;
+    }
+
+    // ==================== تشغيل العمليات ====================
+
+    private void time(String operation, Operation op) {
+        time(operation, maxRuns, op);
+    }
+
+    /**
+     * عمليات تغير البيانات أو مكلفة جداً تُشغل مرة واحدة دون تسخين
+     */
+    private void once(String operation, Operation op) {
+        time(operation, 1, op);
+    }
+
+    private void time(String operation, int runs, Operation op) {
+        List<Long> samples = new ArrayList<>();
+        Object last = null;
+        String failure = null;
+        console.printf("   %-58s", operation);
+
+        try {
+            if (runs > 1) {
+                op.run();
+            }
+            long spent = 0;
+            while (samples.size() < runs && (samples.isEmpty() || spent < budgetNanos)) {
+                long started = System.nanoTime();
+                last = op.run();
+                long elapsed = System.nanoTime() - started;
+                samples.add(elapsed);
+                spent += elapsed;
+            }
+        } catch (Exception e) {
+            failure = "FAILED " + e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+
+        Collections.sort(samples);
+        Result result = samples.isEmpty()
+            ? new Result(operation, 0, Double.NaN, Double.NaN, Double.NaN, clean(failure))
+            : new Result(operation, samples.size(), millis(samples.get(samples.size() / 2)),
+                         millis(samples.get(Math.min(samples.size() - 1, (int) Math.ceil(samples.size() * 0.95) - 1))),
+                         millis(samples.get(0)), clean(failure != null ? failure : describe(last)));
+        results.add(result);
+        console.printf("%10.2f ms  %s%n", result.medianMs(), result.outcome());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String describe(Object value) {
+        if (value == null) {
+            return "null";
+        } else if (value instanceof Collection<?> collection) {
+            return collection.size() + " rows";
+        } else if (value instanceof Map<?, ?> map) {
+            return map.size() + " entries";
+        } else if (value instanceof int[] array) {
+            return array.length + " rows";
+        } else if (value instanceof String text) {
+            return text.length() + " chars";
+        } else if (value instanceof ImportService.ImportResult result) {
+            return result.getImported() + " imported, " + result.getRejected() + " rejected";
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    private static String clean(String text) {
+        return text == null ? "" : text.replaceAll("[\\t\\r\\n]+", " ");
+    }
+
+    // ==================== البيانات ====================
+
+    private void loadSamples() throws SQLException {
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                     "SELECT person_id, student_id FROM students ORDER BY person_id " +
+                     "LIMIT 1 OFFSET (SELECT COUNT(*) / 2 FROM students)")) {
+                if (rs.next()) {
+                    sampleStudentPersonId = rs.getInt(1);
+                    sampleStudentId = rs.getString(2);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                     "SELECT c.id, c.course_code FROM course_enrollment_summary ces " +
+                     "JOIN courses c ON c.id = ces.course_id ORDER BY ces.enrolled_count DESC LIMIT 1")) {
+                if (rs.next()) {
+                    popularCourseId = rs.getInt(1);
+                    popularCourseCode = rs.getString(2);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                     "SELECT t.person_id, t.teacher_id FROM courses c JOIN teachers t ON t.person_id = c.teacher_id " +
+                     "GROUP BY c.teacher_id ORDER BY COUNT(*) DESC LIMIT 1")) {
+                if (rs.next()) {
+                    busyTeacherPersonId = rs.getInt(1);
+                    busyTeacherId = rs.getString(2);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                     "SELECT c.id FROM courses c JOIN course_enrollment_summary ces ON ces.course_id = c.id " +
+                     "ORDER BY c.max_students - ces.enrolled_count DESC LIMIT 1")) {
+                if (rs.next()) {
+                    roomyCourseId = rs.getInt(1);
+                }
+            }
+        }
+        if (sampleStudentId == null || popularCourseCode == null || busyTeacherId == null || roomyCourseId == 0) {
+            throw new SQLException("The database needs students, courses and teachers with courses");
+        }
+    }
+
+    private Map<String, Long> countRows() throws SQLException {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement()) {
+            for (String table : new String[] {"students", "teachers", "courses", "course_enrollments"}) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                    counts.put(table, rs.next() ? rs.getLong(1) : 0);
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * حذف كل ما أنشأه الـ harness (يشمل تشغيلاً سابقاً توقف في المنتصف)؛
+     * حذف الأشخاص يحذف الطلاب والمعلمين وتسجيلاتهم بالتتابع.
+     */
+    private void removeBenchRows() throws SQLException {
+        try (Connection connection = db.getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DELETE FROM courses WHERE course_code LIKE 'BENCH%'");
+            stmt.executeUpdate("DELETE FROM persons WHERE email LIKE '%" + BENCH_EMAIL_DOMAIN + "'");
+            stmt.executeUpdate("DELETE FROM admins WHERE username LIKE 'bench_%'");
+        }
+    }
+
+    private Student newStudent() {
+        int n = ++benchCounter;
+        return new Student("Bench Student " + n, "bench.student" + n + BENCH_EMAIL_DOMAIN, "555-000-0000",
+                           "1 Bench St", LocalDate.of(2008, 1, 1), "BENCH-S" + n, "10th Grade",
+                           LocalDate.of(2024, 9, 1));
+    }
+
+    private Teacher newTeacher() {
+        int n = ++benchCounter;
+        return new Teacher("Dr. Bench " + n, "bench.teacher" + n + BENCH_EMAIL_DOMAIN, "555-000-0001",
+                           "2 Bench St", LocalDate.of(1980, 1, 1), "BENCH-T" + n, "Physics", 5000,
+                           LocalDate.of(2015, 1, 1));
+    }
+
+    private Course newCourse() {
+        int n = ++benchCounter;
+        LocalDate start = LocalDate.now().plusDays(7);
+        return new Course("BENCH" + n, "Bench Course " + n, "Created by the scale harness", 3,
+                          "Computer Science", start, start.plusMonths(3), 100);
+    }
+
+    private static List<String> studentIds(List<Student> students) {
+        List<String> ids = new ArrayList<>();
+        for (Student student : students) {
+            ids.add(student.getStudentId());
+        }
+        return ids;
+    }
+
+    /**
+     * العنصر التالي من قائمة العمليات المنشأة، أو خطأ إذا نفدت (لم تُشغل الإضافة بما يكفي)
+     */
+    private static <T> T next(Deque<T> items, String what) {
+        T item = items.poll();
+        if (item == null) {
+            throw new IllegalStateException("No " + what + " left from the add operation");
+        }
+        return item;
+    }
+
+    // ==================== العمليات ====================
+
+    /**
+     * Runs every operation. Only errors are logged for the duration, so the
+     * harness's own progress lines are not buried in per-call log messages.
+     */
+    public void run() throws Exception {
+        Log.Level level = Log.getLevel();
+        Log.setLevel(Log.Level.ERROR);
+        try {
+            removeBenchRows();
+            loadSamples();
+
+            runAdmins();
+            runPersons();
+            runStudents();
+            runTeachers();
+            runCourses();
+            runListings();
+            runStatistics();
+            runReports();
+            runImports();
+
+            removeBenchRows();
+        } finally {
+            Log.flush();
+            Log.setLevel(level);
+        }
+    }
+
+    private void runAdmins() {
+        AdminDAO adminDAO = new AdminDAO();
+        AdminService adminService = new AdminService();
+
+        time("AdminDAO.authenticate", () -> adminDAO.authenticate("admin", "admin123"));
+        time("AdminDAO.getAdminById", () -> adminDAO.getAdminById(1));
+        time("AdminDAO.getAllAdmins", adminDAO::getAllAdmins);
+        once("AdminDAO.addAdmin", () -> adminDAO.addAdmin(
+            new Admin("bench_dao", "bench123", "Bench Admin", "admin" + BENCH_EMAIL_DOMAIN)));
+
+        time("AdminService.authenticate", () -> adminService.authenticate("admin", "admin123"));
+        time("AdminService.getAdminById", () -> adminService.getAdminById(1));
+        time("AdminService.getAllAdmins", adminService::getAllAdmins);
+        once("AdminService.addAdmin", () -> adminService.addAdmin(
+            new Admin("bench_service", "bench123", "Bench Admin", "admin" + BENCH_EMAIL_DOMAIN)));
+    }
+
+    private void runPersons() {
+        PersonDAO personDAO = new PersonDAO();
+        Deque<Integer> added = new ArrayDeque<>();
+
+        time("PersonDAO.getPersonById", () -> personDAO.getPersonById(sampleStudentPersonId));
+        time("PersonDAO.getAllPersons", personDAO::getAllPersons);
+        time("PersonDAO.searchPersonsByName", () -> personDAO.searchPersonsByName("moh"));
+        time("PersonDAO.countPersons", personDAO::countPersons);
+        time("PersonDAO.getMaxPersonId", personDAO::getMaxPersonId);
+
+        time("PersonDAO.addPerson", () -> {
+            Student person = newStudent();
+            added.add(personDAO.addPerson(person).getId());
+            return person;
+        });
+        time("PersonDAO.updatePerson", () -> {
+            Student person = newStudent();
+            person.setId(added.isEmpty() ? -1 : added.peek());
+            return personDAO.updatePerson(person);
+        });
+        time("PersonDAO.deletePerson", () -> personDAO.deletePerson(next(added, "person")));
+    }
+
+    private void runStudents() {
+        StudentDAO studentDAO = new StudentDAO();
+        StudentService studentService = new StudentService();
+        Deque<Student> added = new ArrayDeque<>();
+        Set<String> enrolledInPopular = new HashSet<>();
+
+        time("StudentDAO.getStudentById", () -> studentDAO.getStudentById(sampleStudentPersonId));
+        time("StudentDAO.getStudentByStudentId", () -> studentDAO.getStudentByStudentId(sampleStudentId));
+        time("StudentDAO.getAllStudents", studentDAO::getAllStudents);
+        time("StudentDAO.searchStudentsByName", () -> studentDAO.searchStudentsByName("moh"));
+        time("StudentDAO.getStudentsNotInCourse",
+             () -> studentDAO.getStudentsNotInCourse(popularCourseId, null, null, 50));
+        time("StudentDAO.getStudentsByGrade", () -> studentDAO.getStudentsByGrade("10th Grade"));
+        time("StudentDAO.countStudents", studentDAO::countStudents);
+        time("StudentDAO.getAllStudentIds", studentDAO::getAllStudentIds);
+        time("StudentDAO.getFirstStudentIds", () -> studentDAO.getFirstStudentIds(10));
+        time("StudentDAO.studentIdExists", () -> studentDAO.studentIdExists(sampleStudentId));
+
+        time("StudentDAO.addStudent", () -> {
+            Student student = newStudent();
+            studentDAO.addStudent(student);
+            added.add(student);
+            return student;
+        });
+        time("StudentDAO.updateStudent", () -> {
+            Student student = added.isEmpty() ? newStudent() : added.peek();
+            student.setGrade("11th Grade");
+            return studentDAO.updateStudent(student);
+        });
+        time("StudentDAO.deleteStudent", () -> studentDAO.deleteStudent(next(added, "student").getId()));
+        time("StudentDAO.addStudentsBatch", () -> {
+            List<Student> batch = new ArrayList<>();
+            for (int i = 0; i < BENCH_BATCH; i++) {
+                batch.add(newStudent());
+            }
+            int inserted = studentDAO.addStudentsBatch(batch);
+            batchStudentIds.addAll(studentIds(batch));
+            return inserted;
+        });
+
+        for (Course course : new CourseDAO().getCoursesByStudent(sampleStudentId)) {
+            if (course.getId() == popularCourseId) {
+                enrolledInPopular.add(sampleStudentId);
+            }
+        }
+        time("StudentService.getStudentById", () -> studentService.getStudentById(sampleStudentPersonId));
+        time("StudentService.getStudentByStudentId", () -> studentService.getStudentByStudentId(sampleStudentId));
+        time("StudentService.getAllStudents", studentService::getAllStudents);
+        time("StudentService.searchStudentsByName", () -> studentService.searchStudentsByName("moh"));
+        time("StudentService.getAvailableStudentsForCourse",
+             () -> studentService.getAvailableStudentsForCourse(popularCourseId, enrolledInPopular, null, null, 50));
+        time("StudentService.getStudentsByGrade", () -> studentService.getStudentsByGrade("10th Grade"));
+        time("StudentService.countStudents", studentService::countStudents);
+        time("StudentService.studentIdExists", () -> studentService.studentIdExists(sampleStudentId));
+        time("StudentService.calculateAverageAge", studentService::calculateAverageAge);
+        time("StudentService.getStudentsByAgeRange", () -> studentService.getStudentsByAgeRange(15, 17));
+        time("StudentService.getGradeDistribution", studentService::getGradeDistribution);
+        time("StudentService.getRecentStudentsCount", studentService::getRecentStudentsCount);
+        time("StudentService.validateStudent", () -> {
+            studentService.validateStudent(newStudent());
+            return true;
+        });
+
+        time("StudentService.addStudent", () -> {
+            Student student = newStudent();
+            studentService.addStudent(student);
+            added.add(student);
+            return student;
+        });
+        time("StudentService.updateStudent", () -> {
+            Student student = added.isEmpty() ? newStudent() : added.peek();
+            student.setGrade("12th Grade");
+            return studentService.updateStudent(student);
+        });
+        time("StudentService.deleteStudent", () -> studentService.deleteStudent(next(added, "student").getId()));
+    }
+
+    private void runTeachers() {
+        TeacherDAO teacherDAO = new TeacherDAO();
+        TeacherService teacherService = new TeacherService();
+        Deque<Teacher> added = new ArrayDeque<>();
+
+        time("TeacherDAO.getTeacherById", () -> teacherDAO.getTeacherById(busyTeacherPersonId));
+        time("TeacherDAO.getTeacherByTeacherId", () -> teacherDAO.getTeacherByTeacherId(busyTeacherId));
+        time("TeacherDAO.getAllTeachers", teacherDAO::getAllTeachers);
+        time("TeacherDAO.searchTeachersByName", () -> teacherDAO.searchTeachersByName("moh"));
+        time("TeacherDAO.getTeachersBySubject", () -> teacherDAO.getTeachersBySubject("Physics"));
+        time("TeacherDAO.countTeachers", teacherDAO::countTeachers);
+        time("TeacherDAO.getAllTeacherIds", teacherDAO::getAllTeacherIds);
+        time("TeacherDAO.teacherIdExists", () -> teacherDAO.teacherIdExists(busyTeacherId));
+
+        time("TeacherDAO.addTeacher", () -> {
+            Teacher teacher = newTeacher();
+            teacherDAO.addTeacher(teacher);
+            added.add(teacher);
+            return teacher;
+        });
+        time("TeacherDAO.updateTeacher", () -> {
+            Teacher teacher = added.isEmpty() ? newTeacher() : added.peek();
+            teacher.setSalary(teacher.getSalary() + 100);
+            return teacherDAO.updateTeacher(teacher);
+        });
+        time("TeacherDAO.deleteTeacher", () -> teacherDAO.deleteTeacher(next(added, "teacher").getId()));
+        time("TeacherDAO.addTeachersBatch", () -> {
+            List<Teacher> batch = new ArrayList<>();
+            for (int i = 0; i < BENCH_BATCH; i++) {
+                batch.add(newTeacher());
+            }
+            return teacherDAO.addTeachersBatch(batch);
+        });
+
+        time("TeacherService.getTeacherById", () -> teacherService.getTeacherById(busyTeacherPersonId));
+        time("TeacherService.getTeacherByTeacherId", () -> teacherService.getTeacherByTeacherId(busyTeacherId));
+        time("TeacherService.getAllTeachers", teacherService::getAllTeachers);
+        time("TeacherService.searchTeachersByName", () -> teacherService.searchTeachersByName("moh"));
+        time("TeacherService.getTeachersBySubject", () -> teacherService.getTeachersBySubject("Physics"));
+        time("TeacherService.countTeachers", teacherService::countTeachers);
+        time("TeacherService.teacherIdExists", () -> teacherService.teacherIdExists(busyTeacherId));
+        time("TeacherService.calculateTotalSalaryExpense", teacherService::calculateTotalSalaryExpense);
+        time("TeacherService.calculateAverageSalary", teacherService::calculateAverageSalary);
+        time("TeacherService.getSubjectDistribution", teacherService::getSubjectDistribution);
+        time("TeacherService.getTeachersByExperience", () -> teacherService.getTeachersByExperience(5, 10));
+        time("TeacherService.validateTeacher", () -> {
+            teacherService.validateTeacher(newTeacher());
+            return true;
+        });
+
+        time("TeacherService.addTeacher", () -> {
+            Teacher teacher = newTeacher();
+            teacherService.addTeacher(teacher);
+            added.add(teacher);
+            return teacher;
+        });
+        time("TeacherService.updateTeacher", () -> {
+            Teacher teacher = added.isEmpty() ? newTeacher() : added.peek();
+            teacher.setSalary(teacher.getSalary() + 100);
+            return teacherService.updateTeacher(teacher);
+        });
+        time("TeacherService.deleteTeacher", () -> teacherService.deleteTeacher(next(added, "teacher").getId()));
+    }
+
+    private void runCourses() {
+        CourseDAO courseDAO = new CourseDAO();
+        CourseService courseService = new CourseService();
+        StudentDAO studentDAO = new StudentDAO();
+        Deque<Course> added = new ArrayDeque<>();
+
+        time("CourseDAO.getCourseById", () -> courseDAO.getCourseById(popularCourseId));
+        time("CourseDAO.getCourseByCode", () -> courseDAO.getCourseByCode(popularCourseCode));
+        time("CourseDAO.getAllCourses", courseDAO::getAllCourses);
+        time("CourseDAO.getCourseIdsByCode", courseDAO::getCourseIdsByCode);
+        time("CourseDAO.searchCourses", () -> courseDAO.searchCourses("data"));
+        time("CourseDAO.countCourses", courseDAO::countCourses);
+        time("CourseDAO.courseCodeExists", () -> courseDAO.courseCodeExists(popularCourseCode));
+        time("CourseDAO.getCoursesByTeacher", () -> courseDAO.getCoursesByTeacher(busyTeacherPersonId));
+        time("CourseDAO.getCoursesByStudent", () -> courseDAO.getCoursesByStudent(sampleStudentId));
+
+        time("CourseService.getCourseById", () -> courseService.getCourseById(popularCourseId));
+        time("CourseService.getCourseByCode", () -> courseService.getCourseByCode(popularCourseCode));
+        time("CourseService.getAllCourses", courseService::getAllCourses);
+        time("CourseService.searchCourses", () -> courseService.searchCourses("data"));
+        time("CourseService.countCourses", courseService::countCourses);
+        time("CourseService.courseCodeExists", () -> courseService.courseCodeExists(popularCourseCode));
+        time("CourseService.getCoursesByTeacher", () -> courseService.getCoursesByTeacher(busyTeacherPersonId));
+        time("CourseService.getCoursesByStudent", () -> courseService.getCoursesByStudent(sampleStudentId));
+        time("CourseService.getStudentCreditHours", () -> courseService.getStudentCreditHours(sampleStudentId));
+        time("CourseService.getCourseStatistics", courseService::getCourseStatistics);
+        time("CourseService.generateCourseReport", courseService::generateCourseReport);
+        time("CourseService.addSampleCourses", () -> {
+            courseService.addSampleCourses();
+            return true;
+        });
+
+        time("CourseDAO.addCourse", () -> {
+            Course course = newCourse();
+            courseDAO.addCourse(course);
+            added.add(course);
+            return course;
+        });
+        time("CourseService.addCourse", () -> {
+            Course course = newCourse();
+            courseService.addCourse(course);
+            added.add(course);
+            return course;
+        });
+        time("CourseDAO.updateCourse", () -> {
+            Course course = added.isEmpty() ? newCourse() : added.peek();
+            course.setDescription("Updated by the scale harness");
+            return courseDAO.updateCourse(course);
+        });
+        time("CourseService.updateCourse", () -> {
+            Course course = added.isEmpty() ? newCourse() : added.peek();
+            course.setDescription("Updated again by the scale harness");
+            return courseService.updateCourse(course);
+        });
+
+        // التسجيل يستخدم طلاب الـ harness (بلا ساعات معتمدة) في مادة من مواده
+        Course target = added.peekLast();
+        if (target == null || batchStudentIds.size() < 4 * maxRuns + 2) {
+            console.println("   ⚠️ Not enough harness students or courses for the enrollment operations");
+            return;
+        }
+        Deque<String> toEnroll = new ArrayDeque<>(batchStudentIds);
+        Deque<String> enrolled = new ArrayDeque<>();
+        int courseId = target.getId();
+
+        time("CourseDAO.enrollStudentInCourse", () -> {
+            String studentId = next(toEnroll, "student");
+            enrolled.add(studentId);
+            return courseDAO.enrollStudentInCourse(courseId, studentId);
+        });
+        time("CourseService.enrollStudentInCourse", () -> {
+            String studentId = next(toEnroll, "student");
+            enrolled.add(studentId);
+            return courseService.enrollStudentInCourse(courseId, studentId);
+        });
+        time("CourseDAO.unenrollStudentFromCourse",
+             () -> courseDAO.unenrollStudentFromCourse(courseId, next(enrolled, "enrollment")));
+        time("CourseService.unenrollStudentFromCourse",
+             () -> courseService.unenrollStudentFromCourse(courseId, next(enrolled, "enrollment")));
+
+        List<String> batch = new ArrayList<>(toEnroll);
+        once("CourseDAO.enrollStudents",
+             () -> courseDAO.enrollStudents(courseId, batch.subList(0, batch.size() / 2), CourseService.MAX_CREDIT_HOURS));
+        once("CourseService.enrollStudents",
+             () -> courseService.enrollStudents(courseId, batch.subList(batch.size() / 2, batch.size())));
+        once("CourseDAO.addEnrollmentsBatch", () -> {
+            List<CourseDAO.EnrollmentRow> rows = new ArrayList<>();
+            for (String studentId : batch) {
+                rows.add(new CourseDAO.EnrollmentRow(roomyCourseId, studentId));
+            }
+            return courseDAO.addEnrollmentsBatch(rows, CourseService.MAX_CREDIT_HOURS);
+        });
+
+        time("CourseDAO.deleteCourse", () -> courseDAO.deleteCourse(next(added, "course").getId()));
+        time("CourseService.deleteCourse", () -> courseService.deleteCourse(next(added, "course").getId()));
+    }
+
+    private void runListings() {
+        ListingDAO listingDAO = new ListingDAO();
+
+        for (ListingDAO.Listing listing : ListingDAO.Listing.values()) {
+            String name = listing.name().toLowerCase();
+            time("ListingDAO.count(" + name + ")", () -> listingDAO.count(listing, null));
+            time("ListingDAO.count(" + name + ", filtered)", () -> listingDAO.count(listing, "mo"));
+            time("ListingDAO.getPage(" + name + ", first)",
+                 () -> listingDAO.getPage(listing, null, 1, true, null, 0, 50));
+
+            List<ListingDAO.ListingRow> first = listingDAO.getPage(listing, null, 1, true, null, 0, 50);
+            ListingDAO.ListingRow last = first.isEmpty() ? null : first.get(first.size() - 1);
+            time("ListingDAO.getPage(" + name + ", next)",
+                 () -> listingDAO.getPage(listing, null, 1, true, last, 0, 50));
+            time("ListingDAO.getPage(" + name + ", deep offset)",
+                 () -> listingDAO.getPage(listing, null, 1, true, null, listingDAO.count(listing, null) / 2, 50));
+            time("ListingDAO.getPage(" + name + ", filtered)",
+                 () -> listingDAO.getPage(listing, "mo", 1, true, null, 0, 50));
+        }
+    }
+
+    private void runStatistics() {
+        StatisticsDAO statisticsDAO = new StatisticsDAO();
+        DashboardService dashboardService = new DashboardService();
+        LocalDate today = LocalDate.now();
+        YearMonth month = YearMonth.now();
+
+        time("StatisticsDAO.getDashboardAggregates", statisticsDAO::getDashboardAggregates);
+        time("StatisticsDAO.getGradeDistribution", statisticsDAO::getGradeDistribution);
+        time("StatisticsDAO.getSubjectDistribution", statisticsDAO::getSubjectDistribution);
+        time("StatisticsDAO.getDepartmentDistribution", statisticsDAO::getDepartmentDistribution);
+        time("StatisticsDAO.getStudentAgeGroups", statisticsDAO::getStudentAgeGroups);
+        time("StatisticsDAO.getTeacherExperienceGroups", statisticsDAO::getTeacherExperienceGroups);
+        time("StatisticsDAO.getAverageYearsOfService", statisticsDAO::getAverageYearsOfService);
+        time("StatisticsDAO.getSalaryRanges", statisticsDAO::getSalaryRanges);
+        time("StatisticsDAO.getCreditHourDistribution", statisticsDAO::getCreditHourDistribution);
+        time("StatisticsDAO.getCourseDurationGroups", statisticsDAO::getCourseDurationGroups);
+        time("StatisticsDAO.countEnrollments", statisticsDAO::countEnrollments);
+        time("StatisticsDAO.getTotalSalary", statisticsDAO::getTotalSalary);
+        time("StatisticsDAO.getAverageSalary", statisticsDAO::getAverageSalary);
+        time("StatisticsDAO.getCourseAggregates", statisticsDAO::getCourseAggregates);
+        time("StatisticsDAO.getDailyEnrollments", () -> statisticsDAO.getDailyEnrollments(today.minusDays(30), today));
+        time("StatisticsDAO.getMonthlyEnrollments",
+             () -> statisticsDAO.getMonthlyEnrollments(month.minusMonths(12), month));
+        time("StatisticsDAO.getNetEnrollmentsByDepartment", statisticsDAO::getNetEnrollmentsByDepartment);
+        once("StatisticsDAO.rebuildSummaries", statisticsDAO::rebuildSummaries);
+
+        time("DashboardService.getDashboardStatistics", dashboardService::getDashboardStatistics);
+        time("DashboardService.generateDashboardReport", dashboardService::generateDashboardReport);
+        time("DashboardService.getQuickStats", dashboardService::getQuickStats);
+        time("DashboardService.getDepartmentStatistics", dashboardService::getDepartmentStatistics);
+        time("DashboardService.getEnrollmentTrend", dashboardService::getEnrollmentTrend);
+        time("DashboardService.getDailyEnrollmentTrend", () -> dashboardService.getDailyEnrollmentTrend(30));
+        once("DashboardService.rebuildStatistics", dashboardService::rebuildStatistics);
+    }
+
+    private void runReports() {
+        ReportDAO reportDAO = new ReportDAO();
+        ReportService reportService = new ReportService();
+        LocalDate today = LocalDate.now();
+        Writer sink = Writer.nullWriter();
+
+        time("ReportDAO.streamStudentsByEnrollmentDate", () -> countRows(
+            counter -> reportDAO.streamStudentsByEnrollmentDate(0, row -> counter[0]++)));
+        time("ReportDAO.streamTeachersBySalary", () -> countRows(
+            counter -> reportDAO.streamTeachersBySalary(0, row -> counter[0]++)));
+        time("ReportDAO.streamCoursesByEnrollment", () -> countRows(
+            counter -> reportDAO.streamCoursesByEnrollment(0, row -> counter[0]++)));
+        time("ReportDAO.streamCoursesEndingBetween", () -> countRows(
+            counter -> reportDAO.streamCoursesEndingBetween(today, today.plusMonths(3), row -> counter[0]++)));
+
+        time("ReportService.generateStudentStatisticsReport", reportService::generateStudentStatisticsReport);
+        time("ReportService.writeStudentStatisticsReport", () -> written(() -> reportService.writeStudentStatisticsReport(sink)));
+        time("ReportService.generateTeacherStatisticsReport", reportService::generateTeacherStatisticsReport);
+        time("ReportService.writeTeacherStatisticsReport", () -> written(() -> reportService.writeTeacherStatisticsReport(sink)));
+        time("ReportService.generateCourseStatisticsReport", reportService::generateCourseStatisticsReport);
+        time("ReportService.writeCourseStatisticsReport", () -> written(() -> reportService.writeCourseStatisticsReport(sink)));
+        time("ReportService.generateSystemSummaryReport", reportService::generateSystemSummaryReport);
+        time("ReportService.writeSystemSummaryReport", () -> written(() -> reportService.writeSystemSummaryReport(sink)));
+        time("ReportService.generateComprehensiveReport", reportService::generateComprehensiveReport);
+        time("ReportService.writeComprehensiveReport", () -> written(() -> reportService.writeComprehensiveReport(sink)));
+        time("ReportService.generateExecutiveSummary", reportService::generateExecutiveSummary);
+    }
+
+    @FunctionalInterface
+    private interface Streaming {
+        void run(long[] counter) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Writing {
+        void run() throws IOException;
+    }
+
+    private static Long countRows(Streaming streaming) throws IOException {
+        long[] counter = new long[1];
+        streaming.run(counter);
+        return counter[0];
+    }
+
+    private static Boolean written(Writing writing) throws IOException {
+        writing.run();
+        return true;
+    }
+
+    private void runImports() throws IOException {
+        ImportService importService = new ImportService();
+        // مادة خاصة بالاستيراد بـ 100 مقعد: يُسجل أول 100 طالب ويُرفض الباقي
+        Course target = newCourse();
+        new CourseDAO().addCourse(target);
+        Path directory = Files.createTempDirectory("school-harness");
+        Path rejects = directory.resolve("rejects.csv");
+
+        try {
+            Path students = directory.resolve("students.csv");
+            Path teachers = directory.resolve("teachers.csv");
+            Path enrollments = directory.resolve("enrollments.csv");
+            List<String> importedIds = new ArrayList<>();
+            try (BufferedWriter out = Files.newBufferedWriter(students, StandardCharsets.UTF_8)) {
+                out.write("student_id,name,email,grade,enrollment_date\n");
+                for (int i = 1; i <= 1000; i++) {
+                    String id = "BENCH-I" + i;
+                    importedIds.add(id);
+                    out.write(id + ",Imported Student " + i + ",import" + i + BENCH_EMAIL_DOMAIN + ",9th Grade,2024-09-01\n");
+                }
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(teachers, StandardCharsets.UTF_8)) {
+                out.write("teacher_id,name,subject,salary,email\n");
+                for (int i = 1; i <= 200; i++) {
+                    out.write("BENCH-IT" + i + ",Imported Teacher " + i + ",History,4000,import.t" + i
+                              + BENCH_EMAIL_DOMAIN + "\n");
+                }
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(enrollments, StandardCharsets.UTF_8)) {
+                out.write("course_code,student_id\n");
+                for (String id : importedIds) {
+                    out.write(target.getCourseCode() + "," + id + "\n");
+                }
+            }
+
+            once("ImportService.importStudents", () -> importService.importStudents(students, rejects, null));
+            once("ImportService.importTeachers", () -> importService.importTeachers(teachers, rejects, null));
+            once("ImportService.importEnrollments", () -> importService.importEnrollments(enrollments, rejects, null));
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    // ==================== النتائج ====================
+
+    /**
+     * الدوال العامة في الـ DAOs والخدمات التي لم تُقس (بالاسم، فالنسخ المحملة تُعد معاً)
+     */
+    public List<String> uncovered() {
+        Set<String> covered = new HashSet<>();
+        for (Result result : results) {
+            int paren = result.operation().indexOf('(');
+            covered.add(paren > 0 ? result.operation().substring(0, paren) : result.operation());
+        }
+        SortedSet<String> missing = new TreeSet<>();
+        for (Class<?> target : TARGETS) {
+            for (Method method : target.getDeclaredMethods()) {
+                int modifiers = method.getModifiers();
+                String name = target.getSimpleName() + "." + method.getName();
+                if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers) && !method.isSynthetic()
+                        && !covered.contains(name)) {
+                    missing.add(name);
+                }
+            }
+        }
+        return new ArrayList<>(missing);
+    }
+
+    public void writeResults(Path file, Map<String, Long> sizes) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# School management scale harness");
+            out.println("# date\t" + LocalDate.now());
+            out.println("# rows\t" + sizes);
+            out.println("# java\t" + System.getProperty("java.version"));
+            out.println("# cache\t" + System.getProperty("school.cache.enabled", "true"));
+            out.println("# search\t" + System.getProperty("school.search.backend", "memory"));
+            out.println("# runs\t" + maxRuns + " (budget " + budgetNanos / 1_000_000 + " ms)");
+            out.println("operation\truns\tmedian_ms\tp95_ms\tmin_ms\toutcome");
+            for (Result result : results) {
+                out.printf(Locale.ROOT, "%s\t%d\t%.3f\t%.3f\t%.3f\t%s%n", result.operation(), result.runs(),
+                           result.medianMs(), result.p95Ms(), result.minMs(), result.outcome());
+            }
+            for (String method : uncovered()) {
+                out.println("# not covered\t" + method);
+            }
+        }
+    }
+
+    /**
+     * يقارن الوسيط بملف نتائج سابق.
+     *
+     * @return عدد العمليات التي تباطأت أكثر من threshold
+     */
+    public int compareWith(Path baselineFile, double threshold) throws IOException {
+        Map<String, Double> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(baselineFile, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            if (line.startsWith("#") || fields.length < 3 || fields[0].equals("operation")) {
+                continue;
+            }
+            try {
+                baseline.put(fields[0], Double.parseDouble(fields[2]));
+            } catch (NumberFormatException e) {
+                // عملية فشلت في التشغيل السابق
+            }
+        }
+
+        int regressions = 0;
+        int faster = 0;
+        console.println("\n📊 Compared with " + baselineFile + " (threshold " + threshold + "x):");
+        for (Result result : results) {
+            Double before = baseline.get(result.operation());
+            if (before == null || before.isNaN() || Double.isNaN(result.medianMs())) {
+                continue;
+            }
+            double ratio = before > 0 ? result.medianMs() / before : Double.POSITIVE_INFINITY;
+            if (ratio > threshold && result.medianMs() - before >= 1.0) {
+                console.printf("   ❌ %-58s %10.2f -> %10.2f ms (%.2fx)%n",
+                               result.operation(), before, result.medianMs(), ratio);
+                regressions++;
+            } else if (ratio < 1 / threshold && before - result.medianMs() >= 1.0) {
+                faster++;
+            }
+        }
+        console.println("   " + (regressions == 0 ? "No" : String.valueOf(regressions)) + " regression(s), "
+                        + faster + " operation(s) faster by more than " + threshold + "x");
+        return regressions;
+    }
+
+    /**
+     * الوسيط الأول: ملف قاعدة البيانات (يُنشأ ويُملأ إذا لم يوجد)، الثاني: ملف النتائج.
+     */
+    public static void main(String[] args) throws Exception {
+        String databaseFile = args.length > 0 ? args[0] : "school_scale.db";
+        Path resultsFile = Path.of(args.length > 1 ? args[1] : "scale_results.tsv");
+        boolean exists = new File(databaseFile).exists();
+        System.setProperty("school.db.path", databaseFile);
+
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        if (!exists && !new SyntheticDataGenerator(db, SyntheticDataGenerator.Sizes.fromSystemProperties()).generate()) {
+            System.exit(1);
+        }
+
+        ScaleHarness harness = new ScaleHarness(db, Integer.getInteger("school.harness.runs", 5),
+                                                Long.getLong("school.harness.budgetMs", 3_000L));
+        Map<String, Long> sizes = harness.countRows();
+        System.out.println("\n⏱️ SCALE HARNESS: " + sizes);
+        harness.run();
+        harness.writeResults(resultsFile, sizes);
+        System.out.println("\n✅ Results written to " + resultsFile.toAbsolutePath());
+
+        List<String> missing = harness.uncovered();
+        if (!missing.isEmpty()) {
+            System.out.println("⚠️ Not covered: " + String.join(", ", missing));
+        }
+
+        int regressions = 0;
+        String baseline = System.getProperty("school.harness.baseline");
+        if (baseline != null) {
+            regressions = harness.compareWith(Path.of(baseline),
+                Double.parseDouble(System.getProperty("school.harness.threshold", "1.5")));
+        }
+        db.closeConnection();
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+}
@@ -1,28 +1,37 @@
 package wmesaf.basicschool.business;
 
 import wmesaf.basicschool.dao.CourseDAO;
+import wmesaf.basicschool.dao.CourseDAO.EnrollmentOutcome;
+import wmesaf.basicschool.dao.EntityCache;
+import wmesaf.basicschool.dao.StatisticsDAO;
 import wmesaf.basicschool.dao.TeacherDAO;
 import wmesaf.basicschool.dao.StudentDAO;
 import wmesaf.basicschool.model.Course;
 import wmesaf.basicschool.model.Teacher;
-import wmesaf.basicschool.model.Student;
+import wmesaf.basicschool.logging.Log;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Service لإدارة العمليات المتعلقة بالمواد الدراسية
  */
 public class CourseService {
+    // الحد الأقصى للساعات المعتمدة للطالب
+    public static final int MAX_CREDIT_HOURS = 18;
+    
     private CourseDAO courseDAO;
     private TeacherDAO teacherDAO;
     private StudentDAO studentDAO;
+    private StatisticsDAO statisticsDAO;
+    private final EntityCache cache = EntityCache.getInstance();
     
     public CourseService() {
         this.courseDAO = new CourseDAO();
         this.teacherDAO = new TeacherDAO();
         this.studentDAO = new StudentDAO();
+        this.statisticsDAO = new StatisticsDAO();
     }
     
     /**
@@ -86,7 +95,7 @@ public class CourseService {
      * الحصول على جميع المواد
      */
     public List<Course> getAllCourses() {
-        return courseDAO.getAllCourses();
+        return cache.getCourses("all", courseDAO::getAllCourses);
     }
     
     /**
@@ -122,35 +131,44 @@ public class CourseService {
     
     /**
      * تسجيل طالب في مادة
+     * يمر عبر enrollStudents، فالتحقق من المقاعد والساعات يتم في SQL لا على نسخة قديمة من المادة
      */
     public boolean enrollStudentInCourse(int courseId, String studentId) {
-        Course course = courseDAO.getCourseById(courseId);
-        Student student = studentDAO.getStudentByStudentId(studentId);
-        
-        if (course == null) {
-            throw new IllegalArgumentException("Course not found");
-        }
-        
-        if (student == null) {
-            throw new IllegalArgumentException("Student not found");
-        }
-        
-        // التحقق من أن المادة ليست ممتلئة
-        if (course.isFull()) {
-            throw new IllegalStateException("Course is full. No available seats");
+        EnrollmentOutcome outcome = enrollStudents(courseId, List.of(studentId)).get(studentId);
+        
+        switch (outcome) {
+            case ENROLLED:
+                return true;
+            case COURSE_NOT_FOUND:
+                throw new IllegalArgumentException("Course not found");
+            case STUDENT_NOT_FOUND:
+                throw new IllegalArgumentException("Student not found");
+            case COURSE_FULL:
+                throw new IllegalStateException("Course is full. No available seats");
+            case ALREADY_ENROLLED:
+                throw new IllegalArgumentException("Student is already enrolled in this course");
+            case CREDIT_LIMIT_EXCEEDED:
+                throw new IllegalArgumentException("Student cannot exceed " + MAX_CREDIT_HOURS + " credit hours");
+            default:
+                return false;
         }
-        
-        // التحقق من أن الطالب غير مسجل بالفعل
-        if (course.hasStudent(student)) {
-            throw new IllegalArgumentException("Student is already enrolled in this course");
+    }
+    
+    /**
+     * تسجيل مجموعة طلاب في مادة في معاملة واحدة
+     *
+     * @return نتيجة كل طالب بترتيب الإدخال (المكرر يظهر مرة واحدة)
+     */
+    public Map<String, EnrollmentOutcome> enrollStudents(int courseId, Collection<String> studentIds) {
+        if (studentIds == null) {
+            throw new IllegalArgumentException("Student IDs cannot be null");
         }
-        
-        // التحقق من أن الطالب لا يأخذ أكثر من 18 ساعة معتمدة
-        if (getStudentCreditHours(studentId) + course.getCreditHours() > 18) {
-            throw new IllegalArgumentException("Student cannot exceed 18 credit hours");
+        for (String studentId : studentIds) {
+            if (studentId == null || studentId.trim().isEmpty()) {
+                throw new IllegalArgumentException("Student ID is required");
+            }
         }
-        
-        return courseDAO.enrollStudentInCourse(courseId, studentId);
+        return courseDAO.enrollStudents(courseId, studentIds, MAX_CREDIT_HOURS);
     }
     
     /**
@@ -164,21 +182,21 @@ public class CourseService {
      * البحث عن مواد
      */
     public List<Course> searchCourses(String keyword) {
-        return courseDAO.searchCourses(keyword);
+        return cache.getCourses("search:" + keyword, () -> courseDAO.searchCourses(keyword));
     }
     
     /**
      * الحصول على مواد المعلم
      */
     public List<Course> getCoursesByTeacher(int teacherId) {
-        return courseDAO.getCoursesByTeacher(teacherId);
+        return cache.getCourses("teacher:" + teacherId, () -> courseDAO.getCoursesByTeacher(teacherId));
     }
     
     /**
      * الحصول على مواد الطالب
      */
     public List<Course> getCoursesByStudent(String studentId) {
-        return courseDAO.getCoursesByStudent(studentId);
+        return cache.getCourses("student:" + studentId, () -> courseDAO.getCoursesByStudent(studentId));
     }
     
     /**
@@ -209,47 +227,33 @@ public class CourseService {
     
     /**
      * الحصول على إحصائيات المواد
+     *
+     * تُقرأ من الجداول الملخصة (course_enrollment_summary و department_summary)
+     * بدل تحميل كل المواد مع طلابها.
      */
     public Map<String, Object> getCourseStatistics() {
-        List<Course> allCourses = getAllCourses();
-        java.util.Map<String, Object> stats = new java.util.HashMap<>();
+        Map<String, Object> aggregates = statisticsDAO.getCourseAggregates();
+        Map<String, Object> stats = new java.util.HashMap<>();
         
-        stats.put("totalCourses", allCourses.size());
+        int totalCourses = aggregates.get("total_courses") instanceof Number n ? n.intValue() : 0;
+        stats.put("totalCourses", totalCourses);
         
-        if (!allCourses.isEmpty()) {
+        if (totalCourses > 0) {
             // متوسط عدد الطلاب
-            double avgEnrollment = allCourses.stream()
-                .mapToInt(Course::getCurrentEnrollment)
-                .average()
-                .orElse(0);
-            stats.put("averageEnrollment", avgEnrollment);
+            stats.put("averageEnrollment", ((Number) aggregates.get("average_enrollment")).doubleValue());
             
             // نسبة الامتلاء
-            double occupancyRate = allCourses.stream()
-                .mapToDouble(c -> (double) c.getCurrentEnrollment() / c.getMaxStudents() * 100)
-                .average()
-                .orElse(0);
-            stats.put("occupancyRate", occupancyRate);
+            Object occupancy = aggregates.get("occupancy_rate");
+            stats.put("occupancyRate", occupancy instanceof Number n ? n.doubleValue() : 0.0);
             
             // المواد الممتلئة
-            long fullCourses = allCourses.stream()
-                .filter(Course::isFull)
-                .count();
-            stats.put("fullCourses", fullCourses);
+            stats.put("fullCourses", ((Number) aggregates.get("full_courses")).longValue());
             
             // توزيع المواد حسب القسم
-            Map<String, Long> departmentDistribution = allCourses.stream()
-                .collect(Collectors.groupingBy(
-                    Course::getDepartment,
-                    Collectors.counting()
-                ));
-            stats.put("departmentDistribution", departmentDistribution);
+            stats.put("departmentDistribution", statisticsDAO.getDepartmentDistribution());
             
             // المواد بدون معلم
-            long coursesWithoutTeacher = allCourses.stream()
-                .filter(c -> c.getAssignedTeacher() == null)
-                .count();
-            stats.put("coursesWithoutTeacher", coursesWithoutTeacher);
+            stats.put("coursesWithoutTeacher", ((Number) aggregates.get("courses_without_teacher")).longValue());
         }
         
         return stats;
@@ -320,11 +324,11 @@ public class CourseService {
      */
     public void addSampleCourses() {
         if (countCourses() > 0) {
-            System.out.println("📊 Courses already exist in database");
+            Log.debug("📊 Courses already exist in database");
             return;
         }
         
-        System.out.println("📚 Adding sample courses...");
+        Log.debug("📚 Adding sample courses...");
         
         LocalDate now = LocalDate.now();
         List<Teacher> teachers = teacherDAO.getAllTeachers();
@@ -377,25 +381,18 @@ public class CourseService {
             sampleCourses[i].setAssignedTeacher(teachers.get(i));
         }
         
+        // أول 10 طلاب يُسجلون في كل مادة دفعة واحدة؛ المرفوض (مكرر أو ممتلئ) يُتجاهل
+        List<String> studentIds = studentDAO.getFirstStudentIds(10);
+        
         // إضافة المواد
         int added = 0;
         for (Course course : sampleCourses) {
             if (addCourse(course)) {
                 added++;
-                
-                // تسجيل بعض الطلاب عشوائياً
-                List<Student> students = studentDAO.getAllStudents();
-                int enrollCount = Math.min(10, students.size());
-                for (int i = 0; i < enrollCount; i++) {
-                    try {
-                        enrollStudentInCourse(course.getId(), students.get(i).getStudentId());
-                    } catch (Exception e) {
-                        // تجاهل الأخطاء (مثل تسجيل مكرر)
-                    }
-                }
+                enrollStudents(course.getId(), studentIds);
             }
         }
         
-        System.out.println("✅ Added " + added + " sample courses with student enrollments");
+        Log.info("✅ Added {} sample courses with student enrollments", added);
     }
 }
\ No newline at end of file
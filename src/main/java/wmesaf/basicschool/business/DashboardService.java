@@ -1,62 +1,64 @@
 package wmesaf.basicschool.business;
 
-import wmesaf.basicschool.dao.StudentDAO;
-import wmesaf.basicschool.dao.TeacherDAO;
-import wmesaf.basicschool.dao.CourseDAO;
+import wmesaf.basicschool.dao.StatisticsDAO;
 import wmesaf.basicschool.database.DatabaseConnection;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Service for dashboard statistics and analytics.
  */
 public class DashboardService {
-    private StudentDAO studentDAO;
-    private TeacherDAO teacherDAO;
-    private CourseDAO courseDAO;
-    private StudentService studentService;
-    private TeacherService teacherService;
-    private CourseService courseService;
+    private StatisticsDAO statisticsDAO;
     
     public DashboardService() {
-        this.studentDAO = new StudentDAO();
-        this.teacherDAO = new TeacherDAO();
-        this.courseDAO = new CourseDAO();
-        this.studentService = new StudentService();
-        this.teacherService = new TeacherService();
-        this.courseService = new CourseService();
+        this.statisticsDAO = new StatisticsDAO();
     }
     
     /**
      * ✅ Get all dashboard statistics
+     *
+     * كل الأرقام تأتي من استعلام تجميعي واحد (StatisticsDAO) بدل تحميل جميع الكائنات.
      */
     public Map<String, Object> getDashboardStatistics() {
+        Map<String, Object> aggregates = statisticsDAO.getDashboardAggregates();
         Map<String, Object> stats = new HashMap<>();
         
         // Basic Statistics
-        stats.put("totalStudents", studentDAO.countStudents());
-        stats.put("totalTeachers", teacherDAO.countTeachers());
-        stats.put("totalCourses", courseDAO.countCourses());
-        stats.put("totalPersons", studentDAO.countStudents() + teacherDAO.countTeachers());
-        
-        // Course Statistics
-        Map<String, Object> courseStats = courseService.getCourseStatistics();
-        stats.put("averageCourseEnrollment", courseStats.get("averageEnrollment"));
-        stats.put("courseOccupancyRate", courseStats.get("occupancyRate"));
-        stats.put("fullCourses", courseStats.get("fullCourses"));
-        stats.put("coursesWithoutTeacher", courseStats.get("coursesWithoutTeacher"));
+        int totalStudents = asInt(aggregates.get("total_students"));
+        int totalTeachers = asInt(aggregates.get("total_teachers"));
+        int totalCourses = asInt(aggregates.get("total_courses"));
+        stats.put("totalStudents", totalStudents);
+        stats.put("totalTeachers", totalTeachers);
+        stats.put("totalCourses", totalCourses);
+        stats.put("totalPersons", totalStudents + totalTeachers);
+        
+        // Course Statistics (بدون مواد تبقى القيم null كما في getCourseStatistics)
+        if (totalCourses > 0) {
+            stats.put("averageCourseEnrollment", asDouble(aggregates.get("average_enrollment")));
+            stats.put("courseOccupancyRate", asDouble(aggregates.get("occupancy_rate")));
+            stats.put("fullCourses", asLong(aggregates.get("full_courses")));
+            stats.put("coursesWithoutTeacher", asLong(aggregates.get("courses_without_teacher")));
+        } else {
+            stats.put("averageCourseEnrollment", null);
+            stats.put("courseOccupancyRate", null);
+            stats.put("fullCourses", null);
+            stats.put("coursesWithoutTeacher", null);
+        }
         
         // Financial Stats
-        stats.put("totalSalary", teacherService.calculateTotalSalaryExpense());
-        stats.put("averageSalary", teacherService.calculateAverageSalary());
+        stats.put("totalSalary", asDouble(aggregates.get("total_salary")));
+        stats.put("averageSalary", asDouble(aggregates.get("average_salary")));
         
         // Student Stats
-        stats.put("averageStudentAge", studentService.calculateAverageAge());
-        stats.put("recentStudents", studentService.getRecentStudentsCount());
+        stats.put("averageStudentAge", asDouble(aggregates.get("average_student_age")));
+        stats.put("recentStudents", asInt(aggregates.get("recent_students")));
         
         // Teacher Stats
-        stats.put("teachersByExperience", teacherService.getTeachersByExperience(0, 5).size());
+        stats.put("teachersByExperience", asInt(aggregates.get("new_teachers")));
         
         // System Stats
         stats.put("systemStatus", "🟢 Operational");
@@ -67,6 +69,20 @@ public class DashboardService {
         return stats;
     }
     
+    // SQLite يعيد INTEGER أو REAL حسب القيمة، فالتحويل يمر عبر Number
+    
+    private static int asInt(Object value) {
+        return value instanceof Number number ? number.intValue() : 0;
+    }
+    
+    private static long asLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+    
+    private static double asDouble(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0.0;
+    }
+    
     /**
      * ✅ Get database connection status
      */
@@ -190,43 +206,73 @@ public class DashboardService {
     }
     
     /**
-     * ✅ Get statistics by department (simulated)
+     * ✅ Get enrolled students by department
+     *
+     * صافي التسجيلات لكل قسم من التجميعات الشهرية لسجل التسجيل.
      */
     public Map<String, Integer> getDepartmentStatistics() {
-        Map<String, Integer> deptStats = new HashMap<>();
-        
-        // في نظام حقيقي، يمكن الحصول على هذه البيانات من قاعدة البيانات
-        // هنا نستخدم بيانات افتراضية للعرض
-        
-        deptStats.put("Computer Science", 8);
-        deptStats.put("Mathematics", 6);
-        deptStats.put("Physics", 4);
-        deptStats.put("Chemistry", 3);
-        deptStats.put("Biology", 5);
-        deptStats.put("Languages", 7);
-        deptStats.put("History", 4);
-        deptStats.put("Arts", 3);
-        
+        Map<String, Integer> deptStats = new LinkedHashMap<>();
+        statisticsDAO.getNetEnrollmentsByDepartment()
+            .forEach((department, count) -> deptStats.put(department, count.intValue()));
         return deptStats;
     }
     
     /**
-     * ✅ Get enrollment trends (simulated)
+     * ✅ Get enrollment trends (new enrollments in the last 6 months, oldest first)
      */
     public Map<String, Integer> getEnrollmentTrend() {
-        Map<String, Integer> trend = new HashMap<>();
+        Map<String, Integer> trend = new LinkedHashMap<>();
+        
+        YearMonth current = YearMonth.now();
+        YearMonth first = current.minusMonths(5);
+        Map<YearMonth, Long> monthly = statisticsDAO.getMonthlyEnrollments(first, current);
         
-        // بيانات افتراضية لاتجاهات التسجيل في آخر 6 أشهر
-        LocalDate now = LocalDate.now();
-        for (int i = 5; i >= 0; i--) {
-            LocalDate month = now.minusMonths(i);
+        // الأشهر بدون تسجيلات تظهر بصفر
+        for (YearMonth month = first; !month.isAfter(current); month = month.plusMonths(1)) {
             String monthKey = month.getMonth().toString().substring(0, 3) + " " + month.getYear();
-            
-            // أرقام عشوائية للعرض (في نظام حقيقي تأتي من قاعدة البيانات)
-            int enrollment = 120 + (int)(Math.random() * 30);
-            trend.put(monthKey, enrollment);
+            trend.put(monthKey, monthly.getOrDefault(month, 0L).intValue());
         }
         
         return trend;
     }
-}
\ No newline at end of file
+    
+    /**
+     * ✅ Get daily enrollment counts for the last given number of days (oldest first)
+     */
+    public Map<LocalDate, Integer> getDailyEnrollmentTrend(int days) {
+        Map<LocalDate, Integer> trend = new LinkedHashMap<>();
+        
+        LocalDate today = LocalDate.now();
+        LocalDate first = today.minusDays(Math.max(days, 1) - 1);
+        Map<LocalDate, Long> daily = statisticsDAO.getDailyEnrollments(first, today);
+        
+        for (LocalDate day = first; !day.isAfter(today); day = day.plusDays(1)) {
+            trend.put(day, daily.getOrDefault(day, 0L).intValue());
+        }
+        
+        return trend;
+    }
+    
+    /**
+     * ✅ Rebuild the summary tables from the base tables (recovery)
+     */
+    public boolean rebuildStatistics() {
+        return statisticsDAO.rebuildSummaries();
+    }
+    
+    /**
+     * سطر أوامر: DashboardService rebuild
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || !args[0].equalsIgnoreCase("rebuild")) {
+            System.out.println("Usage: DashboardService rebuild");
+            return;
+        }
+        
+        try {
+            new DashboardService().rebuildStatistics();
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package wmesaf.basicschool.business;
+
+import wmesaf.basicschool.dao.CourseDAO;
+import wmesaf.basicschool.dao.CourseDAO.EnrollmentRow;
+import wmesaf.basicschool.dao.StudentDAO;
+import wmesaf.basicschool.dao.TeacherDAO;
+import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.model.Student;
+import wmesaf.basicschool.model.Teacher;
+import wmesaf.basicschool.logging.Log;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk CSV import for students, teachers and course enrollments.
+ *
+ * Each file is streamed line by line through three stages: parse, validate
+ * (the same rules as StudentService / TeacherService / CourseService), and
+ * batch insert. Valid rows are collected into chunks; every chunk is written
+ * with PreparedStatement batches inside a single transaction. Rows that fail
+ * at any stage go to a reject file together with the reason, so one bad row
+ * never stops the rest of the import.
+ *
+ * The first line must be a header; columns are matched by name, in any order.
+ * Fields may be quoted with "..." (doubled quotes inside), but a field cannot
+ * span several lines.
+ */
+public class ImportService {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * Receives the running totals after every chunk and once more at the end.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(ImportResult progress);
+    }
+
+    /**
+     * Totals for one import run.
+     */
+    public static class ImportResult {
+        private final String kind;
+        private final long startNanos = System.nanoTime();
+        private int processed;
+        private int imported;
+        private int rejected;
+        private long elapsedMillis;
+
+        ImportResult(String kind) {
+            this.kind = kind;
+        }
+
+        public String getKind() { return kind; }
+        public int getProcessed() { return processed; }
+        public int getImported() { return imported; }
+        public int getRejected() { return rejected; }
+
+        public long getElapsedMillis() {
+            return elapsedMillis > 0 ? elapsedMillis : (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        public double getRowsPerSecond() {
+            long millis = getElapsedMillis();
+            return millis > 0 ? processed * 1000.0 / millis : processed;
+        }
+
+        private void finish() {
+            elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d processed, %d imported, %d rejected in %d ms (%.0f rows/s)",
+                kind, processed, imported, rejected, getElapsedMillis(), getRowsPerSecond());
+        }
+    }
+
+    private interface RowParser<T> {
+        T parse(Map<String, String> row);
+    }
+
+    /**
+     * Writes one chunk; returns a per-row outcome (> 0 inserted) or null if the chunk was rolled back.
+     */
+    private interface ChunkWriter<T> {
+        int[] write(List<T> chunk);
+    }
+
+    private final StudentService studentService;
+    private final TeacherService teacherService;
+    private final StudentDAO studentDAO;
+    private final TeacherDAO teacherDAO;
+    private final CourseDAO courseDAO;
+    private final int chunkSize;
+
+    public ImportService() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public ImportService(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.studentService = new StudentService();
+        this.teacherService = new TeacherService();
+        this.studentDAO = new StudentDAO();
+        this.teacherDAO = new TeacherDAO();
+        this.courseDAO = new CourseDAO();
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Columns: student_id, name (required); email, phone, address, birth_date, grade, enrollment_date.
+     */
+    public ImportResult importStudents(Path csvFile, Path rejectFile, ProgressListener listener) throws IOException {
+        Set<String> knownIds = studentDAO.getAllStudentIds();
+
+        RowParser<Student> parser = row -> {
+            Student student = new Student(
+                row.get("name"),
+                row.get("email"),
+                row.get("phone"),
+                row.get("address"),
+                parseDate(row, "birth_date", null),
+                row.get("student_id"),
+                row.get("grade"),
+                parseDate(row, "enrollment_date", LocalDate.now())
+            );
+            studentService.validateStudent(student);
+            if (!knownIds.add(student.getStudentId())) {
+                throw new IllegalArgumentException("Student ID '" + student.getStudentId() + "' already exists");
+            }
+            return student;
+        };
+
+        return runImport("students", csvFile, rejectFile, listener,
+            new String[] { "student_id", "name" }, parser,
+            chunk -> allOrNothing(studentDAO.addStudentsBatch(chunk), chunk.size()),
+            null);
+    }
+
+    /**
+     * Columns: teacher_id, name, subject, salary (required); email, phone, address, birth_date, hire_date.
+     */
+    public ImportResult importTeachers(Path csvFile, Path rejectFile, ProgressListener listener) throws IOException {
+        Set<String> knownIds = teacherDAO.getAllTeacherIds();
+
+        RowParser<Teacher> parser = row -> {
+            Teacher teacher = new Teacher(
+                row.get("name"),
+                row.get("email"),
+                row.get("phone"),
+                row.get("address"),
+                parseDate(row, "birth_date", null),
+                row.get("teacher_id"),
+                row.get("subject"),
+                parseSalary(row),
+                parseDate(row, "hire_date", LocalDate.now())
+            );
+            teacherService.validateTeacher(teacher);
+            if (!knownIds.add(teacher.getTeacherId())) {
+                throw new IllegalArgumentException("Teacher ID '" + teacher.getTeacherId() + "' already exists");
+            }
+            return teacher;
+        };
+
+        return runImport("teachers", csvFile, rejectFile, listener,
+            new String[] { "teacher_id", "name", "subject", "salary" }, parser,
+            chunk -> allOrNothing(teacherDAO.addTeachersBatch(chunk), chunk.size()),
+            null);
+    }
+
+    /**
+     * Columns: course_code, student_id. Capacity and the credit-hour limit are checked per row in the database.
+     */
+    public ImportResult importEnrollments(Path csvFile, Path rejectFile, ProgressListener listener) throws IOException {
+        Map<String, Integer> courseIds = courseDAO.getCourseIdsByCode();
+        Set<String> studentIds = studentDAO.getAllStudentIds();
+
+        RowParser<EnrollmentRow> parser = row -> {
+            String courseCode = row.get("course_code");
+            String studentId = row.get("student_id");
+            Integer courseId = courseCode != null ? courseIds.get(courseCode) : null;
+            if (courseId == null) {
+                throw new IllegalArgumentException("Course not found: " + courseCode);
+            }
+            if (studentId == null || !studentIds.contains(studentId)) {
+                throw new IllegalArgumentException("Student not found: " + studentId);
+            }
+            return new EnrollmentRow(courseId, studentId);
+        };
+
+        return runImport("enrollments", csvFile, rejectFile, listener,
+            new String[] { "course_code", "student_id" }, parser,
+            chunk -> courseDAO.addEnrollmentsBatch(chunk, CourseService.MAX_CREDIT_HOURS),
+            "Course is full, credit hour limit exceeded or already enrolled");
+    }
+
+    private <T> ImportResult runImport(String kind, Path csvFile, Path rejectFile, ProgressListener listener,
+                                       String[] requiredColumns, RowParser<T> parser, ChunkWriter<T> writer,
+                                       String skippedReason) throws IOException {
+        Log.debug("📥 Importing {} from {}", kind, csvFile);
+        ImportResult result = new ImportResult(kind);
+        List<T> chunk = new ArrayList<>(chunkSize);
+        List<String> chunkLines = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8);
+             RejectWriter rejects = new RejectWriter(rejectFile)) {
+
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                throw new IOException("CSV file is empty: " + csvFile);
+            }
+            if (headerLine.startsWith("\uFEFF")) {
+                headerLine = headerLine.substring(1);
+            }
+            List<String> header = new ArrayList<>();
+            for (String column : parseCsvLine(headerLine)) {
+                header.add(column.trim().toLowerCase(Locale.ROOT));
+            }
+            for (String column : requiredColumns) {
+                if (!header.contains(column)) {
+                    throw new IOException("Missing column '" + column + "' in " + csvFile);
+                }
+            }
+            rejects.setHeader(headerLine);
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.processed++;
+
+                try {
+                    chunk.add(parser.parse(toRow(header, parseCsvLine(line))));
+                    chunkLines.add(line);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    rejects.reject(line, e.getMessage());
+                    result.rejected++;
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, chunkLines, writer, skippedReason, rejects, result);
+                    if (listener != null) {
+                        listener.onProgress(result);
+                    }
+                }
+            }
+            flush(chunk, chunkLines, writer, skippedReason, rejects, result);
+        }
+
+        result.finish();
+        if (listener != null) {
+            listener.onProgress(result);
+        }
+        Log.info("✅ Import finished - {}", result);
+        if (result.rejected > 0 && rejectFile != null) {
+            Log.warn("⚠️ Rejected rows written to {}", rejectFile);
+        }
+        return result;
+    }
+
+    private <T> void flush(List<T> chunk, List<String> chunkLines, ChunkWriter<T> writer, String skippedReason,
+                           RejectWriter rejects, ImportResult result) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        int[] outcomes = writer.write(chunk);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (outcomes == null) {
+                rejects.reject(chunkLines.get(i), "Database error, chunk rolled back");
+                result.rejected++;
+            } else if (outcomes[i] > 0) {
+                result.imported++;
+            } else {
+                rejects.reject(chunkLines.get(i), skippedReason);
+                result.rejected++;
+            }
+        }
+
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private static int[] allOrNothing(int inserted, int size) {
+        if (inserted < 0) {
+            return null;
+        }
+        int[] outcomes = new int[size];
+        Arrays.fill(outcomes, 1);
+        return outcomes;
+    }
+
+    private static Map<String, String> toRow(List<String> header, List<String> values) {
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.size() && i < values.size(); i++) {
+            String value = values.get(i).trim();
+            row.put(header.get(i), value.isEmpty() ? null : value);
+        }
+        return row;
+    }
+
+    private static LocalDate parseDate(Map<String, String> row, String column, LocalDate defaultValue) {
+        String value = row.get(column);
+        return value != null ? LocalDate.parse(value) : defaultValue;
+    }
+
+    private static double parseSalary(Map<String, String> row) {
+        String value = row.get("salary");
+        if (value == null) {
+            throw new IllegalArgumentException("Salary is required");
+        }
+        return Double.parseDouble(value);
+    }
+
+    /**
+     * Splits one CSV line; supports quoted fields with doubled quotes inside.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Writes rejected rows as the original line plus a reason column; the file is only created if needed.
+     */
+    private static class RejectWriter implements Closeable {
+        private final Path file;
+        private BufferedWriter writer;
+        private String header;
+
+        RejectWriter(Path file) {
+            this.file = file;
+        }
+
+        void setHeader(String header) {
+            this.header = header;
+        }
+
+        void reject(String line, String reason) throws IOException {
+            if (file == null) {
+                return;
+            }
+            if (writer == null) {
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                writer.write(header + ",reject_reason");
+                writer.newLine();
+            }
+            String safeReason = reason == null ? "" : reason.replace("\"", "\"\"");
+            writer.write(line + ",\"" + safeReason + "\"");
+            writer.newLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Command line entry point:
+     * ImportService students|teachers|enrollments file.csv [rejects.csv]
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: ImportService <students|teachers|enrollments> <file.csv> [rejects.csv]");
+            return;
+        }
+
+        Path csvFile = Paths.get(args[1]);
+        Path rejectFile = args.length > 2 ? Paths.get(args[2]) : Paths.get(args[1] + ".rejects.csv");
+        ProgressListener progress = p -> System.out.println("   ⏳ " + p);
+        ImportService importService = new ImportService();
+
+        try {
+            switch (args[0].toLowerCase(Locale.ROOT)) {
+                case "students" -> importService.importStudents(csvFile, rejectFile, progress);
+                case "teachers" -> importService.importTeachers(csvFile, rejectFile, progress);
+                case "enrollments" -> importService.importEnrollments(csvFile, rejectFile, progress);
+                default -> System.err.println("❌ Unknown import type: " + args[0]);
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Import failed: " + e.getMessage());
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+}
@@ -1,11 +1,26 @@
 package wmesaf.basicschool.business;
 
-import wmesaf.basicschool.model.Student;
-import wmesaf.basicschool.model.Teacher;
-import wmesaf.basicschool.model.Course;
+import wmesaf.basicschool.dao.ReportDAO;
+import wmesaf.basicschool.dao.StatisticsDAO;
+import wmesaf.basicschool.database.DatabaseConnection;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -18,413 +33,372 @@ public class ReportService {
     private StudentService studentService;
     private TeacherService teacherService;
     private CourseService courseService;
+    private StatisticsDAO statisticsDAO;
+    private ReportDAO reportDAO;
     
     public ReportService() {
         this.studentService = new StudentService();
         this.teacherService = new TeacherService();
         this.courseService = new CourseService();
+        this.statisticsDAO = new StatisticsDAO();
+        this.reportDAO = new ReportDAO();
     }
     
     /**
-     * ✅ Student Statistics Report - **مُصَحَّح**
+     * ✅ Student Statistics Report - **مُصَحَّح**
      */
     public String generateStudentStatisticsReport() {
-        List<Student> students = studentService.getAllStudents();
+        return render(this::writeStudentStatisticsReport);
+    }
+    
+    /**
+     * ✅ Student Statistics Report written directly to a Writer
+     */
+    public void writeStudentStatisticsReport(Writer out) throws IOException {
+        writeStudentStatisticsReport(out, loadSnapshot());
+    }
+    
+    private void writeStudentStatisticsReport(Writer out, ReportSnapshot snapshot) throws IOException {
+        int totalStudents = snapshot.totalStudents();
         
-        StringBuilder report = new StringBuilder();
-        report.append("╔══════════════════════════════════════════════════════════════════╗\n");
-        report.append("║                  STUDENT STATISTICS REPORT                      ║\n");
-        report.append("╚══════════════════════════════════════════════════════════════════╝\n\n");
+        out.append("╔══════════════════════════════════════════════════════════════════╗\n");
+        out.append("║                  STUDENT STATISTICS REPORT                      ║\n");
+        out.append("╚══════════════════════════════════════════════════════════════════╝\n\n");
         
-        // Header - **مُصَحَّح**: استخدام LocalDateTime بدلاً من LocalDate للوقت
+        // Header - **مُصَحَّح**: استخدام LocalDateTime بدلاً من LocalDate للوقت
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         LocalDateTime now = LocalDateTime.now();
-        report.append("📅 Report Date: ").append(now.format(formatter)).append("\n");
-        report.append("📊 Total Students: ").append(students.size()).append("\n\n");
+        out.append("📅 Report Date: ").append(now.format(formatter)).append("\n");
+        out.append("📊 Total Students: ").append(String.valueOf(totalStudents)).append("\n\n");
         
-        if (students.isEmpty()) {
-            report.append("⚠️ No student data available.\n\n");
+        if (totalStudents == 0) {
+            out.append("⚠️ No student data available.\n\n");
         } else {
-            // Grade Distribution
-            Map<String, Long> gradeDistribution = students.stream()
-                .collect(Collectors.groupingBy(
-                    Student::getGrade,
-                    Collectors.counting()
-                ));
-            
-            report.append("📚 GRADE DISTRIBUTION\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            gradeDistribution.forEach((grade, count) -> {
-                double percentage = students.size() > 0 ? (count * 100.0) / students.size() : 0;
-                report.append(String.format("  %-15s: %3d students (%5.1f%%)\n", grade, count, percentage));
-            });
+            // Grade Distribution (من grade_summary)
+            Map<String, Integer> gradeDistribution = studentService.getGradeDistribution();
+            
+            out.append("📚 GRADE DISTRIBUTION\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            for (Map.Entry<String, Integer> entry : gradeDistribution.entrySet()) {
+                double percentage = (entry.getValue() * 100.0) / totalStudents;
+                out.append(String.format("  %-15s: %3d students (%5.1f%%)\n", entry.getKey(), entry.getValue(), percentage));
+            }
             
             // Age Analysis
-            report.append("\n👥 AGE ANALYSIS\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            double averageAge = studentService.calculateAverageAge();
-            report.append(String.format("Average Age: %.1f years\n", averageAge));
-            
-            Map<String, Integer> ageGroups = Map.of(
-                "Under 15", studentService.getStudentsByAgeRange(0, 14).size(),
-                "15-17", studentService.getStudentsByAgeRange(15, 17).size(),
-                "18-20", studentService.getStudentsByAgeRange(18, 20).size(),
-                "Over 20", studentService.getStudentsByAgeRange(21, 100).size()
-            );
-            
-            ageGroups.forEach((group, count) -> {
-                double percentage = students.size() > 0 ? (count * 100.0) / students.size() : 0;
-                report.append(String.format("  %-10s: %3d students (%5.1f%%)\n", group, count, percentage));
-            });
+            out.append("\n👥 AGE ANALYSIS\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            double averageAge = snapshot.averageStudentAge();
+            out.append(String.format("Average Age: %.1f years\n", averageAge));
+            
+            for (Map.Entry<String, Long> entry : statisticsDAO.getStudentAgeGroups().entrySet()) {
+                double percentage = (entry.getValue() * 100.0) / totalStudents;
+                out.append(String.format("  %-10s: %3d students (%5.1f%%)\n", entry.getKey(), entry.getValue(), percentage));
+            }
             
             // Recent Enrollments
-            int recentStudents = studentService.getRecentStudentsCount();
-            report.append("\n🆕 RECENT ENROLLMENTS\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            report.append(String.format("Students enrolled in last 30 days: %d\n", recentStudents));
+            int recentStudents = snapshot.recentStudents();
+            out.append("\n🆕 RECENT ENROLLMENTS\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            out.append(String.format("Students enrolled in last 30 days: %d\n", recentStudents));
             
             // Top 10 Students by Enrollment Date (Newest)
-            report.append("\n🎓 RECENTLY ENROLLED STUDENTS (Top 10)\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            students.stream()
-                .sorted((s1, s2) -> s2.getEnrollmentDate().compareTo(s1.getEnrollmentDate()))
-                .limit(10)
-                .forEach(student -> {
-                    long daysSinceEnrollment = ChronoUnit.DAYS.between(
-                        student.getEnrollmentDate(), LocalDate.now());
-                    report.append(String.format("  %-25s - %-15s (Enrolled %d days ago)\n",
-                        student.getName(), student.getStudentId(), daysSinceEnrollment));
-                });
+            out.append("\n🎓 RECENTLY ENROLLED STUDENTS (Top 10)\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            LocalDate today = LocalDate.now();
+            reportDAO.streamStudentsByEnrollmentDate(10, student -> {
+                long daysSinceEnrollment = ChronoUnit.DAYS.between(student.enrollmentDate(), today);
+                out.append(String.format("  %-25s - %-15s (Enrolled %d days ago)\n",
+                    student.name(), student.studentId(), daysSinceEnrollment));
+            });
         }
         
-        report.append("\n" + "═".repeat(70) + "\n");
-        report.append("End of Student Statistics Report\n");
-        report.append("═".repeat(70));
-        
-        return report.toString();
+        out.append("\n" + "═".repeat(70) + "\n");
+        out.append("End of Student Statistics Report\n");
+        out.append("═".repeat(70));
     }
     
     /**
-     * ✅ Teacher Statistics Report - **مُصَحَّح**
+     * ✅ Teacher Statistics Report - **مُصَحَّح**
      */
     public String generateTeacherStatisticsReport() {
-        List<Teacher> teachers = teacherService.getAllTeachers();
+        return render(this::writeTeacherStatisticsReport);
+    }
+    
+    /**
+     * ✅ Teacher Statistics Report written directly to a Writer
+     */
+    public void writeTeacherStatisticsReport(Writer out) throws IOException {
+        writeTeacherStatisticsReport(out, loadSnapshot());
+    }
+    
+    private void writeTeacherStatisticsReport(Writer out, ReportSnapshot snapshot) throws IOException {
+        int totalTeachers = snapshot.totalTeachers();
         
-        StringBuilder report = new StringBuilder();
-        report.append("╔══════════════════════════════════════════════════════════════════╗\n");
-        report.append("║                 TEACHER STATISTICS REPORT                       ║\n");
-        report.append("╚══════════════════════════════════════════════════════════════════╝\n\n");
+        out.append("╔══════════════════════════════════════════════════════════════════╗\n");
+        out.append("║                 TEACHER STATISTICS REPORT                       ║\n");
+        out.append("╚══════════════════════════════════════════════════════════════════╝\n\n");
         
-        // Header - **مُصَحَّح**
+        // Header - **مُصَحَّح**
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        report.append("📅 Report Date: ").append(LocalDate.now().format(formatter)).append("\n");
-        report.append("👩‍🏫 Total Teachers: ").append(teachers.size()).append("\n\n");
+        out.append("📅 Report Date: ").append(LocalDate.now().format(formatter)).append("\n");
+        out.append("👩‍🏫 Total Teachers: ").append(String.valueOf(totalTeachers)).append("\n\n");
         
-        if (teachers.isEmpty()) {
-            report.append("⚠️ No teacher data available.\n\n");
+        if (totalTeachers == 0) {
+            out.append("⚠️ No teacher data available.\n\n");
         } else {
-            // Subject Distribution
-            Map<String, Long> subjectDistribution = teachers.stream()
-                .collect(Collectors.groupingBy(
-                    Teacher::getSubject,
-                    Collectors.counting()
-                ));
-            
-            report.append("📖 SUBJECT DISTRIBUTION\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            subjectDistribution.forEach((subject, count) -> {
-                double percentage = teachers.size() > 0 ? (count * 100.0) / teachers.size() : 0;
-                report.append(String.format("  %-25s: %2d teachers (%5.1f%%)\n", subject, count, percentage));
-            });
+            // Subject Distribution (من subject_summary)
+            Map<String, Integer> subjectDistribution = teacherService.getSubjectDistribution();
+            
+            out.append("📖 SUBJECT DISTRIBUTION\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            for (Map.Entry<String, Integer> entry : subjectDistribution.entrySet()) {
+                double percentage = (entry.getValue() * 100.0) / totalTeachers;
+                out.append(String.format("  %-25s: %2d teachers (%5.1f%%)\n", entry.getKey(), entry.getValue(), percentage));
+            }
             
             // Experience Analysis
-            report.append("\n⏳ EXPERIENCE ANALYSIS\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            Map<String, Long> experienceGroups = teachers.stream()
-                .collect(Collectors.groupingBy(
-                    teacher -> {
-                        int years = teacher.getYearsOfService();
-                        if (years <= 5) return "0-5 years";
-                        else if (years <= 10) return "6-10 years";
-                        else if (years <= 20) return "11-20 years";
-                        else return "20+ years";
-                    },
-                    Collectors.counting()
-                ));
-            
-            experienceGroups.forEach((group, count) -> {
-                double percentage = teachers.size() > 0 ? (count * 100.0) / teachers.size() : 0;
-                report.append(String.format("  %-15s: %2d teachers (%5.1f%%)\n", group, count, percentage));
-            });
+            out.append("\n⏳ EXPERIENCE ANALYSIS\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            for (Map.Entry<String, Long> entry : statisticsDAO.getTeacherExperienceGroups().entrySet()) {
+                double percentage = (entry.getValue() * 100.0) / totalTeachers;
+                out.append(String.format("  %-15s: %2d teachers (%5.1f%%)\n", entry.getKey(), entry.getValue(), percentage));
+            }
             
-            double avgExperience = teachers.stream()
-                .mapToInt(Teacher::getYearsOfService)
-                .average()
-                .orElse(0);
-            report.append(String.format("\nAverage Years of Service: %.1f years\n", avgExperience));
+            double avgExperience = statisticsDAO.getAverageYearsOfService();
+            out.append(String.format("\nAverage Years of Service: %.1f years\n", avgExperience));
             
             // Financial Analysis
-            double totalSalary = teacherService.calculateTotalSalaryExpense();
-            double avgSalary = teacherService.calculateAverageSalary();
+            double totalSalary = snapshot.totalSalary();
+            double avgSalary = snapshot.averageSalary();
             
-            report.append("\n💰 FINANCIAL ANALYSIS\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            report.append(String.format("Total Monthly Salary Expense: $%,.2f\n", totalSalary));
-            report.append(String.format("Average Monthly Salary: $%,.2f\n", avgSalary));
-            report.append(String.format("Annual Salary Expense: $%,.2f\n", totalSalary * 12));
+            out.append("\n💰 FINANCIAL ANALYSIS\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            out.append(String.format("Total Monthly Salary Expense: $%,.2f\n", totalSalary));
+            out.append(String.format("Average Monthly Salary: $%,.2f\n", avgSalary));
+            out.append(String.format("Annual Salary Expense: $%,.2f\n", totalSalary * 12));
             
             // Salary Range Analysis
-            report.append("\n💵 SALARY RANGES\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            Map<String, Long> salaryRanges = teachers.stream()
-                .collect(Collectors.groupingBy(
-                    teacher -> {
-                        double salary = teacher.getSalary();
-                        if (salary < 3000) return "Under $3,000";
-                        else if (salary < 4000) return "$3,000 - $3,999";
-                        else if (salary < 5000) return "$4,000 - $4,999";
-                        else if (salary < 6000) return "$5,000 - $5,999";
-                        else return "$6,000+";
-                    },
-                    Collectors.counting()
-                ));
-            
-            salaryRanges.forEach((range, count) -> {
-                double percentage = teachers.size() > 0 ? (count * 100.0) / teachers.size() : 0;
-                report.append(String.format("  %-20s: %2d teachers (%5.1f%%)\n", range, count, percentage));
-            });
+            out.append("\n💵 SALARY RANGES\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            for (Map.Entry<String, Long> entry : statisticsDAO.getSalaryRanges().entrySet()) {
+                double percentage = (entry.getValue() * 100.0) / totalTeachers;
+                out.append(String.format("  %-20s: %2d teachers (%5.1f%%)\n", entry.getKey(), entry.getValue(), percentage));
+            }
             
             // Top 5 Highest Paid Teachers
-            report.append("\n🏆 TOP 5 HIGHEST PAID TEACHERS\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            teachers.stream()
-                .sorted((t1, t2) -> Double.compare(t2.getSalary(), t1.getSalary()))
-                .limit(5)
-                .forEach(teacher -> {
-                    report.append(String.format("  %-25s - %-15s - $%,.2f/month (%d years service)\n",
-                        teacher.getName(), teacher.getSubject(), 
-                        teacher.getSalary(), teacher.getYearsOfService()));
-                });
+            out.append("\n🏆 TOP 5 HIGHEST PAID TEACHERS\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            reportDAO.streamTeachersBySalary(5, teacher ->
+                out.append(String.format("  %-25s - %-15s - $%,.2f/month (%d years service)\n",
+                    teacher.name(), teacher.subject(), teacher.salary(), teacher.yearsOfService())));
         }
         
-        report.append("\n" + "═".repeat(70) + "\n");
-        report.append("End of Teacher Statistics Report\n");
-        report.append("═".repeat(70));
-        
-        return report.toString();
+        out.append("\n" + "═".repeat(70) + "\n");
+        out.append("End of Teacher Statistics Report\n");
+        out.append("═".repeat(70));
     }
     
     /**
-     * ✅ Course Statistics Report - **مُصَحَّح**
+     * ✅ Course Statistics Report - **مُصَحَّح**
      */
     public String generateCourseStatisticsReport() {
-        List<Course> courses = courseService.getAllCourses();
-        Map<String, Object> courseStats = courseService.getCourseStatistics();
+        return render(this::writeCourseStatisticsReport);
+    }
+    
+    /**
+     * ✅ Course Statistics Report written directly to a Writer
+     */
+    public void writeCourseStatisticsReport(Writer out) throws IOException {
+        writeCourseStatisticsReport(out, courseService.getCourseStatistics());
+    }
+    
+    // إحصائيات المواد لا تدخل في اللقطة المشتركة؛ يحمّلها فقط ما يكتب هذا القسم
+    private void writeCourseStatisticsReport(Writer out, Map<String, Object> courseStats) throws IOException {
+        int totalCourses = (int) courseStats.get("totalCourses");
         
-        StringBuilder report = new StringBuilder();
-        report.append("╔══════════════════════════════════════════════════════════════════╗\n");
-        report.append("║                  COURSE STATISTICS REPORT                       ║\n");
-        report.append("╚══════════════════════════════════════════════════════════════════╝\n\n");
+        out.append("╔══════════════════════════════════════════════════════════════════╗\n");
+        out.append("║                  COURSE STATISTICS REPORT                       ║\n");
+        out.append("╚══════════════════════════════════════════════════════════════════╝\n\n");
         
-        // Header - **مُصَحَّح**
+        // Header - **مُصَحَّح**
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        report.append("📅 Report Date: ").append(LocalDate.now().format(formatter)).append("\n");
-        report.append("📚 Total Courses: ").append(courses.size()).append("\n\n");
+        out.append("📅 Report Date: ").append(LocalDate.now().format(formatter)).append("\n");
+        out.append("📚 Total Courses: ").append(String.valueOf(totalCourses)).append("\n\n");
         
-        if (courses.isEmpty()) {
-            report.append("⚠️ No course data available.\n\n");
+        if (totalCourses == 0) {
+            out.append("⚠️ No course data available.\n\n");
         } else {
             // Department Distribution
             @SuppressWarnings("unchecked")
             Map<String, Long> departmentDistribution = (Map<String, Long>) courseStats.get("departmentDistribution");
             
-            report.append("🏛️ DEPARTMENT DISTRIBUTION\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
+            out.append("🏛️ DEPARTMENT DISTRIBUTION\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
             
             if (departmentDistribution != null) {
-                departmentDistribution.forEach((dept, count) -> {
-                    double percentage = courses.size() > 0 ? (count * 100.0) / courses.size() : 0;
-                    report.append(String.format("  %-20s: %2d courses (%5.1f%%)\n", dept, count, percentage));
-                });
+                for (Map.Entry<String, Long> entry : departmentDistribution.entrySet()) {
+                    double percentage = (entry.getValue() * 100.0) / totalCourses;
+                    out.append(String.format("  %-20s: %2d courses (%5.1f%%)\n", entry.getKey(), entry.getValue(), percentage));
+                }
             }
             
             // Enrollment Statistics
-            report.append("\n👥 ENROLLMENT STATISTICS\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
+            out.append("\n👥 ENROLLMENT STATISTICS\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
             
-            report.append(String.format("Average Enrollment: %.1f students\n", courseStats.get("averageEnrollment")));
-            report.append(String.format("Occupancy Rate: %.1f%%\n", courseStats.get("occupancyRate")));
-            report.append(String.format("Full Courses: %d\n", courseStats.get("fullCourses")));
-            report.append(String.format("Courses Without Teacher: %d\n", courseStats.get("coursesWithoutTeacher")));
+            out.append(String.format("Average Enrollment: %.1f students\n", courseStats.get("averageEnrollment")));
+            out.append(String.format("Occupancy Rate: %.1f%%\n", courseStats.get("occupancyRate")));
+            out.append(String.format("Full Courses: %d\n", courseStats.get("fullCourses")));
+            out.append(String.format("Courses Without Teacher: %d\n", courseStats.get("coursesWithoutTeacher")));
             
             // Credit Hours Analysis
-            report.append("\n⏰ CREDIT HOURS ANALYSIS\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            Map<Integer, Long> creditDistribution = courses.stream()
-                .collect(Collectors.groupingBy(
-                    Course::getCreditHours,
-                    Collectors.counting()
-                ));
-            
-            creditDistribution.forEach((credits, count) -> {
-                double percentage = courses.size() > 0 ? (count * 100.0) / courses.size() : 0;
-                report.append(String.format("  %-2d credit hours: %2d courses (%5.1f%%)\n", credits, count, percentage));
-            });
+            out.append("\n⏰ CREDIT HOURS ANALYSIS\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            for (Map.Entry<Integer, Long> entry : statisticsDAO.getCreditHourDistribution().entrySet()) {
+                double percentage = (entry.getValue() * 100.0) / totalCourses;
+                out.append(String.format("  %-2d credit hours: %2d courses (%5.1f%%)\n", entry.getKey(), entry.getValue(), percentage));
+            }
             
             // Course Duration Analysis
-            report.append("\n📅 COURSE DURATION\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            Map<String, Long> durationGroups = courses.stream()
-                .collect(Collectors.groupingBy(
-                    course -> {
-                        long days = course.getDurationInDays();
-                        if (days <= 30) return "≤ 1 month";
-                        else if (days <= 90) return "1-3 months";
-                        else if (days <= 180) return "3-6 months";
-                        else return "6+ months";
-                    },
-                    Collectors.counting()
-                ));
-            
-            durationGroups.forEach((duration, count) -> {
-                double percentage = courses.size() > 0 ? (count * 100.0) / courses.size() : 0;
-                report.append(String.format("  %-15s: %2d courses (%5.1f%%)\n", duration, count, percentage));
-            });
+            out.append("\n📅 COURSE DURATION\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            for (Map.Entry<String, Long> entry : statisticsDAO.getCourseDurationGroups().entrySet()) {
+                double percentage = (entry.getValue() * 100.0) / totalCourses;
+                out.append(String.format("  %-15s: %2d courses (%5.1f%%)\n", entry.getKey(), entry.getValue(), percentage));
+            }
             
             // Top 10 Most Popular Courses
-            report.append("\n🏆 TOP 10 MOST POPULAR COURSES\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            courses.stream()
-                .sorted((c1, c2) -> Integer.compare(c2.getCurrentEnrollment(), c1.getCurrentEnrollment()))
-                .limit(10)
-                .forEach(course -> {
-                    double occupancy = (double) course.getCurrentEnrollment() / course.getMaxStudents() * 100;
-                    report.append(String.format("  %-10s - %-30s - %2d/%2d students (%5.1f%%)\n",
-                        course.getCourseCode(), course.getCourseName(),
-                        course.getCurrentEnrollment(), course.getMaxStudents(), occupancy));
-                });
+            out.append("\n🏆 TOP 10 MOST POPULAR COURSES\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            reportDAO.streamCoursesByEnrollment(10, course -> {
+                double occupancy = (double) course.enrolled() / course.maxStudents() * 100;
+                out.append(String.format("  %-10s - %-30s - %2d/%2d students (%5.1f%%)\n",
+                    course.courseCode(), course.courseName(),
+                    course.enrolled(), course.maxStudents(), occupancy));
+            });
             
             // Courses Ending Soon (within 30 days)
-            report.append("\n⏳ COURSES ENDING SOON (within 30 days)\n");
-            report.append("────────────────────────────────────────────────────────────────\n");
-            
-            List<Course> endingSoon = courses.stream()
-                .filter(course -> {
-                    long daysUntilEnd = ChronoUnit.DAYS.between(LocalDate.now(), course.getEndDate());
-                    return daysUntilEnd > 0 && daysUntilEnd <= 30;
-                })
-                .sorted((c1, c2) -> c1.getEndDate().compareTo(c2.getEndDate()))
-                .toList();
-            
-            if (endingSoon.isEmpty()) {
-                report.append("No courses ending in the next 30 days.\n");
-            } else {
-                endingSoon.forEach(course -> {
-                    long daysUntilEnd = ChronoUnit.DAYS.between(LocalDate.now(), course.getEndDate());
-                    report.append(String.format("  %-10s - %-30s - Ends in %d days\n",
-                        course.getCourseCode(), course.getCourseName(), daysUntilEnd));
-                });
+            out.append("\n⏳ COURSES ENDING SOON (within 30 days)\n");
+            out.append("────────────────────────────────────────────────────────────────\n");
+            
+            LocalDate today = LocalDate.now();
+            boolean[] anyEndingSoon = {false};
+            reportDAO.streamCoursesEndingBetween(today, today.plusDays(30), course -> {
+                anyEndingSoon[0] = true;
+                long daysUntilEnd = ChronoUnit.DAYS.between(today, course.endDate());
+                out.append(String.format("  %-10s - %-30s - Ends in %d days\n",
+                    course.courseCode(), course.courseName(), daysUntilEnd));
+            });
+            
+            if (!anyEndingSoon[0]) {
+                out.append("No courses ending in the next 30 days.\n");
             }
         }
         
-        report.append("\n" + "═".repeat(70) + "\n");
-        report.append("End of Course Statistics Report\n");
-        report.append("═".repeat(70));
-        
-        return report.toString();
+        out.append("\n" + "═".repeat(70) + "\n");
+        out.append("End of Course Statistics Report\n");
+        out.append("═".repeat(70));
     }
     
     /**
      * ✅ System Summary Report - **مُصَحَّح**
      */
     public String generateSystemSummaryReport() {
-        StringBuilder report = new StringBuilder();
-        report.append("╔══════════════════════════════════════════════════════════════════╗\n");
-        report.append("║                  SYSTEM SUMMARY REPORT                          ║\n");
-        report.append("╚══════════════════════════════════════════════════════════════════╝\n\n");
+        return render(this::writeSystemSummaryReport);
+    }
+    
+    /**
+     * ✅ System Summary Report written directly to a Writer
+     */
+    public void writeSystemSummaryReport(Writer out) throws IOException {
+        writeSystemSummaryReport(out, loadSnapshot());
+    }
+    
+    private void writeSystemSummaryReport(Writer out, ReportSnapshot snapshot) throws IOException {
+        out.append("╔══════════════════════════════════════════════════════════════════╗\n");
+        out.append("║                  SYSTEM SUMMARY REPORT                          ║\n");
+        out.append("╚══════════════════════════════════════════════════════════════════╝\n\n");
         
-        report.append("🏫 SCHOOL MANAGEMENT SYSTEM - SPRINT 3\n");
-        report.append("════════════════════════════════════════════════════════════════════\n");
+        out.append("🏫 SCHOOL MANAGEMENT SYSTEM - SPRINT 3\n");
+        out.append("════════════════════════════════════════════════════════════════════\n");
         
         // System Information
-        report.append("📋 SYSTEM INFORMATION\n");
-        report.append("────────────────────────────────────────────────────────────────\n");
-        report.append("Version: 3.0 (Advanced OOP Course Project)\n");
-        report.append("Student: Wessal Mostafa Mohammed\n");
-        report.append("ID: 262504\n");
-        report.append("Course: PGCS653 - Fall 2025\n");
-        report.append("Report Date: ").append(LocalDate.now()).append("\n");
-        report.append("Java Version: ").append(System.getProperty("java.version")).append("\n");
-        report.append("Database: SQLite (school_management.db)\n\n");
+        out.append("📋 SYSTEM INFORMATION\n");
+        out.append("────────────────────────────────────────────────────────────────\n");
+        out.append("Version: 3.0 (Advanced OOP Course Project)\n");
+        out.append("Student: Wessal Mostafa Mohammed\n");
+        out.append("ID: 262504\n");
+        out.append("Course: PGCS653 - Fall 2025\n");
+        out.append("Report Date: ").append(LocalDate.now().toString()).append("\n");
+        out.append("Java Version: ").append(System.getProperty("java.version")).append("\n");
+        out.append("Database: ").append(DatabaseConnection.getInstance().getDatabaseInfo()).append("\n\n");
         
         // Module Status
-        report.append("🔧 MODULE STATUS\n");
-        report.append("────────────────────────────────────────────────────────────────\n");
-        report.append("✓ User Authentication Module\n");
-        report.append("✓ Student Management Module\n");
-        report.append("✓ Teacher Management Module\n");
-        report.append("✓ Course Management Module\n");
-        report.append("✓ Dashboard & Analytics Module\n");
-        report.append("✓ Reporting Module\n");
-        report.append("✓ Database Management Module\n\n");
+        out.append("🔧 MODULE STATUS\n");
+        out.append("────────────────────────────────────────────────────────────────\n");
+        out.append("✓ User Authentication Module\n");
+        out.append("✓ Student Management Module\n");
+        out.append("✓ Teacher Management Module\n");
+        out.append("✓ Course Management Module\n");
+        out.append("✓ Dashboard & Analytics Module\n");
+        out.append("✓ Reporting Module\n");
+        out.append("✓ Database Management Module\n\n");
         
         // Current Statistics
-        report.append("📈 CURRENT STATISTICS\n");
-        report.append("────────────────────────────────────────────────────────────────\n");
+        out.append("📈 CURRENT STATISTICS\n");
+        out.append("────────────────────────────────────────────────────────────────\n");
         
-        List<Student> students = studentService.getAllStudents();
-        List<Teacher> teachers = teacherService.getAllTeachers();
-        List<Course> courses = courseService.getAllCourses();
+        int totalStudents = snapshot.totalStudents();
+        int totalTeachers = snapshot.totalTeachers();
+        int totalCourses = snapshot.totalCourses();
         
-        report.append(String.format("Total Students: %d\n", students.size()));
-        report.append(String.format("Total Teachers: %d\n", teachers.size()));
-        report.append(String.format("Total Courses: %d\n", courses.size()));
+        out.append(String.format("Total Students: %d\n", totalStudents));
+        out.append(String.format("Total Teachers: %d\n", totalTeachers));
+        out.append(String.format("Total Courses: %d\n", totalCourses));
         
-        if (!teachers.isEmpty()) {
-            double studentTeacherRatio = (double) students.size() / teachers.size();
-            report.append(String.format("Student-Teacher Ratio: %.1f:1\n", studentTeacherRatio));
+        if (totalTeachers > 0) {
+            double studentTeacherRatio = (double) totalStudents / totalTeachers;
+            out.append(String.format("Student-Teacher Ratio: %.1f:1\n", studentTeacherRatio));
         }
         
-        if (!courses.isEmpty()) {
-            int totalEnrollments = courses.stream()
-                .mapToInt(Course::getCurrentEnrollment)
-                .sum();
-            report.append(String.format("Total Course Enrollments: %d\n", totalEnrollments));
+        if (totalCourses > 0) {
+            long totalEnrollments = statisticsDAO.countEnrollments();
+            out.append(String.format("Total Course Enrollments: %d\n", totalEnrollments));
             
-            double avgCoursesPerTeacher = (double) courses.size() / teachers.size();
-            report.append(String.format("Average Courses per Teacher: %.1f\n", avgCoursesPerTeacher));
+            double avgCoursesPerTeacher = (double) totalCourses / totalTeachers;
+            out.append(String.format("Average Courses per Teacher: %.1f\n", avgCoursesPerTeacher));
         }
         
         // Design Patterns Used
-        report.append("\n🎨 DESIGN PATTERNS IMPLEMENTED\n");
-        report.append("────────────────────────────────────────────────────────────────\n");
-        report.append("✓ Singleton Pattern - DatabaseConnection\n");
-        report.append("✓ Factory Pattern - PersonFactory\n");
-        report.append("✓ DAO Pattern - StudentDAO, TeacherDAO, CourseDAO\n");
-        report.append("✓ MVC Pattern - Four-layer architecture\n\n");
+        out.append("\n🎨 DESIGN PATTERNS IMPLEMENTED\n");
+        out.append("────────────────────────────────────────────────────────────────\n");
+        out.append("✓ Singleton Pattern - DatabaseConnection\n");
+        out.append("✓ Factory Pattern - PersonFactory\n");
+        out.append("✓ DAO Pattern - StudentDAO, TeacherDAO, CourseDAO\n");
+        out.append("✓ MVC Pattern - Four-layer architecture\n\n");
         
         // OOP Principles
-        report.append("🧩 OOP PRINCIPLES APPLIED\n");
-        report.append("────────────────────────────────────────────────────────────────\n");
-        report.append("✓ Encapsulation - Private fields with getters/setters\n");
-        report.append("✓ Inheritance - Person → Student/Teacher\n");
-        report.append("✓ Polymorphism - IAuthenticatable interface\n");
-        report.append("✓ Abstraction - Abstract classes and interfaces\n");
-        report.append("✓ Exception Handling - Comprehensive error handling\n\n");
+        out.append("🧩 OOP PRINCIPLES APPLIED\n");
+        out.append("────────────────────────────────────────────────────────────────\n");
+        out.append("✓ Encapsulation - Private fields with getters/setters\n");
+        out.append("✓ Inheritance - Person → Student/Teacher\n");
+        out.append("✓ Polymorphism - IAuthenticatable interface\n");
+        out.append("✓ Abstraction - Abstract classes and interfaces\n");
+        out.append("✓ Exception Handling - Comprehensive error handling\n\n");
         
         // Recent Activities (simulated)
-        report.append("🔄 RECENT SYSTEM ACTIVITIES\n");
-        report.append("────────────────────────────────────────────────────────────────\n");
+        out.append("🔄 RECENT SYSTEM ACTIVITIES\n");
+        out.append("────────────────────────────────────────────────────────────────\n");
         
         String[] activities = {
             "Database initialized with sample data",
@@ -435,41 +409,49 @@ public class ReportService {
         };
         
         for (String activity : activities) {
-            report.append("• ").append(activity).append("\n");
+            out.append("• ").append(activity).append("\n");
         }
         
-        report.append("\n" + "═".repeat(70) + "\n");
-        report.append("© 2025 Omar Al-Mukhtar University - Computer Department\n");
-        report.append("Project successfully completed for Sprint 3 requirements\n");
-        report.append("═".repeat(70));
-        
-        return report.toString();
+        out.append("\n" + "═".repeat(70) + "\n");
+        out.append("© 2025 Omar Al-Mukhtar University - Computer Department\n");
+        out.append("Project successfully completed for Sprint 3 requirements\n");
+        out.append("═".repeat(70));
     }
     
     /**
      * ✅ Generate comprehensive report with all sections
      */
     public String generateComprehensiveReport() {
-        StringBuilder report = new StringBuilder();
-        
-        report.append(generateSystemSummaryReport()).append("\n\n");
-        report.append(generateStudentStatisticsReport()).append("\n\n");
-        report.append(generateTeacherStatisticsReport()).append("\n\n");
-        report.append(generateCourseStatisticsReport());
-        
-        return report.toString();
+        return render(this::writeComprehensiveReport);
+    }
+    
+    /**
+     * ✅ Comprehensive report assembled in parallel and written to a Writer
+     *
+     * اللقطة المشتركة تُحمّل مرة واحدة، ثم تُحسب الأقسام الأربعة بالتوازي على
+     * مجمع خيوط محدود، وتُكتب بالترتيب نفسه دائماً. كل قسم صغير (القوائم محدودة
+     * بأعلى 10)، فالذاكرة لا تعتمد على عدد الطلاب أو التسجيلات.
+     */
+    public void writeComprehensiveReport(Writer out) throws IOException {
+        ReportSnapshot snapshot = loadSnapshot();
+        Map<String, Object> courseStats = courseService.getCourseStatistics();
+        assemble(out, "\n\n",
+            section -> writeSystemSummaryReport(section, snapshot),
+            section -> writeStudentStatisticsReport(section, snapshot),
+            section -> writeTeacherStatisticsReport(section, snapshot),
+            section -> writeCourseStatisticsReport(section, courseStats));
     }
     
     /**
      * ✅ Generate executive summary (brief report)
      */
     public String generateExecutiveSummary() {
-        List<Student> students = studentService.getAllStudents();
-        List<Teacher> teachers = teacherService.getAllTeachers();
-        List<Course> courses = courseService.getAllCourses();
-        
-        double totalSalary = teacherService.calculateTotalSalaryExpense();
-        double avgSalary = teacherService.calculateAverageSalary();
+        ReportSnapshot snapshot = loadSnapshot();
+        int totalStudents = snapshot.totalStudents();
+        int totalTeachers = snapshot.totalTeachers();
+        int totalCourses = snapshot.totalCourses();
+        double totalSalary = snapshot.totalSalary();
+        double avgSalary = snapshot.averageSalary();
         
         StringBuilder summary = new StringBuilder();
         summary.append("EXECUTIVE SUMMARY\n");
@@ -479,14 +461,14 @@ public class ReportService {
         
         summary.append("KEY METRICS:\n");
         summary.append("─────────────\n");
-        summary.append(String.format("• Total Students: %d\n", students.size()));
-        summary.append(String.format("• Total Teachers: %d\n", teachers.size()));
-        summary.append(String.format("• Total Courses: %d\n", courses.size()));
+        summary.append(String.format("• Total Students: %d\n", totalStudents));
+        summary.append(String.format("• Total Teachers: %d\n", totalTeachers));
+        summary.append(String.format("• Total Courses: %d\n", totalCourses));
         summary.append(String.format("• Monthly Salary Expense: $%,.2f\n", totalSalary));
         summary.append(String.format("• Average Teacher Salary: $%,.2f\n\n", avgSalary));
         
-        if (!teachers.isEmpty() && !students.isEmpty()) {
-            double ratio = (double) students.size() / teachers.size();
+        if (totalTeachers > 0 && totalStudents > 0) {
+            double ratio = (double) totalStudents / totalTeachers;
             summary.append(String.format("• Student-Teacher Ratio: %.1f:1\n\n", ratio));
         }
         
@@ -494,7 +476,7 @@ public class ReportService {
         summary.append("────────────────\n");
         
         // تحليل وتوصيات
-        if (teachers.size() < 10) {
+        if (totalTeachers < 10) {
             summary.append("• Consider hiring more teachers to improve student-teacher ratio\n");
         }
         
@@ -502,7 +484,7 @@ public class ReportService {
             summary.append("• Review salary structure for cost optimization\n");
         }
         
-        if (courses.size() < 5) {
+        if (totalCourses < 5) {
             summary.append("• Expand course offerings to attract more students\n");
         } else {
             summary.append("• Maintain current course diversity and quality\n");
@@ -516,4 +498,119 @@ public class ReportService {
         
         return summary.toString();
     }
-}
\ No newline at end of file
+    
+    /**
+     * الأرقام التي تتشاركها الأقسام، تُحسب مرة واحدة لكل تقرير.
+     */
+    private record ReportSnapshot(int totalStudents, int totalTeachers, int totalCourses,
+                                  double totalSalary, double averageSalary,
+                                  double averageStudentAge, int recentStudents) { }
+    
+    private ReportSnapshot loadSnapshot() {
+        Map<String, Object> aggregates = statisticsDAO.getDashboardAggregates();
+        return new ReportSnapshot(
+            asNumber(aggregates.get("total_students")).intValue(),
+            asNumber(aggregates.get("total_teachers")).intValue(),
+            asNumber(aggregates.get("total_courses")).intValue(),
+            asNumber(aggregates.get("total_salary")).doubleValue(),
+            asNumber(aggregates.get("average_salary")).doubleValue(),
+            asNumber(aggregates.get("average_student_age")).doubleValue(),
+            asNumber(aggregates.get("recent_students")).intValue());
+    }
+    
+    private static Number asNumber(Object value) {
+        return value instanceof Number number ? number : 0;
+    }
+    
+    @FunctionalInterface
+    private interface ReportSection {
+        void writeTo(Writer out) throws IOException;
+    }
+    
+    // مجمع محدود لأقسام التقارير؛ عند امتلاء الطابور ينفذ المستدعي القسم بنفسه
+    private static final ExecutorService SECTION_EXECUTOR = createSectionExecutor();
+    
+    private static ExecutorService createSectionExecutor() {
+        int threads = Math.max(1, Integer.getInteger("school.report.threads", 4));
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads, threads, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * 4),
+            task -> {
+                Thread thread = new Thread(task, "report-section-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    /**
+     * يحسب الأقسام بالتوازي ويكتبها بترتيبها مفصولة بـ separator. الكتابة تبدأ
+     * بمجرد جاهزية القسم الأول، فيكون الزمن الكلي قريباً من زمن أبطأ قسم.
+     */
+    private void assemble(Writer out, String separator, ReportSection... sections) throws IOException {
+        List<Future<String>> parts = new ArrayList<>(sections.length);
+        for (ReportSection section : sections) {
+            parts.add(SECTION_EXECUTOR.submit(() -> render(section)));
+        }
+        
+        try {
+            for (int i = 0; i < parts.size(); i++) {
+                if (i > 0) {
+                    out.append(separator);
+                }
+                out.append(parts.get(i).get());
+            }
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Report generation interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Report section failed", cause);
+        } finally {
+            for (Future<String> part : parts) {
+                part.cancel(true);
+            }
+        }
+    }
+    
+    // نسخة نصية للعرض في الواجهة؛ StringWriter لا يرمي IOException فعلياً
+    private String render(ReportSection section) {
+        StringWriter out = new StringWriter();
+        try {
+            section.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+    
+    /**
+     * سطر أوامر: ReportService <output.txt>
+     * يكتب التقرير الشامل إلى ملف عبر Writer مع مخزن مؤقت.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: ReportService <output.txt>");
+            return;
+        }
+        
+        try (Writer out = Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            new ReportService().writeComprehensiveReport(out);
+            System.out.println("✅ Report written to " + args[0]);
+        } catch (IOException e) {
+            System.err.println("❌ Report export failed: " + e.getMessage());
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package wmesaf.basicschool.business;
 
+import wmesaf.basicschool.dao.EntityCache;
+import wmesaf.basicschool.dao.SearchIndex;
+import wmesaf.basicschool.dao.StatisticsDAO;
 import wmesaf.basicschool.dao.StudentDAO;
 import wmesaf.basicschool.model.Student;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.time.LocalDate;
 
 /**
@@ -11,12 +16,31 @@ import java.time.LocalDate;
  */
 public class StudentService {
     private StudentDAO studentDAO;
+    private StatisticsDAO statisticsDAO;
+    private final EntityCache cache = EntityCache.getInstance();
     
     public StudentService() {
         this.studentDAO = new StudentDAO();
+        this.statisticsDAO = new StatisticsDAO();
     }
     
     public boolean addStudent(Student student) {
+        validateStudent(student);
+        
+        // Check duplicate student ID
+        if (studentDAO.studentIdExists(student.getStudentId())) {
+            throw new IllegalArgumentException("Student ID '" + student.getStudentId() + "' already exists");
+        }
+        
+        // All validations passed, save to database
+        return studentDAO.addStudent(student);
+    }
+    
+    /**
+     * Business validation rules that do not need the database.
+     * Shared by addStudent and the bulk import; duplicate IDs are checked by the caller.
+     */
+    public void validateStudent(Student student) {
         // Business validation rules
         if (student == null) {
             throw new IllegalArgumentException("Student cannot be null");
@@ -30,11 +54,6 @@ public class StudentService {
             throw new IllegalArgumentException("Student ID is required");
         }
         
-        // Check duplicate student ID
-        if (studentDAO.studentIdExists(student.getStudentId())) {
-            throw new IllegalArgumentException("Student ID '" + student.getStudentId() + "' already exists");
-        }
-        
         // Business rule: Birth date cannot be in future
         if (student.getBirthDate() != null && student.getBirthDate().isAfter(LocalDate.now())) {
             throw new IllegalArgumentException("Birth date cannot be in the future");
@@ -52,13 +71,10 @@ public class StudentService {
                 throw new IllegalArgumentException("Student must be at least 5 years old");
             }
         }
-        
-        // All validations passed, save to database
-        return studentDAO.addStudent(student);
     }
     
     public List<Student> getAllStudents() {
-        return studentDAO.getAllStudents();
+        return cache.getStudents("all", studentDAO::getAllStudents);
     }
     
     public Student getStudentById(int id) {
@@ -81,11 +97,45 @@ public class StudentService {
     }
     
     public List<Student> searchStudentsByName(String name) {
-        return studentDAO.searchStudentsByName(name);
+        return cache.getStudents("search:" + name, () -> studentDAO.searchStudentsByName(name));
+    }
+    
+    /**
+     * One page of the students who can still enroll in a course, in student ID order.
+     *
+     * If the full student list is already cached and the caller knows who is
+     * enrolled, the page is picked from the cache with hash lookups and no query
+     * runs; otherwise StudentDAO reads it with an anti-join.
+     *
+     * @param enrolledIds    student IDs already in the course, or null if not known
+     * @param nameFilter     search text, or null for all students
+     * @param afterStudentId last student ID of the previous page, or null for the first page
+     */
+    public List<Student> getAvailableStudentsForCourse(int courseId, Set<String> enrolledIds,
+                                                       String nameFilter, String afterStudentId, int limit) {
+        if (enrolledIds != null) {
+            Set<Integer> matching = null;
+            if (nameFilter != null && !nameFilter.trim().isEmpty()) {
+                matching = new HashSet<>();
+                for (SearchIndex.Hit hit : SearchIndex.getInstance().search(SearchIndex.Kind.STUDENT, nameFilter, 0)) {
+                    matching.add(hit.id());
+                }
+            }
+            Set<Integer> nameMatches = matching;
+            List<Student> page = cache.selectStudents("all", student ->
+                (afterStudentId == null || student.getStudentId().compareTo(afterStudentId) > 0)
+                    && !enrolledIds.contains(student.getStudentId())
+                    && (nameMatches == null || nameMatches.contains(student.getId())),
+                limit);
+            if (page != null) {
+                return page;
+            }
+        }
+        return studentDAO.getStudentsNotInCourse(courseId, nameFilter, afterStudentId, limit);
     }
     
     public List<Student> getStudentsByGrade(String grade) {
-        return studentDAO.getStudentsByGrade(grade);
+        return cache.getStudents("grade:" + grade, () -> studentDAO.getStudentsByGrade(grade));
     }
     
     public int countStudents() {
@@ -127,16 +177,11 @@ public class StudentService {
             .toList();
     }
     
-    // ✅ دالة إضافية: Get grade distribution
+    // ✅ دالة إضافية: Get grade distribution (من جدول grade_summary)
     public java.util.Map<String, Integer> getGradeDistribution() {
-        List<Student> students = getAllStudents();
-        java.util.Map<String, Integer> distribution = new java.util.HashMap<>();
-        
-        for (Student student : students) {
-            String grade = student.getGrade();
-            distribution.put(grade, distribution.getOrDefault(grade, 0) + 1);
-        }
-        
+        java.util.Map<String, Integer> distribution = new java.util.LinkedHashMap<>();
+        statisticsDAO.getGradeDistribution()
+            .forEach((grade, count) -> distribution.put(grade, count.intValue()));
         return distribution;
     }
     
@@ -1,5 +1,7 @@
 package wmesaf.basicschool.business;
 
+import wmesaf.basicschool.dao.EntityCache;
+import wmesaf.basicschool.dao.StatisticsDAO;
 import wmesaf.basicschool.dao.TeacherDAO;
 import wmesaf.basicschool.model.Teacher;
 import java.util.List;
@@ -10,12 +12,30 @@ import java.time.LocalDate;
  */
 public class TeacherService {
     private TeacherDAO teacherDAO;
+    private StatisticsDAO statisticsDAO;
+    private final EntityCache cache = EntityCache.getInstance();
     
     public TeacherService() {
         this.teacherDAO = new TeacherDAO();
+        this.statisticsDAO = new StatisticsDAO();
     }
     
     public boolean addTeacher(Teacher teacher) {
+        validateTeacher(teacher);
+        
+        // Check duplicate teacher ID
+        if (teacherDAO.teacherIdExists(teacher.getTeacherId())) {
+            throw new IllegalArgumentException("Teacher ID '" + teacher.getTeacherId() + "' already exists");
+        }
+        
+        return teacherDAO.addTeacher(teacher);
+    }
+    
+    /**
+     * Business validation rules that do not need the database.
+     * Shared by addTeacher and the bulk import; duplicate IDs are checked by the caller.
+     */
+    public void validateTeacher(Teacher teacher) {
         // Business validation rules
         if (teacher == null) {
             throw new IllegalArgumentException("Teacher cannot be null");
@@ -33,11 +53,6 @@ public class TeacherService {
             throw new IllegalArgumentException("Subject is required");
         }
         
-        // Check duplicate teacher ID
-        if (teacherDAO.teacherIdExists(teacher.getTeacherId())) {
-            throw new IllegalArgumentException("Teacher ID '" + teacher.getTeacherId() + "' already exists");
-        }
-        
         // Business rule: Salary cannot be negative
         if (teacher.getSalary() < 0) {
             throw new IllegalArgumentException("Salary cannot be negative");
@@ -60,12 +75,10 @@ public class TeacherService {
                 throw new IllegalArgumentException("Teacher must be at least 21 years old");
             }
         }
-        
-        return teacherDAO.addTeacher(teacher);
     }
     
     public List<Teacher> getAllTeachers() {
-        return teacherDAO.getAllTeachers();
+        return cache.getTeachers("all", teacherDAO::getAllTeachers);
     }
     
     public Teacher getTeacherById(int id) {
@@ -88,11 +101,11 @@ public class TeacherService {
     }
     
     public List<Teacher> searchTeachersByName(String name) {
-        return teacherDAO.searchTeachersByName(name);
+        return cache.getTeachers("search:" + name, () -> teacherDAO.searchTeachersByName(name));
     }
     
     public List<Teacher> getTeachersBySubject(String subject) {
-        return teacherDAO.getTeachersBySubject(subject);
+        return cache.getTeachers("subject:" + subject, () -> teacherDAO.getTeachersBySubject(subject));
     }
     
     public int countTeachers() {
@@ -103,23 +116,22 @@ public class TeacherService {
         return teacherDAO.teacherIdExists(teacherId);
     }
     
-    // Business logic: Calculate total salary expense
+    // Business logic: Calculate total salary expense (from subject_summary)
     public double calculateTotalSalaryExpense() {
-        List<Teacher> teachers = getAllTeachers();
-        return teachers.stream()
-            .mapToDouble(Teacher::getSalary)
-            .sum();
+        return statisticsDAO.getTotalSalary();
     }
     
     // Business logic: Calculate average salary
     public double calculateAverageSalary() {
-        List<Teacher> teachers = getAllTeachers();
-        if (teachers.isEmpty()) return 0;
-        
-        return teachers.stream()
-            .mapToDouble(Teacher::getSalary)
-            .average()
-            .orElse(0);
+        return statisticsDAO.getAverageSalary();
+    }
+    
+    // Business logic: Teachers per subject (from subject_summary)
+    public java.util.Map<String, Integer> getSubjectDistribution() {
+        java.util.Map<String, Integer> distribution = new java.util.LinkedHashMap<>();
+        statisticsDAO.getSubjectDistribution()
+            .forEach((subject, count) -> distribution.put(subject, count.intValue()));
+        return distribution;
     }
     
     // Business logic: Get teachers by experience
@@ -2,56 +2,39 @@ package wmesaf.basicschool.dao;
 
 import wmesaf.basicschool.database.DatabaseConnection;
 import wmesaf.basicschool.model.Admin;
+import wmesaf.basicschool.logging.Log;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class AdminDAO {
-    private Connection connection;
+    private final DatabaseConnection db;
     
     public AdminDAO() {
-        System.out.println("🔧 Initializing AdminDAO...");
+        Log.debug("🔧 Initializing AdminDAO...");
         
-        DatabaseConnection db = DatabaseConnection.getInstance();
-        this.connection = db.getConnection();
+        this.db = DatabaseConnection.getInstance();
         
-        if (connection == null) {
-            System.err.println("❌ CRITICAL: Database connection is NULL in AdminDAO constructor");
+        if (!db.isConnectionValid()) {
+            Log.error("❌ CRITICAL: Database connection is not available in AdminDAO constructor");
         } else {
-            try {
-                if (connection.isClosed()) {
-                    System.err.println("❌ Database connection is CLOSED in AdminDAO");
-                } else {
-                    System.out.println("✅ AdminDAO: Database connection acquired");
-                }
-            } catch (SQLException e) {
-                System.err.println("❌ Error checking connection in AdminDAO: " + e.getMessage());
-            }
+            Log.info("✅ AdminDAO: Database connection pool available");
         }
     }
     
     public Admin authenticate(String username, String password) {
-        System.out.println("🔐 Attempting authentication for: " + username);
+        Log.debug("🔐 Attempting authentication for: {}", username);
         
         // Validate connection
-        if (connection == null) {
-            System.err.println("❌ Authentication failed: Connection is NULL");
-            return createEmergencyAdmin(username); // Fallback
-        }
-        
-        try {
-            if (connection.isClosed()) {
-                System.err.println("❌ Authentication failed: Connection is CLOSED");
-                return createEmergencyAdmin(username); // Fallback
-            }
-        } catch (SQLException e) {
-            System.err.println("❌ Error checking connection state: " + e.getMessage());
+        if (!db.isConnectionValid()) {
+            Log.error("❌ Authentication failed: Database connection is not available");
             return createEmergencyAdmin(username); // Fallback
         }
         
         String sql = "SELECT * FROM admins WHERE username = ? AND password = ? AND is_active = TRUE";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, username);
             pstmt.setString(2, password);
             
@@ -67,16 +50,16 @@ public class AdminDAO {
                 admin.setId(rs.getInt("id"));
                 admin.setActive(rs.getBoolean("is_active"));
                 
-                System.out.println("✅ Authentication SUCCESS for: " + username);
-                System.out.println("   Admin: " + admin.getFullName() + ", Email: " + admin.getEmail());
+                Log.info("✅ Authentication SUCCESS for: {}", username);
+                Log.debug("   Admin: {}, Email: {}", admin.getFullName(), admin.getEmail());
                 
                 return admin;
             } else {
-                System.out.println("❌ Authentication FAILED for: " + username);
+                Log.warn("❌ Authentication FAILED for: {}", username);
                 
                 // Check if database has any admins at all
                 if (!hasAnyAdmins()) {
-                    System.out.println("⚠️ No admins in database, creating default...");
+                    Log.warn("⚠️ No admins in database, creating default...");
                     createDefaultAdmin();
                     return authenticate(username, password); // Retry
                 }
@@ -85,12 +68,12 @@ public class AdminDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ SQL Error during authentication: " + e.getMessage());
-            System.err.println("   SQL: " + sql);
+            Log.error("❌ SQL Error during authentication: {}", e.getMessage());
+            Log.error("   SQL: {}", sql);
             
             // Fallback for demo purposes
             if (username.equals("admin") && password.equals("admin123")) {
-                System.out.println("⚠️ Using emergency admin (database error)");
+                Log.warn("⚠️ Using emergency admin (database error)");
                 return createEmergencyAdmin(username);
             }
             
@@ -101,13 +84,14 @@ public class AdminDAO {
     private boolean hasAnyAdmins() {
         String sql = "SELECT COUNT(*) as count FROM admins";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             return rs.next() && rs.getInt("count") > 0;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error checking admin count: " + e.getMessage());
+            Log.error("❌ Error checking admin count: {}", e.getMessage());
             return false;
         }
     }
@@ -116,16 +100,17 @@ public class AdminDAO {
         String sql = "INSERT INTO admins (username, password, full_name, email) VALUES " +
                     "('admin', 'admin123', 'System Administrator', 'admin@school.com')";
         
-        try (Statement stmt = connection.createStatement()) {
+        try (Connection connection = db.getConnection();
+             Statement stmt = connection.createStatement()) {
             stmt.executeUpdate(sql);
-            System.out.println("✅ Default admin created in database");
+            Log.info("✅ Default admin created in database");
         } catch (SQLException e) {
-            System.err.println("❌ Error creating default admin: " + e.getMessage());
+            Log.error("❌ Error creating default admin: {}", e.getMessage());
         }
     }
     
     private Admin createEmergencyAdmin(String username) {
-        System.out.println("⚠️ Creating emergency admin account for: " + username);
+        Log.warn("⚠️ Creating emergency admin account for: {}", username);
         
         if (username.equals("admin")) {
             Admin emergencyAdmin = new Admin("admin", "admin123", 
@@ -143,7 +128,8 @@ public class AdminDAO {
         
         String sql = "INSERT INTO admins (username, password, full_name, email) VALUES (?, ?, ?, ?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, admin.getUsername());
             pstmt.setString(2, admin.getPassword());
             pstmt.setString(3, admin.getFullName());
@@ -159,7 +145,7 @@ public class AdminDAO {
                 return true;
             }
         } catch (SQLException e) {
-            System.err.println("Error adding admin: " + e.getMessage());
+            Log.error("Error adding admin: {}", e.getMessage());
         }
         return false;
     }
@@ -169,7 +155,8 @@ public class AdminDAO {
         
         String sql = "SELECT * FROM admins WHERE id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             
             ResultSet rs = pstmt.executeQuery();
@@ -186,7 +173,7 @@ public class AdminDAO {
                 return admin;
             }
         } catch (SQLException e) {
-            System.err.println("Error getting admin: " + e.getMessage());
+            Log.error("Error getting admin: {}", e.getMessage());
         }
         return null;
     }
@@ -197,7 +184,8 @@ public class AdminDAO {
         
         String sql = "SELECT * FROM admins ORDER BY full_name";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
@@ -212,26 +200,16 @@ public class AdminDAO {
                 admins.add(admin);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting all admins: " + e.getMessage());
+            Log.error("Error getting all admins: {}", e.getMessage());
         }
         return admins;
     }
     
     private boolean isConnectionValid() {
-        if (connection == null) {
-            System.err.println("❌ Database connection is NULL");
-            return false;
-        }
-        
-        try {
-            if (connection.isClosed()) {
-                System.err.println("❌ Database connection is CLOSED");
-                return false;
-            }
-            return true;
-        } catch (SQLException e) {
-            System.err.println("❌ Error checking connection: " + e.getMessage());
+        if (!db.isConnectionValid()) {
+            Log.error("❌ Database connection is not available");
             return false;
         }
+        return true;
     }
 }
\ No newline at end of file
@@ -4,79 +4,49 @@ import wmesaf.basicschool.database.DatabaseConnection;
 import wmesaf.basicschool.model.Course;
 import wmesaf.basicschool.model.Teacher;
 import wmesaf.basicschool.model.Student;
+import wmesaf.basicschool.logging.Log;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class CourseDAO {
-    private Connection connection;
+    
+    /**
+     * صف تسجيل واحد في الاستيراد الجماعي: معرف المادة ورقم الطالب
+     */
+    public record EnrollmentRow(int courseId, String studentId) { }
+    
+    /**
+     * نتيجة تسجيل طالب واحد في enrollStudents
+     */
+    public enum EnrollmentOutcome {
+        ENROLLED, ALREADY_ENROLLED, COURSE_FULL, CREDIT_LIMIT_EXCEEDED,
+        STUDENT_NOT_FOUND, COURSE_NOT_FOUND, FAILED
+    }
+    
+    private final DatabaseConnection db;
     private TeacherDAO teacherDAO;
     private StudentDAO studentDAO;
     
     public CourseDAO() {
-        this.connection = DatabaseConnection.getInstance().getConnection();
+        this.db = DatabaseConnection.getInstance();
         this.teacherDAO = new TeacherDAO();
         this.studentDAO = new StudentDAO();
-        
-        // إنشاء جدول المواد إذا لم يكن موجوداً
-        createCoursesTable();
-        createEnrollmentTable();
-    }
-    
-    private void createCoursesTable() {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS courses (
-                id INTEGER PRIMARY KEY,
-                course_code TEXT UNIQUE NOT NULL,
-                course_name TEXT NOT NULL,
-                description TEXT,
-                credit_hours INTEGER DEFAULT 3,
-                department TEXT,
-                start_date TEXT NOT NULL,
-                end_date TEXT NOT NULL,
-                max_students INTEGER DEFAULT 30,
-                teacher_id INTEGER,
-                created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-                FOREIGN KEY (teacher_id) REFERENCES teachers(person_id)
-            )
-            """;
-        
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("✅ Courses table created/verified");
-        } catch (SQLException e) {
-            System.err.println("❌ Error creating courses table: " + e.getMessage());
-        }
-    }
-    
-    private void createEnrollmentTable() {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS course_enrollments (
-                course_id INTEGER NOT NULL,
-                student_id TEXT NOT NULL,
-                enrollment_date TEXT DEFAULT CURRENT_TIMESTAMP,
-                grade REAL,
-                status TEXT DEFAULT 'ENROLLED',
-                PRIMARY KEY (course_id, student_id),
-                FOREIGN KEY (course_id) REFERENCES courses(id),
-                FOREIGN KEY (student_id) REFERENCES students(student_id)
-            )
-            """;
-        
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("✅ Course enrollments table created/verified");
-        } catch (SQLException e) {
-            System.err.println("❌ Error creating enrollments table: " + e.getMessage());
-        }
     }
     
     /**
      * إضافة مادة جديدة
      */
     public boolean addCourse(Course course) {
-        System.out.println("📝 Adding course: " + course.getCourseCode());
+        Log.debug("📝 Adding course: {}", course.getCourseCode());
         
         String sql = """
             INSERT INTO courses (course_code, course_name, description, credit_hours, 
@@ -84,7 +54,8 @@ public class CourseDAO {
             VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, course.getCourseCode());
             pstmt.setString(2, course.getCourseName());
             pstmt.setString(3, course.getDescription());
@@ -102,18 +73,21 @@ public class CourseDAO {
             }
             
             int affectedRows = pstmt.executeUpdate();
+            EntityCache.getInstance().coursesChanged();
             
             if (affectedRows > 0) {
                 try (ResultSet rs = pstmt.getGeneratedKeys()) {
                     if (rs.next()) {
                         course.setId(rs.getInt(1));
-                        System.out.println("✅ Course added with ID: " + course.getId());
+                        SearchIndex.getInstance().putCourse(course.getId(), course.getCourseCode(),
+                                                            course.getCourseName(), course.getDescription());
+                        Log.info("✅ Course added with ID: {}", course.getId());
                     }
                 }
                 return true;
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error adding course: " + e.getMessage());
+            Log.error("❌ Error adding course: {}", e.getMessage());
         }
         return false;
     }
@@ -122,22 +96,11 @@ public class CourseDAO {
      * الحصول على مادة بواسطة ID
      */
     public Course getCourseById(int id) {
-        String sql = """
-            SELECT c.*, t.teacher_id as teacher_code
-            FROM courses c
-            LEFT JOIN teachers t ON c.teacher_id = t.person_id
-            WHERE c.id = ?
-            """;
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return createCourseFromResultSet(rs);
-            }
+        try {
+            List<Course> courses = loadCourses("c.id = ?", id);
+            return courses.isEmpty() ? null : courses.get(0);
         } catch (SQLException e) {
-            System.err.println("❌ Error getting course by ID: " + e.getMessage());
+            Log.error("❌ Error getting course by ID: {}", e.getMessage());
         }
         return null;
     }
@@ -146,22 +109,11 @@ public class CourseDAO {
      * الحصول على مادة بواسطة كود المادة
      */
     public Course getCourseByCode(String courseCode) {
-        String sql = """
-            SELECT c.*, t.teacher_id as teacher_code
-            FROM courses c
-            LEFT JOIN teachers t ON c.teacher_id = t.person_id
-            WHERE c.course_code = ?
-            """;
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, courseCode);
-            
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return createCourseFromResultSet(rs);
-            }
+        try {
+            List<Course> courses = loadCourses("c.course_code = ?", courseCode);
+            return courses.isEmpty() ? null : courses.get(0);
         } catch (SQLException e) {
-            System.err.println("❌ Error getting course by code: " + e.getMessage());
+            Log.error("❌ Error getting course by code: {}", e.getMessage());
         }
         return null;
     }
@@ -170,38 +122,21 @@ public class CourseDAO {
      * الحصول على جميع المواد
      */
     public List<Course> getAllCourses() {
-        List<Course> courses = new ArrayList<>();
-        String sql = """
-            SELECT c.*, t.teacher_id as teacher_code
-            FROM courses c
-            LEFT JOIN teachers t ON c.teacher_id = t.person_id
-            ORDER BY c.course_code
-            """;
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                Course course = createCourseFromResultSet(rs);
-                if (course != null) {
-                    // تحميل الطلاب المسجلين
-                    loadEnrolledStudents(course);
-                    courses.add(course);
-                }
-            }
-            System.out.println("📊 Loaded " + courses.size() + " courses");
-            
+        try {
+            List<Course> courses = loadCourses(null);
+            Log.debug("📊 Loaded {} courses", courses.size());
+            return courses;
         } catch (SQLException e) {
-            System.err.println("❌ Error getting all courses: " + e.getMessage());
+            Log.error("❌ Error getting all courses: {}", e.getMessage());
         }
-        return courses;
+        return new ArrayList<>();
     }
     
     /**
      * تحديث مادة
      */
     public boolean updateCourse(Course course) {
-        System.out.println("✏️ Updating course: " + course.getCourseCode());
+        Log.debug("✏️ Updating course: {}", course.getCourseCode());
         
         String sql = """
             UPDATE courses 
@@ -210,7 +145,8 @@ public class CourseDAO {
             WHERE id = ?
             """;
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, course.getCourseName());
             pstmt.setString(2, course.getDescription());
             pstmt.setInt(3, course.getCreditHours());
@@ -228,11 +164,14 @@ public class CourseDAO {
             pstmt.setInt(9, course.getId());
             
             int result = pstmt.executeUpdate();
-            System.out.println("✅ Course updated: " + course.getCourseCode());
+            EntityCache.getInstance().coursesChanged();
+            SearchIndex.getInstance().putCourse(course.getId(), course.getCourseCode(),
+                                                course.getCourseName(), course.getDescription());
+            Log.info("✅ Course updated: {}", course.getCourseCode());
             return result > 0;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error updating course: " + e.getMessage());
+            Log.error("❌ Error updating course: {}", e.getMessage());
         }
         return false;
     }
@@ -241,40 +180,42 @@ public class CourseDAO {
      * حذف مادة
      */
     public boolean deleteCourse(int id) {
-        System.out.println("🗑️ Deleting course ID: " + id);
+        Log.debug("🗑️ Deleting course ID: {}", id);
         
         // حذف التسجيلات أولاً
         String deleteEnrollmentsSQL = "DELETE FROM course_enrollments WHERE course_id = ?";
         String deleteCourseSQL = "DELETE FROM courses WHERE id = ?";
         
-        try {
+        try (Connection connection = db.getConnection()) {
             connection.setAutoCommit(false);
-            
-            // حذف التسجيلات
-            try (PreparedStatement pstmt = connection.prepareStatement(deleteEnrollmentsSQL)) {
-                pstmt.setInt(1, id);
-                pstmt.executeUpdate();
-            }
-            
-            // حذف المادة
-            try (PreparedStatement pstmt = connection.prepareStatement(deleteCourseSQL)) {
-                pstmt.setInt(1, id);
-                int result = pstmt.executeUpdate();
+            try {
+                // حذف التسجيلات
+                try (PreparedStatement pstmt = connection.prepareStatement(deleteEnrollmentsSQL)) {
+                    pstmt.setInt(1, id);
+                    pstmt.executeUpdate();
+                }
                 
-                connection.commit();
-                connection.setAutoCommit(true);
+                // حذف المادة
+                int result;
+                try (PreparedStatement pstmt = connection.prepareStatement(deleteCourseSQL)) {
+                    pstmt.setInt(1, id);
+                    result = pstmt.executeUpdate();
+                }
                 
-                System.out.println("✅ Course deleted successfully");
+                connection.commit();
+                EntityCache.getInstance().coursesChanged();
+                SearchIndex.getInstance().removeCourse(id);
+                Log.info("✅ Course deleted successfully");
                 return result > 0;
-            }
-        } catch (SQLException e) {
-            try {
+                
+            } catch (SQLException e) {
                 connection.rollback();
+                throw e;
+            } finally {
                 connection.setAutoCommit(true);
-            } catch (SQLException ex) {
-                System.err.println("❌ Error rolling back: " + ex.getMessage());
             }
-            System.err.println("❌ Error deleting course: " + e.getMessage());
+        } catch (SQLException e) {
+            Log.error("❌ Error deleting course: {}", e.getMessage());
         }
         return false;
     }
@@ -283,73 +224,366 @@ public class CourseDAO {
      * تسجيل طالب في مادة
      */
     public boolean enrollStudentInCourse(int courseId, String studentId) {
-        System.out.println("📚 Enrolling student " + studentId + " in course " + courseId);
+        Log.debug("📚 Enrolling student {} in course {}", studentId, courseId);
         
         String sql = "INSERT INTO course_enrollments (course_id, student_id) VALUES (?, ?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, courseId);
             pstmt.setString(2, studentId);
             
             int result = pstmt.executeUpdate();
-            System.out.println("✅ Student enrolled successfully");
+            EntityCache.getInstance().coursesChanged();
+            Log.info("✅ Student enrolled successfully");
             return result > 0;
             
         } catch (SQLException e) {
             if (e.getMessage().contains("UNIQUE constraint")) {
-                System.err.println("❌ Student already enrolled in this course");
+                Log.error("❌ Student already enrolled in this course");
             } else {
-                System.err.println("❌ Error enrolling student: " + e.getMessage());
+                Log.error("❌ Error enrolling student: {}", e.getMessage());
             }
         }
         return false;
     }
     
+    /**
+     * تسجيل دفعة من الطلاب في معاملة واحدة.
+     * كل صف يُدرج فقط إذا كانت المادة غير ممتلئة ولم يتجاوز الطالب الحد الأقصى
+     * للساعات المعتمدة، بنفس الإدراج المشروط الذي يستخدمه enrollStudents.
+     *
+     * @return لكل صف 1 إذا سُجّل و0 إذا رُفض (ممتلئة، تجاوز الساعات، أو مسجل مسبقاً)،
+     *         أو null إذا فشلت الدفعة وتم التراجع عنها بالكامل
+     */
+    public int[] addEnrollmentsBatch(List<EnrollmentRow> enrollments, int maxCreditHours) {
+        if (enrollments.isEmpty()) {
+            return new int[0];
+        }
+        
+        try (Connection connection = db.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int[] results = insertEnrollments(connection, enrollments, maxCreditHours);
+                connection.commit();
+                EntityCache.getInstance().coursesChanged();
+                return results;
+                
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error adding enrollment batch: {}", e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * Enrolls several students in one course in a single write transaction.
+     *
+     * Each row goes through the conditional insert shared with
+     * addEnrollmentsBatch, which only inserts while course_enrollment_summary
+     * shows a free seat and the student stays within maxCreditHours. The
+     * summary is updated by trigger after every insert, so later rows in the
+     * batch see the earlier ones. Write transactions start with BEGIN
+     * IMMEDIATE, so no other enrollment can commit in between and concurrent
+     * batches cannot oversubscribe max_students.
+     *
+     * @return an outcome for every distinct student ID, in input order
+     */
+    public Map<String, EnrollmentOutcome> enrollStudents(int courseId, Collection<String> studentIds,
+                                                         int maxCreditHours) {
+        Map<String, EnrollmentOutcome> outcomes = new LinkedHashMap<>();
+        for (String studentId : studentIds) {
+            outcomes.put(studentId, EnrollmentOutcome.FAILED);
+        }
+        if (outcomes.isEmpty()) {
+            return outcomes;
+        }
+        String ids = toJsonArray(outcomes.keySet());
+        
+        try (Connection connection = db.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                // المادة والمقاعد الحالية داخل المعاملة، فلا تتغير حتى الالتزام
+                int seats;
+                try (PreparedStatement pstmt = connection.prepareStatement(
+                        "SELECT c.max_students - COALESCE(ces.enrolled_count, 0) FROM courses c " +
+                        "LEFT JOIN course_enrollment_summary ces ON ces.course_id = c.id WHERE c.id = ?")) {
+                    pstmt.setInt(1, courseId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            outcomes.replaceAll((id, outcome) -> EnrollmentOutcome.COURSE_NOT_FOUND);
+                            connection.rollback();
+                            return outcomes;
+                        }
+                        seats = rs.getInt(1);
+                    }
+                }
+                
+                // الطلاب غير الموجودين والمسجلون مسبقاً لا يدخلون الدفعة
+                Set<String> known = selectIds(connection,
+                    "SELECT student_id FROM students WHERE student_id IN (SELECT value FROM json_each(?))", ids);
+                Set<String> enrolled = selectIds(connection,
+                    "SELECT student_id FROM course_enrollments " +
+                    "WHERE course_id = ? AND student_id IN (SELECT value FROM json_each(?))", courseId, ids);
+                List<EnrollmentRow> candidates = new ArrayList<>();
+                for (String studentId : outcomes.keySet()) {
+                    if (!known.contains(studentId)) {
+                        outcomes.put(studentId, EnrollmentOutcome.STUDENT_NOT_FOUND);
+                    } else if (enrolled.contains(studentId)) {
+                        outcomes.put(studentId, EnrollmentOutcome.ALREADY_ENROLLED);
+                    } else {
+                        candidates.add(new EnrollmentRow(courseId, studentId));
+                    }
+                }
+                
+                int enrolledNow = 0;
+                int[] results = insertEnrollments(connection, candidates, maxCreditHours);
+                // صف مرفوض مع بقاء مقاعد يعني تجاوز الساعات؛ بعد امتلاء المادة يُرفض الباقي
+                for (int i = 0; i < candidates.size(); i++) {
+                    EnrollmentOutcome outcome;
+                    if (results[i] > 0) {
+                        outcome = EnrollmentOutcome.ENROLLED;
+                        enrolledNow++;
+                        seats--;
+                    } else {
+                        outcome = seats > 0 ? EnrollmentOutcome.CREDIT_LIMIT_EXCEEDED
+                                            : EnrollmentOutcome.COURSE_FULL;
+                    }
+                    outcomes.put(candidates.get(i).studentId(), outcome);
+                }
+                
+                connection.commit();
+                if (enrolledNow > 0) {
+                    EntityCache.getInstance().coursesChanged();
+                }
+                Log.info("✅ Enrolled {} of {} students in course {}", enrolledNow, outcomes.size(), courseId);
+                return outcomes;
+                
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error enrolling students: {}", e.getMessage());
+        }
+        outcomes.replaceAll((id, outcome) -> EnrollmentOutcome.FAILED);
+        return outcomes;
+    }
+    
+    /**
+     * الإدراج المشروط المشترك بين addEnrollmentsBatch و enrollStudents.
+     * كل صف يُدرج فقط إذا كان الطالب موجوداً، وفي المادة مقعد بحسب
+     * course_enrollment_summary، ولا يتجاوز الطالب maxCreditHours. الملخص يُحدَّث
+     * بالـ trigger بعد كل إدراج، فترى الصفوف اللاحقة في الدفعة ما سبقها.
+     * يُستدعى داخل معاملة المستدعي.
+     *
+     * @return لكل صف 1 إذا سُجّل و0 إذا رُفض أو كان مسجلاً مسبقاً
+     */
+    private int[] insertEnrollments(Connection connection, List<EnrollmentRow> rows, int maxCreditHours)
+            throws SQLException {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        
+        String sql = """
+            INSERT OR IGNORE INTO course_enrollments (course_id, student_id)
+            SELECT c.id, ? FROM courses c
+            WHERE c.id = ?
+              AND EXISTS (SELECT 1 FROM students s WHERE s.student_id = ?)
+              AND COALESCE((SELECT enrolled_count FROM course_enrollment_summary
+                            WHERE course_id = c.id), 0) < c.max_students
+              AND COALESCE((SELECT SUM(c2.credit_hours)
+                            FROM course_enrollments ce2
+                            JOIN courses c2 ON ce2.course_id = c2.id
+                            WHERE ce2.student_id = ?), 0) + c.credit_hours <= ?
+            """;
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (EnrollmentRow row : rows) {
+                bindParameters(pstmt, row.studentId(), row.courseId(), row.studentId(), row.studentId(),
+                               maxCreditHours);
+                pstmt.addBatch();
+            }
+            return pstmt.executeBatch();
+        }
+    }
+    
+    private Set<String> selectIds(Connection connection, String sql, Object... params) throws SQLException {
+        Set<String> ids = new HashSet<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            bindParameters(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getString(1));
+                }
+            }
+        }
+        return ids;
+    }
+    
+    private static String toJsonArray(Collection<String> values) {
+        StringBuilder json = new StringBuilder("[");
+        for (String value : values) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"');
+            for (char ch : value.toCharArray()) {
+                if (ch == '"' || ch == '\\') {
+                    json.append('\\');
+                } else if (ch < 0x20) {
+                    json.append(String.format("\\u%04x", (int) ch));
+                    continue;
+                }
+                json.append(ch);
+            }
+            json.append('"');
+        }
+        return json.append(']').toString();
+    }
+    
+    /**
+     * معرفات جميع المواد حسب الكود في استعلام واحد
+     */
+    public Map<String, Integer> getCourseIdsByCode() {
+        Map<String, Integer> codes = new HashMap<>();
+        String sql = "SELECT course_code, id FROM courses";
+        
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                codes.put(rs.getString(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error loading course codes: {}", e.getMessage());
+        }
+        return codes;
+    }
+    
     /**
      * إزالة طالب من مادة
      */
     public boolean unenrollStudentFromCourse(int courseId, String studentId) {
-        System.out.println("🚫 Unenrolling student " + studentId + " from course " + courseId);
+        Log.debug("🚫 Unenrolling student {} from course {}", studentId, courseId);
         
         String sql = "DELETE FROM course_enrollments WHERE course_id = ? AND student_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, courseId);
             pstmt.setString(2, studentId);
             
             int result = pstmt.executeUpdate();
-            System.out.println("✅ Student unenrolled successfully");
+            EntityCache.getInstance().coursesChanged();
+            Log.info("✅ Student unenrolled successfully");
             return result > 0;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error unenrolling student: " + e.getMessage());
+            Log.error("❌ Error unenrolling student: {}", e.getMessage());
         }
         return false;
     }
     
     /**
-     * تحميل الطلاب المسجلين في مادة
+     * تحميل المواد مع معلميها وطلابها المسجلين بثلاثة استعلامات ثابتة مهما كان
+     * عدد المواد: المواد، ثم المعلمون، ثم التسجيلات مع بيانات الطلاب. الربط يتم
+     * في الذاكرة، وكل طالب يُنشأ مرة واحدة حتى لو كان مسجلاً في عدة مواد
+     * (عبر UnitOfWork).
+     *
+     * @param filter شرط SQL على جدول المواد (الاسم المستعار c)، أو null لجميع المواد
+     * @param params قيم المعاملات في الشرط، تُربط في كل استعلام من الثلاثة
      */
-    private void loadEnrolledStudents(Course course) {
-        String sql = """
-            SELECT s.student_id 
-            FROM course_enrollments ce
-            JOIN students s ON ce.student_id = s.student_id
-            WHERE ce.course_id = ?
-            """;
+    private List<Course> loadCourses(String filter, Object... params) throws SQLException {
+        String where = filter != null ? " WHERE (" + filter + ")" : "";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, course.getId());
+        List<Course> courses = new ArrayList<>();
+        Map<Integer, Course> coursesById = new HashMap<>();
+        Map<Integer, List<Course>> coursesByTeacher = new HashMap<>();
+        
+        try (Connection connection = db.getReadConnection()) {
+            // 1. المواد
+            String coursesSql = "SELECT c.* FROM courses c" + where + " ORDER BY c.course_code";
+            try (PreparedStatement pstmt = connection.prepareStatement(coursesSql)) {
+                bindParameters(pstmt, params);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Course course = createCourseFromResultSet(rs);
+                        courses.add(course);
+                        coursesById.put(course.getId(), course);
+                        
+                        int teacherId = rs.getInt("teacher_id");
+                        if (!rs.wasNull()) {
+                            coursesByTeacher.computeIfAbsent(teacherId, k -> new ArrayList<>()).add(course);
+                        }
+                    }
+                }
+            }
             
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Student student = studentDAO.getStudentByStudentId(rs.getString("student_id"));
-                if (student != null) {
-                    course.enrollStudent(student);
+            if (courses.isEmpty()) {
+                return courses;
+            }
+            
+            // 2. المعلمون المسندون لهذه المواد
+            if (!coursesByTeacher.isEmpty()) {
+                String teachersSql = "SELECT p.*, t.teacher_id, t.subject, t.salary, t.hire_date " +
+                                     "FROM persons p " +
+                                     "JOIN teachers t ON p.id = t.person_id " +
+                                     "WHERE t.person_id IN (SELECT c.teacher_id FROM courses c" + where + ")";
+                try (PreparedStatement pstmt = connection.prepareStatement(teachersSql)) {
+                    bindParameters(pstmt, params);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Teacher teacher = teacherDAO.createTeacherFromResultSet(rs);
+                            for (Course course : coursesByTeacher.getOrDefault(teacher.getId(), List.of())) {
+                                course.setAssignedTeacher(teacher);
+                            }
+                        }
+                    }
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Error loading enrolled students: " + e.getMessage());
+            
+            // 3. الطلاب المسجلون في هذه المواد
+            String enrollmentsSql = "SELECT ce.course_id, p.*, s.student_id, s.grade, s.enrollment_date " +
+                                    "FROM course_enrollments ce " +
+                                    "JOIN students s ON ce.student_id = s.student_id " +
+                                    "JOIN persons p ON p.id = s.person_id " +
+                                    "WHERE ce.course_id IN (SELECT c.id FROM courses c" + where + ") " +
+                                    "ORDER BY ce.course_id, ce.student_id";
+            // وحدة العمل تضمن كائناً واحداً لكل طالب، ويُعاد استخدام ما حمّلته العملية المحيطة إن وُجدت
+            try (UnitOfWork unit = UnitOfWork.begin();
+                 PreparedStatement pstmt = connection.prepareStatement(enrollmentsSql)) {
+                bindParameters(pstmt, params);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Course course = coursesById.get(rs.getInt("course_id"));
+                        if (course == null) {
+                            continue;
+                        }
+                        
+                        Student student = unit.findStudentByStudentId(rs.getString("student_id"));
+                        if (student == null) {
+                            student = studentDAO.createStudentFromResultSet(rs);
+                        }
+                        course.enrollStudent(student);
+                    }
+                }
+            }
+        }
+        return courses;
+    }
+    
+    private void bindParameters(PreparedStatement pstmt, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            pstmt.setObject(i + 1, params[i]);
         }
     }
     
@@ -357,35 +591,23 @@ public class CourseDAO {
      * البحث عن مواد
      */
     public List<Course> searchCourses(String keyword) {
-        List<Course> courses = new ArrayList<>();
-        String sql = """
-            SELECT c.*, t.teacher_id as teacher_code
-            FROM courses c
-            LEFT JOIN teachers t ON c.teacher_id = t.person_id
-            WHERE c.course_code LIKE ? OR c.course_name LIKE ? OR c.description LIKE ?
-            ORDER BY c.course_code
-            """;
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            String likeKeyword = "%" + keyword + "%";
-            pstmt.setString(1, likeKeyword);
-            pstmt.setString(2, likeKeyword);
-            pstmt.setString(3, likeKeyword);
+        try {
+            List<SearchIndex.Hit> hits = SearchIndex.getInstance().search(SearchIndex.Kind.COURSE, keyword, 0);
+            List<Course> courses = loadCourses("c.id IN (SELECT value FROM json_each(?))",
+                SearchIndex.toJson(hits));
             
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Course course = createCourseFromResultSet(rs);
-                if (course != null) {
-                    loadEnrolledStudents(course);
-                    courses.add(course);
-                }
+            // loadCourses يرتب بالرمز؛ نعيد ترتيب الصلة كما جاء من البحث
+            Map<Integer, Integer> positions = new HashMap<>();
+            for (SearchIndex.Hit hit : hits) {
+                positions.put(hit.id(), positions.size());
             }
-            System.out.println("🔍 Found " + courses.size() + " courses matching: " + keyword);
-            
+            courses.sort(Comparator.comparing(course -> positions.get(course.getId())));
+            Log.debug("🔍 Found {} courses matching: {}", courses.size(), keyword);
+            return courses;
         } catch (SQLException e) {
-            System.err.println("❌ Error searching courses: " + e.getMessage());
+            Log.error("❌ Error searching courses: {}", e.getMessage());
         }
-        return courses;
+        return new ArrayList<>();
     }
     
     /**
@@ -394,14 +616,15 @@ public class CourseDAO {
     public int countCourses() {
         String sql = "SELECT COUNT(*) as total FROM courses";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             if (rs.next()) {
                 return rs.getInt("total");
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error counting courses: " + e.getMessage());
+            Log.error("❌ Error counting courses: {}", e.getMessage());
         }
         return 0;
     }
@@ -412,7 +635,8 @@ public class CourseDAO {
     public boolean courseCodeExists(String courseCode) {
         String sql = "SELECT COUNT(*) as count FROM courses WHERE course_code = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, courseCode);
             
             ResultSet rs = pstmt.executeQuery();
@@ -420,15 +644,15 @@ public class CourseDAO {
                 return rs.getInt("count") > 0;
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error checking course code: " + e.getMessage());
+            Log.error("❌ Error checking course code: {}", e.getMessage());
         }
         return false;
     }
     
     /**
-     * إنشاء كائن Course من ResultSet
+     * إنشاء كائن Course من ResultSet (متاحة داخل الحزمة لمقاييس الأداء)
      */
-    private Course createCourseFromResultSet(ResultSet rs) throws SQLException {
+    Course createCourseFromResultSet(ResultSet rs) throws SQLException {
         try {
             Course course = new Course(
                 rs.getString("course_code"),
@@ -442,17 +666,11 @@ public class CourseDAO {
             );
             course.setId(rs.getInt("id"));
             
-            // تعيين المعلم إذا كان موجوداً
-            int teacherId = rs.getInt("teacher_id");
-            if (!rs.wasNull()) {
-                Teacher teacher = teacherDAO.getTeacherById(teacherId);
-                course.setAssignedTeacher(teacher);
-            }
-            
+            // المعلم والطلاب يُربطون في loadCourses
             return course;
             
         } catch (Exception e) {
-            System.err.println("❌ Error creating course object: " + e.getMessage());
+            Log.error("❌ Error creating course object: {}", e.getMessage());
             throw new SQLException("Failed to create course from result set", e);
         }
     }
@@ -461,60 +679,23 @@ public class CourseDAO {
      * الحصول على مواد المعلم
      */
     public List<Course> getCoursesByTeacher(int teacherId) {
-        List<Course> courses = new ArrayList<>();
-        String sql = """
-            SELECT c.*, t.teacher_id as teacher_code
-            FROM courses c
-            LEFT JOIN teachers t ON c.teacher_id = t.person_id
-            WHERE c.teacher_id = ?
-            ORDER BY c.course_code
-            """;
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, teacherId);
-            
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Course course = createCourseFromResultSet(rs);
-                if (course != null) {
-                    loadEnrolledStudents(course);
-                    courses.add(course);
-                }
-            }
+        try {
+            return loadCourses("c.teacher_id = ?", teacherId);
         } catch (SQLException e) {
-            System.err.println("❌ Error getting courses by teacher: " + e.getMessage());
+            Log.error("❌ Error getting courses by teacher: {}", e.getMessage());
         }
-        return courses;
+        return new ArrayList<>();
     }
     
     /**
      * الحصول على مواد الطالب
      */
     public List<Course> getCoursesByStudent(String studentId) {
-        List<Course> courses = new ArrayList<>();
-        String sql = """
-            SELECT c.*, t.teacher_id as teacher_code
-            FROM courses c
-            LEFT JOIN teachers t ON c.teacher_id = t.person_id
-            JOIN course_enrollments ce ON c.id = ce.course_id
-            WHERE ce.student_id = ?
-            ORDER BY c.course_code
-            """;
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, studentId);
-            
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Course course = createCourseFromResultSet(rs);
-                if (course != null) {
-                    loadEnrolledStudents(course);
-                    courses.add(course);
-                }
-            }
+        try {
+            return loadCourses("c.id IN (SELECT course_id FROM course_enrollments WHERE student_id = ?)", studentId);
         } catch (SQLException e) {
-            System.err.println("❌ Error getting courses by student: " + e.getMessage());
+            Log.error("❌ Error getting courses by student: {}", e.getMessage());
         }
-        return courses;
+        return new ArrayList<>();
     }
-}
\ No newline at end of file
+}
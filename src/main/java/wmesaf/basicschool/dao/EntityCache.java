@@ -0,0 +1,302 @@
+package wmesaf.basicschool.dao;
+
+import wmesaf.basicschool.model.Course;
+import wmesaf.basicschool.model.Student;
+import wmesaf.basicschool.model.Teacher;
+import wmesaf.basicschool.logging.Log;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide read-through cache for student, teacher and course lists.
+ *
+ * Services ask for a list by key (e.g. "all" or "search:ali"); on a miss the
+ * DAO loader runs and its result is stored. Entries are evicted in LRU order
+ * once maxEntries is reached. DAO write methods invalidate whole regions,
+ * and because courses embed their teacher and students, any student or
+ * teacher write invalidates courses too. Callers always receive copies, so
+ * editing a returned object never changes what is cached.
+ *
+ * Enabled by default; -Dschool.cache.enabled=false or setEnabled(false)
+ * turns it off, and -Dschool.cache.maxEntries changes the size bound.
+ */
+public final class EntityCache {
+
+    public enum Region { STUDENTS, TEACHERS, COURSES }
+
+    private static final EntityCache INSTANCE = new EntityCache(
+        Boolean.parseBoolean(System.getProperty("school.cache.enabled", "true")),
+        Integer.getInteger("school.cache.maxEntries", 256));
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, List<?>> entries;
+    // يزداد مع كل إبطال؛ نتيجة تحميل بدأ قبل الإبطال لا تُخزن
+    private final Map<Region, Long> versions = new EnumMap<>(Region.class);
+    private volatile boolean enabled;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    private EntityCache(boolean enabled, int maxEntries) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<?>> eldest) {
+                if (size() > EntityCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        for (Region region : Region.values()) {
+            versions.put(region, 0L);
+        }
+    }
+
+    public static EntityCache getInstance() {
+        return INSTANCE;
+    }
+
+    public List<Student> getStudents(String key, Supplier<List<Student>> loader) {
+        return get(Region.STUDENTS, key, loader, EntityCache::copyStudents);
+    }
+
+    public List<Teacher> getTeachers(String key, Supplier<List<Teacher>> loader) {
+        return get(Region.TEACHERS, key, loader, EntityCache::copyTeachers);
+    }
+
+    public List<Course> getCourses(String key, Supplier<List<Course>> loader) {
+        return get(Region.COURSES, key, loader, EntityCache::copyCourses);
+    }
+
+    /**
+     * Copies of the first limit cached students that pass the filter, in list order,
+     * or null if the list is not cached; never runs a loader. Only the returned
+     * students are copied, so scanning a large cached list stays cheap.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Student> selectStudents(String key, Predicate<Student> filter, int limit) {
+        if (!enabled) {
+            return null;
+        }
+        List<Student> cached;
+        synchronized (this) {
+            cached = (List<Student>) entries.get(Region.STUDENTS + ":" + key);
+            if (cached == null) {
+                return null;
+            }
+            hits++;
+        }
+
+        List<Student> selected = new ArrayList<>();
+        for (Student student : cached) {
+            if (selected.size() >= limit) {
+                break;
+            }
+            if (filter.test(student)) {
+                selected.add(student);
+            }
+        }
+        return copyStudents(selected, true);
+    }
+
+    private interface Copier<T> {
+        List<T> copy(List<T> source, boolean joinUnit);
+    }
+
+    /**
+     * On a hit the caller gets copies of the cached list; on a miss the freshly
+     * loaded list is returned as is and a detached copy of it is stored.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> get(Region region, String key, Supplier<List<T>> loader, Copier<T> copier) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        String entryKey = region + ":" + key;
+        List<T> cached;
+        long version;
+        synchronized (this) {
+            cached = (List<T>) entries.get(entryKey);
+            if (cached != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            version = versions.get(region);
+        }
+        
+        // القوائم المخزنة لا تتغير أبداً، فالنسخ يتم خارج القفل
+        if (cached != null) {
+            return copier.copy(cached, true);
+        }
+
+        // التحميل خارج القفل حتى لا تنتظر القراءات الأخرى
+        List<T> loaded = loader.get();
+        List<T> detached = copier.copy(loaded, false);
+
+        synchronized (this) {
+            if (enabled && versions.get(region) == version) {
+                entries.put(entryKey, detached);
+            }
+        }
+        return loaded;
+    }
+
+    private static List<Student> copyStudents(List<Student> students, boolean joinUnit) {
+        Map<Integer, Student> copies = new HashMap<>();
+        List<Student> result = new ArrayList<>(students.size());
+        for (Student student : students) {
+            result.add(copyOf(student, copies, joinUnit));
+        }
+        return result;
+    }
+
+    private static List<Teacher> copyTeachers(List<Teacher> teachers, boolean joinUnit) {
+        Map<Integer, Teacher> copies = new HashMap<>();
+        List<Teacher> result = new ArrayList<>(teachers.size());
+        for (Teacher teacher : teachers) {
+            result.add(copyOf(teacher, copies, joinUnit));
+        }
+        return result;
+    }
+
+    private static List<Course> copyCourses(List<Course> courses, boolean joinUnit) {
+        Map<Integer, Student> studentCopies = new HashMap<>();
+        Map<Integer, Teacher> teacherCopies = new HashMap<>();
+        List<Course> result = new ArrayList<>(courses.size());
+
+        for (Course original : courses) {
+            Course course = new Course(
+                original.getCourseCode(), original.getCourseName(), original.getDescription(),
+                original.getCreditHours(), original.getDepartment(),
+                original.getStartDate(), original.getEndDate(), original.getMaxStudents());
+            course.setId(original.getId());
+            if (original.getAssignedTeacher() != null) {
+                course.setAssignedTeacher(copyOf(original.getAssignedTeacher(), teacherCopies, joinUnit));
+            }
+            for (Student student : original.getEnrolledStudents()) {
+                course.enrollStudent(copyOf(student, studentCopies, joinUnit));
+            }
+            result.add(course);
+        }
+        return result;
+    }
+
+    /**
+     * Copies handed to callers join the open UnitOfWork, so identity within an operation is kept.
+     */
+    private static Student copyOf(Student student, Map<Integer, Student> copies, boolean joinUnit) {
+        UnitOfWork unit = joinUnit ? UnitOfWork.current() : null;
+        if (unit != null && unit.findStudent(student.getId()) != null) {
+            return unit.findStudent(student.getId());
+        }
+        Student copy = copies.computeIfAbsent(student.getId(), id -> new Student(student));
+        return unit != null ? unit.register(copy) : copy;
+    }
+
+    private static Teacher copyOf(Teacher teacher, Map<Integer, Teacher> copies, boolean joinUnit) {
+        UnitOfWork unit = joinUnit ? UnitOfWork.current() : null;
+        if (unit != null && unit.findTeacher(teacher.getId()) != null) {
+            return unit.findTeacher(teacher.getId());
+        }
+        Teacher copy = copies.computeIfAbsent(teacher.getId(), id -> new Teacher(teacher));
+        return unit != null ? unit.register(copy) : copy;
+    }
+
+    /**
+     * Drops every entry of the given regions; called by the DAO write methods.
+     */
+    public synchronized void invalidate(Region... regions) {
+        for (Region region : regions) {
+            versions.merge(region, 1L, Long::sum);
+            String prefix = region + ":";
+            entries.keySet().removeIf(key -> key.startsWith(prefix));
+            invalidations++;
+        }
+    }
+
+    // اختصارات تستدعيها دوال الكتابة في الـ DAOs
+    
+    public void studentsAdded() {
+        invalidate(Region.STUDENTS);
+    }
+    
+    public void studentsChanged() {
+        invalidate(Region.STUDENTS, Region.COURSES);
+    }
+    
+    public void teachersAdded() {
+        invalidate(Region.TEACHERS);
+    }
+    
+    public void teachersChanged() {
+        invalidate(Region.TEACHERS, Region.COURSES);
+    }
+    
+    public void coursesChanged() {
+        invalidate(Region.COURSES);
+    }
+    
+    /**
+     * A person row changed: students, teachers and the courses embedding them are stale.
+     */
+    public void personsChanged() {
+        invalidate(Region.STUDENTS, Region.TEACHERS, Region.COURSES);
+    }
+
+    public synchronized void clear() {
+        for (Region region : Region.values()) {
+            versions.merge(region, 1L, Long::sum);
+        }
+        entries.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+        Log.debug("🗃️ Entity cache {}", (enabled ? "enabled" : "disabled"));
+    }
+
+    /**
+     * Cache metrics: size, hits, misses, hit rate, evictions and invalidations.
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long lookups = hits + misses;
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", lookups > 0 ? (double) hits / lookups : 0.0);
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return String.format("Entity cache %s: %d/%d entries, %d hits, %d misses (%.1f%% hit rate)",
+            enabled ? "on" : "off", entries.size(), maxEntries, hits, misses,
+            lookups > 0 ? hits * 100.0 / lookups : 0.0);
+    }
+}
@@ -0,0 +1,160 @@
+package wmesaf.basicschool.dao;
+
+import wmesaf.basicschool.dao.SearchIndex.Kind;
+import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.logging.Log;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search backend on the SQLite FTS5 tables persons_fts and courses_fts.
+ *
+ * The tables are created by schema migration 6 and kept current by triggers
+ * on persons and courses, so the DAOs do nothing extra on write. Each word
+ * of the query becomes a prefix term ("jo"* "sm"*), all of which must match;
+ * person searches look at the name column only, course searches at code,
+ * name and description. Results are ordered by bm25 rank, with course code
+ * and name weighted above the description.
+ *
+ * Unlike SearchIndex this matches the start of words, not any substring:
+ * "jo" finds "John" and "Joseph" but "oh" finds neither. Lookups go through
+ * the FTS b-tree, so their cost grows with the log of the indexed text, not
+ * with the number of rows.
+ *
+ * Enabled with -Dschool.search.backend=fts or SearchIndex.setFullText(true).
+ */
+public final class FullTextSearch {
+
+    public static final String HIGHLIGHT_START = "[";
+    public static final String HIGHLIGHT_END = "]";
+
+    /**
+     * نتيجة بحث مرتبة: الاسم مع تمييز الكلمات المطابقة، ومقتطف من الوصف للمواد،
+     * ودرجة bm25 (الأصغر أفضل).
+     */
+    public record Match(int id, String key, String name, String highlighted, String snippet, double score) { }
+
+    private static final FullTextSearch INSTANCE = new FullTextSearch();
+
+    private FullTextSearch() {
+    }
+
+    public static FullTextSearch getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Best matches first, with highlighting.
+     *
+     * @param limit maximum number of matches, or 0 for all of them
+     */
+    public List<Match> search(Kind kind, String query, int limit) {
+        List<Match> matches = new ArrayList<>();
+        String match = toMatchQuery(kind, query);
+        if (match == null) {
+            return matches;
+        }
+
+        String sql = switch (kind) {
+            case STUDENT -> "SELECT p.id, s.student_id AS row_key, p.name, " +
+                            "highlight(persons_fts, 0, ?, ?) AS highlighted, NULL AS snippet, " +
+                            "persons_fts.rank AS score " + from(kind);
+            case TEACHER -> "SELECT p.id, t.teacher_id AS row_key, p.name, " +
+                            "highlight(persons_fts, 0, ?, ?) AS highlighted, NULL AS snippet, " +
+                            "persons_fts.rank AS score " + from(kind);
+            case COURSE -> "SELECT c.id, c.course_code AS row_key, c.course_name AS name, " +
+                           "highlight(courses_fts, 1, ?, ?) AS highlighted, " +
+                           "snippet(courses_fts, 2, ?, ?, '...', 12) AS snippet, " +
+                           "courses_fts.rank AS score " + from(kind);
+        };
+
+        try (Connection connection = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql + " LIMIT ?")) {
+            int index = 1;
+            pstmt.setString(index++, HIGHLIGHT_START);
+            pstmt.setString(index++, HIGHLIGHT_END);
+            if (kind == Kind.COURSE) {
+                pstmt.setString(index++, HIGHLIGHT_START);
+                pstmt.setString(index++, HIGHLIGHT_END);
+            }
+            pstmt.setString(index++, match);
+            pstmt.setInt(index, limit > 0 ? limit : -1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    matches.add(new Match(rs.getInt("id"), rs.getString("row_key"), rs.getString("name"),
+                                          rs.getString("highlighted"), rs.getString("snippet"),
+                                          rs.getDouble("score")));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error in full-text search: {}", e.getMessage());
+        }
+        return matches;
+    }
+
+    /**
+     * ids of all matches, best first, as a JSON array for json_each.
+     */
+    public String searchIdsAsJson(Kind kind, String query) {
+        StringBuilder json = new StringBuilder("[");
+        String match = toMatchQuery(kind, query);
+        if (match == null) {
+            return json.append(']').toString();
+        }
+
+        String id = kind == Kind.COURSE ? "c.id" : "p.id";
+        try (Connection connection = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement("SELECT " + id + " " + from(kind))) {
+            pstmt.setString(1, match);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (json.length() > 1) {
+                        json.append(',');
+                    }
+                    json.append(rs.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error in full-text search: {}", e.getMessage());
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Builds the FTS5 query; null if the text has no letters or digits.
+     * Every word is quoted, so operators typed by the user (AND, NEAR, -, :) are plain text.
+     */
+    static String toMatchQuery(Kind kind, String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder terms = new StringBuilder();
+        for (String word : query.split("[^\\p{L}\\p{M}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                if (terms.length() > 0) {
+                    terms.append(' ');
+                }
+                terms.append('"').append(word).append("\"*");
+            }
+        }
+        if (terms.length() == 0) {
+            return null;
+        }
+        return kind == Kind.COURSE ? terms.toString() : "name : (" + terms + ")";
+    }
+
+    private static String from(Kind kind) {
+        return switch (kind) {
+            case STUDENT -> "FROM persons_fts JOIN persons p ON p.id = persons_fts.rowid " +
+                            "JOIN students s ON s.person_id = p.id " +
+                            "WHERE persons_fts MATCH ? ORDER BY persons_fts.rank";
+            case TEACHER -> "FROM persons_fts JOIN persons p ON p.id = persons_fts.rowid " +
+                            "JOIN teachers t ON t.person_id = p.id " +
+                            "WHERE persons_fts MATCH ? ORDER BY persons_fts.rank";
+            case COURSE -> "FROM courses_fts JOIN courses c ON c.id = courses_fts.rowid " +
+                           "WHERE courses_fts MATCH ? ORDER BY courses_fts.rank";
+        };
+    }
+}
@@ -0,0 +1,220 @@
+package wmesaf.basicschool.dao;
+
+import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.logging.Log;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset-paged queries behind the student, teacher and course tables.
+ *
+ * A page is read as "the next limit rows after the last row of the previous
+ * page": WHERE (sort, key) > (?, ?) ORDER BY sort, key LIMIT ?, so reading
+ * page 500 costs the same as reading page 1. The unique key (student_id,
+ * teacher_id or course_code) breaks ties, which keeps the order total and
+ * no row is skipped or repeated between pages. When the previous page is not
+ * known (the user dragged the scrollbar far down) the page is read with
+ * OFFSET instead.
+ *
+ * Rows hold the table's display values, already formatted in SQL, so no
+ * entity objects are built and nothing enters the UnitOfWork or EntityCache.
+ * A search filter is resolved through SearchIndex to a list of ids.
+ */
+public class ListingDAO {
+    private final DatabaseConnection db;
+
+    /**
+     * عمود في الجدول: تعبير العرض وتعبير الترتيب (يختلفان للراتب وعدد المسجلين)،
+     * وهل يأتي من جدول persons.
+     */
+    private record Column(String display, String sort, boolean person) {
+        static Column of(String expression) {
+            return new Column(expression, expression, false);
+        }
+
+        static Column person(String expression) {
+            return new Column(expression, expression, true);
+        }
+    }
+
+    public enum Listing {
+        STUDENTS("FROM students s JOIN persons p ON p.id = s.person_id",
+                 "p.type = 'STUDENT'", SearchIndex.Kind.STUDENT, "p.id", "s.student_id",
+                 Column.of("s.student_id"),
+                 Column.person("p.name"),
+                 Column.of("COALESCE(s.grade, '')"),
+                 Column.person("COALESCE(p.email, '')"),
+                 Column.person("COALESCE(p.phone, '')"),
+                 Column.of("COALESCE(s.enrollment_date, '')")),
+
+        TEACHERS("FROM teachers t JOIN persons p ON p.id = t.person_id",
+                 "p.type = 'TEACHER'", SearchIndex.Kind.TEACHER, "p.id", "t.teacher_id",
+                 Column.of("t.teacher_id"),
+                 Column.person("p.name"),
+                 Column.of("COALESCE(t.subject, '')"),
+                 new Column("printf('$%.2f', COALESCE(t.salary, 0))", "COALESCE(t.salary, 0)", false),
+                 Column.person("COALESCE(p.email, '')"),
+                 Column.of("COALESCE(t.hire_date, '')")),
+
+        COURSES("FROM courses c " +
+                "LEFT JOIN persons tp ON tp.id = c.teacher_id " +
+                "LEFT JOIN course_enrollment_summary ces ON ces.course_id = c.id",
+                null, SearchIndex.Kind.COURSE, "c.id", "c.course_code",
+                Column.of("c.course_code"),
+                Column.of("c.course_name"),
+                Column.of("COALESCE(c.credit_hours, 0)"),
+                Column.of("COALESCE(c.department, '')"),
+                Column.of("COALESCE(tp.name, 'Not Assigned')"),
+                new Column("COALESCE(ces.enrolled_count, 0) || '/' || c.max_students",
+                           "COALESCE(ces.enrolled_count, 0)", false),
+                Column.of("c.start_date"),
+                Column.of("c.end_date"));
+
+        private final String from;
+        private final String baseCondition;
+        private final SearchIndex.Kind searchKind;
+        private final String id;
+        private final String key;
+        private final Column[] columns;
+
+        Listing(String from, String baseCondition, SearchIndex.Kind searchKind, String id,
+                String key, Column... columns) {
+            this.from = from;
+            this.baseCondition = baseCondition;
+            this.searchKind = searchKind;
+            this.id = id;
+            this.key = key;
+            this.columns = columns;
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+    }
+
+    /**
+     * صف واحد: قيم العرض، وقيمة الترتيب والمفتاح اللذان تبدأ بعدهما الصفحة التالية.
+     */
+    public record ListingRow(Object[] values, Object sortValue, Object key) { }
+
+    public ListingDAO() {
+        this.db = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Number of rows in the listing; filter may be null or empty for all rows.
+     */
+    public int count(Listing listing, String filter) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) AS total " + listing.from + where(listing, filter, params, null, true);
+
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = prepare(connection, sql, params);
+             ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt("total");
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error counting {}: {}", listing.name().toLowerCase(), e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * One page ordered by the given column with the key as tie-breaker.
+     *
+     * @param after  last row of the previous page, or null to read by offset
+     * @param offset rows to skip; only used when after is null
+     */
+    public List<ListingRow> getPage(Listing listing, String filter, int sortColumn, boolean ascending,
+                                    ListingRow after, int offset, int limit) {
+        Column column = listing.columns[sortColumn];
+        String sort = column.sort();
+        String direction = ascending ? "ASC" : "DESC";
+        // الترتيب بالمفتاح نفسه لا يحتاج عموداً ثانياً لكسر التعادل
+        boolean byKey = sort.equals(listing.key);
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (Column c : listing.columns) {
+            sql.append(c.display()).append(", ");
+        }
+        sql.append(sort).append(" AS sort_value, ").append(listing.key).append(" AS row_key ")
+           .append(listing.from);
+
+        List<Object> params = new ArrayList<>();
+        String keyset = null;
+        if (after != null) {
+            String operator = ascending ? " > " : " < ";
+            keyset = byKey ? listing.key + operator + "?"
+                           : "(" + sort + ", " + listing.key + ")" + operator + "(?, ?)";
+        }
+        sql.append(where(listing, filter, params, keyset, column.person()))
+           .append(" ORDER BY ").append(sort).append(' ').append(direction);
+        if (!byKey) {
+            sql.append(", ").append(listing.key).append(' ').append(direction);
+        }
+        sql.append(" LIMIT ? OFFSET ?");
+        if (after != null) {
+            if (!byKey) {
+                params.add(after.sortValue());
+            }
+            params.add(after.key());
+        }
+        params.add(limit);
+        params.add(after != null ? 0 : offset);
+
+        List<ListingRow> rows = new ArrayList<>(limit);
+        int columnCount = listing.columns.length;
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = prepare(connection, sql.toString(), params);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                Object[] values = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = rs.getObject(i + 1);
+                }
+                rows.add(new ListingRow(values, rs.getObject("sort_value"), rs.getObject("row_key")));
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error loading {} page: {}", listing.name().toLowerCase(), e.getMessage());
+        }
+        return rows;
+    }
+
+    /**
+     * شروط WHERE بالترتيب: شرط النوع، ثم البحث، ثم موضع الصفحة.
+     * عند الترتيب بعمود ليس من persons يُكتب شرط النوع بـ "+" حتى لا يبدأ SQLite
+     * من فهرس persons(type, name) ثم يرتب كل الصفوف؛ فيمشي على فهرس عمود الترتيب.
+     */
+    private static String where(Listing listing, String filter, List<Object> params, String keyset,
+                                boolean personSort) {
+        List<String> conditions = new ArrayList<>();
+        if (listing.baseCondition != null) {
+            conditions.add(personSort ? listing.baseCondition : "+" + listing.baseCondition);
+        }
+        if (filter != null && !filter.isEmpty()) {
+            // البحث من SearchIndex؛ الـ ids تمر كمصفوفة JSON واحدة
+            conditions.add(listing.id + " IN (SELECT value FROM json_each(?))");
+            params.add(SearchIndex.getInstance().searchIdsAsJson(listing.searchKind, filter));
+        }
+        if (keyset != null) {
+            conditions.add(keyset);
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, List<Object> params)
+            throws SQLException {
+        PreparedStatement pstmt = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+        } catch (SQLException e) {
+            pstmt.close();
+            throw e;
+        }
+        return pstmt;
+    }
+}
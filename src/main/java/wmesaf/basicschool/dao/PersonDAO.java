@@ -3,47 +3,59 @@ package wmesaf.basicschool.dao;
 import wmesaf.basicschool.database.DatabaseConnection;
 import wmesaf.basicschool.model.Person;
 import wmesaf.basicschool.model.PersonRecord;
+import wmesaf.basicschool.logging.Log;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 public class PersonDAO {
-    private Connection connection;
+    static final String BATCH_INSERT_SQL =
+        "INSERT INTO persons (id, type, name, email, phone, address, birth_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private final DatabaseConnection db;
     
     public PersonDAO() {
-        this.connection = DatabaseConnection.getInstance().getConnection();
+        this.db = DatabaseConnection.getInstance();
     }
     
     public PersonRecord addPerson(Person person) {
-        System.out.println("📝 Adding person to database: " + person.getName());
-        
-        // الحصول على ID التالي المتسلسل
-        int nextId = getNextPersonId();
+        Log.debug("📝 Adding person to database: {}", person.getName());
         
-        String sql = "INSERT INTO persons (id, type, name, email, phone, address, birth_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        // يُترك توليد الـ ID لـ SQLite (rowid) ونقرأه من المفاتيح المولدة،
+        // فلا حاجة لاستعلام MAX(id) قبل كل إدراج ولا يتسابق إدراجان على نفس الرقم
+        String sql = "INSERT INTO persons (type, name, email, phone, address, birth_date) VALUES (?, ?, ?, ?, ?, ?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, nextId);
-            pstmt.setString(2, person.getRole().toUpperCase());
-            pstmt.setString(3, person.getName());
-            pstmt.setString(4, person.getEmail());
-            pstmt.setString(5, person.getPhone());
-            pstmt.setString(6, person.getAddress());
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, person.getRole().toUpperCase());
+            pstmt.setString(2, person.getName());
+            pstmt.setString(3, person.getEmail());
+            pstmt.setString(4, person.getPhone());
+            pstmt.setString(5, person.getAddress());
             
             // Handle birth date
             if (person.getBirthDate() != null) {
-                pstmt.setString(7, person.getBirthDate().toString());
+                pstmt.setString(6, person.getBirthDate().toString());
             } else {
-                pstmt.setString(7, LocalDate.now().toString());
+                pstmt.setString(6, LocalDate.now().toString());
             }
             
             int affectedRows = pstmt.executeUpdate();
-            System.out.println("✅ Person added with ID: " + nextId);
             
             if (affectedRows > 0) {
+                int newId;
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        Log.error("❌ Error adding person: no generated ID returned");
+                        return null;
+                    }
+                    newId = keys.getInt(1);
+                }
+                Log.info("✅ Person added with ID: {}", newId);
+                
                 return PersonRecord.createFromDatabase(
-                    nextId,
+                    newId,
                     person.getName(),
                     person.getEmail(),
                     person.getPhone(),
@@ -53,33 +65,16 @@ public class PersonDAO {
                 );
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error adding person: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("❌ Error adding person: " + e.getMessage(), e);
         }
         return null;
     }
     
-    private int getNextPersonId() {
-        String sql = "SELECT COALESCE(MAX(id), 0) + 1 as next_id FROM persons";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            if (rs.next()) {
-                int nextId = rs.getInt("next_id");
-                System.out.println("🔢 Next available Person ID: " + nextId);
-                return nextId;
-            }
-        } catch (SQLException e) {
-            System.err.println("❌ Error getting next person ID: " + e.getMessage());
-        }
-        return 1;
-    }
-    
     public PersonRecord getPersonById(int id) {
         String sql = "SELECT * FROM persons WHERE id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             
             ResultSet rs = pstmt.executeQuery();
@@ -88,7 +83,7 @@ public class PersonDAO {
                 return createPersonFromResultSet(rs);
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error getting person: " + e.getMessage());
+            Log.error("❌ Error getting person: {}", e.getMessage());
         }
         return null;
     }
@@ -97,24 +92,27 @@ public class PersonDAO {
         List<PersonRecord> persons = new ArrayList<>();
         String sql = "SELECT * FROM persons ORDER BY id";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
                 persons.add(createPersonFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error getting all persons: " + e.getMessage());
+            Log.error("❌ Error getting all persons: {}", e.getMessage());
         }
         return persons;
     }
     
     public boolean updatePerson(Person person) {
-        System.out.println("✏️ Updating person ID: " + person.getId());
+        Log.debug("✏️ Updating person ID: {}", person.getId());
+        UnitOfWork.evict(person.getId());
         
         String sql = "UPDATE persons SET name = ?, email = ?, phone = ?, address = ?, birth_date = ? WHERE id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, person.getName());
             pstmt.setString(2, person.getEmail());
             pstmt.setString(3, person.getPhone());
@@ -130,83 +128,51 @@ public class PersonDAO {
             pstmt.setInt(6, person.getId());
             
             int result = pstmt.executeUpdate();
-            System.out.println("✅ Person updated, rows affected: " + result);
+            EntityCache.getInstance().personsChanged();
+            Log.info("✅ Person updated, rows affected: {}", result);
             return result > 0;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error updating person: " + e.getMessage());
+            Log.error("❌ Error updating person: {}", e.getMessage());
         }
         return false;
     }
     
     public boolean deletePerson(int id) {
-        System.out.println("🗑️ Deleting person ID: " + id);
+        Log.debug("🗑️ Deleting person ID: {}", id);
+        UnitOfWork.evict(id);
         
         String sql = "DELETE FROM persons WHERE id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             
             int result = pstmt.executeUpdate();
-            System.out.println("✅ Person deleted, rows affected: " + result);
-            
-            // بعد الحذف، نعيد ترتيب الـ IDs
-            if (result > 0) {
-                reorganizePersonIds();
-            }
+            EntityCache.getInstance().personsChanged();
+            SearchIndex.getInstance().removePerson(id);
+            Log.info("✅ Person deleted, rows affected: {}", result);
             
+            // الـ IDs ثابتة بعد الحذف؛ الواجهات تعرض رقم الطالب/المعلم وليس ID الشخص
             return result > 0;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error deleting person: " + e.getMessage());
+            Log.error("❌ Error deleting person: {}", e.getMessage());
         }
         return false;
     }
     
-    private void reorganizePersonIds() {
-        System.out.println("🔄 Reorganizing person IDs...");
-        
-        try {
-            // 1. إنشاء جدول مؤقت
-            String createTemp = "CREATE TABLE IF NOT EXISTS persons_temp (" +
-                              "id INTEGER PRIMARY KEY," +
-                              "type TEXT NOT NULL," +
-                              "name TEXT NOT NULL," +
-                              "email TEXT," +
-                              "phone TEXT," +
-                              "address TEXT," +
-                              "birth_date TEXT," +
-                              "created_at DATETIME DEFAULT CURRENT_TIMESTAMP" +
-                              ")";
-            
-            Statement stmt = connection.createStatement();
-            stmt.execute(createTemp);
-            
-            // 2. نسخ البيانات بترتيب جديد
-            String copyData = "INSERT INTO persons_temp (type, name, email, phone, address, birth_date, created_at) " +
-                            "SELECT type, name, email, phone, address, birth_date, created_at " +
-                            "FROM persons ORDER BY id";
-            stmt.executeUpdate(copyData);
-            
-            // 3. حذف الجدول القديم
-            stmt.execute("DROP TABLE persons");
-            
-            // 4. إعادة تسمية الجدول المؤقت
-            stmt.execute("ALTER TABLE persons_temp RENAME TO persons");
-            
-            System.out.println("✅ Person IDs reorganized successfully");
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error reorganizing person IDs: " + e.getMessage());
-        }
-    }
-    
     public List<PersonRecord> searchPersonsByName(String name) {
         List<PersonRecord> persons = new ArrayList<>();
-        String sql = "SELECT * FROM persons WHERE LOWER(name) LIKE ? ORDER BY name";
+        String sql = "SELECT * FROM persons " +
+                     "WHERE id IN (SELECT value FROM json_each(?)) OR id IN (SELECT value FROM json_each(?)) " +
+                     "ORDER BY name";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, "%" + name.toLowerCase() + "%");
+        SearchIndex index = SearchIndex.getInstance();
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, index.searchIdsAsJson(SearchIndex.Kind.STUDENT, name));
+            pstmt.setString(2, index.searchIdsAsJson(SearchIndex.Kind.TEACHER, name));
             
             ResultSet rs = pstmt.executeQuery();
             
@@ -214,7 +180,7 @@ public class PersonDAO {
                 persons.add(createPersonFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error searching persons: " + e.getMessage());
+            Log.error("❌ Error searching persons: {}", e.getMessage());
         }
         return persons;
     }
@@ -222,14 +188,15 @@ public class PersonDAO {
     public int countPersons() {
         String sql = "SELECT COUNT(*) as total FROM persons";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             if (rs.next()) {
                 return rs.getInt("total");
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error counting persons: " + e.getMessage());
+            Log.error("❌ Error counting persons: {}", e.getMessage());
         }
         return 0;
     }
@@ -237,19 +204,47 @@ public class PersonDAO {
     public int getMaxPersonId() {
         String sql = "SELECT COALESCE(MAX(id), 0) as max_id FROM persons";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             if (rs.next()) {
                 return rs.getInt("max_id");
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error getting max person ID: " + e.getMessage());
+            Log.error("❌ Error getting max person ID: {}", e.getMessage());
         }
         return 0;
     }
     
-    private PersonRecord createPersonFromResultSet(ResultSet rs) throws SQLException {
+    /**
+     * أكبر ID داخل معاملة الكتابة الحالية؛ تستخدمه عمليات الإدراج الجماعي لحجز
+     * مجال متصل من الـ IDs. آمن فقط لأن معاملات الكتابة تبدأ بـ BEGIN IMMEDIATE،
+     * فلا يستطيع كاتب آخر الإدراج قبل انتهاء المعاملة.
+     */
+    int getMaxPersonId(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM persons")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    /**
+     * يضيف سجل شخص إلى دفعة الإدراج بـ ID محجوز مسبقاً
+     */
+    void addPersonToBatch(PreparedStatement pstmt, int id, Person person, String type) throws SQLException {
+        pstmt.setInt(1, id);
+        pstmt.setString(2, type);
+        pstmt.setString(3, person.getName());
+        pstmt.setString(4, person.getEmail());
+        pstmt.setString(5, person.getPhone());
+        pstmt.setString(6, person.getAddress());
+        pstmt.setString(7, person.getBirthDate() != null ? person.getBirthDate().toString() : LocalDate.now().toString());
+        pstmt.addBatch();
+    }
+    
+    // متاحة داخل الحزمة لمقاييس الأداء
+    PersonRecord createPersonFromResultSet(ResultSet rs) throws SQLException {
         LocalDate birthDate = null;
         try {
             String birthDateStr = rs.getString("birth_date");
@@ -257,7 +252,7 @@ public class PersonDAO {
                 birthDate = LocalDate.parse(birthDateStr);
             }
         } catch (Exception e) {
-            System.err.println("❌ Error parsing birth date: " + e.getMessage());
+            Log.error("❌ Error parsing birth date: {}", e.getMessage());
         }
         
         return PersonRecord.createFromDatabase(
@@ -0,0 +1,127 @@
+package wmesaf.basicschool.dao;
+
+import wmesaf.basicschool.database.DatabaseConnection;
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDate;
+
+/**
+ * Row-by-row queries for report listings.
+ *
+ * Each method walks a JDBC cursor and hands every row to a RowSink as a small
+ * record, so a report can write rows to its Writer while the cursor is still
+ * open. Nothing is collected into lists and no entity is registered with the
+ * UnitOfWork, so memory stays flat whatever the row count. A limit of 0 or
+ * less streams every row. A database error part way through is thrown as an
+ * IOException, like a failed write, so a truncated listing is never reported
+ * as a finished report.
+ */
+public class ReportDAO {
+    private final DatabaseConnection db;
+
+    /**
+     * يستقبل صفاً واحداً في كل مرة؛ IOException من الـ Writer تمر إلى المستدعي.
+     */
+    @FunctionalInterface
+    public interface RowSink<T> {
+        void accept(T row) throws IOException;
+    }
+
+    public record StudentRow(String name, String studentId, LocalDate enrollmentDate) { }
+
+    public record TeacherRow(String name, String subject, double salary, int yearsOfService) { }
+
+    public record CourseRow(String courseCode, String courseName, int enrolled, int maxStudents, LocalDate endDate) { }
+
+    public ReportDAO() {
+        this.db = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * الطلاب من الأحدث تسجيلاً إلى الأقدم.
+     */
+    public void streamStudentsByEnrollmentDate(int limit, RowSink<StudentRow> sink) throws IOException {
+        String today = LocalDate.now().toString();
+        String sql = "SELECT p.name, s.student_id, COALESCE(s.enrollment_date, ?) AS enrollment_date " +
+                     "FROM students s JOIN persons p ON p.id = s.person_id " +
+                     "WHERE p.type = 'STUDENT' " +
+                     "ORDER BY COALESCE(s.enrollment_date, ?) DESC, s.student_id LIMIT ?";
+
+        stream(sql, "students", sink,
+            rs -> new StudentRow(rs.getString("name"), rs.getString("student_id"),
+                                 LocalDate.parse(rs.getString("enrollment_date"))),
+            today, today, sqlLimit(limit));
+    }
+
+    /**
+     * المعلمون من الأعلى راتباً إلى الأقل.
+     */
+    public void streamTeachersBySalary(int limit, RowSink<TeacherRow> sink) throws IOException {
+        int year = LocalDate.now().getYear();
+        String sql = "SELECT p.name, t.subject, COALESCE(t.salary, 0) AS salary, " +
+                     "       ? - COALESCE(CAST(substr(t.hire_date, 1, 4) AS INTEGER), ?) AS years_of_service " +
+                     "FROM teachers t JOIN persons p ON p.id = t.person_id " +
+                     "WHERE p.type = 'TEACHER' " +
+                     "ORDER BY salary DESC, t.teacher_id LIMIT ?";
+
+        stream(sql, "teachers", sink,
+            rs -> new TeacherRow(rs.getString("name"), rs.getString("subject"),
+                                 rs.getDouble("salary"), rs.getInt("years_of_service")),
+            year, year, sqlLimit(limit));
+    }
+
+    /**
+     * المواد من الأكثر تسجيلاً إلى الأقل، بالأعداد من course_enrollment_summary.
+     */
+    public void streamCoursesByEnrollment(int limit, RowSink<CourseRow> sink) throws IOException {
+        String sql = COURSE_ROW_SELECT + "ORDER BY enrolled DESC, c.course_code LIMIT ?";
+        stream(sql, "courses", sink, ReportDAO::courseRow, sqlLimit(limit));
+    }
+
+    /**
+     * المواد التي تنتهي بعد from وحتى to (شاملاً)، الأقرب انتهاءً أولاً.
+     */
+    public void streamCoursesEndingBetween(LocalDate from, LocalDate to, RowSink<CourseRow> sink) throws IOException {
+        String sql = COURSE_ROW_SELECT + "WHERE c.end_date > ? AND c.end_date <= ? ORDER BY c.end_date, c.course_code";
+        stream(sql, "courses ending soon", sink, ReportDAO::courseRow, from.toString(), to.toString());
+    }
+
+    private static final String COURSE_ROW_SELECT =
+        "SELECT c.course_code, c.course_name, c.max_students, c.end_date, " +
+        "       COALESCE(ces.enrolled_count, 0) AS enrolled " +
+        "FROM courses c LEFT JOIN course_enrollment_summary ces ON ces.course_id = c.id ";
+
+    // LIMIT -1 في SQLite يعني بلا حد
+    private static int sqlLimit(int limit) {
+        return limit > 0 ? limit : -1;
+    }
+
+    private static CourseRow courseRow(ResultSet rs) throws SQLException {
+        return new CourseRow(rs.getString("course_code"), rs.getString("course_name"),
+                             rs.getInt("enrolled"), rs.getInt("max_students"),
+                             LocalDate.parse(rs.getString("end_date")));
+    }
+
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private <T> void stream(String sql, String label, RowSink<T> sink, RowMapper<T> mapper,
+                            Object... params) throws IOException {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            // الصفوف المكتوبة حتى الآن ناقصة؛ المستدعي يجب أن يعلم أن التقرير فشل
+            throw new IOException("Error streaming " + label, e);
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package wmesaf.basicschool.dao;
+
+import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.logging.Log;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory substring index over student and teacher names and course codes,
+ * names and descriptions.
+ *
+ * Every text is lower-cased and indexed by all its 1-, 2- and 3-character
+ * grams plus the first one and two characters of each word. A query
+ * intersects the posting lists of its grams, shortest first, and checks the
+ * few remaining candidates with indexOf, so no row is scanned. Matching is
+ * the same as the old LIKE '%x%' filters, case-insensitive for all letters.
+ *
+ * Results are ranked: text starts with the query, then a word starts with
+ * it, then any other match; ties keep index order. One- and two-character
+ * queries read the text-start and word-start postings first, so a top-N
+ * request stops as soon as enough good matches are found.
+ *
+ * The index is loaded from the database on the first search and then kept
+ * current by the DAO write methods, which call put and remove after a
+ * successful commit.
+ *
+ * With -Dschool.search.backend=fts (or setFullText(true)) searches are
+ * answered by FullTextSearch instead and this index is never loaded.
+ */
+public final class SearchIndex {
+
+    public enum Kind { STUDENT, TEACHER, COURSE }
+
+    /**
+     * نتيجة بحث: id الشخص أو المادة، والرقم الظاهر (رقم الطالب/المعلم أو رمز المادة)، والاسم.
+     */
+    public record Hit(int id, String key, String name) { }
+
+    private static final SearchIndex INSTANCE = new SearchIndex();
+
+    // يفصل حقول المادة حتى لا تطابق كلمة البحث نهاية حقل وبداية الذي يليه
+    private static final char FIELD_SEPARATOR = '\u0001';
+
+    private final Map<Kind, KindIndex> indexes = new EnumMap<>(Kind.class);
+    private volatile boolean fullText =
+        "fts".equalsIgnoreCase(System.getProperty("school.search.backend", "memory"));
+    private boolean loaded;
+    // يزداد مع كل كتابة قبل اكتمال التحميل؛ تحميل بدأ قبلها يُعاد
+    private long writesBeforeLoad;
+
+    private SearchIndex() {
+    }
+
+    public static SearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Top matches for the query, best first.
+     *
+     * @param limit maximum number of hits, or 0 for all of them
+     */
+    public List<Hit> search(Kind kind, String query, int limit) {
+        if (fullText) {
+            List<Hit> hits = new ArrayList<>();
+            for (FullTextSearch.Match match : FullTextSearch.getInstance().search(kind, query, limit)) {
+                hits.add(new Hit(match.id(), match.key(), match.name()));
+            }
+            return hits;
+        }
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || !ensureLoaded()) {
+            return new ArrayList<>();
+        }
+        synchronized (this) {
+            return indexes.get(kind).search(normalized, limit > 0 ? limit : Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * ids of all matches, best first, as a JSON array for json_each.
+     */
+    public String searchIdsAsJson(Kind kind, String query) {
+        if (fullText) {
+            return FullTextSearch.getInstance().searchIdsAsJson(kind, query);
+        }
+        return toJson(search(kind, query, 0));
+    }
+
+    public static String toJson(List<Hit> hits) {
+        StringBuilder json = new StringBuilder("[");
+        for (Hit hit : hits) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(hit.id());
+        }
+        return json.append(']').toString();
+    }
+
+    // دوال تستدعيها الـ DAOs بعد نجاح الكتابة
+
+    public void putStudent(int personId, String studentId, String name) {
+        put(Kind.STUDENT, personId, studentId, name, name);
+    }
+
+    public void putTeacher(int personId, String teacherId, String name) {
+        put(Kind.TEACHER, personId, teacherId, name, name);
+    }
+
+    public void putCourse(int courseId, String courseCode, String courseName, String description) {
+        put(Kind.COURSE, courseId, courseCode, courseName, courseText(courseCode, courseName, description));
+    }
+
+    /**
+     * A person was deleted; it is removed whether it was a student or a teacher.
+     */
+    public synchronized void removePerson(int personId) {
+        if (!loaded) {
+            writesBeforeLoad++;
+            return;
+        }
+        indexes.get(Kind.STUDENT).remove(personId);
+        indexes.get(Kind.TEACHER).remove(personId);
+    }
+
+    public synchronized void removeCourse(int courseId) {
+        if (!loaded) {
+            writesBeforeLoad++;
+            return;
+        }
+        indexes.get(Kind.COURSE).remove(courseId);
+    }
+
+    private synchronized void put(Kind kind, int id, String key, String name, String text) {
+        if (!loaded) {
+            writesBeforeLoad++;
+            return;
+        }
+        indexes.get(kind).put(id, key, name, normalize(text));
+    }
+
+    public boolean isFullText() {
+        return fullText;
+    }
+
+    /**
+     * يبدل بين هذا الفهرس وجداول FTS5؛ الفهرس يبقى كما هو ويُستعمل عند الرجوع إليه.
+     */
+    public void setFullText(boolean fullText) {
+        this.fullText = fullText;
+    }
+
+    /**
+     * Discards the index; the next search loads it again from the database.
+     */
+    public synchronized void clear() {
+        loaded = false;
+        indexes.clear();
+        writesBeforeLoad++;
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("backend", fullText ? "fts" : "memory");
+        stats.put("loaded", loaded);
+        for (Map.Entry<Kind, KindIndex> entry : indexes.entrySet()) {
+            stats.put(entry.getKey().name().toLowerCase() + "Documents", entry.getValue().liveCount());
+            stats.put(entry.getKey().name().toLowerCase() + "Grams", entry.getValue().postings.size());
+        }
+        return stats;
+    }
+
+    /**
+     * التحميل خارج القفل حتى لا تنتظر الكتابات؛ إذا حدثت كتابة أثناءه يُعاد.
+     */
+    private boolean ensureLoaded() {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long version;
+            synchronized (this) {
+                if (loaded) {
+                    return true;
+                }
+                version = writesBeforeLoad;
+            }
+
+            Map<Kind, KindIndex> built;
+            try {
+                built = load();
+            } catch (SQLException e) {
+                Log.error("❌ Error loading search index: {}", e.getMessage());
+                return false;
+            }
+
+            synchronized (this) {
+                if (loaded) {
+                    return true;
+                }
+                if (writesBeforeLoad == version) {
+                    indexes.putAll(built);
+                    loaded = true;
+                    return true;
+                }
+            }
+        }
+        Log.error("❌ Search index not loaded: database kept changing during load");
+        return false;
+    }
+
+    private Map<Kind, KindIndex> load() throws SQLException {
+        long start = System.nanoTime();
+        Map<Kind, KindIndex> built = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            built.put(kind, new KindIndex());
+        }
+
+        try (Connection connection = DatabaseConnection.getInstance().getReadConnection();
+             Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT p.id, s.student_id, p.name FROM students s JOIN persons p ON p.id = s.person_id")) {
+                while (rs.next()) {
+                    String name = rs.getString("name");
+                    built.get(Kind.STUDENT).put(rs.getInt("id"), rs.getString("student_id"), name, normalize(name));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT p.id, t.teacher_id, p.name FROM teachers t JOIN persons p ON p.id = t.person_id")) {
+                while (rs.next()) {
+                    String name = rs.getString("name");
+                    built.get(Kind.TEACHER).put(rs.getInt("id"), rs.getString("teacher_id"), name, normalize(name));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT id, course_code, course_name, description FROM courses")) {
+                while (rs.next()) {
+                    String code = rs.getString("course_code");
+                    String name = rs.getString("course_name");
+                    built.get(Kind.COURSE).put(rs.getInt("id"), code, name,
+                        normalize(courseText(code, name, rs.getString("description"))));
+                }
+            }
+        }
+
+        Log.info("🔎 Search index loaded: {} students, {} teachers, {} courses in {} ms",
+            built.get(Kind.STUDENT).liveCount(), built.get(Kind.TEACHER).liveCount(),
+            built.get(Kind.COURSE).liveCount(), (System.nanoTime() - start) / 1_000_000);
+        return built;
+    }
+
+    private static String courseText(String code, String name, String description) {
+        return code + FIELD_SEPARATOR + name + FIELD_SEPARATOR + (description != null ? description : "");
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // ===== فهرس نوع واحد =====
+
+    private static final class Doc {
+        final int id;
+        final String key;
+        final String name;
+        final String text;
+        boolean removed;
+
+        Doc(int id, String key, String name, String text) {
+            this.id = id;
+            this.key = key;
+            this.name = name;
+            this.text = text;
+        }
+    }
+
+    /**
+     * قائمة أرقام مستندات مرتبة تصاعدياً (المستندات الجديدة تُضاف دائماً في النهاية).
+     */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        boolean contains(int slot) {
+            return Arrays.binarySearch(slots, 0, size, slot) >= 0;
+        }
+    }
+
+    private static final class KindIndex {
+        // علامات مفاتيح المقاطع: أي موضع، بداية كلمة، بداية النص
+        static final long ANYWHERE = 0;
+        static final long WORD_START = 1L << 60;
+        static final long TEXT_START = 1L << 61;
+
+        final List<Doc> docs = new ArrayList<>();
+        final Map<Integer, Integer> slotById = new HashMap<>();
+        final Map<Long, Postings> postings = new HashMap<>();
+        int removedCount;
+
+        int liveCount() {
+            return docs.size() - removedCount;
+        }
+
+        // تعديل = حذف المستند القديم وإضافة جديد في آخر القائمة
+        void put(int id, String key, String name, String text) {
+            remove(id);
+            int slot = docs.size();
+            docs.add(new Doc(id, key, name, text));
+            slotById.put(id, slot);
+            index(slot, text);
+        }
+
+        void remove(int id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            docs.get(slot).removed = true;
+            removedCount++;
+            if (removedCount > 1024 && removedCount > liveCount()) {
+                compact();
+            }
+        }
+
+        private void compact() {
+            List<Doc> live = new ArrayList<>(liveCount());
+            for (Doc doc : docs) {
+                if (!doc.removed) {
+                    live.add(doc);
+                }
+            }
+            docs.clear();
+            slotById.clear();
+            postings.clear();
+            removedCount = 0;
+            for (Doc doc : live) {
+                int slot = docs.size();
+                docs.add(doc);
+                slotById.put(doc.id, slot);
+                index(slot, doc.text);
+            }
+        }
+
+        /**
+         * كل مقطع بطول 1 و2 و3 في النص، وأول حرف أو حرفين من كل كلمة ومن النص.
+         */
+        private void index(int slot, String text) {
+            for (int i = 0; i < text.length(); i++) {
+                for (int length = 1; length <= 3 && i + length <= text.length(); length++) {
+                    addPosting(gramKey(text, i, length, ANYWHERE), slot);
+                }
+                if (isWordStart(text, i)) {
+                    for (int length = 1; length <= 2 && i + length <= text.length(); length++) {
+                        addPosting(gramKey(text, i, length, i == 0 ? TEXT_START : WORD_START), slot);
+                    }
+                }
+            }
+        }
+
+        private void addPosting(long key, int slot) {
+            postings.computeIfAbsent(key, k -> new Postings()).add(slot);
+        }
+
+        /**
+         * Matches grouped by rank; a pass stops as soon as limit hits that nothing
+         * later can outrank are found. Ties keep index order.
+         */
+        List<Hit> search(String query, int limit) {
+            List<List<Doc>> byRank = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+            int minRank = 0;
+
+            // الاستعلام القصير يُقرأ برتبته: بداية النص، ثم بدايات الكلمات، ثم أي موضع
+            if (query.length() < 3 && query.chars().allMatch(Character::isLetterOrDigit)) {
+                Postings textStart = postings.get(gramKey(query, 0, query.length(), TEXT_START));
+                Postings wordStart = postings.get(gramKey(query, 0, query.length(), WORD_START));
+                if (collect(textStart, query, 0, byRank, limit) || collect(wordStart, query, 1, byRank, limit)) {
+                    return hits(byRank, limit);
+                }
+                minRank = 2;
+            }
+
+            int[] candidates = candidates(query);
+            collect(candidates, candidates.length, query, minRank, byRank, limit);
+            return hits(byRank, limit);
+        }
+
+        private boolean collect(Postings list, String query, int rank, List<List<Doc>> byRank, int limit) {
+            return list != null && collect(list.slots, list.size, query, rank, byRank, limit);
+        }
+
+        /**
+         * يضيف المطابقات ذات الرتبة minRank فما فوق، ويتوقف عندما تكتمل limit
+         * نتيجة برتبة لا تزيد عن minRank، إذ لا يمكن لما بعدها أن يسبقها.
+         *
+         * @return true إذا اكتملت النتائج
+         */
+        private boolean collect(int[] slots, int size, String query, int minRank,
+                                List<List<Doc>> byRank, int limit) {
+            int settled = 0;
+            for (int rank = 0; rank <= minRank; rank++) {
+                settled += byRank.get(rank).size();
+            }
+            for (int i = 0; i < size && settled < limit; i++) {
+                Doc doc = docs.get(slots[i]);
+                if (doc.removed) {
+                    continue;
+                }
+                int rank = rank(doc.text, query);
+                if (rank >= minRank) {
+                    byRank.get(rank).add(doc);
+                    if (rank == minRank) {
+                        settled++;
+                    }
+                }
+            }
+            return settled >= limit;
+        }
+
+        private static List<Hit> hits(List<List<Doc>> byRank, int limit) {
+            List<Hit> hits = new ArrayList<>();
+            for (List<Doc> docs : byRank) {
+                for (Doc doc : docs) {
+                    if (hits.size() == limit) {
+                        return hits;
+                    }
+                    hits.add(new Hit(doc.id, doc.key, doc.name));
+                }
+            }
+            return hits;
+        }
+
+        /**
+         * تقاطع قوائم المقاطع بدءاً بالأقصر؛ المرشحون يُتحقق منهم لاحقاً بـ indexOf.
+         */
+        private int[] candidates(String query) {
+            int length = Math.min(3, query.length());
+            List<Postings> lists = new ArrayList<>();
+            for (int i = 0; i + length <= query.length(); i++) {
+                Postings list = postings.get(gramKey(query, i, length, ANYWHERE));
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(p -> p.size));
+
+            Postings shortest = lists.get(0);
+            if (lists.size() == 1) {
+                return Arrays.copyOf(shortest.slots, shortest.size);
+            }
+            int[] candidates = new int[shortest.size];
+            int count = 0;
+            outer:
+            for (int i = 0; i < shortest.size; i++) {
+                int slot = shortest.slots[i];
+                for (int j = 1; j < lists.size(); j++) {
+                    if (!lists.get(j).contains(slot)) {
+                        continue outer;
+                    }
+                }
+                candidates[count++] = slot;
+            }
+            return Arrays.copyOf(candidates, count);
+        }
+
+        /**
+         * 0 يبدأ النص بالكلمة، 1 تبدأ بها كلمة، 2 مطابقة داخل كلمة، -1 لا مطابقة.
+         */
+        private static int rank(String text, String query) {
+            int at = text.indexOf(query);
+            if (at < 0) {
+                return -1;
+            }
+            if (at == 0) {
+                return 0;
+            }
+            for (; at >= 0; at = text.indexOf(query, at + 1)) {
+                if (isWordStart(text, at)) {
+                    return 1;
+                }
+            }
+            return 2;
+        }
+
+        private static boolean isWordStart(String text, int i) {
+            return Character.isLetterOrDigit(text.charAt(i))
+                && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+        }
+
+        /**
+         * حتى 3 أحرف في 48 بت، والطول وعلامة الموضع في البتات العليا.
+         */
+        private static long gramKey(String text, int i, int length, long position) {
+            long key = 0;
+            for (int j = 0; j < length; j++) {
+                key = (key << 16) | text.charAt(i + j);
+            }
+            return key | ((long) length << 56) | position;
+        }
+    }
+}
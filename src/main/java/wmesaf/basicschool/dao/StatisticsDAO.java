@@ -0,0 +1,464 @@
+package wmesaf.basicschool.dao;
+
+import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.logging.Log;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Aggregate queries for the dashboard and reports.
+ *
+ * Every figure is computed by SQLite with COUNT/SUM/AVG, so no entity is
+ * materialized. Distributions, salary sums and per-course enrollment counts
+ * come from the summary tables (grade_summary, subject_summary,
+ * department_summary, course_enrollment_summary) that triggers keep up to date
+ * on every write, so those reads cost one row per group. Enrollment history
+ * is read from the daily and monthly rollups of enrollment_events.
+ * rebuildSummaries() recomputes all of them from the base tables and the event log.
+ */
+public class StatisticsDAO {
+    private final DatabaseConnection db;
+
+    public StatisticsDAO() {
+        this.db = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * جميع أرقام لوحة التحكم في استعلام واحد.
+     *
+     * القواعد نفسها المستخدمة في الخدمات: العمر والخبرة بفرق السنوات، والتاريخ
+     * المفقود يُعامل كتاريخ اليوم (كما في createStudentFromResultSet/createTeacherFromResultSet).
+     * التواريخ تُمرر من Java حتى تطابق المنطقة الزمنية للتطبيق.
+     *
+     * @return القيم الخام بأسماء أعمدة الاستعلام، أو خريطة فارغة عند الخطأ
+     */
+    public Map<String, Object> getDashboardAggregates() {
+        String sql = """
+            WITH course_load AS (
+                SELECT c.id, c.max_students, c.teacher_id, COALESCE(ces.enrolled_count, 0) AS enrolled
+                FROM courses c
+                LEFT JOIN course_enrollment_summary ces ON ces.course_id = c.id
+            ),
+            teacher_rows AS (
+                SELECT t.salary, t.hire_date
+                FROM teachers t JOIN persons p ON p.id = t.person_id
+                WHERE p.type = 'TEACHER'
+            ),
+            student_rows AS (
+                SELECT p.birth_date, s.enrollment_date
+                FROM students s JOIN persons p ON p.id = s.person_id
+                WHERE p.type = 'STUDENT'
+            )
+            SELECT
+                (SELECT COUNT(*) FROM students) AS total_students,
+                (SELECT COUNT(*) FROM teachers) AS total_teachers,
+                (SELECT COUNT(*) FROM course_load) AS total_courses,
+                (SELECT AVG(enrolled) FROM course_load) AS average_enrollment,
+                (SELECT AVG(enrolled * 100.0 / max_students) FROM course_load WHERE max_students > 0) AS occupancy_rate,
+                (SELECT COUNT(*) FROM course_load WHERE enrolled >= max_students) AS full_courses,
+                (SELECT COUNT(*) FROM course_load cl
+                 WHERE NOT EXISTS (SELECT 1 FROM teachers t WHERE t.person_id = cl.teacher_id)) AS courses_without_teacher,
+                (SELECT COALESCE(SUM(salary_total), 0) FROM subject_summary) AS total_salary,
+                (SELECT COALESCE(SUM(salary_total) / NULLIF(SUM(teacher_count), 0), 0) FROM subject_summary) AS average_salary,
+                (SELECT COALESCE(AVG(? - COALESCE(CAST(substr(birth_date, 1, 4) AS INTEGER), ?)), 0)
+                 FROM student_rows) AS average_student_age,
+                (SELECT COUNT(*) FROM student_rows WHERE COALESCE(enrollment_date, ?) > ?) AS recent_students,
+                (SELECT COUNT(*) FROM teacher_rows
+                 WHERE ? - COALESCE(CAST(substr(hire_date, 1, 4) AS INTEGER), ?) BETWEEN 0 AND 5) AS new_teachers
+            """;
+
+        Map<String, Object> aggregates = new LinkedHashMap<>();
+        LocalDate today = LocalDate.now();
+        int year = today.getYear();
+
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, year);
+            pstmt.setInt(2, year);
+            pstmt.setString(3, today.toString());
+            pstmt.setString(4, today.minusDays(30).toString());
+            pstmt.setInt(5, year);
+            pstmt.setInt(6, year);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        aggregates.put(meta.getColumnLabel(i), rs.getObject(i));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error computing dashboard statistics: {}", e.getMessage());
+        }
+        return aggregates;
+    }
+
+    /**
+     * توزيع الطلاب حسب الصف من grade_summary.
+     */
+    public Map<String, Long> getGradeDistribution() {
+        return readDistribution("SELECT grade, student_count FROM grade_summary ORDER BY grade",
+                                "grade distribution");
+    }
+
+    /**
+     * توزيع المعلمين حسب التخصص من subject_summary.
+     */
+    public Map<String, Long> getSubjectDistribution() {
+        return readDistribution("SELECT subject, teacher_count FROM subject_summary ORDER BY subject",
+                                "subject distribution");
+    }
+
+    /**
+     * توزيع المواد حسب القسم من department_summary.
+     */
+    public Map<String, Long> getDepartmentDistribution() {
+        return readDistribution("SELECT department, course_count FROM department_summary ORDER BY department",
+                                "department distribution");
+    }
+
+    private Map<String, Long> readDistribution(String sql, String label, Object... params) {
+        Map<String, Long> distribution = new LinkedHashMap<>();
+
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    distribution.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error reading {}: {}", label, e.getMessage());
+        }
+        return distribution;
+    }
+
+    /**
+     * الطلاب حسب الفئة العمرية (بفرق السنوات). كل الفئات موجودة في النتيجة ولو بصفر.
+     */
+    public Map<String, Long> getStudentAgeGroups() {
+        int year = LocalDate.now().getYear();
+        String sql = """
+            SELECT age_group, COUNT(*) FROM (
+                SELECT CASE
+                         WHEN age BETWEEN 0 AND 14 THEN 'Under 15'
+                         WHEN age BETWEEN 15 AND 17 THEN '15-17'
+                         WHEN age BETWEEN 18 AND 20 THEN '18-20'
+                         WHEN age BETWEEN 21 AND 100 THEN 'Over 20'
+                       END AS age_group
+                FROM (SELECT ? - COALESCE(CAST(substr(p.birth_date, 1, 4) AS INTEGER), ?) AS age
+                      FROM students s JOIN persons p ON p.id = s.person_id
+                      WHERE p.type = 'STUDENT')
+            )
+            WHERE age_group IS NOT NULL
+            GROUP BY age_group
+            """;
+
+        Map<String, Long> groups = new LinkedHashMap<>();
+        for (String group : new String[] {"Under 15", "15-17", "18-20", "Over 20"}) {
+            groups.put(group, 0L);
+        }
+        groups.putAll(readDistribution(sql, "student age groups", year, year));
+        return groups;
+    }
+
+    /**
+     * المعلمون حسب سنوات الخدمة، بترتيب الفئات. الفئات الفارغة لا تظهر.
+     */
+    public Map<String, Long> getTeacherExperienceGroups() {
+        int year = LocalDate.now().getYear();
+        String sql = """
+            SELECT CASE
+                     WHEN years <= 5 THEN '0-5 years'
+                     WHEN years <= 10 THEN '6-10 years'
+                     WHEN years <= 20 THEN '11-20 years'
+                     ELSE '20+ years'
+                   END AS experience_group,
+                   COUNT(*)
+            FROM (SELECT ? - COALESCE(CAST(substr(t.hire_date, 1, 4) AS INTEGER), ?) AS years
+                  FROM teachers t JOIN persons p ON p.id = t.person_id
+                  WHERE p.type = 'TEACHER')
+            GROUP BY experience_group
+            ORDER BY MIN(years)
+            """;
+        return readDistribution(sql, "teacher experience groups", year, year);
+    }
+
+    /**
+     * متوسط سنوات الخدمة للمعلمين، أو 0 إذا لم يوجد معلمون.
+     */
+    public double getAverageYearsOfService() {
+        int year = LocalDate.now().getYear();
+        String sql = "SELECT COALESCE(AVG(? - COALESCE(CAST(substr(t.hire_date, 1, 4) AS INTEGER), ?)), 0) " +
+                     "FROM teachers t JOIN persons p ON p.id = t.person_id WHERE p.type = 'TEACHER'";
+
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, year);
+            pstmt.setInt(2, year);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getDouble(1);
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error reading average years of service: {}", e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * المعلمون حسب شريحة الراتب، من الأقل إلى الأعلى. الشرائح الفارغة لا تظهر.
+     */
+    public Map<String, Long> getSalaryRanges() {
+        String sql = """
+            SELECT CASE
+                     WHEN salary < 3000 THEN 'Under $3,000'
+                     WHEN salary < 4000 THEN '$3,000 - $3,999'
+                     WHEN salary < 5000 THEN '$4,000 - $4,999'
+                     WHEN salary < 6000 THEN '$5,000 - $5,999'
+                     ELSE '$6,000+'
+                   END AS salary_range,
+                   COUNT(*)
+            FROM (SELECT COALESCE(t.salary, 0) AS salary
+                  FROM teachers t JOIN persons p ON p.id = t.person_id
+                  WHERE p.type = 'TEACHER')
+            GROUP BY salary_range
+            ORDER BY MIN(salary)
+            """;
+        return readDistribution(sql, "salary ranges");
+    }
+
+    /**
+     * المواد حسب عدد الساعات المعتمدة.
+     */
+    public Map<Integer, Long> getCreditHourDistribution() {
+        Map<Integer, Long> distribution = new LinkedHashMap<>();
+        readDistribution("SELECT COALESCE(credit_hours, 0) AS credits, COUNT(*) FROM courses " +
+                         "GROUP BY credits ORDER BY credits", "credit hour distribution")
+            .forEach((credits, count) -> distribution.put(Integer.valueOf(credits), count));
+        return distribution;
+    }
+
+    /**
+     * المواد حسب مدتها بالأيام، بترتيب الفئات. الفئات الفارغة لا تظهر.
+     */
+    public Map<String, Long> getCourseDurationGroups() {
+        String sql = """
+            SELECT CASE
+                     WHEN days <= 30 THEN '≤ 1 month'
+                     WHEN days <= 90 THEN '1-3 months'
+                     WHEN days <= 180 THEN '3-6 months'
+                     ELSE '6+ months'
+                   END AS duration_group,
+                   COUNT(*)
+            FROM (SELECT CAST(julianday(end_date) - julianday(start_date) AS INTEGER) AS days FROM courses)
+            GROUP BY duration_group
+            ORDER BY MIN(days)
+            """;
+        return readDistribution(sql, "course duration groups");
+    }
+
+    /**
+     * مجموع التسجيلات في كل المواد، من course_enrollment_summary.
+     */
+    public long countEnrollments() {
+        return (long) readDouble("SELECT COALESCE(SUM(enrolled_count), 0) FROM course_enrollment_summary",
+                                 "enrollment count");
+    }
+
+    /**
+     * مجموع الرواتب الشهرية من subject_summary.
+     */
+    public double getTotalSalary() {
+        return readDouble("SELECT COALESCE(SUM(salary_total), 0) FROM subject_summary", "total salary");
+    }
+
+    /**
+     * متوسط الراتب، أو 0 إذا لم يوجد معلمون.
+     */
+    public double getAverageSalary() {
+        return readDouble("SELECT COALESCE(SUM(salary_total) / NULLIF(SUM(teacher_count), 0), 0) FROM subject_summary",
+                          "average salary");
+    }
+
+    private double readDouble(String sql, String label) {
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return rs.getDouble(1);
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error reading {}: {}", label, e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * إحصائيات المواد (العدد، متوسط التسجيل، الامتلاء، المواد الممتلئة وبدون معلم)
+     * من course_enrollment_summary دون تحميل الطلاب المسجلين.
+     *
+     * @return القيم الخام بأسماء أعمدة الاستعلام، أو خريطة فارغة عند الخطأ
+     */
+    public Map<String, Object> getCourseAggregates() {
+        String sql = """
+            WITH course_load AS (
+                SELECT c.id, c.max_students, c.teacher_id, COALESCE(ces.enrolled_count, 0) AS enrolled
+                FROM courses c
+                LEFT JOIN course_enrollment_summary ces ON ces.course_id = c.id
+            )
+            SELECT
+                COUNT(*) AS total_courses,
+                AVG(enrolled) AS average_enrollment,
+                AVG(CASE WHEN max_students > 0 THEN enrolled * 100.0 / max_students END) AS occupancy_rate,
+                SUM(CASE WHEN enrolled >= max_students THEN 1 ELSE 0 END) AS full_courses,
+                SUM(CASE WHEN NOT EXISTS (SELECT 1 FROM teachers t WHERE t.person_id = course_load.teacher_id)
+                         THEN 1 ELSE 0 END) AS courses_without_teacher
+            FROM course_load
+            """;
+
+        Map<String, Object> aggregates = new LinkedHashMap<>();
+
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    aggregates.put(meta.getColumnLabel(i), rs.getObject(i));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error computing course statistics: {}", e.getMessage());
+        }
+        return aggregates;
+    }
+
+    /**
+     * عدد التسجيلات الجديدة لكل يوم بين التاريخين (شاملاً) من enrollment_daily.
+     * الأيام بدون تسجيلات لا تظهر في النتيجة.
+     */
+    public Map<LocalDate, Long> getDailyEnrollments(LocalDate from, LocalDate to) {
+        String sql = "SELECT day, SUM(enrollments) FROM enrollment_daily " +
+                     "WHERE day BETWEEN ? AND ? GROUP BY day ORDER BY day";
+        Map<LocalDate, Long> daily = new LinkedHashMap<>();
+
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, to.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    daily.put(LocalDate.parse(rs.getString(1)), rs.getLong(2));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error reading daily enrollments: {}", e.getMessage());
+        }
+        return daily;
+    }
+
+    /**
+     * عدد التسجيلات الجديدة لكل شهر بين الشهرين (شاملاً) من enrollment_monthly.
+     * الأشهر بدون تسجيلات لا تظهر في النتيجة.
+     */
+    public Map<YearMonth, Long> getMonthlyEnrollments(YearMonth from, YearMonth to) {
+        String sql = "SELECT month, SUM(enrollments) FROM enrollment_monthly " +
+                     "WHERE month BETWEEN ? AND ? GROUP BY month ORDER BY month";
+        Map<YearMonth, Long> monthly = new LinkedHashMap<>();
+
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, to.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    monthly.put(YearMonth.parse(rs.getString(1)), rs.getLong(2));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error reading monthly enrollments: {}", e.getMessage());
+        }
+        return monthly;
+    }
+
+    /**
+     * صافي التسجيلات (تسجيل ناقص إلغاء) لكل قسم عبر كل السجل، من enrollment_monthly.
+     */
+    public Map<String, Long> getNetEnrollmentsByDepartment() {
+        return readDistribution(
+            "SELECT department, SUM(enrollments - unenrollments) AS net FROM enrollment_monthly " +
+            "GROUP BY department HAVING net > 0 ORDER BY department",
+            "department enrollments");
+    }
+
+    /**
+     * إعادة بناء الجداول الملخصة من الجداول الأساسية في معاملة واحدة.
+     * للاستعادة إذا عُدلت البيانات خارج التطبيق أو توقفت المشغلات.
+     */
+    public boolean rebuildSummaries() {
+        String[] statements = {
+            "DELETE FROM grade_summary",
+            "DELETE FROM subject_summary",
+            "DELETE FROM department_summary",
+            "DELETE FROM course_enrollment_summary",
+
+            "INSERT INTO grade_summary (grade, student_count)" +
+            " SELECT COALESCE(grade, ''), COUNT(*) FROM students GROUP BY COALESCE(grade, '')",
+
+            "INSERT INTO subject_summary (subject, teacher_count, salary_total)" +
+            " SELECT COALESCE(subject, ''), COUNT(*), COALESCE(SUM(salary), 0) FROM teachers GROUP BY COALESCE(subject, '')",
+
+            "INSERT INTO department_summary (department, course_count)" +
+            " SELECT COALESCE(department, ''), COUNT(*) FROM courses GROUP BY COALESCE(department, '')",
+
+            "INSERT INTO course_enrollment_summary (course_id, enrolled_count)" +
+            " SELECT c.id, (SELECT COUNT(*) FROM course_enrollments ce" +
+            "               JOIN students s ON ce.student_id = s.student_id" +
+            "               WHERE ce.course_id = c.id)" +
+            " FROM courses c",
+
+            // التجميعات الزمنية تُعاد من سجل الأحداث
+            "DELETE FROM enrollment_daily",
+            "DELETE FROM enrollment_monthly",
+
+            "INSERT INTO enrollment_daily (day, department, enrollments, unenrollments)" +
+            " SELECT substr(occurred_at, 1, 10), department," +
+            "        SUM(event_type = 'ENROLL'), SUM(event_type = 'UNENROLL')" +
+            " FROM enrollment_events GROUP BY substr(occurred_at, 1, 10), department",
+
+            "INSERT INTO enrollment_monthly (month, department, enrollments, unenrollments)" +
+            " SELECT substr(occurred_at, 1, 7), department," +
+            "        SUM(event_type = 'ENROLL'), SUM(event_type = 'UNENROLL')" +
+            " FROM enrollment_events GROUP BY substr(occurred_at, 1, 7), department"
+        };
+
+        try (Connection connection = db.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement stmt = connection.createStatement()) {
+                for (String sql : statements) {
+                    stmt.executeUpdate(sql);
+                }
+                connection.commit();
+                Log.info("✅ Summary tables rebuilt");
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error rebuilding summary tables: {}", e.getMessage());
+        }
+        return false;
+    }
+}
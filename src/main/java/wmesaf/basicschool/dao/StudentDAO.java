@@ -3,20 +3,23 @@ package wmesaf.basicschool.dao;
 import wmesaf.basicschool.database.DatabaseConnection;
 import wmesaf.basicschool.model.PersonRecord;
 import wmesaf.basicschool.model.Student;
+import wmesaf.basicschool.logging.Log;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class StudentDAO {
-    private Connection connection;
+    private final DatabaseConnection db;
     
     public StudentDAO() {
-        this.connection = DatabaseConnection.getInstance().getConnection();
+        this.db = DatabaseConnection.getInstance();
     }
     
     public boolean addStudent(Student student) {
-        System.out.println("📝 Adding student: " + student.getName());
+        Log.debug("📝 Adding student: {}", student.getName());
         
         PersonRecord personRecord = new PersonRecord(
             student.getName(),
@@ -31,7 +34,7 @@ public class StudentDAO {
         PersonRecord addedPerson = personDAO.addPerson(personRecord);
         
         if (addedPerson == null) {
-            System.err.println("❌ Failed to add person record");
+            Log.error("❌ Failed to add person record");
             return false;
         }
         
@@ -39,18 +42,21 @@ public class StudentDAO {
         
         String sql = "INSERT INTO students (person_id, student_id, grade, enrollment_date) VALUES (?, ?, ?, ?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, student.getId());
             pstmt.setString(2, student.getStudentId());
             pstmt.setString(3, student.getGrade());
             pstmt.setString(4, student.getEnrollmentDate().toString());
             
             int result = pstmt.executeUpdate();
-            System.out.println("✅ Student added: " + student.getStudentId());
+            EntityCache.getInstance().studentsAdded();
+            SearchIndex.getInstance().putStudent(student.getId(), student.getStudentId(), student.getName());
+            Log.info("✅ Student added: {}", student.getStudentId());
             return result > 0;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error adding student: " + e.getMessage());
+            Log.error("❌ Error adding student: {}", e.getMessage());
             // Rollback: delete person if student fails
             personDAO.deletePerson(student.getId());
         }
@@ -59,12 +65,18 @@ public class StudentDAO {
     
     // ✅ الدالة المفقودة التي نضيفها الآن
     public Student getStudentById(int id) {
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null && unit.findStudent(id) != null) {
+            return unit.findStudent(id);
+        }
+        
         String sql = "SELECT p.*, s.student_id, s.grade, s.enrollment_date " +
                     "FROM persons p " +
                     "JOIN students s ON p.id = s.person_id " +
                     "WHERE p.id = ? AND p.type = 'STUDENT'";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             
             ResultSet rs = pstmt.executeQuery();
@@ -73,18 +85,24 @@ public class StudentDAO {
                 return createStudentFromResultSet(rs);
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error getting student by ID: " + e.getMessage());
+            Log.error("❌ Error getting student by ID: {}", e.getMessage());
         }
         return null;
     }
     
     public Student getStudentByStudentId(String studentId) {
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null && unit.findStudentByStudentId(studentId) != null) {
+            return unit.findStudentByStudentId(studentId);
+        }
+        
         String sql = "SELECT p.*, s.student_id, s.grade, s.enrollment_date " +
                     "FROM persons p " +
                     "JOIN students s ON p.id = s.person_id " +
                     "WHERE s.student_id = ? AND p.type = 'STUDENT'";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, studentId);
             
             ResultSet rs = pstmt.executeQuery();
@@ -93,7 +111,7 @@ public class StudentDAO {
                 return createStudentFromResultSet(rs);
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error getting student by ID: " + e.getMessage());
+            Log.error("❌ Error getting student by ID: {}", e.getMessage());
         }
         return null;
     }
@@ -106,21 +124,23 @@ public class StudentDAO {
                     "WHERE p.type = 'STUDENT' " +
                     "ORDER BY s.student_id";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
                 students.add(createStudentFromResultSet(rs));
             }
-            System.out.println("📊 Loaded " + students.size() + " students");
+            Log.debug("📊 Loaded {} students", students.size());
             
         } catch (SQLException e) {
-            System.err.println("❌ Error getting all students: " + e.getMessage());
+            Log.error("❌ Error getting all students: {}", e.getMessage());
         }
         return students;
     }
     
     public boolean updateStudent(Student student) {
+        UnitOfWork.evict(student.getId());
         PersonDAO personDAO = new PersonDAO();
         if (!personDAO.updatePerson(student)) {
             return false;
@@ -128,78 +148,131 @@ public class StudentDAO {
         
         String sql = "UPDATE students SET student_id = ?, grade = ?, enrollment_date = ? WHERE person_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, student.getStudentId());
             pstmt.setString(2, student.getGrade());
             pstmt.setString(3, student.getEnrollmentDate().toString());
             pstmt.setInt(4, student.getId());
             
             int result = pstmt.executeUpdate();
-            System.out.println("✏️ Student updated: " + student.getStudentId());
+            EntityCache.getInstance().studentsChanged();
+            SearchIndex.getInstance().putStudent(student.getId(), student.getStudentId(), student.getName());
+            Log.info("✏️ Student updated: {}", student.getStudentId());
             return result > 0;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error updating student: " + e.getMessage());
+            Log.error("❌ Error updating student: {}", e.getMessage());
         }
         return false;
     }
     
     public boolean deleteStudent(int id) {
-        System.out.println("🗑️ Deleting student ID: " + id);
+        Log.debug("🗑️ Deleting student ID: {}", id);
+        UnitOfWork.evict(id);
         
         String deleteStudentSQL = "DELETE FROM students WHERE person_id = ?";
         String deletePersonSQL = "DELETE FROM persons WHERE id = ?";
         
-        try {
+        try (Connection connection = db.getConnection()) {
             connection.setAutoCommit(false);
-            
-            try (PreparedStatement pstmt1 = connection.prepareStatement(deleteStudentSQL)) {
-                pstmt1.setInt(1, id);
-                pstmt1.executeUpdate();
-            }
-            
-            try (PreparedStatement pstmt2 = connection.prepareStatement(deletePersonSQL)) {
-                pstmt2.setInt(1, id);
-                int rows = pstmt2.executeUpdate();
+            try {
+                try (PreparedStatement pstmt1 = connection.prepareStatement(deleteStudentSQL)) {
+                    pstmt1.setInt(1, id);
+                    pstmt1.executeUpdate();
+                }
                 
-                connection.commit();
-                connection.setAutoCommit(true);
+                int rows;
+                try (PreparedStatement pstmt2 = connection.prepareStatement(deletePersonSQL)) {
+                    pstmt2.setInt(1, id);
+                    rows = pstmt2.executeUpdate();
+                }
                 
-                System.out.println("✅ Student deleted successfully");
+                connection.commit();
+                EntityCache.getInstance().studentsChanged();
+                SearchIndex.getInstance().removePerson(id);
+                Log.info("✅ Student deleted successfully");
                 return rows > 0;
-            }
-        } catch (SQLException e) {
-            try {
+                
+            } catch (SQLException e) {
                 connection.rollback();
+                throw e;
+            } finally {
                 connection.setAutoCommit(true);
-            } catch (SQLException ex) {
-                System.err.println("❌ Error rolling back: " + ex.getMessage());
             }
-            System.err.println("❌ Error deleting student: " + e.getMessage());
+        } catch (SQLException e) {
+            Log.error("❌ Error deleting student: {}", e.getMessage());
         }
         return false;
     }
     
+    // المطابقة من SearchIndex (أو FTS5) بدل LIKE '%x%' الذي لا يستخدم أي فهرس
     public List<Student> searchStudentsByName(String name) {
         List<Student> students = new ArrayList<>();
+        // ترتيب الـ ids في المصفوفة هو ترتيب الصلة، فتبقى أفضل النتائج أولاً
         String sql = "SELECT p.*, s.student_id, s.grade, s.enrollment_date " +
-                    "FROM persons p " +
+                    "FROM json_each(?) m " +
+                    "JOIN persons p ON p.id = m.value " +
                     "JOIN students s ON p.id = s.person_id " +
-                    "WHERE p.type = 'STUDENT' AND p.name LIKE ? " +
-                    "ORDER BY p.name";
+                    "WHERE p.type = 'STUDENT' " +
+                    "ORDER BY m.key";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, "%" + name + "%");
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, SearchIndex.getInstance().searchIdsAsJson(SearchIndex.Kind.STUDENT, name));
             
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 students.add(createStudentFromResultSet(rs));
             }
-            System.out.println("🔍 Found " + students.size() + " students matching: " + name);
+            Log.debug("🔍 Found {} students matching: {}", students.size(), name);
+            
+        } catch (SQLException e) {
+            Log.error("❌ Error searching students: {}", e.getMessage());
+        }
+        return students;
+    }
+    
+    /**
+     * One page of the students not enrolled in a course, in student_id order.
+     *
+     * NOT EXISTS probes the (course_id, student_id) primary key once per student
+     * read from the student_id index, so a page costs about limit rows plus the
+     * enrolled students skipped on the way, however many students there are.
+     *
+     * @param nameFilter     search text, or null for all students
+     * @param afterStudentId last student_id of the previous page, or null for the first page
+     */
+    public List<Student> getStudentsNotInCourse(int courseId, String nameFilter, String afterStudentId, int limit) {
+        List<Student> students = new ArrayList<>();
+        boolean filtered = nameFilter != null && !nameFilter.trim().isEmpty();
+        String sql = "SELECT p.*, s.student_id, s.grade, s.enrollment_date " +
+                    "FROM students s " +
+                    "JOIN persons p ON p.id = s.person_id " +
+                    "WHERE s.student_id > ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM course_enrollments ce " +
+                    "                WHERE ce.course_id = ? AND ce.student_id = s.student_id) " +
+                    (filtered ? "AND p.id IN (SELECT value FROM json_each(?)) " : "") +
+                    "ORDER BY s.student_id LIMIT ?";
+        
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int index = 1;
+            pstmt.setString(index++, afterStudentId != null ? afterStudentId : "");
+            pstmt.setInt(index++, courseId);
+            if (filtered) {
+                pstmt.setString(index++, SearchIndex.getInstance().searchIdsAsJson(SearchIndex.Kind.STUDENT, nameFilter));
+            }
+            pstmt.setInt(index, limit);
             
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    students.add(createStudentFromResultSet(rs));
+                }
+            }
         } catch (SQLException e) {
-            System.err.println("❌ Error searching students: " + e.getMessage());
+            Log.error("❌ Error loading students available for course: {}", e.getMessage());
         }
         return students;
     }
@@ -212,7 +285,8 @@ public class StudentDAO {
                     "WHERE p.type = 'STUDENT' AND s.grade = ? " +
                     "ORDER BY s.student_id";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, grade);
             
             ResultSet rs = pstmt.executeQuery();
@@ -221,7 +295,7 @@ public class StudentDAO {
                 students.add(createStudentFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error getting students by grade: " + e.getMessage());
+            Log.error("❌ Error getting students by grade: {}", e.getMessage());
         }
         return students;
     }
@@ -229,22 +303,124 @@ public class StudentDAO {
     public int countStudents() {
         String sql = "SELECT COUNT(*) as total FROM students";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             if (rs.next()) {
                 return rs.getInt("total");
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error counting students: " + e.getMessage());
+            Log.error("❌ Error counting students: {}", e.getMessage());
         }
         return 0;
     }
     
+    /**
+     * إدراج دفعة من الطلاب في معاملة واحدة.
+     * الـ IDs تُحجز بعد MAX(id) داخل المعاملة، فلا حاجة لاستعلام إضافي لكل صف.
+     *
+     * @return عدد الطلاب المضافين، أو -1 إذا فشلت الدفعة وتم التراجع عنها بالكامل
+     */
+    public int addStudentsBatch(List<Student> students) {
+        if (students.isEmpty()) {
+            return 0;
+        }
+        
+        String studentSql = "INSERT INTO students (person_id, student_id, grade, enrollment_date) VALUES (?, ?, ?, ?)";
+        PersonDAO personDAO = new PersonDAO();
+        
+        try (Connection connection = db.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement personStmt = connection.prepareStatement(PersonDAO.BATCH_INSERT_SQL);
+                 PreparedStatement studentStmt = connection.prepareStatement(studentSql)) {
+                
+                int id = personDAO.getMaxPersonId(connection);
+                for (Student student : students) {
+                    id++;
+                    personDAO.addPersonToBatch(personStmt, id, student, "STUDENT");
+                    studentStmt.setInt(1, id);
+                    studentStmt.setString(2, student.getStudentId());
+                    studentStmt.setString(3, student.getGrade());
+                    studentStmt.setString(4, student.getEnrollmentDate().toString());
+                    studentStmt.addBatch();
+                }
+                
+                personStmt.executeBatch();
+                studentStmt.executeBatch();
+                connection.commit();
+                EntityCache.getInstance().studentsAdded();
+                
+                // تعيين الـ IDs بعد نجاح المعاملة فقط
+                id -= students.size();
+                for (Student student : students) {
+                    student.setId(++id);
+                    SearchIndex.getInstance().putStudent(student.getId(), student.getStudentId(), student.getName());
+                }
+                return students.size();
+                
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error adding student batch: {}", e.getMessage());
+        }
+        return -1;
+    }
+    
+    /**
+     * جميع أرقام الطلاب في استعلام واحد (للتحقق من التكرار أثناء الاستيراد)
+     */
+    public Set<String> getAllStudentIds() {
+        Set<String> ids = new HashSet<>();
+        String sql = "SELECT student_id FROM students";
+        
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                ids.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error loading student IDs: {}", e.getMessage());
+        }
+        return ids;
+    }
+    
+    /**
+     * أول limit من أرقام الطلاب بالترتيب، دون تحميل بياناتهم
+     */
+    public List<String> getFirstStudentIds(int limit) {
+        List<String> ids = new ArrayList<>();
+        String sql = "SELECT s.student_id FROM students s " +
+                     "JOIN persons p ON p.id = s.person_id " +
+                     "WHERE p.type = 'STUDENT' " +
+                     "ORDER BY s.student_id LIMIT ?";
+        
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error loading student IDs: {}", e.getMessage());
+        }
+        return ids;
+    }
+    
     public boolean studentIdExists(String studentId) {
         String sql = "SELECT COUNT(*) as count FROM students WHERE student_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, studentId);
             
             ResultSet rs = pstmt.executeQuery();
@@ -253,12 +429,22 @@ public class StudentDAO {
                 return rs.getInt("count") > 0;
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error checking student ID: " + e.getMessage());
+            Log.error("❌ Error checking student ID: {}", e.getMessage());
         }
         return false;
     }
     
-    private Student createStudentFromResultSet(ResultSet rs) throws SQLException {
+    // متاحة داخل الحزمة ليستخدمها CourseDAO عند تحميل التسجيلات
+    Student createStudentFromResultSet(ResultSet rs) throws SQLException {
+        // داخل وحدة عمل مفتوحة يُعاد نفس الكائن لنفس الصف
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null) {
+            Student existing = unit.findStudent(rs.getInt("id"));
+            if (existing != null) {
+                return existing;
+            }
+        }
+        
         try {
             Student student = new Student(
                 rs.getString("name"),
@@ -271,10 +457,10 @@ public class StudentDAO {
                 rs.getString("enrollment_date") != null ? LocalDate.parse(rs.getString("enrollment_date")) : LocalDate.now()
             );
             student.setId(rs.getInt("id"));
-            return student;
+            return unit != null ? unit.register(student) : student;
             
         } catch (Exception e) {
-            System.err.println("❌ Error creating student object: " + e.getMessage());
+            Log.error("❌ Error creating student object: {}", e.getMessage());
             throw new SQLException("Failed to create student from result set", e);
         }
     }
@@ -3,20 +3,23 @@ package wmesaf.basicschool.dao;
 import wmesaf.basicschool.database.DatabaseConnection;
 import wmesaf.basicschool.model.PersonRecord;
 import wmesaf.basicschool.model.Teacher;
+import wmesaf.basicschool.logging.Log;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class TeacherDAO {
-    private Connection connection;
+    private final DatabaseConnection db;
     
     public TeacherDAO() {
-        this.connection = DatabaseConnection.getInstance().getConnection();
+        this.db = DatabaseConnection.getInstance();
     }
     
     public boolean addTeacher(Teacher teacher) {
-        System.out.println("📝 Adding teacher: " + teacher.getName());
+        Log.debug("📝 Adding teacher: {}", teacher.getName());
         
         PersonRecord personRecord = new PersonRecord(
             teacher.getName(),
@@ -31,7 +34,7 @@ public class TeacherDAO {
         PersonRecord addedPerson = personDAO.addPerson(personRecord);
         
         if (addedPerson == null) {
-            System.err.println("❌ Failed to add person record");
+            Log.error("❌ Failed to add person record");
             return false;
         }
         
@@ -39,7 +42,8 @@ public class TeacherDAO {
         
         String sql = "INSERT INTO teachers (person_id, teacher_id, subject, salary, hire_date) VALUES (?, ?, ?, ?, ?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, teacher.getId());
             pstmt.setString(2, teacher.getTeacherId());
             pstmt.setString(3, teacher.getSubject());
@@ -47,11 +51,13 @@ public class TeacherDAO {
             pstmt.setString(5, teacher.getHireDate().toString());
             
             int result = pstmt.executeUpdate();
-            System.out.println("✅ Teacher added: " + teacher.getTeacherId());
+            EntityCache.getInstance().teachersAdded();
+            SearchIndex.getInstance().putTeacher(teacher.getId(), teacher.getTeacherId(), teacher.getName());
+            Log.info("✅ Teacher added: {}", teacher.getTeacherId());
             return result > 0;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error adding teacher: " + e.getMessage());
+            Log.error("❌ Error adding teacher: {}", e.getMessage());
             personDAO.deletePerson(teacher.getId());
         }
         return false;
@@ -122,12 +128,18 @@ public class TeacherDAO {
 //    
     // أضف في TeacherDAO.java
 public Teacher getTeacherById(int id) {
+    UnitOfWork unit = UnitOfWork.current();
+    if (unit != null && unit.findTeacher(id) != null) {
+        return unit.findTeacher(id);
+    }
+    
     String sql = "SELECT p.*, t.teacher_id, t.subject, t.salary, t.hire_date " +
                 "FROM persons p " +
                 "JOIN teachers t ON p.id = t.person_id " +
                 "WHERE p.id = ? AND p.type = 'TEACHER'";
     
-    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+    try (Connection connection = db.getReadConnection();
+         PreparedStatement pstmt = connection.prepareStatement(sql)) {
         pstmt.setInt(1, id);
         
         ResultSet rs = pstmt.executeQuery();
@@ -136,17 +148,23 @@ public Teacher getTeacherById(int id) {
             return createTeacherFromResultSet(rs);
         }
     } catch (SQLException e) {
-        System.err.println("❌ Error getting teacher by ID: " + e.getMessage());
+        Log.error("❌ Error getting teacher by ID: {}", e.getMessage());
     }
     return null;
 }
     public Teacher getTeacherByTeacherId(String teacherId) {
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null && unit.findTeacherByTeacherId(teacherId) != null) {
+            return unit.findTeacherByTeacherId(teacherId);
+        }
+        
         String sql = "SELECT p.*, t.teacher_id, t.subject, t.salary, t.hire_date " +
                     "FROM persons p " +
                     "JOIN teachers t ON p.id = t.person_id " +
                     "WHERE t.teacher_id = ? AND p.type = 'TEACHER'";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, teacherId);
             
             ResultSet rs = pstmt.executeQuery();
@@ -155,7 +173,7 @@ public Teacher getTeacherById(int id) {
                 return createTeacherFromResultSet(rs);
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error getting teacher by ID: " + e.getMessage());
+            Log.error("❌ Error getting teacher by ID: {}", e.getMessage());
         }
         return null;
     }
@@ -168,21 +186,23 @@ public Teacher getTeacherById(int id) {
                     "WHERE p.type = 'TEACHER' " +
                     "ORDER BY t.teacher_id";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
                 teachers.add(createTeacherFromResultSet(rs));
             }
-            System.out.println("📊 Loaded " + teachers.size() + " teachers");
+            Log.debug("📊 Loaded {} teachers", teachers.size());
             
         } catch (SQLException e) {
-            System.err.println("❌ Error getting all teachers: " + e.getMessage());
+            Log.error("❌ Error getting all teachers: {}", e.getMessage());
         }
         return teachers;
     }
     
     public boolean updateTeacher(Teacher teacher) {
+        UnitOfWork.evict(teacher.getId());
         PersonDAO personDAO = new PersonDAO();
         if (!personDAO.updatePerson(teacher)) {
             return false;
@@ -190,7 +210,8 @@ public Teacher getTeacherById(int id) {
         
         String sql = "UPDATE teachers SET teacher_id = ?, subject = ?, salary = ?, hire_date = ? WHERE person_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, teacher.getTeacherId());
             pstmt.setString(2, teacher.getSubject());
             pstmt.setDouble(3, teacher.getSalary());
@@ -198,71 +219,79 @@ public Teacher getTeacherById(int id) {
             pstmt.setInt(5, teacher.getId());
             
             int result = pstmt.executeUpdate();
-            System.out.println("✏️ Teacher updated: " + teacher.getTeacherId());
+            EntityCache.getInstance().teachersChanged();
+            SearchIndex.getInstance().putTeacher(teacher.getId(), teacher.getTeacherId(), teacher.getName());
+            Log.info("✏️ Teacher updated: {}", teacher.getTeacherId());
             return result > 0;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error updating teacher: " + e.getMessage());
+            Log.error("❌ Error updating teacher: {}", e.getMessage());
         }
         return false;
     }
     
     public boolean deleteTeacher(int id) {
-        System.out.println("🗑️ Deleting teacher ID: " + id);
+        Log.debug("🗑️ Deleting teacher ID: {}", id);
+        UnitOfWork.evict(id);
         
         String deleteTeacherSQL = "DELETE FROM teachers WHERE person_id = ?";
         String deletePersonSQL = "DELETE FROM persons WHERE id = ?";
         
-        try {
+        try (Connection connection = db.getConnection()) {
             connection.setAutoCommit(false);
-            
-            try (PreparedStatement pstmt1 = connection.prepareStatement(deleteTeacherSQL)) {
-                pstmt1.setInt(1, id);
-                pstmt1.executeUpdate();
-            }
-            
-            try (PreparedStatement pstmt2 = connection.prepareStatement(deletePersonSQL)) {
-                pstmt2.setInt(1, id);
-                int rows = pstmt2.executeUpdate();
+            try {
+                try (PreparedStatement pstmt1 = connection.prepareStatement(deleteTeacherSQL)) {
+                    pstmt1.setInt(1, id);
+                    pstmt1.executeUpdate();
+                }
                 
-                connection.commit();
-                connection.setAutoCommit(true);
+                int rows;
+                try (PreparedStatement pstmt2 = connection.prepareStatement(deletePersonSQL)) {
+                    pstmt2.setInt(1, id);
+                    rows = pstmt2.executeUpdate();
+                }
                 
-                System.out.println("✅ Teacher deleted successfully");
+                connection.commit();
+                EntityCache.getInstance().teachersChanged();
+                SearchIndex.getInstance().removePerson(id);
+                Log.info("✅ Teacher deleted successfully");
                 return rows > 0;
-            }
-        } catch (SQLException e) {
-            try {
+                
+            } catch (SQLException e) {
                 connection.rollback();
+                throw e;
+            } finally {
                 connection.setAutoCommit(true);
-            } catch (SQLException ex) {
-                System.err.println("❌ Error rolling back: " + ex.getMessage());
             }
-            System.err.println("❌ Error deleting teacher: " + e.getMessage());
+        } catch (SQLException e) {
+            Log.error("❌ Error deleting teacher: {}", e.getMessage());
         }
         return false;
     }
     
     public List<Teacher> searchTeachersByName(String name) {
         List<Teacher> teachers = new ArrayList<>();
+        // m.key موضع الـ id في نتائج البحث المرتبة
         String sql = "SELECT p.*, t.teacher_id, t.subject, t.salary, t.hire_date " +
-                    "FROM persons p " +
+                    "FROM json_each(?) m " +
+                    "JOIN persons p ON p.id = m.value " +
                     "JOIN teachers t ON p.id = t.person_id " +
-                    "WHERE p.type = 'TEACHER' AND p.name LIKE ? " +
-                    "ORDER BY p.name";
+                    "WHERE p.type = 'TEACHER' " +
+                    "ORDER BY m.key";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, "%" + name + "%");
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, SearchIndex.getInstance().searchIdsAsJson(SearchIndex.Kind.TEACHER, name));
             
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 teachers.add(createTeacherFromResultSet(rs));
             }
-            System.out.println("🔍 Found " + teachers.size() + " teachers matching: " + name);
+            Log.debug("🔍 Found {} teachers matching: {}", teachers.size(), name);
             
         } catch (SQLException e) {
-            System.err.println("❌ Error searching teachers: " + e.getMessage());
+            Log.error("❌ Error searching teachers: {}", e.getMessage());
         }
         return teachers;
     }
@@ -275,7 +304,8 @@ public Teacher getTeacherById(int id) {
                     "WHERE p.type = 'TEACHER' AND t.subject LIKE ? " +
                     "ORDER BY t.teacher_id";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, "%" + subject + "%");
             
             ResultSet rs = pstmt.executeQuery();
@@ -284,7 +314,7 @@ public Teacher getTeacherById(int id) {
                 teachers.add(createTeacherFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error getting teachers by subject: " + e.getMessage());
+            Log.error("❌ Error getting teachers by subject: {}", e.getMessage());
         }
         return teachers;
     }
@@ -292,22 +322,100 @@ public Teacher getTeacherById(int id) {
     public int countTeachers() {
         String sql = "SELECT COUNT(*) as total FROM teachers";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             if (rs.next()) {
                 return rs.getInt("total");
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error counting teachers: " + e.getMessage());
+            Log.error("❌ Error counting teachers: {}", e.getMessage());
         }
         return 0;
     }
     
+    /**
+     * إدراج دفعة من المعلمين في معاملة واحدة.
+     * الـ IDs تُحجز بعد MAX(id) داخل المعاملة، فلا حاجة لاستعلام إضافي لكل صف.
+     *
+     * @return عدد المعلمين المضافين، أو -1 إذا فشلت الدفعة وتم التراجع عنها بالكامل
+     */
+    public int addTeachersBatch(List<Teacher> teachers) {
+        if (teachers.isEmpty()) {
+            return 0;
+        }
+        
+        String teacherSql = "INSERT INTO teachers (person_id, teacher_id, subject, salary, hire_date) VALUES (?, ?, ?, ?, ?)";
+        PersonDAO personDAO = new PersonDAO();
+        
+        try (Connection connection = db.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement personStmt = connection.prepareStatement(PersonDAO.BATCH_INSERT_SQL);
+                 PreparedStatement teacherStmt = connection.prepareStatement(teacherSql)) {
+                
+                int id = personDAO.getMaxPersonId(connection);
+                for (Teacher teacher : teachers) {
+                    id++;
+                    personDAO.addPersonToBatch(personStmt, id, teacher, "TEACHER");
+                    teacherStmt.setInt(1, id);
+                    teacherStmt.setString(2, teacher.getTeacherId());
+                    teacherStmt.setString(3, teacher.getSubject());
+                    teacherStmt.setDouble(4, teacher.getSalary());
+                    teacherStmt.setString(5, teacher.getHireDate().toString());
+                    teacherStmt.addBatch();
+                }
+                
+                personStmt.executeBatch();
+                teacherStmt.executeBatch();
+                connection.commit();
+                EntityCache.getInstance().teachersAdded();
+                
+                // تعيين الـ IDs بعد نجاح المعاملة فقط
+                id -= teachers.size();
+                for (Teacher teacher : teachers) {
+                    teacher.setId(++id);
+                    SearchIndex.getInstance().putTeacher(teacher.getId(), teacher.getTeacherId(), teacher.getName());
+                }
+                return teachers.size();
+                
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error adding teacher batch: {}", e.getMessage());
+        }
+        return -1;
+    }
+    
+    /**
+     * جميع أرقام المعلمين في استعلام واحد (للتحقق من التكرار أثناء الاستيراد)
+     */
+    public Set<String> getAllTeacherIds() {
+        Set<String> ids = new HashSet<>();
+        String sql = "SELECT teacher_id FROM teachers";
+        
+        try (Connection connection = db.getReadConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                ids.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error loading teacher IDs: {}", e.getMessage());
+        }
+        return ids;
+    }
+    
     public boolean teacherIdExists(String teacherId) {
         String sql = "SELECT COUNT(*) as count FROM teachers WHERE teacher_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = db.getReadConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, teacherId);
             
             ResultSet rs = pstmt.executeQuery();
@@ -316,12 +424,22 @@ public Teacher getTeacherById(int id) {
                 return rs.getInt("count") > 0;
             }
         } catch (SQLException e) {
-            System.err.println("❌ Error checking teacher ID: " + e.getMessage());
+            Log.error("❌ Error checking teacher ID: {}", e.getMessage());
         }
         return false;
     }
     
-    private Teacher createTeacherFromResultSet(ResultSet rs) throws SQLException {
+    // متاحة داخل الحزمة ليستخدمها CourseDAO عند تحميل المواد
+    Teacher createTeacherFromResultSet(ResultSet rs) throws SQLException {
+        // داخل وحدة عمل مفتوحة يُعاد نفس الكائن لنفس الصف
+        UnitOfWork unit = UnitOfWork.current();
+        if (unit != null) {
+            Teacher existing = unit.findTeacher(rs.getInt("id"));
+            if (existing != null) {
+                return existing;
+            }
+        }
+        
         try {
             Teacher teacher = new Teacher(
                 rs.getString("name"),
@@ -335,10 +453,10 @@ public Teacher getTeacherById(int id) {
                 rs.getString("hire_date") != null ? LocalDate.parse(rs.getString("hire_date")) : LocalDate.now()
             );
             teacher.setId(rs.getInt("id"));
-            return teacher;
+            return unit != null ? unit.register(teacher) : teacher;
             
         } catch (Exception e) {
-            System.err.println("❌ Error creating teacher object: " + e.getMessage());
+            Log.error("❌ Error creating teacher object: {}", e.getMessage());
             throw new SQLException("Failed to create teacher from result set", e);
         }
     }
@@ -0,0 +1,117 @@
+package wmesaf.basicschool.dao;
+
+import wmesaf.basicschool.model.Student;
+import wmesaf.basicschool.model.Teacher;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * First-level identity map for one business operation.
+ *
+ * Opened with try-with-resources around an operation. While it is open on a
+ * thread, StudentDAO and TeacherDAO hand out one object per row: lookups by
+ * person id, student_id or teacher_id are answered from the map, and rows
+ * loaded by list queries are replaced with the instance already seen. Scopes
+ * nest per thread (like borrowed connections), so a service method that opens
+ * a unit inside another one simply joins it. Writes evict the affected entity.
+ *
+ * CourseDAO opens one while it maps enrollment rows, so a student enrolled
+ * in several courses is built once and shared by all of them.
+ *
+ * Without an open unit the DAOs behave exactly as before.
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final Map<Integer, Student> studentsById = new HashMap<>();
+    private final Map<String, Student> studentsByStudentId = new HashMap<>();
+    private final Map<Integer, Teacher> teachersById = new HashMap<>();
+    private final Map<String, Teacher> teachersByTeacherId = new HashMap<>();
+    private int depth;
+
+    private UnitOfWork() {
+    }
+
+    /**
+     * Opens a unit on the current thread, or joins the one already open.
+     */
+    public static UnitOfWork begin() {
+        UnitOfWork unit = CURRENT.get();
+        if (unit == null) {
+            unit = new UnitOfWork();
+            CURRENT.set(unit);
+        }
+        unit.depth++;
+        return unit;
+    }
+
+    /**
+     * The unit open on this thread, or null.
+     */
+    static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public void close() {
+        depth--;
+        if (depth == 0) {
+            CURRENT.remove();
+        }
+    }
+
+    Student findStudent(int personId) {
+        return studentsById.get(personId);
+    }
+
+    Student findStudentByStudentId(String studentId) {
+        return studentsByStudentId.get(studentId);
+    }
+
+    /**
+     * Registers a freshly loaded student and returns the instance to use.
+     */
+    Student register(Student loaded) {
+        Student existing = studentsById.putIfAbsent(loaded.getId(), loaded);
+        if (existing != null) {
+            return existing;
+        }
+        studentsByStudentId.put(loaded.getStudentId(), loaded);
+        return loaded;
+    }
+
+    Teacher findTeacher(int personId) {
+        return teachersById.get(personId);
+    }
+
+    Teacher findTeacherByTeacherId(String teacherId) {
+        return teachersByTeacherId.get(teacherId);
+    }
+
+    Teacher register(Teacher loaded) {
+        Teacher existing = teachersById.putIfAbsent(loaded.getId(), loaded);
+        if (existing != null) {
+            return existing;
+        }
+        teachersByTeacherId.put(loaded.getTeacherId(), loaded);
+        return loaded;
+    }
+
+    /**
+     * Drops any student or teacher with this person id from the open unit, if there is one.
+     */
+    static void evict(int personId) {
+        UnitOfWork unit = CURRENT.get();
+        if (unit == null) {
+            return;
+        }
+        Student student = unit.studentsById.remove(personId);
+        if (student != null) {
+            unit.studentsByStudentId.remove(student.getStudentId());
+        }
+        Teacher teacher = unit.teachersById.remove(personId);
+        if (teacher != null) {
+            unit.teachersByTeacherId.remove(teacher.getTeacherId());
+        }
+    }
+}
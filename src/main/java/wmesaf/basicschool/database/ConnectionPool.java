@@ -0,0 +1,290 @@
+package wmesaf.basicschool.database;
+
+import wmesaf.basicschool.logging.Log;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of JDBC connections with borrow/return semantics.
+ *
+ * Every borrowed connection is a proxy; calling close() hands the physical
+ * connection back to the pool instead of closing it. Borrowing is re-entrant
+ * per thread: a thread that already holds a connection receives the same
+ * physical connection again, so a transaction opened by an outer DAO call is
+ * shared by the DAO calls nested inside it and is owned by that thread alone
+ * until the outermost borrower closes its handle.
+ */
+public class ConnectionPool {
+
+    /**
+     * Opens a new physical connection for the pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final String name;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final ConnectionFactory factory;
+
+    private final LinkedBlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+    private final ThreadLocal<Lease> currentLease = new ThreadLocal<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile boolean closed;
+
+    // إحصائيات المجمع
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ConnectionPool(String name, int maxSize, long borrowTimeoutMillis, ConnectionFactory factory) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.factory = factory;
+    }
+
+    /**
+     * Borrows a connection. The caller must close() it to return it to the pool.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool '" + name + "' is closed");
+        }
+
+        Lease lease = currentLease.get();
+        if (lease != null) {
+            lease.holdCount++;
+            return lease.newHandle();
+        }
+
+        long start = System.nanoTime();
+        Connection physical = acquire();
+        recordWait(System.nanoTime() - start);
+
+        lease = new Lease(physical);
+        lease.holdCount = 1;
+        currentLease.set(lease);
+        active.incrementAndGet();
+        return lease.newHandle();
+    }
+
+    private Connection acquire() throws SQLException {
+        Connection physical = idle.poll();
+        if (physical != null) {
+            return physical;
+        }
+
+        // فتح اتصال جديد إذا لم نصل للحد الأقصى
+        while (true) {
+            int current = created.get();
+            if (current >= maxSize) {
+                break;
+            }
+            if (created.compareAndSet(current, current + 1)) {
+                try {
+                    return factory.create();
+                } catch (SQLException e) {
+                    created.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+
+        try {
+            physical = idle.poll(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        if (physical == null) {
+            timeoutCount.incrementAndGet();
+            throw new SQLException("Timed out after " + borrowTimeoutMillis
+                + " ms waiting for a connection from pool '" + name + "'");
+        }
+        return physical;
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private void release(Lease lease) {
+        lease.holdCount--;
+        if (lease.holdCount > 0) {
+            return;
+        }
+
+        currentLease.remove();
+        active.decrementAndGet();
+
+        Connection physical = lease.physical;
+        boolean reusable = !closed;
+        try {
+            if (physical.isClosed()) {
+                reusable = false;
+            } else if (!physical.getAutoCommit()) {
+                // لا نسمح لمعاملة غير منتهية بالانتقال إلى مستخدم آخر
+                Log.warn("⚠️ Rolling back unfinished transaction returned to pool '{}'", name);
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Log.error("❌ Error resetting pooled connection: {}", e.getMessage());
+            reusable = false;
+        }
+
+        if (reusable) {
+            idle.offer(physical);
+        } else {
+            created.decrementAndGet();
+            closeQuietly(physical);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * True if the calling thread currently holds a connection from this pool.
+     */
+    public boolean isHeldByCurrentThread() {
+        return currentLease.get() != null;
+    }
+
+    /**
+     * Closes all idle connections. Connections still borrowed are closed when returned.
+     */
+    public void close() {
+        closed = true;
+        Connection physical;
+        while ((physical = idle.poll()) != null) {
+            created.decrementAndGet();
+            closeQuietly(physical);
+        }
+    }
+
+    private void closeQuietly(Connection physical) {
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            // تجاهل
+        }
+    }
+
+    public String getName() { return name; }
+    public int getMaxSize() { return maxSize; }
+    public int getActiveCount() { return active.get(); }
+    public int getIdleCount() { return idle.size(); }
+
+    /**
+     * Pool metrics: size, active/idle connections, borrow count and wait times.
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long borrows = borrowCount.get();
+
+        stats.put("pool", name);
+        stats.put("maxSize", maxSize);
+        stats.put("created", created.get());
+        stats.put("active", active.get());
+        stats.put("idle", idle.size());
+        stats.put("borrows", borrows);
+        stats.put("timeouts", timeoutCount.get());
+        stats.put("averageWaitMillis", borrows > 0 ? totalWaitNanos.get() / 1_000_000.0 / borrows : 0.0);
+        stats.put("maxWaitMillis", maxWaitNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s pool: %d active, %d idle, %d/%d created, avg wait %.2f ms",
+            name, active.get(), idle.size(), created.get(), maxSize,
+            (double) getStatistics().get("averageWaitMillis"));
+    }
+
+    /**
+     * A thread's hold on one physical connection.
+     */
+    private class Lease {
+        private final Connection physical;
+        private int holdCount;
+
+        Lease(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new Handle(this));
+        }
+    }
+
+    /**
+     * Proxy handler for one borrowed handle; close() returns it to the pool exactly once.
+     */
+    private class Handle implements InvocationHandler {
+        private final Lease lease;
+        private boolean released;
+
+        Handle(Lease lease) {
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(lease);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || lease.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + name + "] " + lease.physical;
+                default:
+                    break;
+            }
+
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            try {
+                return method.invoke(lease.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
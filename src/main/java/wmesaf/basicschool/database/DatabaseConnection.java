@@ -1,200 +1,178 @@
 package wmesaf.basicschool.database;
 
+import wmesaf.basicschool.logging.Log;
+
 import java.sql.*;
 import java.io.File;
+import java.util.Map;
+import org.sqlite.SQLiteConfig;
 
 public class DatabaseConnection {
-    private static final String SQLITE_URL = "jdbc:sqlite:school_management.db";
+    // ملف قاعدة البيانات (يمكن تغييره عبر -Dschool.db.path=... مثلاً لقاعدة بيانات اختبار الحجم)
+    private static final String DATABASE_FILE = System.getProperty("school.db.path", "school_management.db");
+    private static final String SQLITE_URL = "jdbc:sqlite:" + DATABASE_FILE;
+    
+    // إعدادات مجمع الاتصالات (يمكن تغييرها عبر -Dschool.db.pool.size=...)
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final int DEFAULT_READ_POOL_SIZE = 2;
+    private static final long DEFAULT_BORROW_TIMEOUT_MS = 10_000;
+    // عدد الجمل المحضرة التي يحتفظ بها كل اتصال (-Dschool.db.statementCache=...، و0 يعطلها)
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    private static final int STATEMENT_CACHE_SIZE =
+        Integer.getInteger("school.db.statementCache", DEFAULT_STATEMENT_CACHE_SIZE);
     
-    private Connection connection;
-    private static DatabaseConnection instance;
+    private ConnectionPool pool;
+    private ConnectionPool readPool;
+    private StorageProfile storageProfile;
+    private static volatile DatabaseConnection instance;
 
     public DatabaseConnection() {
-        System.out.println("\n🚀 INITIALIZING SCHOOL DATABASE");
-        System.out.println("================================\n");
+        Log.info("🚀 INITIALIZING SCHOOL DATABASE");
         
         try {
             // 1. تحميل السائق
             Class.forName("org.sqlite.JDBC");
-            System.out.println("✅ SQLite Driver loaded");
-            
-            // 2. الاتصال بقاعدة البيانات
-            connection = DriverManager.getConnection(SQLITE_URL);
-            System.out.println("✅ Connected to: school_management.db");
-            
-            // 3. تفعيل المفاتيح الأجنبية
-            try (Statement stmt = connection.createStatement()) {
-                stmt.execute("PRAGMA foreign_keys = ON");
-                System.out.println("✅ Foreign keys enabled");
+            Log.info("✅ SQLite Driver loaded");
+            StartupTimer.mark("SQLite driver loaded");
+            
+            // 2. إنشاء مجمعات الاتصالات
+            storageProfile = StorageProfile.fromSystemProperties();
+            int poolSize = Integer.getInteger("school.db.pool.size", DEFAULT_POOL_SIZE);
+            int readPoolSize = Integer.getInteger("school.db.read.pool.size", DEFAULT_READ_POOL_SIZE);
+            long borrowTimeout = Long.getLong("school.db.pool.timeout", DEFAULT_BORROW_TIMEOUT_MS);
+            pool = new ConnectionPool("read-write", poolSize, borrowTimeout, this::openConnection);
+            Log.info("✅ Connection pool ready (max {} connections)", poolSize);
+            StartupTimer.mark("Connection pool ready");
+            
+            try (Connection connection = pool.borrow()) {
+                Log.info("✅ Connected to: {}", DATABASE_FILE);
+                StartupTimer.mark("First connection opened");
+                Log.info("✅ Storage: {}", storageProfile);
+                Log.info("✅ Journal mode in effect: {}", StorageProfile.currentJournalMode(connection));
+                
+                // 3. تطبيق ترحيلات المخطط (الجداول والفهارس) فقط إذا تغيرت البصمة
+                SchemaMigrator migrator = new SchemaMigrator();
+                if (migrator.isUpToDate(connection)) {
+                    Log.info("✅ Schema fingerprint matches, migrations skipped");
+                } else {
+                    migrateSchema(migrator, connection);
+                    ensureDefaultAdmin(connection);
+                }
+                StartupTimer.mark("Schema checked");
+                
+                // 4. بيانات اختبارية فقط عند الطلب (-Dschool.db.seed=true)
+                if (Boolean.getBoolean("school.db.seed")) {
+                    addTestData(connection);
+                    StartupTimer.mark("Test data seeded");
+                }
             }
             
-            // 4. إنشاء جميع الجداول
-            createTables();
-            
-            // 5. إضافة بيانات اختبارية
-            addTestData();
+            // 5. مجمع القراءة فقط للوحة المعلومات والتقارير (بعد إنشاء الجداول)
+            if (readPoolSize > 0) {
+                readPool = new ConnectionPool("read-only", readPoolSize, borrowTimeout, this::openReadOnlyConnection);
+                Log.info("✅ Read-only pool ready (max {} connections)", readPoolSize);
+            }
             
-            System.out.println("\n✅ DATABASE READY!");
+            Log.info("✅ DATABASE READY!");
+            StartupTimer.mark("Database ready");
             
         } catch (Exception e) {
-            System.err.println("❌ Database error: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("❌ Database error: " + e.getMessage(), e);
         }
     }
     
-    private void createTables() throws SQLException {
-        System.out.println("\n🔧 Creating all tables...");
-        
-        String[] tables = {
-            // جدول admins
-            "CREATE TABLE IF NOT EXISTS admins (" +
-            "  id INTEGER PRIMARY KEY," +
-            "  username TEXT UNIQUE NOT NULL," +
-            "  password TEXT NOT NULL," +
-            "  full_name TEXT NOT NULL," +
-            "  email TEXT NOT NULL," +
-            "  is_active INTEGER DEFAULT 1," +
-            "  created_at DATETIME DEFAULT CURRENT_TIMESTAMP" +
-            ")",
-            
-            // جدول persons
-            "CREATE TABLE IF NOT EXISTS persons (" +
-            "  id INTEGER PRIMARY KEY," +
-            "  type TEXT NOT NULL CHECK(type IN ('STUDENT', 'TEACHER'))," +
-            "  name TEXT NOT NULL," +
-            "  email TEXT," +
-            "  phone TEXT," +
-            "  address TEXT," +
-            "  birth_date TEXT," +
-            "  created_at DATETIME DEFAULT CURRENT_TIMESTAMP" +
-            ")",
-            
-            // جدول students
-            "CREATE TABLE IF NOT EXISTS students (" +
-            "  person_id INTEGER PRIMARY KEY," +
-            "  student_id TEXT UNIQUE NOT NULL," +
-            "  grade TEXT," +
-            "  enrollment_date TEXT," +
-            "  FOREIGN KEY (person_id) REFERENCES persons(id) ON DELETE CASCADE" +
-            ")",
-            
-            // جدول teachers
-            "CREATE TABLE IF NOT EXISTS teachers (" +
-            "  person_id INTEGER PRIMARY KEY," +
-            "  teacher_id TEXT UNIQUE NOT NULL," +
-            "  subject TEXT," +
-            "  salary REAL," +
-            "  hire_date TEXT," +
-            "  FOREIGN KEY (person_id) REFERENCES persons(id) ON DELETE CASCADE" +
-            ")",
-            
-            // جدول courses (جديد)
-            "CREATE TABLE IF NOT EXISTS courses (" +
-            "  id INTEGER PRIMARY KEY AUTOINCREMENT," +
-            "  course_code TEXT UNIQUE NOT NULL," +
-            "  course_name TEXT NOT NULL," +
-            "  description TEXT," +
-            "  credit_hours INTEGER DEFAULT 3," +
-            "  department TEXT," +
-            "  start_date TEXT NOT NULL," +
-            "  end_date TEXT NOT NULL," +
-            "  max_students INTEGER DEFAULT 30," +
-            "  teacher_id INTEGER," +
-            "  created_at DATETIME DEFAULT CURRENT_TIMESTAMP," +
-            "  FOREIGN KEY (teacher_id) REFERENCES teachers(person_id)" +
-            ")",
-            
-            // جدول تسجيلات المواد (جديد)
-            "CREATE TABLE IF NOT EXISTS course_enrollments (" +
-            "  course_id INTEGER NOT NULL," +
-            "  student_id TEXT NOT NULL," +
-            "  enrollment_date TEXT DEFAULT CURRENT_TIMESTAMP," +
-            "  grade REAL," +
-            "  status TEXT DEFAULT 'ENROLLED'," +
-            "  PRIMARY KEY (course_id, student_id)," +
-            "  FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE," +
-            "  FOREIGN KEY (student_id) REFERENCES students(student_id) ON DELETE CASCADE" +
-            ")"
-        };
+    /**
+     * فتح اتصال فعلي جديد للمجمع
+     */
+    private Connection openConnection() throws SQLException {
+        // المعاملات على اتصالات الكتابة تبدأ بـ BEGIN IMMEDIATE فتأخذ قفل الكتابة
+        // من البداية، فلا تفشل معاملة قرأت ثم حاولت الكتابة بعد أن سبقها كاتب آخر
+        SQLiteConfig config = new SQLiteConfig();
+        config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        Connection connection = DriverManager.getConnection(SQLITE_URL, config.toProperties());
         
+        // المفاتيح الأجنبية تُفعّل لكل اتصال على حدة في SQLite
         try (Statement stmt = connection.createStatement()) {
-            for (String tableSQL : tables) {
-                stmt.execute(tableSQL);
-                String tableName = extractTableName(tableSQL);
-                System.out.println("✅ Table: " + tableName);
-            }
+            stmt.execute("PRAGMA foreign_keys = ON");
         }
+        storageProfile.applyTo(connection, false);
+        // الجمل التي تُنشأ من الاتصال تُقاس في QueryStatistics، والمحضرة منها تُحفظ لإعادة الاستخدام
+        return QueryStatistics.getInstance().instrument(StatementCache.wrap(connection, STATEMENT_CACHE_SIZE));
     }
     
-    private String extractTableName(String sql) {
-        try {
-            // استخراج اسم الجدول من SQL
-            if (sql.contains("CREATE TABLE IF NOT EXISTS")) {
-                String temp = sql.split("CREATE TABLE IF NOT EXISTS")[1];
-                return temp.split("\\s+")[1].split("\\(")[0].trim();
-            } else if (sql.contains("CREATE TABLE")) {
-                String temp = sql.split("CREATE TABLE")[1];
-                return temp.split("\\s+")[1].split("\\(")[0].trim();
+    /**
+     * فتح اتصال قراءة فقط؛ في وضع WAL لا يحجب القراء عمليات الكتابة ولا العكس
+     */
+    private Connection openReadOnlyConnection() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        Connection connection = DriverManager.getConnection(SQLITE_URL, config.toProperties());
+        storageProfile.applyTo(connection, true);
+        return QueryStatistics.getInstance().instrument(StatementCache.wrap(connection, STATEMENT_CACHE_SIZE));
+    }
+    
+    private void migrateSchema(SchemaMigrator migrator, Connection connection) throws SQLException {
+        Log.debug("🔧 Checking database schema...");
+        migrator.migrate(connection);
+    }
+    
+    /**
+     * إضافة admin افتراضي إذا كان جدول المشرفين فارغاً (قاعدة بيانات جديدة)
+     */
+    private void ensureDefaultAdmin(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            int created = stmt.executeUpdate(
+                "INSERT INTO admins (username, password, full_name, email) " +
+                "SELECT 'admin', 'admin123', 'System Administrator', 'admin@school.com' " +
+                "WHERE NOT EXISTS (SELECT 1 FROM admins)");
+            if (created > 0) {
+                Log.info("✅ Default admin created");
             }
-            return "table";
-        } catch (Exception e) {
-            return "table";
         }
     }
     
-    private void addTestData() throws SQLException {
+    private void addTestData(Connection connection) throws SQLException {
         try (Statement stmt = connection.createStatement()) {
-            // 1. إضافة admin افتراضي
-            String checkAdmin = "SELECT COUNT(*) as count FROM admins";
-            ResultSet rs = stmt.executeQuery(checkAdmin);
-            
-            if (rs.next() && rs.getInt("count") == 0) {
-                String insertAdmin = "INSERT INTO admins (username, password, full_name, email) VALUES " +
-                                   "('admin', 'admin123', 'System Administrator', 'admin@school.com')";
-                stmt.executeUpdate(insertAdmin);
-                System.out.println("✅ Default admin created");
-            }
-            
-            // 2. التحقق من وجود بيانات الطلاب
+            // 1. التحقق من وجود بيانات الطلاب
             String checkStudents = "SELECT COUNT(*) as count FROM students";
-            rs = stmt.executeQuery(checkStudents);
+            ResultSet rs = stmt.executeQuery(checkStudents);
             
             if (rs.next() && rs.getInt("count") == 0) {
-                System.out.println("\n📊 Adding test students...");
+                Log.debug("📊 Adding test students...");
                 addSampleStudents(stmt);
-                System.out.println("✅ Added sample students");
+                Log.info("✅ Added sample students");
             }
             
-            // 3. التحقق من وجود بيانات المعلمين
+            // 2. التحقق من وجود بيانات المعلمين
             String checkTeachers = "SELECT COUNT(*) as count FROM teachers";
             rs = stmt.executeQuery(checkTeachers);
             
             if (rs.next() && rs.getInt("count") == 0) {
-                System.out.println("\n👨‍🏫 Adding test teachers...");
+                Log.debug("👨‍🏫 Adding test teachers...");
                 addSampleTeachers(stmt);
-                System.out.println("✅ Added sample teachers");
+                Log.info("✅ Added sample teachers");
             }
             
-            // 4. التحقق من وجود بيانات المواد (جديد)
+            // 3. التحقق من وجود بيانات المواد (جديد)
             String checkCourses = "SELECT COUNT(*) as count FROM courses";
             rs = stmt.executeQuery(checkCourses);
             
             if (rs.next() && rs.getInt("count") == 0) {
-                System.out.println("\n📚 Adding sample courses...");
+                Log.debug("📚 Adding sample courses...");
                 addSampleCourses(stmt);
-                System.out.println("✅ Added sample courses with enrollments");
+                Log.info("✅ Added sample courses with enrollments");
             }
             
-            // 5. عرض الإحصائيات النهائية
-            System.out.println("\n📋 FINAL DATABASE STATISTICS:");
-            System.out.println("   Persons: " + getCount("persons"));
-            System.out.println("   Students: " + getCount("students"));
-            System.out.println("   Teachers: " + getCount("teachers"));
-            System.out.println("   Courses: " + getCount("courses"));
-            System.out.println("   Course Enrollments: " + getCount("course_enrollments"));
+            // 4. عرض الإحصائيات النهائية
+            Log.info("📋 FINAL DATABASE STATISTICS:");
+            Log.info("   Persons: {}", getCount(connection, "persons"));
+            Log.info("   Students: {}", getCount(connection, "students"));
+            Log.info("   Teachers: {}", getCount(connection, "teachers"));
+            Log.info("   Courses: {}", getCount(connection, "courses"));
+            Log.info("   Course Enrollments: {}", getCount(connection, "course_enrollments"));
             
         } catch (SQLException e) {
-            System.err.println("❌ Error adding test data: " + e.getMessage());
+            Log.error("❌ Error adding test data: {}", e.getMessage());
         }
     }
     
@@ -373,7 +351,7 @@ public class DatabaseConnection {
         }
     }
     
-    private int getCount(String tableName) throws SQLException {
+    private int getCount(Connection connection, String tableName) throws SQLException {
         try (Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as count FROM " + tableName)) {
             if (rs.next()) {
@@ -383,37 +361,106 @@ public class DatabaseConnection {
         return 0;
     }
 
+    /**
+     * هل اكتمل إنشاء الاتصال؟ لا يبدأ التهيئة ولا ينتظرها
+     */
+    public static boolean isInitialized() {
+        return instance != null;
+    }
+
     public static DatabaseConnection getInstance() {
-        if (instance == null) {
-            instance = new DatabaseConnection();
+        DatabaseConnection result = instance;
+        if (result == null) {
+            synchronized (DatabaseConnection.class) {
+                result = instance;
+                if (result == null) {
+                    result = new DatabaseConnection();
+                    instance = result;
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
-    public Connection getConnection() {
-        return connection;
+    /**
+     * استعارة اتصال من المجمع.
+     * يجب إغلاق الاتصال (try-with-resources) لإعادته إلى المجمع.
+     * الاستعارات المتداخلة في نفس الخيط تعيد نفس الاتصال، لذلك تبقى المعاملة ملكاً للخيط.
+     */
+    public Connection getConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("Database is not initialized");
+        }
+        return pool.borrow();
+    }
+    
+    /**
+     * استعارة اتصال قراءة فقط للاستعلامات الطويلة (لوحة المعلومات، التقارير، القوائم).
+     * إذا كان الخيط يحمل اتصال كتابة بالفعل (داخل معاملة) نعيد نفس الاتصال
+     * حتى يرى الخيط تغييراته غير المثبتة.
+     */
+    public Connection getReadConnection() throws SQLException {
+        if (readPool == null || readPool.isClosed() || pool.isHeldByCurrentThread()) {
+            return getConnection();
+        }
+        return readPool.borrow();
+    }
+    
+    public StorageProfile getStorageProfile() {
+        return storageProfile;
     }
     
     public boolean isConnectionValid() {
-        if (connection == null) return false;
-        try {
+        if (pool == null || pool.isClosed()) return false;
+        try (Connection connection = pool.borrow()) {
             return !connection.isClosed();
         } catch (SQLException e) {
             return false;
         }
     }
     
+    /**
+     * إحصائيات مجمع الاتصالات (الانتظار، النشط/الخامل)
+     */
+    public Map<String, Object> getPoolStatistics() {
+        return pool != null ? pool.getStatistics() : Map.of();
+    }
+    
+    /**
+     * إحصائيات مجمع القراءة فقط
+     */
+    public Map<String, Object> getReadPoolStatistics() {
+        return readPool != null ? readPool.getStatistics() : Map.of();
+    }
+    
+    /**
+     * نسبة إصابة ذاكرة الجمل المحضرة لكل الاتصالات
+     */
+    public Map<String, Object> getStatementCacheStatistics() {
+        return StatementCache.getStatistics();
+    }
+    
     public String getDatabaseInfo() {
-        return "SQLite (school_management.db)";
+        return "SQLite (" + DATABASE_FILE + ")";
     }
     
     public void printDatabaseStatus() {
         System.out.println("\n📋 DATABASE STATUS:");
         System.out.println("   Type: SQLite");
-        System.out.println("   File: school_management.db");
+        System.out.println("   File: " + DATABASE_FILE);
         System.out.println("   Connection: " + (isConnectionValid() ? "ACTIVE" : "INACTIVE"));
+        if (pool != null) {
+            System.out.println("   Pool: " + pool);
+        }
+        if (readPool != null) {
+            System.out.println("   Read Pool: " + readPool);
+        }
+        Map<String, Object> cache = StatementCache.getStatistics();
+        System.out.printf("   Statement cache: %d hits, %d misses (%.1f%% hit rate)%n",
+                          cache.get("hits"), cache.get("misses"), (double) cache.get("hitRate") * 100);
         
-        try (Statement stmt = connection.createStatement()) {
+        try (Connection connection = getConnection();
+             Statement stmt = connection.createStatement()) {
             // الطلاب
             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as count FROM students");
             if (rs.next()) {
@@ -450,47 +497,47 @@ public class DatabaseConnection {
     }
 
     public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            // تجاهل
+        if (readPool != null) {
+            readPool.close();
+        }
+        if (pool != null) {
+            pool.close();
         }
     }
     
     public void resetDatabase() {
-        System.out.println("\n🔄 Resetting database...");
+        Log.info("🔄 Resetting database...");
         try {
             closeConnection();
             
-            File dbFile = new File("school_management.db");
+            File dbFile = new File(DATABASE_FILE);
             if (dbFile.exists() && dbFile.delete()) {
-                System.out.println("✅ Old database deleted");
-                System.out.println("⚠️ Please restart the application to create a new database");
+                Log.info("✅ Old database deleted");
+                Log.warn("⚠️ Please restart the application to create a new database");
             } else {
-                System.out.println("❌ Could not delete database file");
+                Log.warn("❌ Could not delete database file");
             }
             
         } catch (Exception e) {
-            System.err.println("❌ Error resetting database: " + e.getMessage());
+            Log.error("❌ Error resetting database: {}", e.getMessage());
         }
     }
     
     public int getNextAvailableId() {
         String sql = "SELECT COALESCE(MAX(id), 0) + 1 as next_id FROM persons";
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = getConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             if (rs.next()) {
                 int nextId = rs.getInt("next_id");
-                System.out.println("🔢 Next available Person ID: " + nextId);
+                Log.debug("🔢 Next available Person ID: {}", nextId);
                 return nextId;
             }
             return 1;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error getting next ID: " + e.getMessage());
+            Log.error("❌ Error getting next ID: {}", e.getMessage());
             return 1;
         }
     }
@@ -503,7 +550,8 @@ public class DatabaseConnection {
         stats.append("Database Statistics:\n");
         stats.append("===================\n");
         
-        try (Statement stmt = connection.createStatement()) {
+        try (Connection connection = getConnection();
+             Statement stmt = connection.createStatement()) {
             String[] tables = {"persons", "students", "teachers", "courses", "course_enrollments", "admins"};
             String[] labels = {"Persons", "Students", "Teachers", "Courses", "Enrollments", "Admins"};
             
@@ -0,0 +1,223 @@
+package wmesaf.basicschool.database;
+
+import wmesaf.basicschool.database.QueryStatistics.Execution;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Proxies that report statement executions to QueryStatistics.
+ *
+ * The connection proxy wraps every Statement, PreparedStatement and
+ * CallableStatement it creates; the statement proxy times each execute
+ * call and wraps the ResultSet it returns, which counts rows and ends the
+ * timing when it is exhausted or closed. Every other call goes straight
+ * to the driver object.
+ */
+final class InstrumentedConnection {
+
+    private InstrumentedConnection() {
+    }
+
+    static Connection wrap(Connection physical, QueryStatistics statistics) {
+        return proxy(Connection.class, new ConnectionHandler(physical, statistics));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private final QueryStatistics statistics;
+
+        ConnectionHandler(Connection physical, QueryStatistics statistics) {
+            this.physical = physical;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = forward(physical, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                case "prepareStatement":
+                case "prepareCall":
+                    if (!statistics.isEnabled()) {
+                        return result;
+                    }
+                    // نوع الوكيل هو نوع القيمة المرجعة: Statement أو PreparedStatement أو CallableStatement
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    return proxy(method.getReturnType(),
+                                 new StatementHandler((Statement) result, sql, (Connection) proxy, statistics));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private final Connection connection;
+        private final QueryStatistics statistics;
+        // الاستعلام الذي ما زالت نتيجته مفتوحة على هذه الجملة
+        private Execution open;
+        private String batchSql;
+
+        StatementHandler(Statement statement, String preparedSql, Connection connection, QueryStatistics statistics) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.connection = connection;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "executeQuery": {
+                    Execution execution = begin(sqlOf(args));
+                    ResultSet rs = (ResultSet) run(execution, method, args);
+                    open = execution;
+                    return proxy(ResultSet.class, new ResultSetHandler(rs, execution));
+                }
+                case "executeUpdate":
+                case "executeLargeUpdate": {
+                    Execution execution = begin(sqlOf(args));
+                    Object count = run(execution, method, args);
+                    execution.finish(((Number) count).longValue(), false);
+                    return count;
+                }
+                case "executeBatch":
+                case "executeLargeBatch": {
+                    Execution execution = begin(preparedSql != null ? preparedSql : String.valueOf(batchSql));
+                    Object counts = run(execution, method, args);
+                    execution.finish(affectedRows(counts), false);
+                    batchSql = null;
+                    return counts;
+                }
+                case "execute": {
+                    Execution execution = begin(sqlOf(args));
+                    boolean hasResultSet = (Boolean) run(execution, method, args);
+                    if (hasResultSet) {
+                        open = execution;
+                    } else {
+                        execution.finish(Math.max(0, statement.getUpdateCount()), false);
+                    }
+                    return hasResultSet;
+                }
+                case "getResultSet": {
+                    ResultSet rs = (ResultSet) forward(statement, method, args);
+                    if (rs == null || open == null || open.isFinished()) {
+                        return rs;
+                    }
+                    return proxy(ResultSet.class, new ResultSetHandler(rs, open));
+                }
+                case "addBatch":
+                    if (args != null && args.length == 1 && batchSql == null) {
+                        batchSql = (String) args[0];
+                    }
+                    return forward(statement, method, args);
+                case "close":
+                    finishOpen();
+                    return forward(statement, method, args);
+                case "getConnection":
+                    return connection;
+                default:
+                    return forward(statement, method, args);
+            }
+        }
+
+        private String sqlOf(Object[] args) {
+            return args != null && args.length > 0 ? (String) args[0] : preparedSql;
+        }
+
+        /**
+         * تنفيذ جديد على نفس الجملة يغلق نتيجة التنفيذ السابق
+         */
+        private Execution begin(String sql) {
+            finishOpen();
+            return statistics.start(sql);
+        }
+
+        private Object run(Execution execution, Method method, Object[] args) throws Throwable {
+            try {
+                return forward(statement, method, args);
+            } catch (Throwable e) {
+                execution.finish(0, true);
+                throw e;
+            }
+        }
+
+        private void finishOpen() {
+            if (open != null) {
+                open.finish();
+                open = null;
+            }
+        }
+
+        private static long affectedRows(Object counts) {
+            long total = 0;
+            if (counts instanceof int[] ints) {
+                for (int count : ints) {
+                    total += Math.max(0, count);
+                }
+            } else if (counts instanceof long[] longs) {
+                for (long count : longs) {
+                    total += Math.max(0, count);
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet rs;
+        private final Execution execution;
+
+        ResultSetHandler(ResultSet rs, Execution execution) {
+            this.rs = rs;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    boolean more;
+                    try {
+                        more = (Boolean) forward(rs, method, args);
+                    } catch (Throwable e) {
+                        execution.finish(0, true);
+                        throw e;
+                    }
+                    if (more) {
+                        execution.addRow();
+                    } else {
+                        execution.finish();
+                    }
+                    return more;
+                }
+                case "close":
+                    execution.finish();
+                    return forward(rs, method, args);
+                default:
+                    return forward(rs, method, args);
+            }
+        }
+    }
+}
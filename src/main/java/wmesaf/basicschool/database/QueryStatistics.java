@@ -0,0 +1,304 @@
+package wmesaf.basicschool.database;
+
+import wmesaf.basicschool.logging.Log;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Execution statistics for every SQL statement run through the pools.
+ *
+ * DatabaseConnection wraps each physical connection with instrument(), so
+ * statements and result sets report back here. Statements are grouped by
+ * template: the SQL with whitespace collapsed and literal values and
+ * placeholder lists replaced, so "LIMIT 50" and "LIMIT 100" count together.
+ * A query is timed from execute until its result set is exhausted or
+ * closed, since SQLite produces rows while they are read; updates and
+ * batches are timed around the execute call and count affected rows.
+ *
+ * Statements slower than the threshold (-Dschool.db.slowQueryMillis,
+ * default 100) are kept in a short list with their full SQL and logged as
+ * warnings. -Dschool.db.instrument=false hands out plain statements.
+ * The same figures are published over JMX as wmesaf.basicschool:type=QueryStatistics.
+ */
+public final class QueryStatistics implements QueryStatisticsMBean {
+
+    /**
+     * Figures for one SQL template at the moment of the snapshot.
+     */
+    public record TemplateSnapshot(String template, long executions, long errors, long rows,
+                                   double totalMillis, double meanMillis, double p50Millis,
+                                   double p95Millis, double p99Millis, double maxMillis) { }
+
+    public record SlowQuery(LocalDateTime at, String sql, double millis, long rows, String thread) { }
+
+    static final int MAX_TEMPLATES = 500;
+    static final int SLOW_QUERY_LIMIT = 50;
+    static final String OTHER_TEMPLATE = "(other statements)";
+    private static final int MAX_CACHED_SQL = 5_000;
+    private static final int MAX_SQL_LENGTH = 2_000;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    // ثلاثة معاملات متتالية أو أكثر تُختصر، فلا يصبح كل طول لقائمة IN قالباً مستقلاً
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?){2,}");
+    private static final Pattern ROW_LIST = Pattern.compile("(\\([?., ]+\\))(?:\\s*,\\s*\\1)+");
+
+    private static final QueryStatistics INSTANCE = new QueryStatistics();
+
+    private final Map<String, TemplateStats> byTemplate = new ConcurrentHashMap<>();
+    // نص SQL كما كُتب -> إحصائيات قالبه، حتى لا يُعاد التطبيع عند كل تنفيذ
+    private final Map<String, TemplateStats> bySql = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    private volatile boolean enabled =
+        Boolean.parseBoolean(System.getProperty("school.db.instrument", "true"));
+    private volatile long slowThresholdMillis = Long.getLong("school.db.slowQueryMillis", 100L);
+
+    private QueryStatistics() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(this, new ObjectName("wmesaf.basicschool:type=QueryStatistics"));
+        } catch (JMException e) {
+            Log.warn("⚠️ Query statistics not published over JMX: {}", e.getMessage());
+        }
+    }
+
+    public static QueryStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Wraps a physical connection so the statements it creates are measured.
+     */
+    public Connection instrument(Connection physical) {
+        return InstrumentedConnection.wrap(physical, this);
+    }
+
+    // ========== التسجيل (تستدعيه الوكلاء في InstrumentedConnection) ==========
+
+    Execution start(String sql) {
+        return new Execution(this, statsFor(sql), sql, System.nanoTime());
+    }
+
+    private TemplateStats statsFor(String sql) {
+        TemplateStats stats = bySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String template = normalize(sql);
+        stats = byTemplate.get(template);
+        if (stats == null) {
+            stats = byTemplate.size() < MAX_TEMPLATES
+                ? byTemplate.computeIfAbsent(template, TemplateStats::new)
+                : byTemplate.computeIfAbsent(OTHER_TEMPLATE, TemplateStats::new);
+        }
+        if (bySql.size() < MAX_CACHED_SQL) {
+            bySql.put(sql, stats);
+        }
+        return stats;
+    }
+
+    static String normalize(String sql) {
+        String text = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        text = STRING_LITERAL.matcher(text).replaceAll("?");
+        text = NUMBER.matcher(text).replaceAll("?");
+        text = PLACEHOLDER_LIST.matcher(text).replaceAll("?, ...");
+        return ROW_LIST.matcher(text).replaceAll("$1, ...");
+    }
+
+    void finished(Execution execution, long rows, boolean failed) {
+        long elapsed = System.nanoTime() - execution.startNanos;
+        TemplateStats stats = execution.stats;
+        stats.executions.increment();
+        stats.rows.add(rows);
+        stats.totalNanos.add(elapsed);
+        stats.histogram.recordNanos(elapsed);
+        if (failed) {
+            stats.errors.increment();
+        }
+
+        if (elapsed >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis)) {
+            String sql = execution.sql.length() > MAX_SQL_LENGTH
+                ? execution.sql.substring(0, MAX_SQL_LENGTH) + "..."
+                : execution.sql;
+            SlowQuery slow = new SlowQuery(LocalDateTime.now(), sql, elapsed / 1e6, rows,
+                                           Thread.currentThread().getName());
+            synchronized (slowQueries) {
+                slowQueries.addFirst(slow);
+                if (slowQueries.size() > SLOW_QUERY_LIMIT) {
+                    slowQueries.removeLast();
+                }
+            }
+            Log.warn("🐢 Slow query ({} ms, {} rows): {}", String.format("%.1f", slow.millis()), rows, stats.template);
+        }
+    }
+
+    // ========== القراءة ==========
+
+    /**
+     * All templates, the largest total time first.
+     */
+    public List<TemplateSnapshot> getSnapshot() {
+        List<TemplateSnapshot> snapshot = new ArrayList<>();
+        for (TemplateStats stats : byTemplate.values()) {
+            long executions = stats.executions.sum();
+            if (executions == 0) {
+                continue;
+            }
+            LatencyHistogram histogram = stats.histogram;
+            snapshot.add(new TemplateSnapshot(stats.template, executions, stats.errors.sum(), stats.rows.sum(),
+                stats.totalNanos.sum() / 1e6, histogram.getMeanMillis(),
+                histogram.getPercentileMillis(50), histogram.getPercentileMillis(95),
+                histogram.getPercentileMillis(99), histogram.getMaxMillis()));
+        }
+        snapshot.sort(Comparator.comparingDouble(TemplateSnapshot::totalMillis).reversed());
+        return snapshot;
+    }
+
+    public List<SlowQuery> getSlowQueryList() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    // ========== QueryStatisticsMBean ==========
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * يؤثر على الجمل التي تُنشأ بعد التغيير فقط
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return slowThresholdMillis;
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Slow query threshold cannot be negative");
+        }
+        slowThresholdMillis = millis;
+    }
+
+    @Override
+    public int getTemplateCount() {
+        return byTemplate.size();
+    }
+
+    @Override
+    public long getTotalExecutions() {
+        return byTemplate.values().stream().mapToLong(stats -> stats.executions.sum()).sum();
+    }
+
+    @Override
+    public long getTotalErrors() {
+        return byTemplate.values().stream().mapToLong(stats -> stats.errors.sum()).sum();
+    }
+
+    @Override
+    public String[] getTemplateSummaries() {
+        return getSnapshot().stream()
+            .map(s -> String.format("%d runs, %d errors, %d rows, total %.1f ms, p50 %.2f ms, p95 %.2f ms, "
+                                    + "p99 %.2f ms, max %.2f ms | %s",
+                                    s.executions(), s.errors(), s.rows(), s.totalMillis(), s.p50Millis(),
+                                    s.p95Millis(), s.p99Millis(), s.maxMillis(), s.template()))
+            .toArray(String[]::new);
+    }
+
+    @Override
+    public String[] getSlowQueries() {
+        return getSlowQueryList().stream()
+            .map(q -> String.format("%s %.1f ms, %d rows [%s] %s",
+                                    q.at().format(TIME), q.millis(), q.rows(), q.thread(), q.sql()))
+            .toArray(String[]::new);
+    }
+
+    @Override
+    public void reset() {
+        byTemplate.clear();
+        bySql.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    /**
+     * Counters for one template; updated concurrently from every pooled connection.
+     */
+    static final class TemplateStats {
+        final String template;
+        final LongAdder executions = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        TemplateStats(String template) {
+            this.template = template;
+        }
+    }
+
+    /**
+     * One running statement; finish() records it exactly once.
+     */
+    static final class Execution {
+        private final QueryStatistics owner;
+        private final TemplateStats stats;
+        private final String sql;
+        private final long startNanos;
+        private long rows;
+        private boolean finished;
+
+        Execution(QueryStatistics owner, TemplateStats stats, String sql, long startNanos) {
+            this.owner = owner;
+            this.stats = stats;
+            this.sql = sql;
+            this.startNanos = startNanos;
+        }
+
+        void addRow() {
+            rows++;
+        }
+
+        void finish(long affectedRows, boolean failed) {
+            if (!finished) {
+                finished = true;
+                owner.finished(this, rows + affectedRows, failed);
+            }
+        }
+
+        void finish() {
+            finish(0, false);
+        }
+
+        boolean isFinished() {
+            return finished;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package wmesaf.basicschool.database;
+
+/**
+ * JMX view of QueryStatistics, registered as wmesaf.basicschool:type=QueryStatistics.
+ */
+public interface QueryStatisticsMBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long millis);
+
+    int getTemplateCount();
+
+    long getTotalExecutions();
+
+    long getTotalErrors();
+
+    /**
+     * One line per SQL template, slowest total time first.
+     */
+    String[] getTemplateSummaries();
+
+    /**
+     * The most recent slow statements, newest first.
+     */
+    String[] getSlowQueries();
+
+    void reset();
+}
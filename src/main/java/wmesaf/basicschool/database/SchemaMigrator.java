@@ -0,0 +1,467 @@
+package wmesaf.basicschool.database;
+
+import wmesaf.basicschool.logging.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Applies ordered schema migrations once and records them in schema_version.
+ *
+ * This is the only place that issues DDL. Every migration runs in its own
+ * transaction together with its schema_version row, so a failed migration
+ * leaves the database at the previous version. New changes are appended to
+ * MIGRATIONS with the next version number; applied migrations are never edited.
+ *
+ * After a successful run a fingerprint of all migrations is written to
+ * PRAGMA user_version, which lives in the database header. A launch whose
+ * fingerprint matches skips migrate entirely, so the schema check costs one
+ * header read.
+ */
+public class SchemaMigrator {
+
+    private record Migration(int version, String description, String... statements) { }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Baseline tables",
+            "CREATE TABLE IF NOT EXISTS admins (" +
+            "  id INTEGER PRIMARY KEY," +
+            "  username TEXT UNIQUE NOT NULL," +
+            "  password TEXT NOT NULL," +
+            "  full_name TEXT NOT NULL," +
+            "  email TEXT NOT NULL," +
+            "  is_active INTEGER DEFAULT 1," +
+            "  created_at DATETIME DEFAULT CURRENT_TIMESTAMP" +
+            ")",
+
+            "CREATE TABLE IF NOT EXISTS persons (" +
+            "  id INTEGER PRIMARY KEY," +
+            "  type TEXT NOT NULL CHECK(type IN ('STUDENT', 'TEACHER'))," +
+            "  name TEXT NOT NULL," +
+            "  email TEXT," +
+            "  phone TEXT," +
+            "  address TEXT," +
+            "  birth_date TEXT," +
+            "  created_at DATETIME DEFAULT CURRENT_TIMESTAMP" +
+            ")",
+
+            "CREATE TABLE IF NOT EXISTS students (" +
+            "  person_id INTEGER PRIMARY KEY," +
+            "  student_id TEXT UNIQUE NOT NULL," +
+            "  grade TEXT," +
+            "  enrollment_date TEXT," +
+            "  FOREIGN KEY (person_id) REFERENCES persons(id) ON DELETE CASCADE" +
+            ")",
+
+            "CREATE TABLE IF NOT EXISTS teachers (" +
+            "  person_id INTEGER PRIMARY KEY," +
+            "  teacher_id TEXT UNIQUE NOT NULL," +
+            "  subject TEXT," +
+            "  salary REAL," +
+            "  hire_date TEXT," +
+            "  FOREIGN KEY (person_id) REFERENCES persons(id) ON DELETE CASCADE" +
+            ")",
+
+            "CREATE TABLE IF NOT EXISTS courses (" +
+            "  id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "  course_code TEXT UNIQUE NOT NULL," +
+            "  course_name TEXT NOT NULL," +
+            "  description TEXT," +
+            "  credit_hours INTEGER DEFAULT 3," +
+            "  department TEXT," +
+            "  start_date TEXT NOT NULL," +
+            "  end_date TEXT NOT NULL," +
+            "  max_students INTEGER DEFAULT 30," +
+            "  teacher_id INTEGER," +
+            "  created_at DATETIME DEFAULT CURRENT_TIMESTAMP," +
+            "  FOREIGN KEY (teacher_id) REFERENCES teachers(person_id)" +
+            ")",
+
+            "CREATE TABLE IF NOT EXISTS course_enrollments (" +
+            "  course_id INTEGER NOT NULL," +
+            "  student_id TEXT NOT NULL," +
+            "  enrollment_date TEXT DEFAULT CURRENT_TIMESTAMP," +
+            "  grade REAL," +
+            "  status TEXT DEFAULT 'ENROLLED'," +
+            "  PRIMARY KEY (course_id, student_id)," +
+            "  FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE," +
+            "  FOREIGN KEY (student_id) REFERENCES students(student_id) ON DELETE CASCADE" +
+            ")"
+        ),
+
+        new Migration(2, "Secondary indexes for filters, joins and search",
+            "CREATE INDEX IF NOT EXISTS idx_persons_type_name ON persons(type, name)",
+            "CREATE INDEX IF NOT EXISTS idx_students_grade ON students(grade)",
+            "CREATE INDEX IF NOT EXISTS idx_teachers_subject ON teachers(subject)",
+            "CREATE INDEX IF NOT EXISTS idx_courses_teacher_id ON courses(teacher_id)",
+            "CREATE INDEX IF NOT EXISTS idx_courses_department ON courses(department)",
+            "CREATE INDEX IF NOT EXISTS idx_enrollments_student_id ON course_enrollments(student_id)"
+        ),
+
+        // جداول ملخصة تحدثها المشغلات (triggers) مع كل كتابة، فتقرأ التقارير صفاً لكل مجموعة
+        new Migration(3, "Summary tables maintained by triggers",
+            "CREATE TABLE IF NOT EXISTS grade_summary (" +
+            "  grade TEXT PRIMARY KEY," +
+            "  student_count INTEGER NOT NULL" +
+            ")",
+
+            "CREATE TABLE IF NOT EXISTS subject_summary (" +
+            "  subject TEXT PRIMARY KEY," +
+            "  teacher_count INTEGER NOT NULL," +
+            "  salary_total REAL NOT NULL" +
+            ")",
+
+            "CREATE TABLE IF NOT EXISTS department_summary (" +
+            "  department TEXT PRIMARY KEY," +
+            "  course_count INTEGER NOT NULL" +
+            ")",
+
+            "CREATE TABLE IF NOT EXISTS course_enrollment_summary (" +
+            "  course_id INTEGER PRIMARY KEY," +
+            "  enrolled_count INTEGER NOT NULL" +
+            ")",
+
+            // students -> grade_summary
+            "CREATE TRIGGER IF NOT EXISTS trg_students_summary_insert AFTER INSERT ON students BEGIN" +
+            "  INSERT INTO grade_summary (grade, student_count) VALUES (COALESCE(NEW.grade, ''), 1)" +
+            "  ON CONFLICT(grade) DO UPDATE SET student_count = student_count + 1;" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_students_summary_delete AFTER DELETE ON students BEGIN" +
+            "  UPDATE grade_summary SET student_count = student_count - 1 WHERE grade = COALESCE(OLD.grade, '');" +
+            "  DELETE FROM grade_summary WHERE grade = COALESCE(OLD.grade, '') AND student_count <= 0;" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_students_summary_update AFTER UPDATE OF grade ON students" +
+            " WHEN COALESCE(OLD.grade, '') <> COALESCE(NEW.grade, '') BEGIN" +
+            "  UPDATE grade_summary SET student_count = student_count - 1 WHERE grade = COALESCE(OLD.grade, '');" +
+            "  DELETE FROM grade_summary WHERE grade = COALESCE(OLD.grade, '') AND student_count <= 0;" +
+            "  INSERT INTO grade_summary (grade, student_count) VALUES (COALESCE(NEW.grade, ''), 1)" +
+            "  ON CONFLICT(grade) DO UPDATE SET student_count = student_count + 1;" +
+            " END",
+
+            // teachers -> subject_summary
+            "CREATE TRIGGER IF NOT EXISTS trg_teachers_summary_insert AFTER INSERT ON teachers BEGIN" +
+            "  INSERT INTO subject_summary (subject, teacher_count, salary_total)" +
+            "  VALUES (COALESCE(NEW.subject, ''), 1, COALESCE(NEW.salary, 0))" +
+            "  ON CONFLICT(subject) DO UPDATE SET teacher_count = teacher_count + 1," +
+            "    salary_total = salary_total + excluded.salary_total;" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_teachers_summary_delete AFTER DELETE ON teachers BEGIN" +
+            "  UPDATE subject_summary SET teacher_count = teacher_count - 1," +
+            "    salary_total = salary_total - COALESCE(OLD.salary, 0)" +
+            "  WHERE subject = COALESCE(OLD.subject, '');" +
+            "  DELETE FROM subject_summary WHERE subject = COALESCE(OLD.subject, '') AND teacher_count <= 0;" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_teachers_summary_update AFTER UPDATE OF subject, salary ON teachers BEGIN" +
+            "  UPDATE subject_summary SET teacher_count = teacher_count - 1," +
+            "    salary_total = salary_total - COALESCE(OLD.salary, 0)" +
+            "  WHERE subject = COALESCE(OLD.subject, '');" +
+            "  DELETE FROM subject_summary WHERE subject = COALESCE(OLD.subject, '') AND teacher_count <= 0;" +
+            "  INSERT INTO subject_summary (subject, teacher_count, salary_total)" +
+            "  VALUES (COALESCE(NEW.subject, ''), 1, COALESCE(NEW.salary, 0))" +
+            "  ON CONFLICT(subject) DO UPDATE SET teacher_count = teacher_count + 1," +
+            "    salary_total = salary_total + excluded.salary_total;" +
+            " END",
+
+            // courses -> department_summary و course_enrollment_summary
+            "CREATE TRIGGER IF NOT EXISTS trg_courses_summary_insert AFTER INSERT ON courses BEGIN" +
+            "  INSERT INTO department_summary (department, course_count) VALUES (COALESCE(NEW.department, ''), 1)" +
+            "  ON CONFLICT(department) DO UPDATE SET course_count = course_count + 1;" +
+            "  INSERT OR IGNORE INTO course_enrollment_summary (course_id, enrolled_count) VALUES (NEW.id, 0);" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_courses_summary_delete AFTER DELETE ON courses BEGIN" +
+            "  UPDATE department_summary SET course_count = course_count - 1" +
+            "  WHERE department = COALESCE(OLD.department, '');" +
+            "  DELETE FROM department_summary WHERE department = COALESCE(OLD.department, '') AND course_count <= 0;" +
+            "  DELETE FROM course_enrollment_summary WHERE course_id = OLD.id;" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_courses_summary_update AFTER UPDATE OF department ON courses" +
+            " WHEN COALESCE(OLD.department, '') <> COALESCE(NEW.department, '') BEGIN" +
+            "  UPDATE department_summary SET course_count = course_count - 1" +
+            "  WHERE department = COALESCE(OLD.department, '');" +
+            "  DELETE FROM department_summary WHERE department = COALESCE(OLD.department, '') AND course_count <= 0;" +
+            "  INSERT INTO department_summary (department, course_count) VALUES (COALESCE(NEW.department, ''), 1)" +
+            "  ON CONFLICT(department) DO UPDATE SET course_count = course_count + 1;" +
+            " END",
+
+            // course_enrollments -> course_enrollment_summary (يشمل الحذف المتتالي عند حذف طالب)
+            "CREATE TRIGGER IF NOT EXISTS trg_enrollments_summary_insert AFTER INSERT ON course_enrollments BEGIN" +
+            "  INSERT INTO course_enrollment_summary (course_id, enrolled_count) VALUES (NEW.course_id, 1)" +
+            "  ON CONFLICT(course_id) DO UPDATE SET enrolled_count = enrolled_count + 1;" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_enrollments_summary_delete AFTER DELETE ON course_enrollments BEGIN" +
+            "  UPDATE course_enrollment_summary SET enrolled_count = enrolled_count - 1 WHERE course_id = OLD.course_id;" +
+            " END",
+
+            // تعبئة أولية من البيانات الحالية
+            "INSERT INTO grade_summary (grade, student_count)" +
+            " SELECT COALESCE(grade, ''), COUNT(*) FROM students GROUP BY COALESCE(grade, '')",
+
+            "INSERT INTO subject_summary (subject, teacher_count, salary_total)" +
+            " SELECT COALESCE(subject, ''), COUNT(*), COALESCE(SUM(salary), 0) FROM teachers GROUP BY COALESCE(subject, '')",
+
+            "INSERT INTO department_summary (department, course_count)" +
+            " SELECT COALESCE(department, ''), COUNT(*) FROM courses GROUP BY COALESCE(department, '')",
+
+            "INSERT INTO course_enrollment_summary (course_id, enrolled_count)" +
+            " SELECT c.id, (SELECT COUNT(*) FROM course_enrollments ce" +
+            "               JOIN students s ON ce.student_id = s.student_id" +
+            "               WHERE ce.course_id = c.id)" +
+            " FROM courses c"
+        ),
+
+        // سجل أحداث التسجيل (إضافة فقط) مع تجميعات يومية وشهرية لكل قسم
+        new Migration(4, "Enrollment event log with daily and monthly rollups",
+            "CREATE TABLE IF NOT EXISTS enrollment_events (" +
+            "  id INTEGER PRIMARY KEY AUTOINCREMENT," +
+            "  event_type TEXT NOT NULL CHECK(event_type IN ('ENROLL', 'UNENROLL'))," +
+            "  course_id INTEGER NOT NULL," +
+            "  student_id TEXT NOT NULL," +
+            "  department TEXT NOT NULL DEFAULT ''," +
+            "  occurred_at TEXT NOT NULL DEFAULT (strftime('%Y-%m-%d %H:%M:%S', 'now', 'localtime'))" +
+            ")",
+
+            "CREATE INDEX IF NOT EXISTS idx_enrollment_events_occurred_at ON enrollment_events(occurred_at)",
+
+            "CREATE TABLE IF NOT EXISTS enrollment_daily (" +
+            "  day TEXT NOT NULL," +
+            "  department TEXT NOT NULL," +
+            "  enrollments INTEGER NOT NULL DEFAULT 0," +
+            "  unenrollments INTEGER NOT NULL DEFAULT 0," +
+            "  PRIMARY KEY (day, department)" +
+            ") WITHOUT ROWID",
+
+            "CREATE TABLE IF NOT EXISTS enrollment_monthly (" +
+            "  month TEXT NOT NULL," +
+            "  department TEXT NOT NULL," +
+            "  enrollments INTEGER NOT NULL DEFAULT 0," +
+            "  unenrollments INTEGER NOT NULL DEFAULT 0," +
+            "  PRIMARY KEY (month, department)" +
+            ") WITHOUT ROWID",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_enrollment_events_no_update BEFORE UPDATE ON enrollment_events BEGIN" +
+            "  SELECT RAISE(ABORT, 'enrollment_events is append-only');" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_enrollment_events_no_delete BEFORE DELETE ON enrollment_events BEGIN" +
+            "  SELECT RAISE(ABORT, 'enrollment_events is append-only');" +
+            " END",
+
+            // كل حدث يُضاف إلى خانة يومه وشهره
+            "CREATE TRIGGER IF NOT EXISTS trg_enrollment_events_rollup AFTER INSERT ON enrollment_events BEGIN" +
+            "  INSERT INTO enrollment_daily (day, department, enrollments, unenrollments)" +
+            "  VALUES (substr(NEW.occurred_at, 1, 10), NEW.department," +
+            "          NEW.event_type = 'ENROLL', NEW.event_type = 'UNENROLL')" +
+            "  ON CONFLICT(day, department) DO UPDATE SET" +
+            "    enrollments = enrollments + excluded.enrollments," +
+            "    unenrollments = unenrollments + excluded.unenrollments;" +
+            "  INSERT INTO enrollment_monthly (month, department, enrollments, unenrollments)" +
+            "  VALUES (substr(NEW.occurred_at, 1, 7), NEW.department," +
+            "          NEW.event_type = 'ENROLL', NEW.event_type = 'UNENROLL')" +
+            "  ON CONFLICT(month, department) DO UPDATE SET" +
+            "    enrollments = enrollments + excluded.enrollments," +
+            "    unenrollments = unenrollments + excluded.unenrollments;" +
+            " END",
+
+            // التسجيلات الحالية تُسجل كأحداث بتاريخ تسجيلها؛ enrollment_date بتوقيت UTC
+            // (CURRENT_TIMESTAMP) فيُحوَّل إلى الوقت المحلي مثل occurred_at للأحداث الجديدة
+            "INSERT INTO enrollment_events (event_type, course_id, student_id, department, occurred_at)" +
+            " SELECT 'ENROLL', ce.course_id, ce.student_id, COALESCE(c.department, '')," +
+            "        COALESCE(datetime(ce.enrollment_date, 'localtime')," +
+            "                 strftime('%Y-%m-%d %H:%M:%S', 'now', 'localtime'))" +
+            " FROM course_enrollments ce LEFT JOIN courses c ON c.id = ce.course_id" +
+            " ORDER BY ce.enrollment_date",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_enrollments_event_insert AFTER INSERT ON course_enrollments BEGIN" +
+            "  INSERT INTO enrollment_events (event_type, course_id, student_id, department)" +
+            "  VALUES ('ENROLL', NEW.course_id, NEW.student_id," +
+            "          COALESCE((SELECT department FROM courses WHERE id = NEW.course_id), ''));" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_enrollments_event_delete AFTER DELETE ON course_enrollments BEGIN" +
+            "  INSERT INTO enrollment_events (event_type, course_id, student_id, department)" +
+            "  VALUES ('UNENROLL', OLD.course_id, OLD.student_id," +
+            "          COALESCE((SELECT department FROM courses WHERE id = OLD.course_id), ''));" +
+            " END"
+        ),
+
+        // فهارس بنفس تعبيرات الترتيب في ListingDAO ثم المفتاح، فكل صفحة قراءة مدى من الفهرس
+        new Migration(5, "Sort indexes for paged listings",
+            "CREATE INDEX IF NOT EXISTS idx_persons_listing_email ON persons(type, COALESCE(email, ''))",
+            "CREATE INDEX IF NOT EXISTS idx_persons_listing_phone ON persons(type, COALESCE(phone, ''))",
+            "CREATE INDEX IF NOT EXISTS idx_students_listing_grade ON students(COALESCE(grade, ''), student_id)",
+            "CREATE INDEX IF NOT EXISTS idx_students_listing_enrollment ON students(COALESCE(enrollment_date, ''), student_id)",
+            "CREATE INDEX IF NOT EXISTS idx_teachers_listing_subject ON teachers(COALESCE(subject, ''), teacher_id)",
+            "CREATE INDEX IF NOT EXISTS idx_teachers_listing_salary ON teachers(COALESCE(salary, 0), teacher_id)",
+            "CREATE INDEX IF NOT EXISTS idx_teachers_listing_hire_date ON teachers(COALESCE(hire_date, ''), teacher_id)",
+            "CREATE INDEX IF NOT EXISTS idx_courses_listing_name ON courses(course_name, course_code)",
+            "CREATE INDEX IF NOT EXISTS idx_courses_listing_credits ON courses(COALESCE(credit_hours, 0), course_code)",
+            "CREATE INDEX IF NOT EXISTS idx_courses_listing_department ON courses(COALESCE(department, ''), course_code)",
+            "CREATE INDEX IF NOT EXISTS idx_courses_listing_start ON courses(start_date, course_code)",
+            "CREATE INDEX IF NOT EXISTS idx_courses_listing_end ON courses(end_date, course_code)"
+        ),
+
+        // جداول FTS5 تقرأ نصوصها من persons وcourses (external content) وتحدثها المشغلات
+        new Migration(6, "Full-text search tables maintained by triggers",
+            "CREATE VIRTUAL TABLE IF NOT EXISTS persons_fts USING fts5(" +
+            "  name, email, address," +
+            "  content = 'persons', content_rowid = 'id'," +
+            "  tokenize = 'unicode61 remove_diacritics 2', prefix = '2 3'" +
+            ")",
+
+            "CREATE VIRTUAL TABLE IF NOT EXISTS courses_fts USING fts5(" +
+            "  course_code, course_name, description," +
+            "  content = 'courses', content_rowid = 'id'," +
+            "  tokenize = 'unicode61 remove_diacritics 2', prefix = '2 3'" +
+            ")",
+
+            // الرمز والاسم أثقل وزناً من الوصف في ترتيب bm25
+            "INSERT INTO courses_fts (courses_fts, rank) VALUES ('rank', 'bm25(10.0, 5.0, 1.0)')",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_persons_fts_insert AFTER INSERT ON persons BEGIN" +
+            "  INSERT INTO persons_fts (rowid, name, email, address) VALUES (NEW.id, NEW.name, NEW.email, NEW.address);" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_persons_fts_delete AFTER DELETE ON persons BEGIN" +
+            "  INSERT INTO persons_fts (persons_fts, rowid, name, email, address)" +
+            "  VALUES ('delete', OLD.id, OLD.name, OLD.email, OLD.address);" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_persons_fts_update AFTER UPDATE OF name, email, address ON persons BEGIN" +
+            "  INSERT INTO persons_fts (persons_fts, rowid, name, email, address)" +
+            "  VALUES ('delete', OLD.id, OLD.name, OLD.email, OLD.address);" +
+            "  INSERT INTO persons_fts (rowid, name, email, address) VALUES (NEW.id, NEW.name, NEW.email, NEW.address);" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_courses_fts_insert AFTER INSERT ON courses BEGIN" +
+            "  INSERT INTO courses_fts (rowid, course_code, course_name, description)" +
+            "  VALUES (NEW.id, NEW.course_code, NEW.course_name, NEW.description);" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_courses_fts_delete AFTER DELETE ON courses BEGIN" +
+            "  INSERT INTO courses_fts (courses_fts, rowid, course_code, course_name, description)" +
+            "  VALUES ('delete', OLD.id, OLD.course_code, OLD.course_name, OLD.description);" +
+            " END",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_courses_fts_update AFTER UPDATE OF course_code, course_name, description ON courses BEGIN" +
+            "  INSERT INTO courses_fts (courses_fts, rowid, course_code, course_name, description)" +
+            "  VALUES ('delete', OLD.id, OLD.course_code, OLD.course_name, OLD.description);" +
+            "  INSERT INTO courses_fts (rowid, course_code, course_name, description)" +
+            "  VALUES (NEW.id, NEW.course_code, NEW.course_name, NEW.description);" +
+            " END",
+
+            // فهرسة الصفوف الموجودة
+            "INSERT INTO persons_fts (persons_fts) VALUES ('rebuild')",
+            "INSERT INTO courses_fts (courses_fts) VALUES ('rebuild')"
+        )
+    );
+
+    private static final int FINGERPRINT = computeFingerprint();
+
+    /**
+     * بصمة تتغير إذا أُضيف أو تغير أي ترحيل؛ لا تكون صفراً لأن صفر قيمة قاعدة البيانات الجديدة
+     */
+    private static int computeFingerprint() {
+        int hash = 17;
+        for (Migration migration : MIGRATIONS) {
+            hash = 31 * hash + migration.version();
+            for (String sql : migration.statements()) {
+                hash = 31 * hash + sql.hashCode();
+            }
+        }
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * True if the database was last migrated by this exact set of migrations.
+     */
+    public boolean isUpToDate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() && rs.getInt(1) == FINGERPRINT;
+        }
+    }
+
+    /**
+     * Brings the schema up to the latest version and records the fingerprint.
+     *
+     * @return the number of migrations applied
+     */
+    public int migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                         "  version INTEGER PRIMARY KEY," +
+                         "  description TEXT NOT NULL," +
+                         "  applied_at DATETIME DEFAULT CURRENT_TIMESTAMP" +
+                         ")");
+        }
+
+        int currentVersion = getCurrentVersion(connection);
+        int applied = 0;
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= currentVersion) {
+                continue;
+            }
+            apply(connection, migration);
+            Log.info("✅ Schema migration {}: {}", migration.version(), migration.description());
+            applied++;
+        }
+
+        if (applied == 0) {
+            Log.info("✅ Schema is up to date (version {})", currentVersion);
+        }
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA user_version = " + FINGERPRINT);
+        }
+        return applied;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                for (String sql : migration.statements()) {
+                    stmt.execute(sql);
+                }
+            }
+
+            try (PreparedStatement pstmt = connection.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                pstmt.setInt(1, migration.version());
+                pstmt.setString(2, migration.description());
+                pstmt.executeUpdate();
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Schema migration " + migration.version() + " failed: " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    public int getCurrentVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+}
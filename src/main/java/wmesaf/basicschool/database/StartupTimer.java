@@ -0,0 +1,48 @@
+package wmesaf.basicschool.database;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Records how long each startup phase took and prints them as one report.
+ *
+ * Phases are marked from any thread (the database initializes in the
+ * background while the login window is built), so every mark records the
+ * thread that made it. Times are measured from JVM start, taken from the
+ * RuntimeMXBean, so class loading before main is part of the report.
+ */
+public final class StartupTimer {
+
+    private record Mark(String phase, long elapsedMillis, String thread) { }
+
+    private static final long JVM_START = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final List<Mark> MARKS = new ArrayList<>();
+    private static boolean reported;
+
+    private StartupTimer() {
+    }
+
+    public static synchronized void mark(String phase) {
+        MARKS.add(new Mark(phase, System.currentTimeMillis() - JVM_START, Thread.currentThread().getName()));
+    }
+
+    /**
+     * يطبع التقرير مرة واحدة فقط؛ الاستدعاءات اللاحقة لا تفعل شيئاً
+     */
+    public static synchronized void report() {
+        if (reported) {
+            return;
+        }
+        reported = true;
+
+        System.out.println("\n⏱️ STARTUP TIMING (ms since JVM start):");
+        long previous = 0;
+        for (Mark mark : MARKS.stream().sorted(Comparator.comparingLong(Mark::elapsedMillis)).toList()) {
+            System.out.printf("   %6d  (+%5d)  %-28s [%s]%n",
+                              mark.elapsedMillis(), mark.elapsedMillis() - previous, mark.phase(), mark.thread());
+            previous = mark.elapsedMillis();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package wmesaf.basicschool.database;
+
+import wmesaf.basicschool.logging.Log;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the prepared statements of one physical connection for reuse.
+ *
+ * prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) take
+ * an idle statement with the same SQL and key option from the cache when
+ * there is one, so SQLite does not parse and plan the query again. The
+ * statement handed out is a proxy: close() closes any result set still
+ * open on it (which resets the SQLite statement and releases its read
+ * snapshot), clears the parameters and puts it back. A statement whose
+ * SQL is already cached, or whose reset fails, is closed for real.
+ *
+ * The cache is least-recently-used and holds at most maxSize idle
+ * statements (-Dschool.db.statementCache, default 64; 0 turns caching
+ * off). Closing the connection closes every cached statement. Hits,
+ * misses and evictions are counted over all connections together.
+ */
+final class StatementCache {
+
+    private record Key(String sql, int autoGeneratedKeys) { }
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+    private static final AtomicInteger CACHED = new AtomicInteger();
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Map<Key, PreparedStatement> idle;
+    private boolean closed;
+
+    private StatementCache(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.idle = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Wraps a physical connection with its own cache, or returns it unchanged when maxSize is 0.
+     */
+    static Connection wrap(Connection physical, int maxSize) {
+        if (maxSize <= 0) {
+            return physical;
+        }
+        StatementCache cache = new StatementCache(physical, maxSize);
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            cache.new ConnectionHandler());
+    }
+
+    /**
+     * Hit rate and size of the statement caches of all connections.
+     */
+    static Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = HITS.sum();
+        long misses = MISSES.sum();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        stats.put("evictions", EVICTIONS.sum());
+        stats.put("cachedStatements", CACHED.get());
+        return stats;
+    }
+
+    private synchronized PreparedStatement take(Key key) {
+        PreparedStatement statement = closed ? null : idle.remove(key);
+        if (statement != null) {
+            CACHED.decrementAndGet();
+            HITS.increment();
+        } else {
+            MISSES.increment();
+        }
+        return statement;
+    }
+
+    /**
+     * يعيد الجملة إلى الذاكرة، أو يغلقها إن لم يعد مكانها متاحاً
+     */
+    private void giveBack(Key key, PreparedStatement statement) {
+        List<PreparedStatement> toClose = new ArrayList<>(1);
+        synchronized (this) {
+            if (closed || idle.containsKey(key)) {
+                toClose.add(statement);
+            } else {
+                idle.put(key, statement);
+                CACHED.incrementAndGet();
+                Iterator<PreparedStatement> eldest = idle.values().iterator();
+                while (idle.size() > maxSize) {
+                    toClose.add(eldest.next());
+                    eldest.remove();
+                    CACHED.decrementAndGet();
+                    EVICTIONS.increment();
+                }
+            }
+        }
+        toClose.forEach(StatementCache::closeQuietly);
+    }
+
+    private void closeAll() {
+        List<PreparedStatement> statements;
+        synchronized (this) {
+            closed = true;
+            statements = new ArrayList<>(idle.values());
+            CACHED.addAndGet(-idle.size());
+            idle.clear();
+        }
+        statements.forEach(StatementCache::closeQuietly);
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // تجاهل
+        }
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Key for the prepareStatement overloads that can be cached, or null for the others.
+     */
+    private static Key keyOf(Method method, Object[] args) {
+        if (!method.getName().equals("prepareStatement") || args == null || !(args[0] instanceof String sql)) {
+            return null;
+        }
+        if (args.length == 1) {
+            return new Key(sql, java.sql.Statement.NO_GENERATED_KEYS);
+        }
+        if (args.length == 2 && args[1] instanceof Integer autoKeys) {
+            return new Key(sql, autoKeys);
+        }
+        return null;
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("close")) {
+                closeAll();
+                return forward(physical, method, args);
+            }
+
+            Key key = keyOf(method, args);
+            if (key == null) {
+                return forward(physical, method, args);
+            }
+            PreparedStatement statement = take(key);
+            if (statement == null) {
+                statement = (PreparedStatement) forward(physical, method, args);
+            }
+            return Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new StatementHandler(key, statement, (Connection) proxy));
+        }
+    }
+
+    /**
+     * One checkout of a cached statement; close() hands it back exactly once.
+     */
+    private class StatementHandler implements InvocationHandler {
+        private final Key key;
+        private final PreparedStatement statement;
+        private final Connection connection;
+        private ResultSet lastResult;
+        // execute() أعاد نتيجة لم تُطلب بعد؛ لا يمكن إغلاقها من هنا فلا تُعاد الجملة للذاكرة
+        private boolean unreadResult;
+        private boolean released;
+
+        StatementHandler(Key key, PreparedStatement statement, Connection connection) {
+            this.key = key;
+            this.statement = statement;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return released || statement.isClosed();
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            if (released) {
+                throw new SQLException("Statement is closed");
+            }
+            Object result = forward(statement, method, args);
+            switch (method.getName()) {
+                case "executeQuery":
+                case "getResultSet":
+                    lastResult = (ResultSet) result;
+                    unreadResult = false;
+                    break;
+                case "execute":
+                    unreadResult = (Boolean) result;
+                    break;
+                default:
+                    break;
+            }
+            return result;
+        }
+
+        private void release() {
+            try {
+                if (unreadResult || statement.isClosed()) {
+                    closeQuietly(statement);
+                    return;
+                }
+                if (lastResult != null && !lastResult.isClosed()) {
+                    lastResult.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+            } catch (SQLException e) {
+                Log.debug("Prepared statement not reused: {}", e.getMessage());
+                closeQuietly(statement);
+                return;
+            }
+            giveBack(key, statement);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package wmesaf.basicschool.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * SQLite storage settings applied to every pooled connection.
+ *
+ * Defaults favour concurrent reads: WAL journaling lets readers run while a
+ * write is in progress, and synchronous=NORMAL only fsyncs at checkpoints
+ * instead of on every auto-commit. Each value can be overridden with a
+ * system property, e.g. -Dschool.db.journalMode=DELETE.
+ */
+public class StorageProfile {
+    private final String journalMode;
+    private final String synchronous;
+    private final long mmapSize;
+    private final int cacheSize;
+    private final String tempStore;
+    private final int busyTimeoutMillis;
+
+    public StorageProfile(String journalMode, String synchronous, long mmapSize,
+                          int cacheSize, String tempStore, int busyTimeoutMillis) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.mmapSize = mmapSize;
+        this.cacheSize = cacheSize;
+        this.tempStore = tempStore;
+        this.busyTimeoutMillis = busyTimeoutMillis;
+    }
+
+    /**
+     * الإعدادات الافتراضية مع إمكانية التعديل عبر خصائص النظام
+     */
+    public static StorageProfile fromSystemProperties() {
+        return new StorageProfile(
+            System.getProperty("school.db.journalMode", "WAL"),
+            System.getProperty("school.db.synchronous", "NORMAL"),
+            Long.getLong("school.db.mmapSize", 256L * 1024 * 1024),
+            Integer.getInteger("school.db.cacheSize", -16_000), // سالب = كيلوبايت (16 ميغابايت)
+            System.getProperty("school.db.tempStore", "MEMORY"),
+            Integer.getInteger("school.db.busyTimeout", 5_000)
+        );
+    }
+
+    /**
+     * Applies the per-connection PRAGMAs. journal_mode is persistent in the
+     * database file, so it is only set from read-write connections.
+     */
+    public void applyTo(Connection connection, boolean readOnly) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            if (!readOnly) {
+                stmt.execute("PRAGMA journal_mode = " + journalMode);
+                stmt.execute("PRAGMA synchronous = " + synchronous);
+            }
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+            stmt.execute("PRAGMA temp_store = " + tempStore);
+        }
+    }
+
+    /**
+     * Reads the journal mode actually in effect, which can differ from the
+     * requested one (e.g. WAL is refused for in-memory databases).
+     */
+    public static String currentJournalMode(Connection connection) {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+            return rs.next() ? rs.getString(1).toUpperCase() : "UNKNOWN";
+        } catch (SQLException e) {
+            return "UNKNOWN";
+        }
+    }
+
+    public String getJournalMode() { return journalMode; }
+    public String getSynchronous() { return synchronous; }
+    public long getMmapSize() { return mmapSize; }
+    public int getCacheSize() { return cacheSize; }
+    public String getTempStore() { return tempStore; }
+    public int getBusyTimeoutMillis() { return busyTimeoutMillis; }
+
+    @Override
+    public String toString() {
+        return String.format("journal_mode=%s, synchronous=%s, mmap_size=%d, cache_size=%d, temp_store=%s, busy_timeout=%dms",
+            journalMode, synchronous, mmapSize, cacheSize, tempStore, busyTimeoutMillis);
+    }
+}
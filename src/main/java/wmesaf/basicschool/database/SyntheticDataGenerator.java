@@ -0,0 +1,426 @@
+package wmesaf.basicschool.database;
+
+import java.io.File;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Fills an empty database with a large, reproducible data set for scale tests.
+ *
+ * Every value comes from a SplittableRandom seeded with the configured seed,
+ * one stream per table, so the same seed and sizes always produce the same
+ * rows and changing the enrollment count does not change the students.
+ * Rows are written with prepared-statement batches, BATCH_SIZE rows per
+ * transaction, on a single pooled connection; the summary, event-log and
+ * full-text triggers run as they would for rows added through the DAOs.
+ *
+ * Enrollments are spread over the courses with a skew (some courses are
+ * several times more popular than others) and about one course in ten is
+ * filled to exactly max_students, so "course full" paths are exercised.
+ * Rows are inserted directly, so max_students may exceed the 100 that
+ * CourseService allows for new courses: 2M enrollments over 10k courses
+ * average 200 per course.
+ * The enrollment event log is the exception to determinism: its triggers
+ * stamp each event with the current time.
+ *
+ * Run on its own with the database file as argument, e.g.
+ * java -Dschool.gen.students=100000 ... SyntheticDataGenerator scale.db
+ */
+public class SyntheticDataGenerator {
+    static final int BATCH_SIZE = 10_000;
+
+    /**
+     * أحجام البيانات والبذرة؛ القيم الافتراضية هي حجم اختبار الأداء المستهدف
+     */
+    public record Sizes(int students, int teachers, int courses, long enrollments, long seed) {
+        public Sizes {
+            if (students < 1 || teachers < 1 || courses < 1 || enrollments < 0) {
+                throw new IllegalArgumentException("Student, teacher and course counts must be positive");
+            }
+            if (enrollments > (long) students * courses) {
+                throw new IllegalArgumentException("More enrollments (" + enrollments + ") than student/course pairs");
+            }
+        }
+
+        public static Sizes fromSystemProperties() {
+            return new Sizes(
+                Integer.getInteger("school.gen.students", 100_000),
+                Integer.getInteger("school.gen.teachers", 5_000),
+                Integer.getInteger("school.gen.courses", 10_000),
+                Long.getLong("school.gen.enrollments", 2_000_000L),
+                Long.getLong("school.gen.seed", 20251205L)
+            );
+        }
+
+        @Override
+        public String toString() {
+            return students + " students, " + teachers + " teachers, " + courses + " courses, "
+                   + enrollments + " enrollments, seed " + seed;
+        }
+    }
+
+    private static final String[] FIRST_NAMES = {
+        "John", "Emma", "Michael", "Sophia", "James", "Olivia", "Robert", "Ava", "William", "Isabella",
+        "David", "Mia", "Richard", "Charlotte", "Joseph", "Amelia", "Thomas", "Harper", "Charles", "Evelyn",
+        "Christopher", "Abigail", "Daniel", "Emily", "Matthew", "Elizabeth", "Anthony", "Sofia", "Donald",
+        "Madison", "Omar", "Layla", "Ahmed", "Fatima", "Yusuf", "Mariam", "Ali", "Nour", "Hassan", "Salma",
+        "Lucas", "Chloe", "Mateo", "Camila", "Noah", "Zoe", "Ethan", "Hannah", "Ryan", "Aria"
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez",
+        "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore",
+        "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez",
+        "Lewis", "Robinson", "Mostafa", "Mohammed", "Haddad", "Khalil", "Nasser", "Saleh", "Ibrahim",
+        "Youssef", "Mansour", "Farouk", "Nguyen", "Kim", "Patel", "Singh", "Cohen", "Rossi", "Muller",
+        "Dubois", "Silva", "Novak"
+    };
+
+    private static final String[] GRADES = {"9th Grade", "10th Grade", "11th Grade", "12th Grade"};
+
+    private static final String[] CITIES = {
+        "New York", "Los Angeles", "Chicago", "Houston", "Phoenix", "Philadelphia", "Boston", "Seattle",
+        "Miami", "Atlanta", "Denver", "Austin", "Cairo", "Alexandria", "Giza"
+    };
+
+    private static final String[] STREETS = {"Main St", "Oak Ave", "Pine Rd", "Elm St", "Maple Dr", "Cedar Ln", "Nile St"};
+
+    private static final String[] SUBJECTS = {
+        "Mathematics", "Physics", "Chemistry", "Biology", "English Literature", "History", "Geography",
+        "Computer Science", "Art", "Music", "Physical Education", "Economics", "Business Studies",
+        "Psychology", "Sociology", "Foreign Languages"
+    };
+
+    // القسم، بادئة كود المادة، ومواضيع أسماء المواد
+    private static final String[][] DEPARTMENTS = {
+        {"Computer Science", "CS", "Programming", "Data Structures", "Databases", "Networks", "Algorithms", "Operating Systems"},
+        {"Mathematics", "MATH", "Calculus", "Linear Algebra", "Statistics", "Geometry", "Number Theory", "Probability"},
+        {"Physics", "PHYS", "Mechanics", "Electromagnetism", "Optics", "Thermodynamics", "Quantum Physics", "Astronomy"},
+        {"Chemistry", "CHEM", "Organic Chemistry", "Inorganic Chemistry", "Biochemistry", "Analytical Chemistry", "Polymers", "Lab Methods"},
+        {"Biology", "BIO", "Genetics", "Ecology", "Microbiology", "Anatomy", "Evolution", "Botany"},
+        {"Languages", "ENG", "Composition", "Literature", "Rhetoric", "Linguistics", "Creative Writing", "Arabic Poetry"},
+        {"History", "HIST", "World History", "Ancient Civilizations", "Modern Europe", "Middle East", "American History", "Economic History"},
+        {"Arts", "ART", "Drawing", "Painting", "Sculpture", "Art History", "Photography", "Design"}
+    };
+
+    private static final String[] LEVELS = {"Introduction to", "Foundations of", "Intermediate", "Advanced", "Topics in", "Seminar in"};
+
+    private static final String[] DESCRIPTION_PARTS = {
+        "core concepts and vocabulary", "problem solving with worked examples", "laboratory sessions",
+        "group projects and presentations", "reading of primary sources", "weekly assignments",
+        "a final research paper", "hands-on practice", "case studies from industry", "field work"
+    };
+
+    private final DatabaseConnection db;
+    private final Sizes sizes;
+
+    public SyntheticDataGenerator(DatabaseConnection db, Sizes sizes) {
+        this.db = db;
+        this.sizes = sizes;
+    }
+
+    /**
+     * Writes the whole data set. The database must not contain any persons
+     * or courses yet, since generated ids start at 1.
+     *
+     * @return false if the database is not empty or a batch failed
+     */
+    public boolean generate() {
+        System.out.println("\n🏭 Generating synthetic data: " + sizes);
+        long started = System.nanoTime();
+
+        try (Connection connection = db.getConnection()) {
+            if (!isEmpty(connection)) {
+                System.err.println("❌ Synthetic data needs an empty database (persons or courses already exist)");
+                return false;
+            }
+            connection.setAutoCommit(false);
+            try {
+                insertStudents(connection);
+                insertTeachers(connection);
+                int[] planned = planEnrollments(new SplittableRandom(sizes.seed() ^ 0x454E524F4CL));
+                insertCourses(connection, planned);
+                insertEnrollments(connection, planned);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+            // إحصائيات المخطط حتى يختار SQLite الفهارس الصحيحة على هذا الحجم
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("ANALYZE");
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error generating synthetic data: " + e.getMessage());
+            return false;
+        }
+
+        System.out.printf("✅ Synthetic data ready in %.1f s%n", (System.nanoTime() - started) / 1e9);
+        return true;
+    }
+
+    private static boolean isEmpty(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT EXISTS (SELECT 1 FROM persons) OR EXISTS (SELECT 1 FROM courses)")) {
+            return rs.next() && rs.getInt(1) == 0;
+        }
+    }
+
+    public static String studentId(int index) {
+        return String.format("STU%06d", index);
+    }
+
+    public static String teacherId(int index) {
+        return String.format("TCH%05d", index);
+    }
+
+    /**
+     * كود المادة رقم index (يبدأ من 1)؛ البادئة من قسمها
+     */
+    public static String courseCode(String prefix, int index) {
+        return prefix + String.format("%05d", index);
+    }
+
+    private void insertStudents(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(sizes.seed() ^ 0x5354554445L);
+        LocalDate firstEnrollment = LocalDate.of(2019, 9, 1);
+
+        try (PreparedStatement personStmt = connection.prepareStatement(PERSON_SQL);
+             PreparedStatement studentStmt = connection.prepareStatement(
+                 "INSERT INTO students (person_id, student_id, grade, enrollment_date) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= sizes.students(); i++) {
+                String first = pick(random, FIRST_NAMES);
+                String last = pick(random, LAST_NAMES);
+                addPerson(personStmt, i, "STUDENT", first + " " + last,
+                          first.toLowerCase() + "." + last.toLowerCase() + i + "@school.com", random,
+                          LocalDate.of(2004, 1, 1).plusDays(random.nextInt(6 * 365)));
+
+                studentStmt.setInt(1, i);
+                studentStmt.setString(2, studentId(i));
+                studentStmt.setString(3, pick(random, GRADES));
+                studentStmt.setString(4, firstEnrollment.plusDays(random.nextInt(6 * 365)).toString());
+                studentStmt.addBatch();
+
+                if (i % BATCH_SIZE == 0 || i == sizes.students()) {
+                    personStmt.executeBatch();
+                    studentStmt.executeBatch();
+                    connection.commit();
+                    progress("students", i, sizes.students());
+                }
+            }
+        }
+    }
+
+    private void insertTeachers(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(sizes.seed() ^ 0x544348L);
+
+        try (PreparedStatement personStmt = connection.prepareStatement(PERSON_SQL);
+             PreparedStatement teacherStmt = connection.prepareStatement(
+                 "INSERT INTO teachers (person_id, teacher_id, subject, salary, hire_date) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= sizes.teachers(); i++) {
+                int personId = sizes.students() + i;
+                String first = pick(random, FIRST_NAMES);
+                String last = pick(random, LAST_NAMES);
+                addPerson(personStmt, personId, "TEACHER", "Dr. " + first + " " + last,
+                          first.toLowerCase() + "." + last.toLowerCase() + i + "@school.edu", random,
+                          LocalDate.of(1960, 1, 1).plusDays(random.nextInt(35 * 365)));
+
+                teacherStmt.setInt(1, personId);
+                teacherStmt.setString(2, teacherId(i));
+                teacherStmt.setString(3, pick(random, SUBJECTS));
+                teacherStmt.setDouble(4, 3000 + 50 * random.nextInt(121));
+                teacherStmt.setString(5, LocalDate.of(1995, 1, 1).plusDays(random.nextInt(30 * 365)).toString());
+                teacherStmt.addBatch();
+
+                if (i % BATCH_SIZE == 0 || i == sizes.teachers()) {
+                    personStmt.executeBatch();
+                    teacherStmt.executeBatch();
+                    connection.commit();
+                    progress("teachers", i, sizes.teachers());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param planned عدد التسجيلات لكل مادة؛ max_students لا يقل عنه
+     */
+    private void insertCourses(Connection connection, int[] planned) throws SQLException {
+        SplittableRandom random = new SplittableRandom(sizes.seed() ^ 0x434F55525345L);
+        LocalDate firstStart = LocalDate.of(2024, 9, 1);
+
+        String sql = "INSERT INTO courses (id, course_code, course_name, description, credit_hours, department, " +
+                     "start_date, end_date, max_students, teacher_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (int i = 1; i <= sizes.courses(); i++) {
+                String[] department = DEPARTMENTS[random.nextInt(DEPARTMENTS.length)];
+                String topic = department[2 + random.nextInt(department.length - 2)];
+                String name = pick(random, LEVELS) + " " + topic;
+                String description = topic + ": " + pick(random, DESCRIPTION_PARTS) + ", "
+                                     + pick(random, DESCRIPTION_PARTS) + " and " + pick(random, DESCRIPTION_PARTS);
+                int credits = 1 + Math.min(4, random.nextInt(3) + random.nextInt(3));
+                LocalDate start = firstStart.plusDays(random.nextInt(2 * 365));
+
+                int enrolled = planned[i - 1];
+                boolean full = random.nextInt(10) == 0;
+                int max = full ? Math.max(enrolled, 1) : Math.max(30, enrolled + 1 + random.nextInt(enrolled / 5 + 10));
+
+                pstmt.setInt(1, i);
+                pstmt.setString(2, courseCode(department[1], i));
+                pstmt.setString(3, name);
+                pstmt.setString(4, description);
+                pstmt.setInt(5, credits);
+                pstmt.setString(6, department[0]);
+                pstmt.setString(7, start.toString());
+                pstmt.setString(8, start.plusMonths(1 + random.nextInt(6)).toString());
+                pstmt.setInt(9, max);
+                pstmt.setInt(10, sizes.students() + 1 + random.nextInt(sizes.teachers()));
+                pstmt.addBatch();
+
+                if (i % BATCH_SIZE == 0 || i == sizes.courses()) {
+                    pstmt.executeBatch();
+                    connection.commit();
+                    progress("courses", i, sizes.courses());
+                }
+            }
+        }
+    }
+
+    /**
+     * عدد التسجيلات لكل مادة: أوزان منحرفة (بعض المواد أكثر طلباً بعدة أضعاف)
+     * مجموعها بالضبط sizes.enrollments()، ولا تتجاوز أي مادة عدد الطلاب.
+     */
+    private int[] planEnrollments(SplittableRandom random) {
+        int courses = sizes.courses();
+        double[] weights = new double[courses];
+        double total = 0;
+        for (int i = 0; i < courses; i++) {
+            double u = random.nextDouble();
+            weights[i] = 0.25 + u * u * u * 4;
+            total += weights[i];
+        }
+
+        int[] planned = new int[courses];
+        long assigned = 0;
+        for (int i = 0; i < courses; i++) {
+            planned[i] = (int) Math.min(sizes.students(), (long) (sizes.enrollments() * weights[i] / total));
+            assigned += planned[i];
+        }
+        // الباقي (كسور التقريب والمواد التي وصلت لحد عدد الطلاب) يوزع مادة مادة
+        for (int i = 0; assigned < sizes.enrollments(); i = (i + 1) % courses) {
+            if (planned[i] < sizes.students()) {
+                planned[i]++;
+                assigned++;
+            }
+        }
+        return planned;
+    }
+
+    /**
+     * طلاب كل مادة: يبدأ من طالب عشوائي ويقفز بخطوة أولية نسبياً مع عدد الطلاب،
+     * فلا يتكرر طالب في نفس المادة دون الحاجة لمجموعة في الذاكرة.
+     */
+    private void insertEnrollments(Connection connection, int[] planned) throws SQLException {
+        SplittableRandom random = new SplittableRandom(sizes.seed() ^ 0x53454154L);
+        int students = sizes.students();
+        LocalDate firstEnrollment = LocalDate.of(2024, 8, 1);
+        long written = 0;
+        long nextReport = Math.max(1, sizes.enrollments() / 10);
+
+        String sql = "INSERT INTO course_enrollments (course_id, student_id, enrollment_date, status) " +
+                     "VALUES (?, ?, ?, 'ENROLLED')";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (int course = 1; course <= sizes.courses(); course++) {
+                int count = planned[course - 1];
+                int start = random.nextInt(students);
+                int stride = coprimeStride(random, students);
+                for (int j = 0; j < count; j++) {
+                    int student = (int) ((start + (long) j * stride) % students) + 1;
+                    pstmt.setInt(1, course);
+                    pstmt.setString(2, studentId(student));
+                    pstmt.setString(3, firstEnrollment.plusDays(random.nextInt(400)) + " 09:00:00");
+                    pstmt.addBatch();
+
+                    if (++written % BATCH_SIZE == 0) {
+                        pstmt.executeBatch();
+                        connection.commit();
+                        if (written >= nextReport) {
+                            progress("enrollments", written, sizes.enrollments());
+                            nextReport += Math.max(1, sizes.enrollments() / 10);
+                        }
+                    }
+                }
+            }
+            pstmt.executeBatch();
+            connection.commit();
+            if (written % BATCH_SIZE != 0) {
+                progress("enrollments", written, sizes.enrollments());
+            }
+        }
+    }
+
+    private static int coprimeStride(SplittableRandom random, int modulus) {
+        if (modulus == 1) {
+            return 1;
+        }
+        while (true) {
+            int stride = 1 + random.nextInt(modulus - 1);
+            if (gcd(stride, modulus) == 1) {
+                return stride;
+            }
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static final String PERSON_SQL =
+        "INSERT INTO persons (id, type, name, email, phone, address, birth_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static void addPerson(PreparedStatement pstmt, int id, String type, String name, String email,
+                                  SplittableRandom random, LocalDate birthDate) throws SQLException {
+        pstmt.setInt(1, id);
+        pstmt.setString(2, type);
+        pstmt.setString(3, name);
+        pstmt.setString(4, email);
+        pstmt.setString(5, String.format("555-%03d-%04d", random.nextInt(1000), random.nextInt(10_000)));
+        pstmt.setString(6, (1 + random.nextInt(999)) + " " + pick(random, STREETS) + ", " + pick(random, CITIES));
+        pstmt.setString(7, birthDate.toString());
+        pstmt.addBatch();
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static void progress(String table, long done, long total) {
+        System.out.printf("   %-12s %,d / %,d%n", table, done, total);
+    }
+
+    /**
+     * ينشئ ملف قاعدة بيانات جديداً (الوسيط الأول، أو school_scale.db) ويملؤه.
+     */
+    public static void main(String[] args) {
+        String path = args.length > 0 ? args[0] : "school_scale.db";
+        if (new File(path).exists()) {
+            System.err.println("❌ " + path + " already exists; choose a new file for synthetic data");
+            System.exit(1);
+        }
+        System.setProperty("school.db.path", path);
+
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        boolean ok = new SyntheticDataGenerator(db, Sizes.fromSystemProperties()).generate();
+        db.closeConnection();
+        System.exit(ok ? 0 : 1);
+    }
+}
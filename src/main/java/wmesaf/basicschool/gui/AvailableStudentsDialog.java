@@ -0,0 +1,167 @@
+package wmesaf.basicschool.gui;
+
+import wmesaf.basicschool.business.StudentService;
+import wmesaf.basicschool.model.Course;
+import wmesaf.basicschool.model.Student;
+import wmesaf.basicschool.logging.Log;
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Lets the user pick a student who is not yet enrolled in a course.
+ *
+ * Students are read PAGE_SIZE at a time, in student ID order, on a
+ * SwingWorker; "Load More" reads the page after the last student shown.
+ * Typing in the search field restarts the list with the matching names.
+ * Enrolled students are left out by the query itself (an anti-join on
+ * course_enrollments), so the dialog never walks the course's enrollment
+ * list and opening it reads one page however many students exist or are
+ * enrolled.
+ */
+final class AvailableStudentsDialog extends JDialog {
+    static final int PAGE_SIZE = 50;
+
+    private final StudentService studentService;
+    private final int courseId;
+
+    private final DefaultListModel<Student> listModel = new DefaultListModel<>();
+    private final JList<Student> studentList = new JList<>(listModel);
+    private final JTextField searchField = new JTextField(20);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JButton moreButton = new JButton("Load More");
+    private final JButton enrollButton = new JButton("Enroll");
+    private final DebouncedSearch debouncedSearch;
+
+    // يزداد مع كل بحث جديد؛ الصفحات المطلوبة قبله تُهمل عند وصولها
+    private int generation;
+    private Student chosen;
+
+    private AvailableStudentsDialog(Window owner, StudentService studentService, Course course) {
+        super(owner, "Enroll Student - " + course.getCourseCode(), ModalityType.APPLICATION_MODAL);
+        this.studentService = studentService;
+        this.courseId = course.getId();
+
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(new JLabel("Search:"));
+        searchPanel.add(searchField);
+        searchPanel.add(new JLabel("Available seats: " + course.getAvailableSeats()));
+
+        studentList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        studentList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                Student s = (Student) value;
+                String text = s.getStudentId() + " - " + s.getName() + " (" + s.getGrade() + ")";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        studentList.addListSelectionListener(e -> enrollButton.setEnabled(studentList.getSelectedValue() != null));
+        enrollButton.setEnabled(false);
+
+        JButton cancelButton = new JButton("Cancel");
+        moreButton.setEnabled(false);
+        moreButton.addActionListener(e -> loadPage(false));
+        enrollButton.addActionListener(e -> {
+            chosen = studentList.getSelectedValue();
+            dispose();
+        });
+        cancelButton.addActionListener(e -> dispose());
+        debouncedSearch = new DebouncedSearch(searchField, () -> loadPage(true));
+        searchField.addActionListener(e -> {
+            debouncedSearch.cancel();
+            loadPage(true);
+        });
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(moreButton);
+        buttonPanel.add(enrollButton);
+        buttonPanel.add(cancelButton);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
+        southPanel.add(statusLabel, BorderLayout.WEST);
+        southPanel.add(buttonPanel, BorderLayout.EAST);
+
+        setLayout(new BorderLayout(5, 5));
+        add(searchPanel, BorderLayout.NORTH);
+        add(new JScrollPane(studentList), BorderLayout.CENTER);
+        add(southPanel, BorderLayout.SOUTH);
+        setSize(520, 420);
+        setLocationRelativeTo(owner);
+        getRootPane().setDefaultButton(enrollButton);
+
+        loadPage(true);
+    }
+
+    /**
+     * Shows the dialog and waits for the user.
+     *
+     * @return the chosen student, or null if the dialog was cancelled
+     */
+    static Student choose(Window owner, StudentService studentService, Course course) {
+        AvailableStudentsDialog dialog = new AvailableStudentsDialog(owner, studentService, course);
+        dialog.setVisible(true);
+        return dialog.chosen;
+    }
+
+    @Override
+    public void dispose() {
+        debouncedSearch.cancel();
+        generation++;
+        super.dispose();
+    }
+
+    /**
+     * @param restart true for the first page of a new search, false for the page after the last one shown
+     */
+    private void loadPage(boolean restart) {
+        if (restart) {
+            generation++;
+            listModel.clear();
+        }
+        String filter = searchField.getText().trim();
+        String after = listModel.isEmpty() ? null : listModel.lastElement().getStudentId();
+        int requested = generation;
+        moreButton.setEnabled(false);
+        statusLabel.setText("Loading...");
+
+        new SwingWorker<List<Student>, Void>() {
+            @Override
+            protected List<Student> doInBackground() {
+                return studentService.getAvailableStudentsForCourse(courseId, null,
+                    filter.isEmpty() ? null : filter, after, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                if (requested != generation) {
+                    return;
+                }
+                List<Student> page;
+                try {
+                    page = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    Log.error("❌ Error loading available students: {}", cause.getMessage());
+                    statusLabel.setText("Error loading students");
+                    return;
+                }
+                for (Student student : page) {
+                    listModel.addElement(student);
+                }
+                moreButton.setEnabled(page.size() == PAGE_SIZE);
+                if (listModel.isEmpty()) {
+                    statusLabel.setText(filter.isEmpty()
+                        ? "All students are already enrolled in this course."
+                        : "No available students match: " + filter);
+                } else {
+                    statusLabel.setText("Showing " + listModel.size()
+                        + (page.size() == PAGE_SIZE ? "+" : "") + " available students");
+                }
+            }
+        }.execute();
+    }
+}
@@ -14,11 +14,15 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import wmesaf.basicschool.dao.CourseDAO.EnrollmentOutcome;
+import wmesaf.basicschool.dao.EntityCache;
+import wmesaf.basicschool.dao.ListingDAO.Listing;
 import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.logging.Log;
 import java.lang.reflect.Field;
 
 public class CourseManagementFrame extends JFrame {
@@ -26,8 +30,9 @@ public class CourseManagementFrame extends JFrame {
     private TeacherService teacherService;
     private StudentService studentService;
     private JTable courseTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel tableModel;
     private JTextField searchField;
+    private DebouncedSearch debouncedSearch;
     private JButton addSampleDataButton;
     
     public CourseManagementFrame() {
@@ -59,7 +64,9 @@ public class CourseManagementFrame extends JFrame {
         JButton searchButton = new JButton("Search");
         searchButton.setBackground(new Color(142, 68, 173));
         searchButton.setForeground(Color.WHITE);
-        searchButton.addActionListener(e -> searchCourses());
+        searchButton.addActionListener(e -> searchCourses(true));
+        searchField.addActionListener(e -> searchCourses(true));
+        debouncedSearch = new DebouncedSearch(searchField, () -> searchCourses(false));
         
         searchPanel.add(new JLabel("Search:"));
         searchPanel.add(searchField);
@@ -98,14 +105,11 @@ public class CourseManagementFrame extends JFrame {
         // ========== TABLE ==========
         String[] columns = {"Course Code", "Course Name", "Credits", "Department", 
                            "Teacher", "Students", "Start Date", "End Date"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new PagedTableModel(Listing.COURSES, columns);
+        searchPanel.add(tableModel.getLoadingBar());
         
         courseTable = new JTable(tableModel);
+        tableModel.installSortHeader(courseTable);
         courseTable.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         courseTable.setRowHeight(30);
         courseTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14));
@@ -163,61 +167,30 @@ public class CourseManagementFrame extends JFrame {
     }
     
     private void loadCourses() {
-        tableModel.setRowCount(0);
-        List<Course> courses = courseService.getAllCourses();
-        
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
-        for (Course course : courses) {
-            Object[] row = {
-                course.getCourseCode(),
-                course.getCourseName(),
-                course.getCreditHours(),
-                course.getDepartment(),
-                (course.getAssignedTeacher() != null ? course.getAssignedTeacher().getName() : "Not Assigned"),
-                String.format("%d/%d", course.getCurrentEnrollment(), course.getMaxStudents()),
-                course.getStartDate().format(formatter),
-                course.getEndDate().format(formatter)
-            };
-            tableModel.addRow(row);
-        }
-        
         searchField.setText("");
-        addSampleDataButton.setVisible(courses.isEmpty());
+        debouncedSearch.cancel();
+        tableModel.refresh(null, count -> addSampleDataButton.setVisible(count == 0));
     }
     
-    private void searchCourses() {
+    /**
+     * @param announce true for Enter or the Search button; typing searches silently
+     */
+    private void searchCourses(boolean announce) {
+        debouncedSearch.cancel();
         String searchTerm = searchField.getText().trim();
         if (searchTerm.isEmpty()) {
             loadCourses();
             return;
         }
         
-        tableModel.setRowCount(0);
-        List<Course> courses = courseService.searchCourses(searchTerm);
-        
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
-        if (courses.isEmpty()) {
-            JOptionPane.showMessageDialog(this,
-                "No courses found matching: " + searchTerm,
-                "Search Results",
-                JOptionPane.INFORMATION_MESSAGE);
-        }
-        
-        for (Course course : courses) {
-            Object[] row = {
-                course.getCourseCode(),
-                course.getCourseName(),
-                course.getCreditHours(),
-                course.getDepartment(),
-                (course.getAssignedTeacher() != null ? course.getAssignedTeacher().getName() : "Not Assigned"),
-                String.format("%d/%d", course.getCurrentEnrollment(), course.getMaxStudents()),
-                course.getStartDate().format(formatter),
-                course.getEndDate().format(formatter)
-            };
-            tableModel.addRow(row);
-        }
+        tableModel.refresh(searchTerm, count -> {
+            if (count == 0 && announce) {
+                JOptionPane.showMessageDialog(this,
+                    "No courses found matching: " + searchTerm,
+                    "Search Results",
+                    JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
     }
     
     private void addCourse() {
@@ -346,7 +319,7 @@ public class CourseManagementFrame extends JFrame {
     
     private void editCourse() {
         int selectedRow = courseTable.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             JOptionPane.showMessageDialog(this,
                 "Please select a course to edit.",
                 "No Selection",
@@ -481,7 +454,7 @@ public class CourseManagementFrame extends JFrame {
     
     private void deleteCourse() {
         int selectedRow = courseTable.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             JOptionPane.showMessageDialog(this,
                 "Please select a course to delete.",
                 "No Selection",
@@ -525,7 +498,7 @@ public class CourseManagementFrame extends JFrame {
     
     private void manageCourseStudents() {
         int selectedRow = courseTable.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             JOptionPane.showMessageDialog(this,
                 "Please select a course to manage students.",
                 "No Selection",
@@ -535,10 +508,10 @@ public class CourseManagementFrame extends JFrame {
         
         String courseCode = (String) tableModel.getValueAt(selectedRow, 0);
         
-        System.out.println("\n=== OPENING MANAGE STUDENTS FOR: " + courseCode + " ===");
+        Log.debug("=== OPENING MANAGE STUDENTS FOR: {} ===", courseCode);
         
-        // الحصول على المادة مع الطلاب - باستخدام الطريقة الجديدة
-        Course course = createFreshCourseWithEnrollments(courseCode);
+        // المادة مع معلمها وطلابها المسجلين من محمّل المواد المجمّع
+        Course course = courseService.getCourseByCode(courseCode);
         if (course == null) {
             JOptionPane.showMessageDialog(this,
                 "Course not found in database.",
@@ -597,7 +570,7 @@ public class CourseManagementFrame extends JFrame {
         enrolledTable.getTableHeader().setForeground(Color.WHITE);
         
         // تحميل البيانات فوراً
-        System.out.println("📊 Loading table with " + course.getEnrolledStudents().size() + " students...");
+        Log.debug("📊 Loading table with {} students...", course.getEnrolledStudents().size());
         refreshEnrolledStudentsTable(enrolledModel, course);
         
         JScrollPane enrolledScroll = new JScrollPane(enrolledTable);
@@ -607,6 +580,16 @@ public class CourseManagementFrame extends JFrame {
             0, 0, new Font("Arial", Font.BOLD, 14)
         ));
         
+        // تحديث عناصر النافذة بعد إعادة تحميل الطلاب
+        Runnable updateView = () -> {
+            refreshEnrolledStudentsTable(enrolledModel, course);
+            enrollmentValue.setText(course.getCurrentEnrollment() + "/" + course.getMaxStudents());
+            availableValue.setText(String.valueOf(course.getAvailableSeats()));
+            enrolledScroll.setBorder(BorderFactory.createTitledBorder(
+                "Enrolled Students (" + course.getCurrentEnrollment() + ")"
+            ));
+        };
+        
         // ========== أزرار التحكم ==========
         JPanel buttonPanel = new JPanel(new GridLayout(1, 4, 10, 0));
         buttonPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -627,68 +610,33 @@ public class CourseManagementFrame extends JFrame {
                 return;
             }
             
-            // الحصول على الطلاب المتاحين
-            List<Student> availableStudents = getAvailableStudentsForCourse(course.getId());
+            // اختيار طالب غير مسجل؛ القائمة تُقرأ صفحة صفحة
+            Student selectedStudent = AvailableStudentsDialog.choose(dialog, studentService, course);
             
-            if (availableStudents.isEmpty()) {
-                JOptionPane.showMessageDialog(dialog,
-                    "All students are already enrolled in this course.",
-                    "No Students Available",
-                    JOptionPane.INFORMATION_MESSAGE);
-                return;
-            }
-            
-            String[] studentOptions = new String[availableStudents.size()];
-            for (int i = 0; i < availableStudents.size(); i++) {
-                Student s = availableStudents.get(i);
-                studentOptions[i] = s.getStudentId() + " - " + s.getName() + " (" + s.getGrade() + ")";
-            }
-            
-            String selectedStudent = (String) JOptionPane.showInputDialog(dialog,
-                "Select student to enroll:\n" +
-                "Available seats: " + course.getAvailableSeats() + "\n" +
-                "Current enrollment: " + course.getCurrentEnrollment() + "/" + course.getMaxStudents(),
-                "Enroll Student",
-                JOptionPane.PLAIN_MESSAGE,
-                null,
-                studentOptions,
-                studentOptions[0]);
-            
-            if (selectedStudent != null && !selectedStudent.isEmpty()) {
-                String studentId = selectedStudent.split(" - ")[0];
+            if (selectedStudent != null) {
+                String studentId = selectedStudent.getStudentId();
                 
                 try {
-                    // تسجيل الطالب
-                    boolean success = enrollStudentDirect(course.getId(), studentId);
+                    // تسجيل الطالب؛ المقاعد والساعات تُتحقق في SQL داخل المعاملة
+                    EnrollmentOutcome outcome =
+                        courseService.enrollStudents(course.getId(), List.of(studentId)).get(studentId);
                     
-                    if (success) {
-                        // إعادة تحميل البيانات
-                        Course updatedCourse = createFreshCourseWithEnrollments(courseCode);
-                        if (updatedCourse != null) {
-                            // نسخ الطلاب إلى الكائن الحالي
-                            copyCourseStudents(course, updatedCourse);
-                        }
-                        
-                        // تحديث الواجهة
-                        refreshEnrolledStudentsTable(enrolledModel, course);
-                        enrollmentValue.setText(course.getCurrentEnrollment() + "/" + course.getMaxStudents());
-                        availableValue.setText(String.valueOf(course.getAvailableSeats()));
-                        enrolledScroll.setBorder(BorderFactory.createTitledBorder(
-                            "Enrolled Students (" + course.getCurrentEnrollment() + ")"
-                        ));
-                        
-                        // تحديث الجدول الرئيسي
-                        updateMainCourseTable(courseCode, course.getCurrentEnrollment());
-                        
-                        JOptionPane.showMessageDialog(dialog,
-                            "✅ Student enrolled successfully!\n\n" +
-                            "Student: " + selectedStudent.split(" - ")[1] + "\n" +
-                            "New enrollment: " + course.getCurrentEnrollment() + "/" + course.getMaxStudents(),
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE);
+                    if (outcome == EnrollmentOutcome.ENROLLED) {
+                        // إعادة تحميل البيانات في الخلفية ثم تحديث الواجهة
+                        reloadCourse(courseCode, course, () -> {
+                            updateView.run();
+                            updateMainCourseTable(courseCode, course.getCurrentEnrollment());
+                            
+                            JOptionPane.showMessageDialog(dialog,
+                                "✅ Student enrolled successfully!\n\n" +
+                                "Student: " + selectedStudent.getName() + "\n" +
+                                "New enrollment: " + course.getCurrentEnrollment() + "/" + course.getMaxStudents(),
+                                "Success",
+                                JOptionPane.INFORMATION_MESSAGE);
+                        });
                     } else {
                         JOptionPane.showMessageDialog(dialog,
-                            "❌ Failed to enroll student.",
+                            "❌ Failed to enroll student: " + describeOutcome(outcome),
                             "Enrollment Failed",
                             JOptionPane.ERROR_MESSAGE);
                     }
@@ -727,28 +675,16 @@ public class CourseManagementFrame extends JFrame {
                     boolean success = unenrollStudentDirect(course.getId(), studentId);
                     
                     if (success) {
-                        // إعادة تحميل البيانات
-                        Course updatedCourse = createFreshCourseWithEnrollments(courseCode);
-                        if (updatedCourse != null) {
-                            // نسخ الطلاب إلى الكائن الحالي
-                            copyCourseStudents(course, updatedCourse);
-                        }
-                        
-                        // تحديث الواجهة
-                        refreshEnrolledStudentsTable(enrolledModel, course);
-                        enrollmentValue.setText(course.getCurrentEnrollment() + "/" + course.getMaxStudents());
-                        availableValue.setText(String.valueOf(course.getAvailableSeats()));
-                        enrolledScroll.setBorder(BorderFactory.createTitledBorder(
-                            "Enrolled Students (" + course.getCurrentEnrollment() + ")"
-                        ));
-                        
-                        // تحديث الجدول الرئيسي
-                        updateMainCourseTable(courseCode, course.getCurrentEnrollment());
-                        
-                        JOptionPane.showMessageDialog(dialog,
-                            "✅ Student removed from course.",
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE);
+                        // إعادة تحميل البيانات في الخلفية ثم تحديث الواجهة
+                        reloadCourse(courseCode, course, () -> {
+                            updateView.run();
+                            updateMainCourseTable(courseCode, course.getCurrentEnrollment());
+                            
+                            JOptionPane.showMessageDialog(dialog,
+                                "✅ Student removed from course.",
+                                "Success",
+                                JOptionPane.INFORMATION_MESSAGE);
+                        });
                     } else {
                         JOptionPane.showMessageDialog(dialog,
                             "❌ Failed to remove student.",
@@ -765,23 +701,14 @@ public class CourseManagementFrame extends JFrame {
         });
         
         refreshButton.addActionListener(e -> {
-            System.out.println("\n=== MANUAL REFRESH CLICKED ===");
-            Course refreshedCourse = createFreshCourseWithEnrollments(courseCode);
-            if (refreshedCourse != null) {
-                // نسخ الطلاب إلى الكائن الحالي
-                copyCourseStudents(course, refreshedCourse);
-                
-                refreshEnrolledStudentsTable(enrolledModel, course);
-                enrollmentValue.setText(course.getCurrentEnrollment() + "/" + course.getMaxStudents());
-                availableValue.setText(String.valueOf(course.getAvailableSeats()));
-                enrolledScroll.setBorder(BorderFactory.createTitledBorder(
-                    "Enrolled Students (" + course.getCurrentEnrollment() + ")"
-                ));
+            Log.debug("=== MANUAL REFRESH CLICKED ===");
+            reloadCourse(courseCode, course, () -> {
+                updateView.run();
                 JOptionPane.showMessageDialog(dialog,
                     "✅ Refreshed! Showing " + course.getCurrentEnrollment() + " students.",
                     "Refresh Complete",
                     JOptionPane.INFORMATION_MESSAGE);
-            }
+            });
         });
         
         closeButton.addActionListener(e -> {
@@ -802,7 +729,7 @@ public class CourseManagementFrame extends JFrame {
         dialog.setLocationRelativeTo(this);
         dialog.setVisible(true);
         
-        System.out.println("=== DIALOG DISPLAYED ===");
+        Log.debug("=== DIALOG DISPLAYED ===");
     }
     
     private JButton createStyledButton(String text, Color color) {
@@ -818,7 +745,7 @@ public class CourseManagementFrame extends JFrame {
     
     private void viewCourseDetails() {
         int selectedRow = courseTable.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             JOptionPane.showMessageDialog(this,
                 "Please select a course to view details.",
                 "No Selection",
@@ -882,6 +809,13 @@ public class CourseManagementFrame extends JFrame {
         }
     }
     
+    @Override
+    public void dispose() {
+        debouncedSearch.cancel();
+        tableModel.cancel();
+        super.dispose();
+    }
+    
     private void setupFrame() {
         setTitle("Course Management");
         setSize(1200, 700);
@@ -892,71 +826,35 @@ public class CourseManagementFrame extends JFrame {
     // ==================== الدوال المساعدة الجديدة ====================
     
     /**
-     * إنشاء مادة جديدة تماماً مع الطلاب (الحل النهائي)
+     * إعادة تحميل المادة مع طلابها خارج خيط الواجهة، ثم نسخ الطلاب إلى course
+     * وتنفيذ onLoaded على خيط الواجهة
      */
-    private Course createFreshCourseWithEnrollments(String courseCode) {
-        // الحصول على المادة الأساسية
-        Course baseCourse = courseService.getCourseByCode(courseCode);
-        if (baseCourse == null) {
-            System.err.println("❌ Base course not found: " + courseCode);
-            return null;
-        }
-        
-        // الحصول على الطلاب المسجلين
-        List<Student> enrolledStudents = getEnrolledStudentsDirect(baseCourse.getId());
-        
-        System.out.println("🆕 Creating fresh course for: " + courseCode);
-        System.out.println("   Base course ID: " + baseCourse.getId());
-        System.out.println("   Students from DB: " + enrolledStudents.size());
-        
-        // إنشاء مادة جديدة
-        Course freshCourse = new Course(
-            baseCourse.getCourseCode(),
-            baseCourse.getCourseName(),
-            baseCourse.getDescription(),
-            baseCourse.getCreditHours(),
-            baseCourse.getDepartment(),
-            baseCourse.getStartDate(),
-            baseCourse.getEndDate(),
-            baseCourse.getMaxStudents()
-        );
-        
-        freshCourse.setId(baseCourse.getId());
-        freshCourse.setAssignedTeacher(baseCourse.getAssignedTeacher());
-        
-        // الحل الحاسم: استخدام Reflection لإضافة الطلاب إلى القائمة الداخلية
-        try {
-            Field enrolledStudentsField = Course.class.getDeclaredField("enrolledStudents");
-            enrolledStudentsField.setAccessible(true);
-            enrolledStudentsField.set(freshCourse, new ArrayList<>(enrolledStudents));
-            
-            System.out.println("✅ Successfully set " + enrolledStudents.size() + " students via Reflection");
-            
-            // التحقق
-            int actualCount = freshCourse.getEnrolledStudents().size();
-            System.out.println("   Verification: Course now has " + actualCount + " students");
-            
-            if (!enrolledStudents.isEmpty()) {
-                System.out.println("   Sample student: " + freshCourse.getEnrolledStudents().get(0).getName());
+    private void reloadCourse(String courseCode, Course course, Runnable onLoaded) {
+        new SwingWorker<Course, Void>() {
+            @Override
+            protected Course doInBackground() {
+                return courseService.getCourseByCode(courseCode);
             }
             
-        } catch (Exception e) {
-            System.err.println("❌ Reflection failed: " + e.getMessage());
-            
-            // بديل: استخدام enrollStudent لكل طالب
-            System.out.println("   Falling back to enrollStudent method");
-            for (Student student : enrolledStudents) {
+            @Override
+            protected void done() {
+                Course updatedCourse;
                 try {
-                    freshCourse.enrollStudent(student);
-                } catch (Exception ex) {
-                    System.err.println("   ⚠️ Could not enroll " + student.getStudentId() + ": " + ex.getMessage());
+                    updatedCourse = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    Log.error("❌ Error reloading course {}: {}", courseCode, cause.getMessage());
+                    return;
                 }
+                if (updatedCourse == null) {
+                    Log.error("❌ Course not found: {}", courseCode);
+                    return;
+                }
+                // نسخ الطلاب إلى الكائن الحالي
+                copyCourseStudents(course, updatedCourse);
+                onLoaded.run();
             }
-            
-            System.out.println("   Final count after fallback: " + freshCourse.getEnrolledStudents().size());
-        }
-        
-        return freshCourse;
+        }.execute();
     }
     
     /**
@@ -973,10 +871,10 @@ public class CourseManagementFrame extends JFrame {
             List<Student> sourceStudents = (List<Student>) sourceField.get(source);
             targetField.set(target, new ArrayList<>(sourceStudents));
             
-            System.out.println("✅ Copied " + sourceStudents.size() + " students from source to target");
+            Log.info("✅ Copied {} students from source to target", sourceStudents.size());
             
         } catch (Exception e) {
-            System.err.println("❌ Error copying students: " + e.getMessage());
+            Log.error("❌ Error copying students: {}", e.getMessage());
             
             // بديل يدوي
             target.getEnrolledStudents().clear();
@@ -990,111 +888,20 @@ public class CourseManagementFrame extends JFrame {
         }
     }
     
-    /**
-     * الحصول على الطلاب المسجلين مباشرة من قاعدة البيانات
-     */
-    private List<Student> getEnrolledStudentsDirect(int courseId) {
-        List<Student> students = new ArrayList<>();
-        
-        Connection connection = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        
-        try {
-            connection = DatabaseConnection.getInstance().getConnection();
-            
-            String sql = """
-                SELECT DISTINCT s.student_id
-                FROM course_enrollments ce
-                INNER JOIN students s ON ce.student_id = s.student_id
-                WHERE ce.course_id = ?
-                ORDER BY s.student_id
-                """;
-            
-            pstmt = connection.prepareStatement(sql);
-            pstmt.setInt(1, courseId);
-            rs = pstmt.executeQuery();
-            
-            int count = 0;
-            while (rs.next()) {
-                count++;
-                String studentId = rs.getString("student_id");
-                
-                // استخدام studentService
-                Student student = studentService.getStudentByStudentId(studentId);
-                if (student != null) {
-                    students.add(student);
-                } else {
-                    System.err.println("   ❗ Student not found: " + studentId);
-                }
-            }
-            
-            System.out.println("📋 Retrieved " + students.size() + " students from DB (out of " + count + " records)");
-            
-        } catch (SQLException e) {
-            System.err.println("❌ SQL Error in getEnrolledStudentsDirect: " + e.getMessage());
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing resources: " + e.getMessage());
-            }
-        }
-        
-        return students;
-    }
-    
-    /**
-     * الحصول على الطلاب المتاحين للتسجيل في المادة
-     */
-    private List<Student> getAvailableStudentsForCourse(int courseId) {
-        List<Student> allStudents = studentService.getAllStudents();
-        List<Student> enrolledStudents = getEnrolledStudentsDirect(courseId);
-        List<Student> availableStudents = new ArrayList<>();
-        
-        for (Student student : allStudents) {
-            boolean isEnrolled = false;
-            for (Student enrolled : enrolledStudents) {
-                if (enrolled.getStudentId().equals(student.getStudentId())) {
-                    isEnrolled = true;
-                    break;
-                }
-            }
-            if (!isEnrolled) {
-                availableStudents.add(student);
-            }
-        }
-        
-        return availableStudents;
-    }
-    
-    /**
-     * تسجيل طالب مباشرة في قاعدة البيانات
-     */
-    private boolean enrollStudentDirect(int courseId, String studentId) {
-        Connection connection = null;
-        PreparedStatement pstmt = null;
-        
-        try {
-            connection = DatabaseConnection.getInstance().getConnection();
-            String sql = "INSERT INTO course_enrollments (course_id, student_id) VALUES (?, ?)";
-            pstmt = connection.prepareStatement(sql);
-            pstmt.setInt(1, courseId);
-            pstmt.setString(2, studentId);
-            
-            int result = pstmt.executeUpdate();
-            System.out.println("✅ Direct enrollment: " + studentId + " -> course " + courseId + " (result: " + result + ")");
-            return result > 0;
-        } catch (SQLException e) {
-            System.err.println("❌ Error enrolling student: " + e.getMessage());
-            return false;
-        } finally {
-            try {
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing statement: " + e.getMessage());
-            }
+    private static String describeOutcome(EnrollmentOutcome outcome) {
+        switch (outcome) {
+            case ALREADY_ENROLLED:
+                return "the student is already enrolled.";
+            case COURSE_FULL:
+                return "the course is full.";
+            case CREDIT_LIMIT_EXCEEDED:
+                return "the student would exceed " + CourseService.MAX_CREDIT_HOURS + " credit hours.";
+            case STUDENT_NOT_FOUND:
+                return "student not found.";
+            case COURSE_NOT_FOUND:
+                return "course not found.";
+            default:
+                return "database error.";
         }
     }
     
@@ -1113,16 +920,18 @@ public class CourseManagementFrame extends JFrame {
             pstmt.setString(2, studentId);
             
             int result = pstmt.executeUpdate();
-            System.out.println("✅ Direct unenrollment: " + studentId + " <- course " + courseId + " (result: " + result + ")");
+            EntityCache.getInstance().coursesChanged();
+            Log.info("✅ Direct unenrollment: {} <- course {} (result: {})", studentId, courseId, result);
             return result > 0;
         } catch (SQLException e) {
-            System.err.println("❌ Error unenrolling student: " + e.getMessage());
+            Log.error("❌ Error unenrolling student: {}", e.getMessage());
             return false;
         } finally {
             try {
                 if (pstmt != null) pstmt.close();
+                if (connection != null) connection.close();
             } catch (SQLException e) {
-                System.err.println("Error closing statement: " + e.getMessage());
+                Log.error("Error closing statement: {}", e.getMessage());
             }
         }
     }
@@ -1131,8 +940,8 @@ public class CourseManagementFrame extends JFrame {
      * تحديث جدول الطلاب
      */
     private void refreshEnrolledStudentsTable(DefaultTableModel model, Course course) {
-        System.out.println("🔄 Refreshing table for: " + course.getCourseCode());
-        System.out.println("   Course has " + course.getEnrolledStudents().size() + " students");
+        Log.debug("🔄 Refreshing table for: {}", course.getCourseCode());
+        Log.debug("   Course has {} students", course.getEnrolledStudents().size());
         
         model.setRowCount(0);
         
@@ -1149,7 +958,7 @@ public class CourseManagementFrame extends JFrame {
             addedRows++;
         }
         
-        System.out.println("✅ Added " + addedRows + " rows to table");
+        Log.info("✅ Added {} rows to table", addedRows);
         model.fireTableDataChanged();
     }
     
@@ -1157,17 +966,10 @@ public class CourseManagementFrame extends JFrame {
      * تحديث الجدول الرئيسي
      */
     private void updateMainCourseTable(String courseCode, int currentEnrollment) {
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            if (tableModel.getValueAt(i, 0).equals(courseCode)) {
-                Course course = courseService.getCourseByCode(courseCode);
-                if (course != null) {
-                    tableModel.setValueAt(
-                        String.format("%d/%d", currentEnrollment, course.getMaxStudents()), 
-                        i, 5
-                    );
-                }
-                break;
-            }
+        Course course = courseService.getCourseByCode(courseCode);
+        if (course != null) {
+            tableModel.updateLoadedValue(courseCode,
+                5, String.format("%d/%d", currentEnrollment, course.getMaxStudents()));
         }
     }
     
@@ -0,0 +1,46 @@
+package wmesaf.basicschool.gui;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Runs a search shortly after the user stops typing in a search field.
+ *
+ * Every edit restarts a one-shot Swing timer, so typing a whole name runs
+ * one search instead of one per keystroke. The search runs on the EDT.
+ */
+final class DebouncedSearch {
+    static final int DELAY_MS = 250;
+
+    private final Timer timer;
+
+    DebouncedSearch(JTextField field, Runnable search) {
+        this.timer = new Timer(DELAY_MS, e -> search.run());
+        timer.setRepeats(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // تغيير التنسيق فقط، النص لم يتغير
+            }
+        });
+    }
+
+    /**
+     * يلغي بحثاً مؤجلاً لم يبدأ بعد (مثلاً عند الضغط على Enter أو مسح الحقل برمجياً).
+     */
+    void cancel() {
+        timer.stop();
+    }
+}
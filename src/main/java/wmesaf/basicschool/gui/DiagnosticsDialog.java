@@ -0,0 +1,194 @@
+package wmesaf.basicschool.gui;
+
+import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.database.QueryStatistics;
+import wmesaf.basicschool.database.QueryStatistics.SlowQuery;
+import wmesaf.basicschool.database.QueryStatistics.TemplateSnapshot;
+import wmesaf.basicschool.logging.Log;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Shows the query statistics, the recent slow queries and the connection
+ * pools. The figures are refreshed every two seconds while the dialog is
+ * open; they are in-memory counters, so reading them does not touch the
+ * database.
+ */
+final class DiagnosticsDialog extends JDialog {
+    private static final int REFRESH_MILLIS = 2000;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final QueryStatistics statistics = QueryStatistics.getInstance();
+
+    private final ListTableModel<TemplateSnapshot> queryModel = new ListTableModel<>(
+        new String[] {"SQL Template", "Runs", "Errors", "Rows", "Total ms", "Mean ms", "p50 ms", "p95 ms", "p99 ms", "Max ms"},
+        new Class<?>[] {String.class, Long.class, Long.class, Long.class,
+                        Double.class, Double.class, Double.class, Double.class, Double.class, Double.class},
+        s -> new Object[] {s.template(), s.executions(), s.errors(), s.rows(), round(s.totalMillis()),
+                           round(s.meanMillis()), round(s.p50Millis()), round(s.p95Millis()),
+                           round(s.p99Millis()), round(s.maxMillis())});
+
+    private final ListTableModel<SlowQuery> slowModel = new ListTableModel<>(
+        new String[] {"Time", "ms", "Rows", "Thread", "SQL"},
+        new Class<?>[] {String.class, Double.class, Long.class, String.class, String.class},
+        q -> new Object[] {q.at().format(TIME), round(q.millis()), q.rows(), q.thread(), q.sql()});
+
+    private final JTextArea connectionsArea = new JTextArea();
+    private final JLabel summaryLabel = new JLabel(" ");
+    private final Timer refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+
+    private DiagnosticsDialog(Window owner) {
+        super(owner, "Diagnostics", ModalityType.MODELESS);
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Queries", new JScrollPane(createTable(queryModel, 420)));
+        tabs.addTab("Slow Queries", new JScrollPane(createTable(slowModel, 0)));
+        connectionsArea.setEditable(false);
+        connectionsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+        tabs.addTab("Connections", new JScrollPane(connectionsArea));
+
+        JCheckBox instrumentBox = new JCheckBox("Measure queries", statistics.isEnabled());
+        instrumentBox.setToolTipText("Applies to statements created after the change");
+        instrumentBox.addActionListener(e -> statistics.setEnabled(instrumentBox.isSelected()));
+
+        JButton refreshButton = new JButton("Refresh");
+        JButton resetButton = new JButton("Reset");
+        JButton closeButton = new JButton("Close");
+        refreshButton.addActionListener(e -> refresh());
+        resetButton.addActionListener(e -> {
+            statistics.reset();
+            refresh();
+        });
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(instrumentBox);
+        buttonPanel.add(refreshButton);
+        buttonPanel.add(resetButton);
+        buttonPanel.add(closeButton);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
+        southPanel.add(summaryLabel, BorderLayout.WEST);
+        southPanel.add(buttonPanel, BorderLayout.EAST);
+
+        setLayout(new BorderLayout(5, 5));
+        add(tabs, BorderLayout.CENTER);
+        add(southPanel, BorderLayout.SOUTH);
+        setSize(1000, 520);
+        setLocationRelativeTo(owner);
+
+        refresh();
+        refreshTimer.start();
+    }
+
+    static void open(Window owner) {
+        new DiagnosticsDialog(owner).setVisible(true);
+    }
+
+    @Override
+    public void dispose() {
+        refreshTimer.stop();
+        super.dispose();
+    }
+
+    private static JTable createTable(AbstractTableModel model, int firstColumnWidth) {
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.setFillsViewportHeight(true);
+        if (firstColumnWidth > 0) {
+            table.getColumnModel().getColumn(0).setPreferredWidth(firstColumnWidth);
+        }
+        return table;
+    }
+
+    private void refresh() {
+        List<TemplateSnapshot> snapshot = statistics.getSnapshot();
+        queryModel.setRows(snapshot);
+        slowModel.setRows(statistics.getSlowQueryList());
+
+        long executions = snapshot.stream().mapToLong(TemplateSnapshot::executions).sum();
+        long errors = snapshot.stream().mapToLong(TemplateSnapshot::errors).sum();
+        summaryLabel.setText(snapshot.size() + " templates, " + executions + " executions, " + errors
+                             + " errors, slow threshold " + statistics.getSlowQueryThresholdMillis() + " ms");
+
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        StringBuilder text = new StringBuilder();
+        appendPool(text, "Read-write pool", db.getPoolStatistics());
+        appendPool(text, "Read-only pool", db.getReadPoolStatistics());
+        appendPool(text, "Prepared statement cache", db.getStatementCacheStatistics());
+        text.append("Database: ").append(db.getDatabaseInfo()).append('\n')
+            .append("Log level: ").append(Log.getLevel())
+            .append(" (dropped messages: ").append(Log.getDroppedCount()).append(")\n");
+        connectionsArea.setText(text.toString());
+    }
+
+    private static void appendPool(StringBuilder text, String title, Map<String, Object> stats) {
+        text.append(title).append('\n');
+        if (stats.isEmpty()) {
+            text.append("   (not in use)\n");
+        }
+        for (Map.Entry<String, Object> entry : stats.entrySet()) {
+            Object value = entry.getValue();
+            text.append(String.format("   %-18s %s%n", entry.getKey(),
+                value instanceof Double d ? String.format("%.2f", d) : value));
+        }
+        text.append('\n');
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100) / 100.0;
+    }
+
+    /**
+     * جدول للقراءة فقط فوق قائمة، كل صف يُحوَّل إلى أعمدة بالدالة المعطاة
+     */
+    private static final class ListTableModel<T> extends AbstractTableModel {
+        private final String[] columns;
+        private final Class<?>[] types;
+        private final Function<T, Object[]> toRow;
+        private List<Object[]> rows = new ArrayList<>();
+
+        ListTableModel(String[] columns, Class<?>[] types, Function<T, Object[]> toRow) {
+            this.columns = columns;
+            this.types = types;
+            this.toRow = toRow;
+        }
+
+        void setRows(List<T> items) {
+            rows = items.stream().map(toRow).toList();
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return types[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return rows.get(row)[column];
+        }
+    }
+}
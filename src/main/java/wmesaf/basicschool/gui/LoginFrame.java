@@ -1,7 +1,9 @@
 package wmesaf.basicschool.gui;
 
 import wmesaf.basicschool.dao.AdminDAO;
+import wmesaf.basicschool.database.DatabaseConnection;
 import wmesaf.basicschool.model.Admin;
+import wmesaf.basicschool.logging.Log;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -224,32 +226,49 @@ public class LoginFrame extends JFrame {
             return;
         }
         
-        try {
-            // Authenticate using AdminDAO
-            AdminDAO adminDAO = new AdminDAO();
-            Admin admin = adminDAO.authenticate(username, password);
-            
-            if (admin != null) {
-                showMessage("Login successful! Welcome, " + admin.getFullName(), SUCCESS_COLOR);
-                
-                // Open main dashboard after short delay
-                Timer timer = new Timer(1000, e -> {
-                    // تمرير admin إلى MainFrame
-                    new MainFrame(admin).setVisible(true);
-                    dispose(); // Close login window
-                });
-                timer.setRepeats(false);
-                timer.start();
-                
-            } else {
-                // Fallback to emergency login if database is down
-                openEmergencyLogin();
+        // قاعدة البيانات قد تكون ما زالت تُهيأ في الخلفية، فالتحقق يتم خارج خيط الواجهة
+        showMessage(DatabaseConnection.isInitialized() ? "Signing in..." : "Connecting to database...",
+                    Color.GRAY);
+        loginButton.setEnabled(false);
+        
+        new SwingWorker<Admin, Void>() {
+            @Override
+            protected Admin doInBackground() {
+                // Authenticate using AdminDAO
+                AdminDAO adminDAO = new AdminDAO();
+                return adminDAO.authenticate(username, password);
             }
             
-        } catch (Exception ex) {
-            System.err.println("Database error, using emergency login: " + ex.getMessage());
-            openEmergencyLogin();
-        }
+            @Override
+            protected void done() {
+                loginButton.setEnabled(true);
+                try {
+                    Admin admin = get();
+                    
+                    if (admin != null) {
+                        showMessage("Login successful! Welcome, " + admin.getFullName(), SUCCESS_COLOR);
+                        
+                        // Open main dashboard after short delay
+                        Timer timer = new Timer(1000, e -> {
+                            // تمرير admin إلى MainFrame
+                            new MainFrame(admin).setVisible(true);
+                            dispose(); // Close login window
+                        });
+                        timer.setRepeats(false);
+                        timer.start();
+                        
+                    } else {
+                        // Fallback to emergency login if database is down
+                        openEmergencyLogin();
+                    }
+                    
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    Log.error("Database error, using emergency login: {}", cause.getMessage());
+                    openEmergencyLogin();
+                }
+            }
+        }.execute();
     }
     
     private void openEmergencyLogin() {
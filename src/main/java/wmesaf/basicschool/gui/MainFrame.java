@@ -5,10 +5,13 @@ import wmesaf.basicschool.dao.StudentDAO;
 import wmesaf.basicschool.dao.TeacherDAO;
 import wmesaf.basicschool.business.DashboardService;
 import wmesaf.basicschool.business.ReportService;
+import wmesaf.basicschool.database.DatabaseConnection;
+import wmesaf.basicschool.logging.Log;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 public class MainFrame extends JFrame {
     private Admin currentAdmin;
@@ -30,6 +33,7 @@ public class MainFrame extends JFrame {
     private double totalSalary = 0;
     private String systemStatus = "Unknown";
     private String databaseStatus = "Unknown";
+    private SwingWorker<Map<String, Object>, Void> statisticsWorker;
     
     public MainFrame(Admin admin) {
         this.currentAdmin = admin;
@@ -37,26 +41,27 @@ public class MainFrame extends JFrame {
         this.teacherDAO = new TeacherDAO();
         this.dashboardService = new DashboardService();
         this.reportService = new ReportService();
-        loadRealStatistics();
+        // الواجهة تظهر فوراً والإحصائيات تُحمل في الخلفية
+        systemStatus = "Loading...";
+        databaseStatus = "Loading...";
         initUI();
         setupFrame();
+        refreshDashboard(false);
     }
     
-    private void loadRealStatistics() {
-        Map<String, Object> stats = dashboardService.getDashboardStatistics();
-        
+    private void applyStatistics(Map<String, Object> stats) {
         totalStudents = (int) stats.get("totalStudents");
         totalTeachers = (int) stats.get("totalTeachers");
         totalSalary = (double) stats.get("totalSalary");
         systemStatus = (String) stats.get("systemStatus");
         databaseStatus = (String) stats.get("databaseStatus");
         
-        System.out.println("Real Statistics Loaded from DashboardService:");
-        System.out.println("   Students: " + totalStudents);
-        System.out.println("   Teachers: " + totalTeachers);
-        System.out.println("   Total Salary: $" + totalSalary);
-        System.out.println("   System Status: " + systemStatus);
-        System.out.println("   Database Status: " + databaseStatus);
+        Log.debug("Real Statistics Loaded from DashboardService:");
+        Log.debug("   Students: {}", totalStudents);
+        Log.debug("   Teachers: {}", totalTeachers);
+        Log.debug("   Total Salary: ${}", totalSalary);
+        Log.debug("   System Status: {}", systemStatus);
+        Log.debug("   Database Status: {}", databaseStatus);
     }
     
     private void initUI() {
@@ -118,6 +123,7 @@ public class MainFrame extends JFrame {
             "Teacher Management",
             "Course Management",
             "Reports",
+            "Diagnostics",
             "Settings"
         };
         
@@ -224,7 +230,7 @@ public class MainFrame extends JFrame {
     }
     
     private void handleMenuAction(String menuItem) {
-        System.out.println("Menu clicked: " + menuItem);
+        Log.debug("Menu clicked: {}", menuItem);
         
         switch (menuItem) {
             case "Dashboard":
@@ -242,26 +248,74 @@ public class MainFrame extends JFrame {
             case "Reports":
                 showEnhancedReports();
                 break;
+            case "Diagnostics":
+                DiagnosticsDialog.open(this);
+                break;
             case "Settings":
                 showSettings();
                 break;
             default:
-                System.out.println("Unknown menu item: " + menuItem);
+                Log.warn("Unknown menu item: {}", menuItem);
         }
     }
     
     private void refreshDashboard() {
-        // تحديث الإحصائيات
-        loadRealStatistics();
+        refreshDashboard(true);
+    }
+    
+    /**
+     * Loads the dashboard statistics on a SwingWorker and rebuilds the view on the EDT.
+     * A refresh that is still running when a new one starts is cancelled and its result dropped.
+     */
+    private void refreshDashboard(boolean announce) {
+        if (statisticsWorker != null) {
+            statisticsWorker.cancel(false);
+        }
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
         
+        statisticsWorker = new SwingWorker<>() {
+            @Override
+            protected Map<String, Object> doInBackground() {
+                return dashboardService.getDashboardStatistics();
+            }
+            
+            @Override
+            protected void done() {
+                if (this != statisticsWorker || isCancelled()) {
+                    return;
+                }
+                statisticsWorker = null;
+                setCursor(Cursor.getDefaultCursor());
+                
+                try {
+                    applyStatistics(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    Log.error("❌ Error loading dashboard statistics: {}", cause.getMessage());
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Could not load dashboard statistics:\n" + cause.getMessage(),
+                        "Dashboard Error",
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                showStatistics(announce);
+            }
+        };
+        statisticsWorker.execute();
+    }
+    
+    private void showStatistics(boolean announce) {
         // إعادة إنشاء واجهة Dashboard
         getContentPane().removeAll();
         initUI();
         revalidate();
         repaint();
         
-        System.out.println("Dashboard refreshed with real statistics");
+        Log.debug("Dashboard refreshed with real statistics");
         
+        if (!announce) {
+            return;
+        }
         JOptionPane.showMessageDialog(this,
             "Dashboard refreshed with real-time data!\n\n" +
             "Updated Statistics:\n" +
@@ -279,7 +333,7 @@ public class MainFrame extends JFrame {
             try {
                 StudentManagementFrame studentFrame = new StudentManagementFrame();
                 studentFrame.setVisible(true);
-                System.out.println("Student Management opened successfully");
+                Log.debug("Student Management opened successfully");
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this,
                     "Error opening Student Management:\n" + e.getMessage(),
@@ -294,7 +348,7 @@ public class MainFrame extends JFrame {
             try {
                 TeacherManagementFrame teacherFrame = new TeacherManagementFrame();
                 teacherFrame.setVisible(true);
-                System.out.println("Teacher Management opened successfully");
+                Log.debug("Teacher Management opened successfully");
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this,
                     "Error opening Teacher Management:\n" + e.getMessage(),
@@ -309,7 +363,7 @@ public class MainFrame extends JFrame {
             try {
                 CourseManagementFrame courseFrame = new CourseManagementFrame();
                 courseFrame.setVisible(true);
-                System.out.println("Course Management opened successfully");
+                Log.debug("Course Management opened successfully");
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this,
                     "Error opening Course Management:\n" + e.getMessage(),
@@ -366,43 +420,50 @@ public class MainFrame extends JFrame {
             exportButton.setForeground(Color.WHITE);
             exportButton.addActionListener(e -> {
                 int selectedTab = tabbedPane.getSelectedIndex();
-                String report = "";
-                String filename = "";
-                
-                switch (selectedTab) {
-                    case 0:
-                        report = reportService.generateStudentStatisticsReport();
-                        filename = "student_report_" + java.time.LocalDate.now() + ".txt";
-                        break;
-                    case 1:
-                        report = reportService.generateTeacherStatisticsReport();
-                        filename = "teacher_report_" + java.time.LocalDate.now() + ".txt";
-                        break;
-                    case 2:
-                        report = reportService.generateCourseStatisticsReport();
-                        filename = "course_report_" + java.time.LocalDate.now() + ".txt";
-                        break;
-                    case 3:
-                        report = reportService.generateSystemSummaryReport();
-                        filename = "system_report_" + java.time.LocalDate.now() + ".txt";
-                        break;
-                }
+                String filename = switch (selectedTab) {
+                    case 0 -> "student_report_" + java.time.LocalDate.now() + ".txt";
+                    case 1 -> "teacher_report_" + java.time.LocalDate.now() + ".txt";
+                    case 2 -> "course_report_" + java.time.LocalDate.now() + ".txt";
+                    default -> "system_report_" + java.time.LocalDate.now() + ".txt";
+                };
                 
-                try {
-                    java.nio.file.Files.write(
-                        java.nio.file.Paths.get(filename),
-                        report.getBytes()
-                    );
-                    JOptionPane.showMessageDialog(this,
-                        "Report exported successfully to:\n" + filename,
-                        "Export Successful",
-                        JOptionPane.INFORMATION_MESSAGE);
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(this,
-                        "Error exporting report: " + ex.getMessage(),
-                        "Export Failed",
-                        JOptionPane.ERROR_MESSAGE);
-                }
+                // التقرير يُكتب مباشرة إلى الملف في الخلفية؛ النجاح يُعلن بعد إغلاق الملف
+                exportButton.setEnabled(false);
+                new SwingWorker<Void, Void>() {
+                    @Override
+                    protected Void doInBackground() throws Exception {
+                        try (java.io.Writer out = java.nio.file.Files.newBufferedWriter(
+                                java.nio.file.Paths.get(filename), java.nio.charset.StandardCharsets.UTF_8)) {
+                            switch (selectedTab) {
+                                case 0 -> reportService.writeStudentStatisticsReport(out);
+                                case 1 -> reportService.writeTeacherStatisticsReport(out);
+                                case 2 -> reportService.writeCourseStatisticsReport(out);
+                                default -> reportService.writeSystemSummaryReport(out);
+                            }
+                        }
+                        return null;
+                    }
+                    
+                    @Override
+                    protected void done() {
+                        exportButton.setEnabled(true);
+                        try {
+                            get();
+                        } catch (InterruptedException | ExecutionException ex) {
+                            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                            Log.error("❌ Error exporting report: {}", cause.getMessage());
+                            JOptionPane.showMessageDialog(MainFrame.this,
+                                "Error exporting report: " + cause.getMessage(),
+                                "Export Failed",
+                                JOptionPane.ERROR_MESSAGE);
+                            return;
+                        }
+                        JOptionPane.showMessageDialog(MainFrame.this,
+                            "Report exported successfully to:\n" + filename,
+                            "Export Successful",
+                            JOptionPane.INFORMATION_MESSAGE);
+                    }
+                }.execute();
             });
             
             buttonPanel.add(exportButton);
@@ -431,7 +492,7 @@ public class MainFrame extends JFrame {
                 
         } catch (Exception e) {
             String errorMessage = "Error generating reports: " + e.getMessage();
-            System.err.println(errorMessage);
+            Log.error(errorMessage, e);
             
             JOptionPane.showMessageDialog(this,
                 "Could not generate reports.\n\n" +
@@ -446,7 +507,7 @@ public class MainFrame extends JFrame {
         JOptionPane.showMessageDialog(this,
             "System Settings\n\n" +
             "Current Configuration:\n" +
-            "• Database: SQLite (school_management.db)\n" +
+            "• Database: " + DatabaseConnection.getInstance().getDatabaseInfo() + "\n" +
             "• Students in DB: " + totalStudents + "\n" +
             "• Teachers in DB: " + totalTeachers + "\n" +
             "• System Version: Sprint 3.0\n" +
@@ -0,0 +1,276 @@
+package wmesaf.basicschool.gui;
+
+import wmesaf.basicschool.dao.ListingDAO;
+import wmesaf.basicschool.dao.ListingDAO.Listing;
+import wmesaf.basicschool.dao.ListingDAO.ListingRow;
+import wmesaf.basicschool.logging.Log;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
+
+/**
+ * Table model that reads its rows page by page from ListingDAO while the user scrolls.
+ *
+ * Only the row count is loaded up front. getValueAt on a row whose page is
+ * not loaded returns null and requests that page on a SwingWorker; when it
+ * arrives the rows are repainted. At most MAX_PAGES pages are kept, evicted
+ * in LRU order, so memory does not depend on the table size. Clicking a
+ * column header sorts by that column in SQL (again to reverse). A refresh,
+ * a new search or a sort drops every page; results of pages requested
+ * before that are discarded when they arrive.
+ *
+ * All state is touched on the Event Dispatch Thread only.
+ */
+final class PagedTableModel extends AbstractTableModel {
+    static final int PAGE_SIZE = 100;
+    static final int MAX_PAGES = 20;
+
+    private final ListingDAO listingDAO = new ListingDAO();
+    private final Listing listing;
+    private final String[] columnNames;
+    private final JProgressBar loadingBar;
+
+    private final Map<Integer, List<ListingRow>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<ListingRow>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    private final Set<Integer> pending = new HashSet<>();
+
+    private int rowCount;
+    private String filter;
+    private int sortColumn;
+    private boolean ascending = true;
+    // يزداد مع كل تحديث أو ترتيب؛ الصفحات المطلوبة قبله تُهمل عند وصولها
+    private int generation;
+
+    PagedTableModel(Listing listing, String[] columnNames) {
+        this.listing = listing;
+        this.columnNames = columnNames;
+        this.loadingBar = new JProgressBar();
+        loadingBar.setIndeterminate(true);
+        loadingBar.setStringPainted(true);
+        loadingBar.setString("Loading...");
+        loadingBar.setPreferredSize(new Dimension(120, 20));
+        loadingBar.setVisible(false);
+    }
+
+    /**
+     * شريط يظهر ما دام هناك عدد أو صفحة قيد التحميل.
+     */
+    JProgressBar getLoadingBar() {
+        return loadingBar;
+    }
+
+    /**
+     * Drops every loaded page and recounts the rows in the background.
+     *
+     * @param filter    search text, or null for all rows
+     * @param onCounted runs on the EDT with the new row count
+     */
+    void refresh(String filter, IntConsumer onCounted) {
+        this.filter = filter;
+        reset();
+        rowCount = 0;
+        fireTableDataChanged();
+
+        int requested = generation;
+        pending.add(-1);
+        updateLoadingBar();
+
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return listingDAO.count(listing, filter);
+            }
+
+            @Override
+            protected void done() {
+                if (requested != generation) {
+                    return;
+                }
+                pending.remove(-1);
+                updateLoadingBar();
+                try {
+                    rowCount = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    reportError(e);
+                    return;
+                }
+                fireTableDataChanged();
+                onCounted.accept(rowCount);
+            }
+        }.execute();
+    }
+
+    /**
+     * Sorts by the given model column; the same column again reverses the order.
+     */
+    void sortBy(int column) {
+        if (column == sortColumn) {
+            ascending = !ascending;
+        } else {
+            sortColumn = column;
+            ascending = true;
+        }
+        reset();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Cancels pending page loads; their results are discarded.
+     */
+    void cancel() {
+        reset();
+    }
+
+    /**
+     * Header clicks sort the table in SQL, and the sorted column shows its direction.
+     */
+    void installSortHeader(JTable table) {
+        JTableHeader header = table.getTableHeader();
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = table.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) {
+                    return;
+                }
+                sortBy(table.convertColumnIndexToModel(viewColumn));
+                for (int i = 0; i < table.getColumnCount(); i++) {
+                    TableColumn column = table.getColumnModel().getColumn(i);
+                    int modelColumn = column.getModelIndex();
+                    column.setHeaderValue(modelColumn == sortColumn
+                        ? columnNames[modelColumn] + (ascending ? " ▲" : " ▼")
+                        : columnNames[modelColumn]);
+                }
+                header.repaint();
+            }
+        });
+    }
+
+    /**
+     * Updates a value in the loaded pages only, e.g. after an enrollment changes a count.
+     */
+    void updateLoadedValue(Object key, int column, Object value) {
+        for (Map.Entry<Integer, List<ListingRow>> entry : pages.entrySet()) {
+            List<ListingRow> rows = entry.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).key().equals(key)) {
+                    rows.get(i).values()[column] = value;
+                    int row = entry.getKey() * PAGE_SIZE + i;
+                    fireTableCellUpdated(row, column);
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * @return the value, or null while the row's page is still loading
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        int page = row / PAGE_SIZE;
+        List<ListingRow> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int index = row % PAGE_SIZE;
+        return index < rows.size() ? rows.get(index).values()[column] : null;
+    }
+
+    private void requestPage(int page) {
+        if (!pending.add(page)) {
+            return;
+        }
+        updateLoadingBar();
+
+        // التمرير المتتابع يبدأ من آخر صف في الصفحة السابقة؛ القفز البعيد يستخدم OFFSET
+        List<ListingRow> previous = pages.get(page - 1);
+        ListingRow after = previous != null && previous.size() == PAGE_SIZE
+            ? previous.get(PAGE_SIZE - 1) : null;
+        int offset = page * PAGE_SIZE;
+        int requested = generation;
+        String requestedFilter = filter;
+        int requestedColumn = sortColumn;
+        boolean requestedAscending = ascending;
+
+        new SwingWorker<List<ListingRow>, Void>() {
+            @Override
+            protected List<ListingRow> doInBackground() {
+                return listingDAO.getPage(listing, requestedFilter, requestedColumn, requestedAscending,
+                                          after, offset, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                if (requested != generation) {
+                    return;
+                }
+                pending.remove(page);
+                updateLoadingBar();
+                try {
+                    pages.put(page, get());
+                } catch (InterruptedException | ExecutionException e) {
+                    reportError(e);
+                    return;
+                }
+                int first = offset;
+                int last = Math.min(rowCount, offset + PAGE_SIZE) - 1;
+                if (first <= last) {
+                    fireTableRowsUpdated(first, last);
+                }
+            }
+        }.execute();
+    }
+
+    private void reset() {
+        generation++;
+        pages.clear();
+        pending.clear();
+        updateLoadingBar();
+    }
+
+    private void updateLoadingBar() {
+        loadingBar.setVisible(!pending.isEmpty());
+    }
+
+    private static void reportError(Exception e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        Log.error("❌ Error loading table data: {}", cause.getMessage());
+    }
+}
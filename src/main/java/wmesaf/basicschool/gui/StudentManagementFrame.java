@@ -3,20 +3,20 @@ package wmesaf.basicschool.gui;
 import wmesaf.basicschool.business.StudentService;
 import wmesaf.basicschool.business.PersonFactory;
 import wmesaf.basicschool.model.Student;
+import wmesaf.basicschool.dao.ListingDAO.Listing;
+import wmesaf.basicschool.logging.Log;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.List;
 
 public class StudentManagementFrame extends JFrame {
     private StudentService studentService;
     private JTable studentTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel tableModel;
     private JTextField searchField;
+    private DebouncedSearch debouncedSearch;
     
     public StudentManagementFrame() {
         studentService = new StudentService();
@@ -45,7 +45,9 @@ public class StudentManagementFrame extends JFrame {
         JButton searchButton = new JButton("Search");
         searchButton.setBackground(new Color(52, 152, 219));
         searchButton.setForeground(Color.WHITE);
-        searchButton.addActionListener(e -> searchStudents());
+        searchButton.addActionListener(e -> searchStudents(true));
+        searchField.addActionListener(e -> searchStudents(true));
+        debouncedSearch = new DebouncedSearch(searchField, () -> searchStudents(false));
         
         searchPanel.add(new JLabel("Search:"));
         searchPanel.add(searchField);
@@ -72,14 +74,11 @@ public class StudentManagementFrame extends JFrame {
         
         // ========== TABLE ==========
         String[] columns = {"Student ID", "Name", "Grade", "Email", "Phone", "Enrollment Date"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new PagedTableModel(Listing.STUDENTS, columns);
+        searchPanel.add(tableModel.getLoadingBar());
         
         studentTable = new JTable(tableModel);
+        tableModel.installSortHeader(studentTable);
         studentTable.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         studentTable.setRowHeight(30);
         studentTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14));
@@ -132,61 +131,34 @@ public class StudentManagementFrame extends JFrame {
         return button;
     }
     
+    // يُحمل العدد فقط، والصفوف صفحةً صفحة أثناء التمرير (PagedTableModel)
     private void loadStudents() {
-        tableModel.setRowCount(0);
-        List<Student> students = studentService.getAllStudents();
-        
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
-        System.out.println("📊 Loading " + students.size() + " students...");
-        
-        for (Student student : students) {
-            Object[] row = {
-                student.getStudentId(),
-                student.getName(),
-                student.getGrade(),
-                student.getEmail(),
-                student.getPhone(),
-                student.getEnrollmentDate().format(formatter)
-            };
-            tableModel.addRow(row);
-        }
-        
         searchField.setText("");
+        debouncedSearch.cancel();
+        tableModel.refresh(null, count -> Log.debug("📊 Listing {} students", count));
     }
     
-    private void searchStudents() {
+    /**
+     * @param announce true for Enter or the Search button; typing searches silently
+     */
+    private void searchStudents(boolean announce) {
+        debouncedSearch.cancel();
         String searchTerm = searchField.getText().trim();
         if (searchTerm.isEmpty()) {
             loadStudents();
             return;
         }
         
-        tableModel.setRowCount(0);
-        List<Student> students = studentService.searchStudentsByName(searchTerm);
-        
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
-        if (students.isEmpty()) {
-            JOptionPane.showMessageDialog(this,
-                "No students found with name containing: " + searchTerm,
-                "Search Results",
-                JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            System.out.println("🔍 Found " + students.size() + " students matching: " + searchTerm);
-        }
-        
-        for (Student student : students) {
-            Object[] row = {
-                student.getStudentId(),
-                student.getName(),
-                student.getGrade(),
-                student.getEmail(),
-                student.getPhone(),
-                student.getEnrollmentDate().format(formatter)
-            };
-            tableModel.addRow(row);
-        }
+        tableModel.refresh(searchTerm, count -> {
+            if (count > 0) {
+                Log.debug("🔍 Found {} students matching: {}", count, searchTerm);
+            } else if (announce) {
+                JOptionPane.showMessageDialog(this,
+                    "No students found with name containing: " + searchTerm,
+                    "Search Results",
+                    JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
     }
     
     private void addStudent() {
@@ -315,7 +287,7 @@ public class StudentManagementFrame extends JFrame {
     
     private void editStudent() {
         int selectedRow = studentTable.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             JOptionPane.showMessageDialog(this,
                 "Please select a student to edit.",
                 "No Selection",
@@ -444,7 +416,7 @@ public class StudentManagementFrame extends JFrame {
     
     private void deleteStudent() {
         int selectedRow = studentTable.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             JOptionPane.showMessageDialog(this,
                 "Please select a student to delete.",
                 "No Selection",
@@ -492,6 +464,13 @@ public class StudentManagementFrame extends JFrame {
         }
     }
     
+    @Override
+    public void dispose() {
+        debouncedSearch.cancel();
+        tableModel.cancel();
+        super.dispose();
+    }
+    
     private void setupFrame() {
         setTitle("Student Management");
         setSize(1000, 600);
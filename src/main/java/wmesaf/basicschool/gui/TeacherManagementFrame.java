@@ -3,19 +3,19 @@ package wmesaf.basicschool.gui;
 import wmesaf.basicschool.business.TeacherService;
 import wmesaf.basicschool.business.PersonFactory;
 import wmesaf.basicschool.model.Teacher;
+import wmesaf.basicschool.dao.ListingDAO.Listing;
+import wmesaf.basicschool.logging.Log;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 public class TeacherManagementFrame extends JFrame {
     private TeacherService teacherService;
     private JTable teacherTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel tableModel;
     private JTextField searchField;
+    private DebouncedSearch debouncedSearch;
     
     public TeacherManagementFrame() {
         teacherService = new TeacherService();
@@ -44,7 +44,9 @@ public class TeacherManagementFrame extends JFrame {
         JButton searchButton = new JButton("Search");
         searchButton.setBackground(new Color(155, 89, 182));
         searchButton.setForeground(Color.WHITE);
-        searchButton.addActionListener(e -> searchTeachers());
+        searchButton.addActionListener(e -> searchTeachers(true));
+        searchField.addActionListener(e -> searchTeachers(true));
+        debouncedSearch = new DebouncedSearch(searchField, () -> searchTeachers(false));
         
         searchPanel.add(new JLabel("Search:"));
         searchPanel.add(searchField);
@@ -71,14 +73,11 @@ public class TeacherManagementFrame extends JFrame {
         
         // ========== TABLE ==========
         String[] columns = {"Teacher ID", "Name", "Subject", "Salary", "Email", "Hire Date"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new PagedTableModel(Listing.TEACHERS, columns);
+        searchPanel.add(tableModel.getLoadingBar());
         
         teacherTable = new JTable(tableModel);
+        tableModel.installSortHeader(teacherTable);
         teacherTable.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         teacherTable.setRowHeight(30);
         teacherTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14));
@@ -130,60 +129,32 @@ public class TeacherManagementFrame extends JFrame {
     }
     
     private void loadTeachers() {
-        tableModel.setRowCount(0);
-        List<Teacher> teachers = teacherService.getAllTeachers();
-        
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
-        System.out.println("📊 Loading " + teachers.size() + " teachers...");
-        
-        for (Teacher teacher : teachers) {
-            Object[] row = {
-                teacher.getTeacherId(),
-                teacher.getName(),
-                teacher.getSubject(),
-                String.format("$%.2f", teacher.getSalary()),
-                teacher.getEmail(),
-                teacher.getHireDate().format(formatter)
-            };
-            tableModel.addRow(row);
-        }
-        
         searchField.setText("");
+        debouncedSearch.cancel();
+        tableModel.refresh(null, count -> Log.debug("📊 Listing {} teachers", count));
     }
     
-    private void searchTeachers() {
+    /**
+     * @param announce true for Enter or the Search button; typing searches silently
+     */
+    private void searchTeachers(boolean announce) {
+        debouncedSearch.cancel();
         String searchTerm = searchField.getText().trim();
         if (searchTerm.isEmpty()) {
             loadTeachers();
             return;
         }
         
-        tableModel.setRowCount(0);
-        List<Teacher> teachers = teacherService.searchTeachersByName(searchTerm);
-        
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
-        if (teachers.isEmpty()) {
-            JOptionPane.showMessageDialog(this,
-                "No teachers found with name containing: " + searchTerm,
-                "Search Results",
-                JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            System.out.println("🔍 Found " + teachers.size() + " teachers matching: " + searchTerm);
-        }
-        
-        for (Teacher teacher : teachers) {
-            Object[] row = {
-                teacher.getTeacherId(),
-                teacher.getName(),
-                teacher.getSubject(),
-                String.format("$%.2f", teacher.getSalary()),
-                teacher.getEmail(),
-                teacher.getHireDate().format(formatter)
-            };
-            tableModel.addRow(row);
-        }
+        tableModel.refresh(searchTerm, count -> {
+            if (count > 0) {
+                Log.debug("🔍 Found {} teachers matching: {}", count, searchTerm);
+            } else if (announce) {
+                JOptionPane.showMessageDialog(this,
+                    "No teachers found with name containing: " + searchTerm,
+                    "Search Results",
+                    JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
     }
     
     private void addTeacher() {
@@ -334,7 +305,7 @@ public class TeacherManagementFrame extends JFrame {
     
     private void editTeacher() {
         int selectedRow = teacherTable.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             JOptionPane.showMessageDialog(this,
                 "Please select a teacher to edit.",
                 "No Selection",
@@ -444,7 +415,7 @@ public class TeacherManagementFrame extends JFrame {
     
     private void deleteTeacher() {
         int selectedRow = teacherTable.getSelectedRow();
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             JOptionPane.showMessageDialog(this,
                 "Please select a teacher to delete.",
                 "No Selection",
@@ -492,6 +463,13 @@ public class TeacherManagementFrame extends JFrame {
         }
     }
     
+    @Override
+    public void dispose() {
+        debouncedSearch.cancel();
+        tableModel.cancel();
+        super.dispose();
+    }
+    
     private void setupFrame() {
         setTitle("Teacher Management");
         setSize(1000, 600);
@@ -0,0 +1,190 @@
+package wmesaf.basicschool.logging;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Leveled application log written by a background thread.
+ *
+ * Callers only put an entry on a bounded queue; formatting and console I/O
+ * happen on the "school-log" daemon thread, so DAO and service calls never
+ * wait on the console. Messages use {} placeholders, filled in on that
+ * thread, and a message below the current level costs one comparison.
+ * When the queue is full the entry is dropped and counted rather than
+ * blocking the caller; the writer reports how many were lost.
+ *
+ * The level comes from -Dschool.log.level (DEBUG, INFO, WARN, ERROR or OFF,
+ * default INFO) and can be changed with setLevel. DEBUG and INFO go to
+ * System.out, WARN and ERROR to System.err, each looked up when the line
+ * is written so redirected streams are honoured.
+ */
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private record Entry(long millis, Level level, String thread, String pattern, Object[] args, Throwable error) { }
+
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private static final BlockingQueue<Entry> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final AtomicLong QUEUED = new AtomicLong();
+    private static final Object FLUSH_LOCK = new Object();
+    private static volatile Level level = parseLevel(System.getProperty("school.log.level", "INFO"));
+    // عدد الرسائل المكتوبة فعلاً؛ flush ينتظر حتى يلحق بـ QUEUED
+    private static volatile long written;
+
+    static {
+        Thread writer = new Thread(Log::drain, "school-log");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "school-log-flush"));
+    }
+
+    private Log() {
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0 && messageLevel != Level.OFF;
+    }
+
+    public static boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public static void debug(String pattern, Object... args) {
+        log(Level.DEBUG, pattern, args, null);
+    }
+
+    public static void info(String pattern, Object... args) {
+        log(Level.INFO, pattern, args, null);
+    }
+
+    public static void warn(String pattern, Object... args) {
+        log(Level.WARN, pattern, args, null);
+    }
+
+    public static void error(String pattern, Object... args) {
+        log(Level.ERROR, pattern, args, null);
+    }
+
+    /**
+     * خطأ مع تتبع الاستثناء كاملاً
+     */
+    public static void error(String message, Throwable error) {
+        log(Level.ERROR, message, null, error);
+    }
+
+    private static void log(Level messageLevel, String pattern, Object[] args, Throwable error) {
+        if (!isEnabled(messageLevel)) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), messageLevel, Thread.currentThread().getName(),
+                                pattern, args, error);
+        if (QUEUE.offer(entry)) {
+            QUEUED.incrementAndGet();
+        } else {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    /**
+     * Waits until every message logged so far has been written, for at most two seconds.
+     */
+    public static void flush() {
+        long target = QUEUED.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        synchronized (FLUSH_LOCK) {
+            while (written < target && System.nanoTime() < deadline) {
+                try {
+                    FLUSH_LOCK.wait(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    public static long getDroppedCount() {
+        return DROPPED.get();
+    }
+
+    private static void drain() {
+        while (true) {
+            Entry entry;
+            try {
+                entry = QUEUE.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            long count = 0;
+            do {
+                write(entry);
+                count++;
+            } while ((entry = QUEUE.poll()) != null);
+
+            long dropped = DROPPED.getAndSet(0);
+            if (dropped > 0) {
+                System.err.println("⚠️ " + dropped + " log messages dropped (log queue full)");
+            }
+            written += count;
+            synchronized (FLUSH_LOCK) {
+                FLUSH_LOCK.notifyAll();
+            }
+        }
+    }
+
+    private static void write(Entry entry) {
+        PrintStream out = entry.level().compareTo(Level.WARN) >= 0 ? System.err : System.out;
+        String time = LocalTime.ofInstant(Instant.ofEpochMilli(entry.millis()), ZoneId.systemDefault()).format(TIME);
+        out.println(time + " " + String.format("%-5s", entry.level()) + " [" + entry.thread() + "] "
+                    + format(entry.pattern(), entry.args()));
+        if (entry.error() != null) {
+            entry.error().printStackTrace(out);
+        }
+    }
+
+    /**
+     * يستبدل كل {} بالمعامل التالي بالترتيب
+     */
+    static String format(String pattern, Object[] args) {
+        if (args == null || args.length == 0) {
+            return pattern;
+        }
+        StringBuilder text = new StringBuilder(pattern.length() + 16 * args.length);
+        int from = 0;
+        int next = 0;
+        int at;
+        while (next < args.length && (at = pattern.indexOf("{}", from)) >= 0) {
+            text.append(pattern, from, at).append(args[next++]);
+            from = at + 2;
+        }
+        return text.append(pattern, from, pattern.length()).toString();
+    }
+
+    private static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️ Unknown log level '" + name + "', using INFO");
+            return Level.INFO;
+        }
+    }
+}